@@ -0,0 +1,78 @@
+package project.arena;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import project.Player;
+import project.control.ArenaManager;
+import project.entity.ArenaObjectFactory;
+import project.entity.ArenaObjectFactory.TowerType;
+
+/**
+ * Measures the speed of running an {@link ArenaInstance} without a UI controller.
+ * <p>
+ * The measurements are kept out of the tests, which only check the results. They are run with <code>gradle benchmark</code>,
+ * and cases can be selected by passing their names, such as <code>gradle benchmark -Pcases=frames</code>.
+ */
+public final class SimulationBenchmark {
+
+    /**
+     * The number of frames processed before the frames are timed.
+     */
+    private static final int NUM_WARMUP_FRAMES = 200;
+
+    /**
+     * The number of timed frames.
+     */
+    private static final int NUM_FRAMES = 1000;
+
+    /**
+     * The cases, by name.
+     */
+    private static final Map<String, Runnable> cases = new LinkedHashMap<>();
+    static {
+        cases.put("frames", SimulationBenchmark::frames);
+    }
+
+    /**
+     * Utility class should not be instantiated.
+     */
+    private SimulationBenchmark() {}
+
+    /**
+     * Runs the selected cases.
+     * @param args The names of the cases to run, or none to run every case.
+     */
+    public static void main(String[] args) {
+        List<String> selected = Arrays.asList(args);
+        for (Map.Entry<String, Runnable> entry : cases.entrySet()) {
+            if (selected.isEmpty() || selected.contains(entry.getKey())) entry.getValue().run();
+        }
+    }
+
+    /**
+     * Measures the number of frames processed per second on a headless arena with towers along the path of the monsters.
+     */
+    private static void frames() {
+        ArenaManager.loadHeadless(new HeadlessArenaRenderer(), new Player("headless", 1000));
+        ArenaInstance arenaInstance = ArenaManager.getActiveArenaInstance();
+        try {
+            for (short x = 100; x <= 340; x += 80) {
+                ArenaObjectFactory.createTower(SimulationBenchmark.class, TowerType.BASIC, x, (short) 60);
+            }
+
+            for (int i = 0; i < NUM_WARMUP_FRAMES; i++) arenaInstance.processNextFrame(SimulationBenchmark.class);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < NUM_FRAMES; i++) arenaInstance.processNextFrame(SimulationBenchmark.class);
+            long elapsed = System.nanoTime() - start;
+
+            System.out.println(String.format("Headless simulation: %.0f frames per second, %d monsters at the end",
+                    NUM_FRAMES / (elapsed / 1e9), arenaInstance.getStorage().getMonsters().size()));
+        } finally {
+            arenaInstance.dispose();
+        }
+    }
+}
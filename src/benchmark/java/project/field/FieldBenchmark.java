@@ -0,0 +1,311 @@
+package project.field;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import project.util.ArrayKernels;
+
+/**
+ * Measures the running time of the field solvers on a grid the size of the arena.
+ * <p>
+ * The measurements are kept out of the tests, which only check the results. They are run with <code>gradle benchmark</code>,
+ * and cases can be selected by passing their names, such as <code>gradle benchmark -Pcases=solve</code>.
+ * Each case is run a few times to warm up before its runs are timed, and the median time of the runs is reported.
+ */
+public final class FieldBenchmark {
+
+    /**
+     * The number of points along each side of the grid.
+     */
+    private static final int SIZE = 481;
+
+    /**
+     * The number of runs of a case before it is timed.
+     */
+    private static final int NUM_WARMUP_RUNS = 5;
+
+    /**
+     * The number of timed runs of a case.
+     */
+    private static final int NUM_RUNS = 11;
+
+    /**
+     * The cases, by name.
+     */
+    private static final Map<String, Runnable> cases = new LinkedHashMap<>();
+    static {
+        cases.put("solve", FieldBenchmark::solve);
+        cases.put("repair", FieldBenchmark::repair);
+        cases.put("parallel", FieldBenchmark::parallel);
+        cases.put("range", FieldBenchmark::range);
+        cases.put("hierarchical", FieldBenchmark::hierarchical);
+        cases.put("goals", FieldBenchmark::goals);
+        cases.put("placement", FieldBenchmark::placement);
+    }
+
+    /**
+     * Utility class should not be instantiated.
+     */
+    private FieldBenchmark() {}
+
+    /**
+     * Runs the selected cases.
+     * @param args The names of the cases to run, or none to run every case.
+     */
+    public static void main(String[] args) {
+        List<String> selected = Arrays.asList(args);
+        for (Map.Entry<String, Runnable> entry : cases.entrySet()) {
+            if (selected.isEmpty() || selected.contains(entry.getKey())) entry.getValue().run();
+        }
+    }
+
+    /**
+     * Returns the median running time of an action.
+     * @param action The action.
+     * @return The median running time in milliseconds.
+     */
+    private static double time(Runnable action) {
+        return time(() -> {}, action);
+    }
+
+    /**
+     * Returns the median running time of an action, which is preceded by a setup that is not timed.
+     * @param setup The setup, which puts back the state that the action starts from.
+     * @param action The action.
+     * @return The median running time in milliseconds.
+     */
+    private static double time(Runnable setup, Runnable action) {
+        for (int n = 0; n < NUM_WARMUP_RUNS; n++) {
+            setup.run();
+            action.run();
+        }
+
+        long[] elapsed = new long[NUM_RUNS];
+        for (int n = 0; n < NUM_RUNS; n++) {
+            setup.run();
+            long start = System.nanoTime();
+            action.run();
+            elapsed[n] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(elapsed);
+        return elapsed[NUM_RUNS / 2] / 1e6;
+    }
+
+    /**
+     * Prints the result of a case.
+     * @param name The name of the case.
+     * @param format The format of the result.
+     * @param args The values in the result.
+     */
+    private static void report(String name, String format, Object... args) {
+        System.out.println(String.format("%dx%d %s: %s", SIZE, SIZE, name, String.format(format, args)));
+    }
+
+    /**
+     * Compares the breadth-first search for uniform costs with the binary heap for weighted costs,
+     * on a grid with a wall across most of it.
+     */
+    private static void solve() {
+        GridFieldSolver solver = new GridFieldSolver(SIZE, SIZE);
+        boolean[] blocked = new boolean[solver.getSize()];
+        for (int x = 40; x < 440; x++) blocked[solver.indexOf(x, 200)] = true;
+        int[] sources = { solver.indexOf(460, 20) };
+
+        int[] distances = new int[solver.getSize()];
+        int[] parents = new int[solver.getSize()];
+        float[] floatDistances = new float[solver.getSize()];
+        float[] floatWeights = new float[solver.getSize()];
+
+        report("solve", "BFS %.2f ms, binary heap %.2f ms",
+                time(() -> solver.solve(distances, parents, blocked, sources)),
+                time(() -> solver.solve(floatDistances, parents, blocked, floatWeights, 1, sources)));
+    }
+
+    /**
+     * Compares repairing a distance field after a tower grid is added near the end zone, where many shortest paths pass,
+     * and after it is removed again, with solving the whole field.
+     */
+    private static void repair() {
+        GridFieldSolver solver = new GridFieldSolver(SIZE, SIZE);
+        boolean[] blocked = new boolean[solver.getSize()];
+        int[] sources = { solver.indexOf(460, 20) };
+        int[] distances = new int[solver.getSize()], parents = new int[solver.getSize()];
+        solver.solve(distances, parents, blocked, sources);
+
+        int[] changed = new int[40 * 40];
+        int numChanged = 0;
+        for (int x = 400; x < 440; x++) {
+            for (int y = 40; y < 80; y++) changed[numChanged++] = solver.indexOf(x, y);
+        }
+        Runnable add = () -> {
+            for (int index : changed) blocked[index] = true;
+            solver.repair(distances, parents, blocked, changed, changed.length);
+        };
+        Runnable remove = () -> {
+            for (int index : changed) blocked[index] = false;
+            solver.repair(distances, parents, blocked, changed, changed.length);
+        };
+
+        report("repair", "add %.2f ms, remove %.2f ms, full solve %.2f ms",
+                time(remove, add), time(add, remove), time(() -> solver.solve(distances, parents, blocked, sources)));
+    }
+
+    /**
+     * Compares the sequential and the tiled parallel solver on a full recalculation of a weighted field,
+     * with pools of one thread up to twice the number of processors.
+     */
+    private static void parallel() {
+        Random rng = new Random(3111);
+        GridFieldSolver solver = new GridFieldSolver(SIZE, SIZE);
+        boolean[] blocked = new boolean[solver.getSize()];
+        for (int x = 40; x < 440; x++) blocked[solver.indexOf(x, 200)] = true;
+        float[] weights = new float[solver.getSize()];
+        for (int i = 0; i < weights.length; i++) weights[i] = rng.nextInt(8) == 0 ? rng.nextFloat() : 0;
+        int[] sources = { solver.indexOf(460, 20) };
+
+        int[] parents = new int[solver.getSize()];
+        float[] distances = new float[solver.getSize()];
+
+        report("parallel", "sequential %.2f ms, %d available processors",
+                time(() -> solver.solve(distances, parents, blocked, weights, 0.001f, sources)), Runtime.getRuntime().availableProcessors());
+        for (int parallelism = 1; parallelism <= 2 * Runtime.getRuntime().availableProcessors() || parallelism <= 4; parallelism *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                ParallelGridFieldSolver parallelSolver = new ParallelGridFieldSolver(SIZE, SIZE, ParallelGridFieldSolver.DEFAULT_TILE_SIZE, pool);
+                report("parallel", "parallel %.2f ms with %d threads",
+                        time(() -> parallelSolver.solve(distances, parents, blocked, weights, 0.001f, sources)), parallelism);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Compares the unrolled kernel that finds the finite range of a field for the heat map with the plain loop it replaces.
+     */
+    private static void range() {
+        Random rng = new Random(3111);
+        double[] values = new double[SIZE * SIZE];
+        for (int i = 0; i < values.length; i++) values[i] = rng.nextInt(20) == 0 ? Double.POSITIVE_INFINITY : rng.nextGaussian() * 1000;
+        double[] range = new double[2];
+
+        report("range", "plain loop %.3f ms, kernel %.3f ms",
+                time(() -> {
+                    for (double value : values) {
+                        if (value != Double.POSITIVE_INFINITY && value != Double.NEGATIVE_INFINITY) {
+                            if (value < range[0]) range[0] = value;
+                            if (value > range[1]) range[1] = value;
+                        }
+                    }
+                }),
+                time(() -> ArrayKernels.findFiniteRange(values, 0, values.length, range)));
+    }
+    /**
+     * Compares updating the hierarchical paths after three tower grids are added, and after they are removed again,
+     * with rebuilding the paths.
+     */
+    private static void hierarchical() {
+        boolean[] blocked = new boolean[SIZE * SIZE];
+        int goal = 460 * SIZE + 20;
+        HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(SIZE, SIZE, 120, goal, blocked);
+        pathfinder.rebuild();
+
+        int[] changed = new int[3 * 40 * 40];
+        int numChanged = 0;
+        for (int gridX : new int[] { 120, 240, 360 }) {
+            for (int x = gridX; x < gridX + 40; x++) {
+                for (int y = 200; y < 240; y++) changed[numChanged++] = x * SIZE + y;
+            }
+        }
+        Runnable add = () -> {
+            for (int index : changed) blocked[index] = true;
+            pathfinder.update(changed, changed.length);
+        };
+        Runnable remove = () -> {
+            for (int index : changed) blocked[index] = false;
+            pathfinder.update(changed, changed.length);
+        };
+
+        report("hierarchical", "add %.2f ms, remove %.2f ms, rebuild %.2f ms",
+                time(remove, add), time(add, remove), time(pathfinder::rebuild));
+    }
+    /**
+     * Compares one pass from three end zones, which labels each point with its nearest end zone,
+     * with one pass per end zone and the minimum of them. The flow field that both need is not timed.
+     */
+    private static void goals() {
+        Random rng = new Random(3111);
+        GridFieldSolver solver = new GridFieldSolver(SIZE, SIZE);
+        boolean[] blocked = new boolean[solver.getSize()];
+        for (int i = 0; i < 40; i++) {
+            int gridX = rng.nextInt(12) * 40, gridY = rng.nextInt(12) * 40;
+            for (int x = gridX; x < gridX + 40; x++) for (int y = gridY; y < gridY + 40; y++) blocked[solver.indexOf(x, y)] = true;
+        }
+        int[] goals = { solver.indexOf(460, 20), solver.indexOf(20, 460), solver.indexOf(240, 260) };
+        for (int goal : goals) blocked[goal] = false;
+
+        int[] values = new int[solver.getSize()], parents = new int[solver.getSize()], path = new int[solver.getSize()];
+        int[] minimum = new int[solver.getSize()];
+        int[][] valuesPerGoal = new int[goals.length][solver.getSize()];
+        FlowField.Table table = FlowField.newTable();
+
+        // The passes per goal are timed first, as they warm up the solver more than the single pass does
+        double separate = time(() -> {
+            for (int i = 0; i < goals.length; i++) solver.solve(valuesPerGoal[i], parents, blocked, new int[] { goals[i] });
+            for (int index = 0; index < minimum.length; index++) {
+                minimum[index] = valuesPerGoal[0][index];
+                for (int i = 1; i < goals.length; i++) minimum[index] = Math.min(minimum[index], valuesPerGoal[i][index]);
+            }
+        });
+        double solve = time(() -> solver.solve(values, parents, blocked, goals));
+        FlowField.derive(values, table);
+        double label = time(() -> FlowField.deriveGoals(table, goals, path));
+
+        report("goals", "one pass from %d goals %.2f ms + labels %.2f ms, one pass per goal %.2f ms", goals.length, solve, label, separate);
+    }
+    /**
+     * Compares evaluating every free grid as the place of a new tower with solving both fields again for each of them,
+     * on an arena where a fifth of the grids have towers. The full solves are timed once and multiplied by the number of candidates.
+     */
+    private static void placement() {
+        final int NUM_GRIDS = 12;
+
+        Random rng = new Random(3111);
+        GridFieldSolver solver = new GridFieldSolver(SIZE, SIZE);
+        boolean[] blocked = new boolean[solver.getSize()];
+        boolean[] isCandidateGrid = new boolean[NUM_GRIDS * NUM_GRIDS];
+        float[] weights = new float[solver.getSize()];
+        int numCandidates = 0;
+        for (int gridX = 0; gridX < NUM_GRIDS; gridX++) {
+            for (int gridY = 0; gridY < NUM_GRIDS; gridY++) {
+                if ((gridX == 0 && gridY == 0) || (gridX == 11 && gridY == 0)) continue; // The start and the end zone
+
+                if (rng.nextInt(5) == 0) {
+                    for (int x = gridX * 40; x < gridX * 40 + 40; x++) for (int y = gridY * 40; y < gridY * 40 + 40; y++) blocked[solver.indexOf(x, y)] = true;
+                    PlacementEvaluator.addRing(weights, 1f / (1 + rng.nextInt(20)), (short) (gridX * 40 + 20), (short) (gridY * 40 + 20),
+                            (short) 0, (short) (50 + rng.nextInt(100)));
+                } else {
+                    isCandidateGrid[gridX * NUM_GRIDS + gridY] = true;
+                    numCandidates++;
+                }
+            }
+        }
+
+        PlacementEvaluator evaluator = new PlacementEvaluator();
+        int[] sources = { solver.indexOf(460, 20) };
+        int[] distances = new int[solver.getSize()], parents = new int[solver.getSize()];
+        float[] attacks = new float[solver.getSize()];
+
+        report("placement", "%d candidates %.2f ms, full solves %.2f ms", numCandidates,
+                time(() -> evaluator.evaluate(blocked, weights, isCandidateGrid, 0.05f, (short) 20, (short) 100)),
+                numCandidates * time(() -> {
+                    solver.solve(distances, parents, blocked, sources);
+                    solver.solve(attacks, parents, blocked, weights, MonsterAttacksToEndField.MOVEMENT_COST, sources);
+                }));
+    }
+}
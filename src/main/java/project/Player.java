@@ -2,11 +2,11 @@ package project;
 
 import javax.persistence.*;
 
-import javafx.application.Platform;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import project.arena.ArenaEventRegister;
 import project.arena.ArenaInstance;
+import project.control.ArenaManager;
 import project.entity.ArenaObject;
 import project.entity.Monster;
 import project.entity.Projectile;
@@ -85,14 +85,26 @@ public class Player {
         this.resources.set(resource);
     }
 
+    /**
+     * Returns a copy of the name, resources and score of the player, which is not attached to any arena.
+     * Changes to the player do not affect the copy, so it can be read on another thread.
+     * @return A copy of the player.
+     */
+    public Player snapshot() {
+        Player copy = new Player(name, resources.get());
+        copy.id = id;
+        copy.score.set(score.get());
+        return copy;
+    }
+
     /**
      * Attaches the player to an arena instance so that it can receive events.
      * @param arenaInstance The arena instanceto attach to.
      */
     public void attachToArena(ArenaInstance arenaInstance) {
         ArenaEventRegister register = arenaInstance.getEventRegister();
-        register.ARENA_OBJECT_ADD.subscribe(onAddObject);
-        register.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject);
+        register.ARENA_OBJECT_ADD.subscribe(onAddObject, arenaInstance.getSubscriptions());
+        register.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject, arenaInstance.getSubscriptions());
     }
 
     /**
@@ -152,7 +164,7 @@ public class Player {
      * @param amount amount of resources to reduce.
      */
     public void spendResources(int amount) {
-        Platform.runLater(() -> {
+        ArenaManager.getActiveRenderer().runOnRenderThread(() -> {
             resources.set(Math.max(0, resources.get() - amount));
         });
     }
@@ -162,7 +174,7 @@ public class Player {
      * @param amount amount of resources to increase.
      */
     public void receiveResources(int amount) {
-        Platform.runLater(() -> {
+        ArenaManager.getActiveRenderer().runOnRenderThread(() -> {
             resources.set(resources.get() + amount);
         });
     }
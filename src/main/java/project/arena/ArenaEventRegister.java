@@ -20,48 +20,148 @@ public final class ArenaEventRegister {
     /**
      * The arena is processing its next frame.
      */
-    public final EventManager<EventArgs> ARENA_NEXT_FRAME = new EventManager<>();
+    public final EventManager<EventArgs> ARENA_NEXT_FRAME = new EventManager<>("ARENA_NEXT_FRAME");
 
     /**
      * The arena has finished processing its next frame.
      */
-    public final EventManager<EventArgs> ARENA_NEXT_FRAME_END = new EventManager<>();
+    public final EventManager<EventArgs> ARENA_NEXT_FRAME_END = new EventManager<>("ARENA_NEXT_FRAME_END");
 
     /**
      * Gameover has occurred.
      */
-    public final EventManager<EventArgs> ARENA_GAME_OVER = new EventManager<>();
+    public final EventManager<ArenaGameOverEventArgs> ARENA_GAME_OVER = new EventManager<>("ARENA_GAME_OVER");
 
     /**
      * An {@link ArenaObject} of any type is being added to the arena.
      * The object is assumed to be fully initialized.
      */
-    public final EventManager<ArenaObjectEventArgs> ARENA_OBJECT_ADD = new EventManager<>();
+    public final EventManager<ArenaObjectEventArgs> ARENA_OBJECT_ADD = new EventManager<>("ARENA_OBJECT_ADD");
 
     /**
      * An {@link ArenaObject} of any type is being removed from the arena.
      * The object is assumed to be ready for disposal.
      */
-    public final EventManager<ArenaObjectEventArgs> ARENA_OBJECT_REMOVE = new EventManager<>();
+    public final EventManager<ArenaObjectEventArgs> ARENA_OBJECT_REMOVE = new EventManager<>("ARENA_OBJECT_REMOVE");
 
     /**
      * An {@link ArenaObject} of any type is scheduled to be moved to another location within the arena.
      */
-    public final EventManager<ArenaObjectEventArgs> ARENA_OBJECT_MOVE_START = new EventManager<>();
+    public final EventManager<ArenaObjectEventArgs> ARENA_OBJECT_MOVE_START = new EventManager<>("ARENA_OBJECT_MOVE_START");
 
     /**
      * An {@link ArenaObject} of any type has been moved to another location within the arena.
      */
-    public final EventManager<ArenaObjectEventArgs> ARENA_OBJECT_MOVE_END = new EventManager<>();
+    public final EventManager<ArenaObjectEventArgs> ARENA_OBJECT_MOVE_END = new EventManager<>("ARENA_OBJECT_MOVE_END");
+
+    /**
+     * Multiple {@link ArenaObject}s of any type have been moved to other locations within the arena.
+     * <p>
+     * While a move batch is open (see {@link #beginMoveBatch()}), moves are collected here
+     * instead of invoking {@link #ARENA_OBJECT_MOVE_START} and {@link #ARENA_OBJECT_MOVE_END} for each of them.
+     */
+    public final EventManager<ArenaObjectMoveBatchEventArgs> ARENA_OBJECT_MOVE_BATCH = new EventManager<>("ARENA_OBJECT_MOVE_BATCH");
 
     /**
      * A {@link Tower} of any type is scheduled to be upgraded in the arena.
      */
-    public final EventManager<ArenaTowerEventArgs> ARENA_TOWER_UPGRADE_START = new EventManager<>();
+    public final EventManager<ArenaTowerEventArgs> ARENA_TOWER_UPGRADE_START = new EventManager<>("ARENA_TOWER_UPGRADE_START");
 
     /**
      * A {@link Tower} of any type has been upgraded in the arena.
      */
-    public final EventManager<ArenaTowerEventArgs> ARENA_TOWER_UPGRADE_END = new EventManager<>();
+    public final EventManager<ArenaTowerEventArgs> ARENA_TOWER_UPGRADE_END = new EventManager<>("ARENA_TOWER_UPGRADE_END");
+
+    /**
+     * Reusable arguments for the events about an {@link ArenaObject}.
+     */
+    public final EventArgsPool<ArenaObjectEventArgs> OBJECT_EVENT_ARGS = new EventArgsPool<>(ArenaObjectEventArgs::new);
+
+    /**
+     * Reusable arguments for the events about a {@link Tower}.
+     */
+    public final EventArgsPool<ArenaTowerEventArgs> TOWER_EVENT_ARGS = new EventArgsPool<>(ArenaTowerEventArgs::new);
+
+    /**
+     * Reusable arguments for {@link #ARENA_GAME_OVER}.
+     */
+    public final EventArgsPool<ArenaGameOverEventArgs> GAME_OVER_EVENT_ARGS = new EventArgsPool<>(ArenaGameOverEventArgs::new);
+
+    /**
+     * Reusable arguments for {@link #ARENA_OBJECT_MOVE_BATCH}.
+     */
+    private final EventArgsPool<ArenaObjectMoveBatchEventArgs> moveBatchEventArgs = new EventArgsPool<>(ArenaObjectMoveBatchEventArgs::new);
+
+    /**
+     * The moves that have not been delivered yet.
+     */
+    private ArenaObjectMoveBatchEventArgs pendingMoves = moveBatchEventArgs.acquire();
+
+    /**
+     * The number of move batches that are currently open.
+     */
+    private int moveBatchDepth = 0;
+
+    /**
+     * Opens a move batch. Batches may be nested, and the moves are delivered when the outermost one is closed.
+     */
+    public void beginMoveBatch() {
+        moveBatchDepth++;
+    }
+
+    /**
+     * Closes a move batch, delivering the pending moves if it is the outermost one.
+     * @param sender The sender of {@link #ARENA_OBJECT_MOVE_BATCH}.
+     */
+    public void endMoveBatch(Object sender) {
+        assert moveBatchDepth > 0;
+
+        if (--moveBatchDepth == 0) flushMoveBatch(sender);
+    }
+
+    /**
+     * Returns whether a move batch is open.
+     * @return Whether a move batch is open.
+     */
+    public boolean isBatchingMoves() { return moveBatchDepth > 0; }
+
+    /**
+     * Defers the delivery of a move until the pending moves are flushed.
+     * @param subject The object that was moved.
+     * @param oldX The x-coordinate of the object before the move.
+     * @param oldY The y-coordinate of the object before the move.
+     * @param newX The x-coordinate of the object after the move.
+     * @param newY The y-coordinate of the object after the move.
+     */
+    public void deferMove(ArenaObject subject, short oldX, short oldY, short newX, short newY) {
+        pendingMoves.add(subject, oldX, oldY, newX, newY);
+    }
+
+    /**
+     * Returns the moves that have not been delivered yet, so that a subscriber can bring its state up to date during a frame
+     * without delivering them. The moves are delivered in the same object later, and must not be modified.
+     * @return The moves that have not been delivered yet.
+     */
+    public ArenaObjectMoveBatchEventArgs getPendingMoves() { return pendingMoves; }
+
+    /**
+     * Delivers the pending moves, if any, via {@link #ARENA_OBJECT_MOVE_BATCH}.
+     * This is done when an object is added or removed, so that subscribers handle the event with up-to-date locations.
+     * Reads made during a frame should not call this, or the moves of the frame are no longer delivered in one batch.
+     * @param sender The sender of {@link #ARENA_OBJECT_MOVE_BATCH}.
+     */
+    public void flushMoveBatch(Object sender) {
+        if (pendingMoves.size == 0) return;
+
+        // Swap in another batch so that moves made by subscribers are not lost
+        ArenaObjectMoveBatchEventArgs batch = pendingMoves;
+        pendingMoves = moveBatchEventArgs.acquire();
+
+        try {
+            ARENA_OBJECT_MOVE_BATCH.invoke(sender, batch);
+        } finally {
+            moveBatchEventArgs.release(batch);
+        }
+    }
 
 }
\ No newline at end of file
@@ -1,25 +1,23 @@
 package project.arena;
 
 import java.util.EnumSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 
-import javafx.scene.image.Image;
-
 import project.Player;
 import project.control.ArenaManager;
 import project.entity.*;
 import project.entity.ArenaObjectFactory.MonsterType;
 import project.event.EventHandler;
 import project.event.EventManager;
+import project.event.SubscriptionGroup;
+import project.event.eventargs.ArenaGameOverEventArgs;
 import project.event.eventargs.ArenaObjectEventArgs;
 import project.event.eventargs.EventArgs;
-import project.query.ArenaObjectGridSelector;
-import project.query.ArenaObjectPropertySelector;
+import project.field.PlacementEvaluator;
 import project.query.ArenaObjectRectangleSelector;
 import project.query.ArenaObjectStorage;
 import project.query.ArenaObjectStorage.StoredType;
@@ -32,6 +30,11 @@ import project.query.ArenaObjectStorage.StoredType;
 @Entity(name="ArenaInstance")
 public final class ArenaInstance {
 
+    /**
+     * The number of frames before each wave of monsters at which the scalar fields begin to be recalculated.
+     */
+    private static final int FIELD_WARM_UP_FRAMES = 10;
+
     /**
      * ID for storage using Java Persistence API
      */
@@ -52,6 +55,12 @@ public final class ArenaInstance {
     @Transient
     private ArenaEventRegister eventRegister;
 
+    /**
+     * The subscriptions made by the arena and the objects attached to it, which are closed when the arena is disposed.
+     */
+    @Transient
+    private SubscriptionGroup subscriptions = new SubscriptionGroup();
+
     /**
      * The register of (@link ArenaScalarField}s attached to the arena.
      */
@@ -75,14 +84,18 @@ public final class ArenaInstance {
      */
     private double difficulty = 1;
 
+    /**
+     * The random number generator that decides the size and the monsters of each wave.
+     */
+    @Transient
+    private Random rng = new Random();
+
     /**
      * The method invoked when an {@link ArenaObject} is being added.
      */
     @Transient
     private EventHandler<ArenaObjectEventArgs> onAddObject = (sender, args) -> {
-        ArenaObject subject = args.subject;
-
-        ArenaManager.getActiveUIController().addToPane(subject.getImageView());
+        ArenaManager.getActiveRenderer().addObject(args.subject);
     };
 
     /**
@@ -92,12 +105,11 @@ public final class ArenaInstance {
     private EventHandler<ArenaObjectEventArgs> onRemoveObject = (sender, args) -> {
         ArenaObject subject = args.subject;
 
-        ArenaManager.getActiveUIController().removeFromPane(subject.getImageView());
+        ArenaManager.getActiveRenderer().removeObject(subject);
 
         // Draw monster explosion
         if (subject instanceof Monster) {
-            Image img = new Image("/collision.png", ArenaManager.GRID_WIDTH / 4, ArenaManager.GRID_WIDTH / 4, true, true);
-            ArenaManager.getActiveUIController().drawImage(img, subject.getX(), subject.getY(), Monster.DEATH_DISPLAY_DURATION);
+            ArenaManager.getActiveRenderer().drawExplosion(subject.getX(), subject.getY(), Monster.DEATH_DISPLAY_DURATION);
         }
     };
 
@@ -108,15 +120,42 @@ public final class ArenaInstance {
      */
     @Transient
     private EventHandler<EventArgs> onEndNextFrame = (sender, args) -> {
-        if (currentFrame++ % ArenaManager.WAVE_INTERVAL == 0) spawnWave();
+        int frame = currentFrame++;
+        if (frame % ArenaManager.WAVE_INTERVAL == ArenaManager.WAVE_INTERVAL - FIELD_WARM_UP_FRAMES) scalarFieldRegister.beginWarmUp();
+        if (frame % ArenaManager.WAVE_INTERVAL == 0) {
+            spawnWave();
+            scalarFieldRegister.endWarmUp();
+        }
 
-        ArenaObjectRectangleSelector selector = new ArenaObjectRectangleSelector(ArenaManager.END_X, ArenaManager.END_Y, (short) 0, (short) 0);
-        List<ArenaObject> result = storage.getQueryResult(selector, EnumSet.of(StoredType.MONSTER));
-        if (!result.isEmpty()) {
-            ArenaManager.getActiveEventRegister().ARENA_GAME_OVER.invoke(this, new EventArgs());
+        if (isEndZoneReached()) {
+            ArenaEventRegister register = ArenaManager.getActiveEventRegister();
+            ArenaGameOverEventArgs gameOverArgs = register.GAME_OVER_EVENT_ARGS.acquire();
+            gameOverArgs.player = player.snapshot();
+            gameOverArgs.score = gameOverArgs.player.getScore();
+
+            try {
+                register.ARENA_GAME_OVER.invoke(this, gameOverArgs);
+            } finally {
+                register.GAME_OVER_EVENT_ARGS.release(gameOverArgs);
+            }
         }
     };
 
+    /**
+     * Returns whether a monster has reached any of the end zones of the scalar fields.
+     * @return Whether the game is over.
+     */
+    private boolean isEndZoneReached() {
+        for (int goal = 0; goal < scalarFieldRegister.getNumGoals(); goal++) {
+            ArenaObjectRectangleSelector selector = new ArenaObjectRectangleSelector(
+                    scalarFieldRegister.getGoalX(goal), scalarFieldRegister.getGoalY(goal), (short) 0, (short) 0);
+            List<ArenaObject> result = storage.getQueryResult(selector, EnumSet.of(StoredType.MONSTER));
+            if (!result.isEmpty()) return true;
+        }
+
+        return false;
+    }
+
     /**
      * Default constructor.
      */
@@ -128,39 +167,24 @@ public final class ArenaInstance {
     @PostLoad
     protected void loadArenaInstance() {
         eventRegister = new ArenaEventRegister();
-        eventRegister.ARENA_OBJECT_ADD.subscribe(onAddObject);
-        eventRegister.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject);
-        eventRegister.ARENA_NEXT_FRAME_END.subscribe(onEndNextFrame);
+        eventRegister.ARENA_OBJECT_ADD.subscribe(onAddObject, subscriptions);
+        eventRegister.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject, subscriptions);
+        eventRegister.ARENA_NEXT_FRAME_END.subscribe(onEndNextFrame, subscriptions);
 
         player.attachToArena(this);
+        storage.attachToArena(this);
         scalarFieldRegister = new ArenaScalarFieldRegister(this); // Scalar fields may be based on objects on the arena
     }
 
-    /**
-     * Copy a {@link ArenaInstance} object and attaches a player to it.
-     * @param other the {@link ArenaInstance} object to be copied.
-     * @param player the player of the arena.
-     */
-    public ArenaInstance(ArenaInstance other, Player player) {
-        eventRegister = new ArenaEventRegister();
-        eventRegister.ARENA_OBJECT_ADD.subscribe(onAddObject);
-        eventRegister.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject);
-        eventRegister.ARENA_NEXT_FRAME_END.subscribe(onEndNextFrame);
-
-        this.player = player; player.attachToArena(this);
-        storage = other.storage;
-        scalarFieldRegister = other.scalarFieldRegister;
-    }
-
     /**
      * Constructs a newly allocated {@link ArenaInstance} object and attaches a player to it.
      * @param player The player of the arena.
      */
     public ArenaInstance(Player player) {
         eventRegister = new ArenaEventRegister();
-        eventRegister.ARENA_OBJECT_ADD.subscribe(onAddObject);
-        eventRegister.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject);
-        eventRegister.ARENA_NEXT_FRAME_END.subscribe(onEndNextFrame);
+        eventRegister.ARENA_OBJECT_ADD.subscribe(onAddObject, subscriptions);
+        eventRegister.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject, subscriptions);
+        eventRegister.ARENA_NEXT_FRAME_END.subscribe(onEndNextFrame, subscriptions);
 
         this.player = player; player.attachToArena(this);
         storage = new ArenaObjectStorage(this);
@@ -179,6 +203,31 @@ public final class ArenaInstance {
      */
     public ArenaEventRegister getEventRegister() { return eventRegister; }
 
+    /**
+     * Returns the subscriptions made by the arena and the objects attached to it.
+     * Objects that subscribe to the events of the arena should add their subscriptions here,
+     * so that they are released when the arena is disposed.
+     * @return The subscriptions made by the arena and the objects attached to it.
+     */
+    public SubscriptionGroup getSubscriptions() { return subscriptions; }
+
+    /**
+     * Unsubscribes everything that was subscribed to the events of the arena, so that the arena, its player,
+     * its storage and its scalar fields are no longer reachable from one another through events.
+     * The memory-mapped copies of the scalar fields are also deleted.
+     * The arena should not be used afterwards.
+     */
+    public void dispose() {
+        scalarFieldRegister.dispose();
+        subscriptions.close();
+    }
+
+    /**
+     * Replaces the random number generator that decides the waves, so that a seeded one gives the same waves on every run.
+     * @param rng The random number generator.
+     */
+    void setRandom(Random rng) { this.rng = rng; }
+
     /**
      * Returns the scalar field register attached to the arena.
      * @return The scalar field register attached to the arena.
@@ -194,90 +243,46 @@ public final class ArenaInstance {
     /**
      * Determines whether a Tower can be built at the grid where a specified pixel is located.
      * Does not take into account constraints that are not related to location.
+     * The grids are looked up in {@link ArenaScalarFieldRegister#TOWER_BUILDABILITY}, which is updated as towers and monsters change.
      * @param x The x-coordinate of the pixel.
      * @param y The y-coordinate of the pixel.
      * @return Whether a Tower can be built at the grid where the specified pixel is located.
      */
     public boolean canBuildTowerAt(short x, short y)
     {
-        ArenaObjectGridSelector gridSelector = new ArenaObjectGridSelector(x, y);
-        List<ArenaObject> objectsInGrid = storage.getQueryResult(gridSelector, EnumSet.of(StoredType.TOWER, StoredType.MONSTER));
-        if (!objectsInGrid.isEmpty()) return false;
-
-        short gridXPos = ArenaManager.getGridXPosFromCoor(x);
-        short gridYPos = ArenaManager.getGridYPosFromCoor(y);
-        if (gridXPos == ArenaManager.getStartingGridXPos() && gridYPos == ArenaManager.getStartingGridYPos()) {
-            return false;
-        }
-        if (gridXPos == ArenaManager.getEndGridXPos() && gridYPos == ArenaManager.getEndGridYPos()) {
-            return false;
-        }
-        
-        return hasRoute(x, y);
+        return scalarFieldRegister.TOWER_BUILDABILITY.canBuildTowerAt(x, y);
     }
 
     /**
-     * Determines whether some monster cannot go to end-zone after building a tower.
-     * @param x The x-coordinate of tower to be built.
-     * @param y The y-coordinate of tower to be built.
-     * @return true if all monster can go to end-zone after building a tower, false otherwise.
+     * Evaluates how building a Tower on each grid where one can be built would change the distance and the attacks
+     * from the starting position to the end-zone, in one computation for all grids.
+     * @param attacksPerFrame The attacks per frame of the new tower, which is the reciprocal of its reload time.
+     * @param minRange The minimum range of the new tower.
+     * @param maxRange The maximum range of the new tower.
+     * @return The change to the distance and the attacks for each grid.
+     * @throws IllegalArgumentException If the ranges are negative or the minimum range exceeds the maximum range.
      */
-    private boolean hasRoute(short x, short y) {
-        short gridXPos = ArenaManager.getGridXPosFromCoor(x);
-        short gridYPos = ArenaManager.getGridYPosFromCoor(y);
-
-        boolean[][] noTower = new boolean[ArenaManager.getMaxHorizontalGrids()][ArenaManager.getMaxVerticalGrids()];
-        boolean[][] visited = new boolean[ArenaManager.getMaxHorizontalGrids()][ArenaManager.getMaxVerticalGrids()];
-        for (short i = 0; i < noTower.length; i++) {
-            for (short j = 0; j < noTower[i].length; j++) {
-                short centerX = ArenaManager.getGridCenterXFromPos(i);
-                short centerY = ArenaManager.getGridCenterYFromPos(j);
-
-                ArenaObjectGridSelector gridSelector = new ArenaObjectGridSelector(centerX, centerY);
-                List<ArenaObject> towersInGrid = storage.getQueryResult(gridSelector, EnumSet.of(StoredType.TOWER));
-                noTower[i][j] = towersInGrid.isEmpty();
-                
-                visited[i][j] = false;
-            }
-        }
-        noTower[gridXPos][gridYPos] = false;
-        gridDFS(noTower, visited, ArenaManager.getEndGridXPos(), ArenaManager.getEndGridYPos());
-
-        // { xPos, yPos }
-        List<short[]> hasMonster = new LinkedList<>();
-        hasMonster.add(new short[] { ArenaManager.getStartingGridXPos(), ArenaManager.getStartingGridYPos() });
-        for (ArenaObject m : storage.getQueryResult(new ArenaObjectPropertySelector<>(Monster.class, o -> true), EnumSet.of(StoredType.MONSTER))) {
-            short monsterGridXPos = ArenaManager.getGridXPosFromCoor(m.getX());
-            short monsterGridYPos = ArenaManager.getGridYPosFromCoor(m.getY());
-            hasMonster.add(new short[] { monsterGridXPos, monsterGridYPos });
-        }
-
-        for (short[] g : hasMonster) {
-            if (!visited[g[0]][g[1]])
-                return false;
-        }
-        return true;
+    public PlacementEvaluator.Impacts evaluateTowerPlacements(float attacksPerFrame, short minRange, short maxRange) throws IllegalArgumentException
+    {
+        return scalarFieldRegister.getPlacementEvaluator().evaluate(storage.getTowers(), scalarFieldRegister.TOWER_BUILDABILITY,
+                attacksPerFrame, minRange, maxRange);
     }
 
     /**
-     * helper function of hasRoute(). It performs DFS to find positions of monster where it can go to a destination.
-     * @param noTower 2d boolean array to indicate which grid does not contain tower.
-     * @param visited 2d boolean array to indicate which grid has already visited by DFS.
-     * @param x x-position of the destination.
-     * @param y y-position of the destination.
+     * Runs the next frame of the arena, delivering the moves made during the frame in batches.
+     * This is the whole simulation of a frame, so an arena without a display runs by calling it repeatedly.
+     * @param sender The object that runs the frame, which is the sender of the frame events.
      */
-    private void gridDFS(boolean[][] noTower, boolean[][] visited, short x, short y)
-    {
-        if (x < 0 || y < 0 || x >= noTower.length || y >= noTower[x].length)
-            return;
-        if (visited[x][y] == true || noTower[x][y] == false)
-            return;
-        visited[x][y] = true;
-
-        gridDFS(noTower, visited, (short) (x+1), y);
-        gridDFS(noTower, visited, (short) (x-1), y);
-        gridDFS(noTower, visited, x, (short) (y+1));
-        gridDFS(noTower, visited, x, (short) (y-1));
+    public void processNextFrame(Object sender) {
+        scalarFieldRegister.awaitRequiredUpdates(); // Monsters must not walk into towers built since the last frame
+
+        eventRegister.beginMoveBatch();
+        try {
+            eventRegister.ARENA_NEXT_FRAME.invoke(sender, EventArgs.EMPTY);
+        } finally {
+            eventRegister.endMoveBatch(sender);
+        }
+        eventRegister.ARENA_NEXT_FRAME_END.invoke(sender, EventArgs.EMPTY);
     }
 
     /**
@@ -285,8 +290,7 @@ public final class ArenaInstance {
      */
     private void spawnWave()
     {
-        Random rng = new Random();
-        int spawnCount = (int) (1 + difficulty * 0.2 + 2 * Math.random());
+        int spawnCount = (int) (1 + difficulty * 0.2 + 2 * rng.nextDouble());
         for (int i = 0; i < spawnCount; i++) {
             double randomNumber = rng.nextDouble();
 
@@ -305,8 +309,6 @@ public final class ArenaInstance {
      */
     private void generateMonster(MonsterType type)
     {
-        Monster m = ArenaObjectFactory.createMonster(this, type, ArenaManager.STARTING_X, ArenaManager.STARTING_Y, difficulty);
-
-        System.out.println(String.format("%s:%.2f generated", m.getDisplayName(), m.getHealth()));
+        ArenaObjectFactory.createMonster(this, type, ArenaManager.STARTING_X, ArenaManager.STARTING_Y, difficulty);
     }
 }
\ No newline at end of file
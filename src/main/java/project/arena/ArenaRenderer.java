@@ -0,0 +1,58 @@
+package project.arena;
+
+import project.entity.ArenaObject;
+import project.entity.Monster;
+
+/**
+ * Interface for displaying an arena instance, which observes the arena and draws what happens on it.
+ * <p>
+ * The simulation only reaches the display through the active renderer, so the arena can run without a display,
+ * and the JavaFX classes of an object, such as its ImageView, are only created once a renderer asks for them.
+ */
+public interface ArenaRenderer {
+
+    /**
+     * Starts displaying an object that has been added to the arena.
+     * @param object The object.
+     */
+    public abstract void addObject(ArenaObject object);
+
+    /**
+     * Stops displaying an object that has been removed from the arena.
+     * @param object The object.
+     */
+    public abstract void removeObject(ArenaObject object);
+
+    /**
+     * Draws the explosion of a {@link Monster} that has been removed from the arena.
+     * @param x The x-coordinate of the monster.
+     * @param y The y-coordinate of the monster.
+     * @param duration The duration in number of frames that the explosion will remain on the arena.
+     */
+    public abstract void drawExplosion(short x, short y, int duration);
+
+    /**
+     * Draws a ray from one point to another point, extending beyond it towards the edge of the arena.
+     * @param sourceX The x-coordinate of the source point.
+     * @param sourceY The y-coordinate of the source point.
+     * @param targetX The x-coordinate of the target point.
+     * @param targetY The y-coordinate of the target point.
+     * @param duration The duration in number of frames that the ray will remain on the arena.
+     */
+    public abstract void drawRay(short sourceX, short sourceY, short targetX, short targetY, int duration);
+
+    /**
+     * Draws a circle at a specific location.
+     * @param centerX The x-coordinate of the center.
+     * @param centerY The y-coordinate of the center.
+     * @param radius The radius of the circle.
+     * @param duration The duration in number of frames that the circle will remain on the arena.
+     */
+    public abstract void drawCircle(short centerX, short centerY, short radius, int duration);
+
+    /**
+     * Runs a change to a value that the renderer displays, on the thread that the renderer reads it from.
+     * @param action The change.
+     */
+    public abstract void runOnRenderThread(Runnable action);
+}
@@ -1,26 +1,237 @@
 package project.arena;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import project.control.ArenaManager;
 import project.entity.Monster;
+import project.event.EventHandler;
+import project.event.eventargs.ArenaObjectEventArgs;
+import project.event.eventargs.EventArgs;
+import project.field.ArenaScalarField;
+import project.field.BuildabilityMap;
+import project.field.DirectionField;
+import project.field.DoubleBufferedField;
+import project.field.FieldCache;
+import project.field.FlowField;
+import project.field.HierarchicalPathfinder;
+import project.field.MappedArenaScalarField;
+import project.field.MonsterDensityField;
 import project.field.MonsterDistanceToEndField;
 import project.field.MonsterAttacksToEndField;
+import project.field.PlacementEvaluator;
 
 /**
  * List of scalar fields for the arena.
+ * <p>
+ * By default, the scalar fields are recalculated on the thread that changes the arena.
+ * If a background executor is set, they are recalculated on it instead, and each new version is published
+ * at the end of a frame, so the monsters keep moving on the previous version in the meantime.
+ * <p>
+ * The solutions of the scalar fields are cached by the layout of the towers, and the caches are shared by every arena instance,
+ * so a layout that recurs, including the empty arena of a new game, is restored instead of being solved again.
+ * <p>
+ * If the system property <code>project.field.mapped.dir</code> is set, each new version of the scalar fields is also copied
+ * to a memory-mapped file in that directory, which other processes can read with {@link MappedArenaScalarField#open(Path)}.
+ * Each register has its own files, named after the field and the number of the register, such as <code>distance-to-end-0.field</code>,
+ * and they are deleted when the arena is disposed. See {@link #getMirrorPath(DoubleBufferedField)}.
+ * <p>
+ * If the system property <code>project.field.goals</code> is set to a list of points such as <code>460,20;20,460</code>,
+ * the scalar fields descend to the nearest of those end zones instead of the one at {@link ArenaManager#END_X}, {@link ArenaManager#END_Y}.
+ * A monster then heads for the end zone that its field descends to, and the game is over when a monster reaches any of them.
+ * The hierarchical paths only lead to the default end zone, so they are not used when the end zones are configured,
+ * and a warning is printed if both are selected.
+ * <p>
+ * Each scalar field is identified by a {@link FieldKey}, and is only created when it is first requested with
+ * {@link #getField(FieldKey)}, so a kind of field that no monster uses costs nothing. The two built-in fields,
+ * {@link #MONSTER_DISTANCE_TO_END} and {@link #MONSTER_ATTACKS_TO_END}, are requested when the register is constructed,
+ * as they are public fields that the monsters and towers read directly.
+ * <p>
+ * The scalar fields are only solved while a {@link Monster} on the arena refers to them. Each monster refers to
+ * the distance to the end zone, which towers use to choose their targets, and to the field it descends,
+ * so a field that no monster descends is paused instead of being updated after every change to the towers.
+ * In the hierarchical mode, both the movement and the distance are taken from {@link #MONSTER_DISTANCE_TO_END_PATHS},
+ * so {@link #MONSTER_DISTANCE_TO_END} is not solved at all.
+ * A paused field is resumed in the background, and is waited for before the monsters move in the next frame.
+ * The fields can also be warmed up ahead of a wave of monsters, so that they are usually up to date by the time it spawns.
  */
 public final class ArenaScalarFieldRegister {
 
+    /**
+     * The x- and y-coordinates of a point in each end zone in turn, or <code>null</code> if there is only the default end zone.
+     */
+    private static final short[] GOALS = parseGoals(System.getProperty("project.field.goals"));
+
+    /**
+     * Whether monsters follow the hierarchical paths, which requires the default end zone.
+     */
+    private static final boolean IS_HIERARCHICAL = isHierarchical();
+
+    /**
+     * The cache of {@link #MONSTER_DISTANCE_TO_END} for each layout of towers.
+     */
+    private static final FieldCache DISTANCE_TO_END_CACHE = FieldCache.withConfiguredSettings("distance-to-end", GOALS);
+
+    /**
+     * The cache of {@link #MONSTER_ATTACKS_TO_END} for each layout of towers.
+     */
+    private static final FieldCache ATTACKS_TO_END_CACHE = FieldCache.withConfiguredSettings("attacks-to-end", GOALS);
+
+    /**
+     * The key of {@link #MONSTER_DISTANCE_TO_END}.
+     */
+    public static final FieldKey<MonsterDistanceToEndField> DISTANCE_TO_END = new FieldKey<>(arenaInstance -> GOALS == null
+            ? new MonsterDistanceToEndField(arenaInstance, DISTANCE_TO_END_CACHE)
+            : new MonsterDistanceToEndField(arenaInstance, DISTANCE_TO_END_CACHE, GOALS));
+
+    /**
+     * The key of {@link #MONSTER_ATTACKS_TO_END}.
+     */
+    public static final FieldKey<MonsterAttacksToEndField> ATTACKS_TO_END = new FieldKey<>(arenaInstance -> GOALS == null
+            ? new MonsterAttacksToEndField(arenaInstance, ATTACKS_TO_END_CACHE)
+            : new MonsterAttacksToEndField(arenaInstance, ATTACKS_TO_END_CACHE, GOALS));
+
+    /**
+     * The directory of the memory-mapped copies of the scalar fields, or <code>null</code> if they are not copied.
+     */
+    private static final Path MAPPED_DIRECTORY = System.getProperty("project.field.mapped.dir") == null
+            ? null : Paths.get(System.getProperty("project.field.mapped.dir"));
+
+    /**
+     * The number of registers that have been constructed, which numbers the files of their memory-mapped copies.
+     */
+    private static final AtomicInteger numRegisters = new AtomicInteger();
+
+    /**
+     * The evaluator of new towers, which is shared by every arena instance as it only depends on the end zones.
+     */
+    private static final PlacementEvaluator PLACEMENT_EVALUATOR = GOALS == null
+            ? new PlacementEvaluator() : new PlacementEvaluator(GOALS, ForkJoinPool.commonPool());
+
+    /**
+     * Identifies a kind of scalar field in the register, and creates the field of that kind for an arena.
+     * Keys are compared by identity, so each kind of field should have a single key, held in a constant.
+     * @param <TField> The type of the scalar field.
+     */
+    public static final class FieldKey<TField extends DoubleBufferedField<?>> {
+
+        /**
+         * The function that creates the field for an arena instance.
+         */
+        private final Function<ArenaInstance, TField> factory;
+
+        /**
+         * Constructs a newly allocated {@link FieldKey} object.
+         * @param factory The function that creates the field for an arena instance. The field should start paused.
+         */
+        public FieldKey(Function<ArenaInstance, TField> factory) {
+            this.factory = factory;
+        }
+    }
+
+    /**
+     * The arena instance that the register is attached to.
+     */
+    private final ArenaInstance arenaInstance;
+
+    /**
+     * The scalar fields that have been requested, in the order they were created.
+     */
+    private Map<FieldKey<?>, DoubleBufferedField<?>> fields = new LinkedHashMap<>();
+
+    /**
+     * The executor on which the scalar fields are recalculated, or <code>null</code> if they are recalculated on the thread that changes the arena.
+     */
+    private Executor executor = null;
+
+    /**
+     * The number of the register, which distinguishes its memory-mapped copies from those of other arenas.
+     */
+    private final int id = numRegisters.getAndIncrement();
+
+    /**
+     * The memory-mapped copy of {@link #MONSTER_DISTANCE_TO_END}, or <code>null</code> if there is none.
+     */
+    private MappedArenaScalarField.OfInt distanceToEndMirror;
+
+    /**
+     * The memory-mapped copy of {@link #MONSTER_ATTACKS_TO_END}, or <code>null</code> if there is none.
+     */
+    private MappedArenaScalarField.OfFloat attacksToEndMirror;
+
+    /**
+     * The number of frames for which the scalar fields may be out of date when they are recalculated in the background.
+     */
+    private int maxStaleFrames = 0;
+
+    /**
+     * The scalar field that each {@link Monster} on the arena descends, if it is in the register.
+     */
+    private Map<Monster, DoubleBufferedField<?>> descendedFields = new IdentityHashMap<>();
+
+    /**
+     * Whether the scalar fields have been acquired ahead of the next wave of monsters.
+     */
+    private boolean isWarmedUp = false;
+
+    /**
+     * The method invoked when an {@link project.entity.ArenaObject} is being added.
+     */
+    private EventHandler<ArenaObjectEventArgs> onAddObject = (sender, args) -> {
+        if (args.subject instanceof Monster) acquireFields((Monster) args.subject);
+    };
+
+    /**
+     * The method invoked when an {@link project.entity.ArenaObject} is being removed.
+     */
+    private EventHandler<ArenaObjectEventArgs> onRemoveObject = (sender, args) -> {
+        if (args.subject instanceof Monster) releaseFields((Monster) args.subject);
+    };
+
+    /**
+     * The method invoked when the next frame has finished processing.
+     */
+    private EventHandler<EventArgs> onEndNextFrame = (sender, args) -> {
+        for (DoubleBufferedField<?> field : getFields()) field.onFrameBoundary(maxStaleFrames);
+    };
+
     /**
      * Constructs a newly allocated {@link ArenaScalarFieldRegister} object and attaches it to an arena instance.
      * @param arenaInstance The arena instance.
      */
     ArenaScalarFieldRegister(ArenaInstance arenaInstance) {
-        MONSTER_DISTANCE_TO_END = new MonsterDistanceToEndField(arenaInstance);
-        MONSTER_ATTACKS_TO_END = new MonsterAttacksToEndField(arenaInstance);
+        this.arenaInstance = arenaInstance;
+        MONSTER_DISTANCE_TO_END = getField(DISTANCE_TO_END);
+        MONSTER_ATTACKS_TO_END = getField(ATTACKS_TO_END);
+        MONSTER_DENSITY = new MonsterDensityField(arenaInstance, MonsterDensityField.getConfiguredResolution());
+        TOWER_BUILDABILITY = new BuildabilityMap(arenaInstance, this);
+        MONSTER_DISTANCE_TO_END_FLOW = MONSTER_DISTANCE_TO_END.getFlowField();
+        MONSTER_ATTACKS_TO_END_FLOW = MONSTER_ATTACKS_TO_END.getFlowField();
+        MONSTER_DISTANCE_TO_END_PATHS = IS_HIERARCHICAL
+                ? new HierarchicalPathfinder(arenaInstance, HierarchicalPathfinder.getConfiguredClusterSize()) : null;
+        distanceToEndMirror = createIntMirror(getMirrorPath(MONSTER_DISTANCE_TO_END));
+        attacksToEndMirror = createFloatMirror(getMirrorPath(MONSTER_ATTACKS_TO_END));
+        if (distanceToEndMirror != null) MONSTER_DISTANCE_TO_END.setMirror(distanceToEndMirror);
+        if (attacksToEndMirror != null) MONSTER_ATTACKS_TO_END.setMirror(attacksToEndMirror);
+
+        arenaInstance.getEventRegister().ARENA_OBJECT_ADD.subscribe(onAddObject, arenaInstance.getSubscriptions());
+        arenaInstance.getEventRegister().ARENA_OBJECT_REMOVE.subscribe(onRemoveObject, arenaInstance.getSubscriptions());
+        arenaInstance.getEventRegister().ARENA_NEXT_FRAME_END.subscribe(onEndNextFrame, arenaInstance.getSubscriptions());
     }
 
     /**
      * The scalar field where the value on each point equals the minimum distance
      * travelled from that point to the end zone.
+     * It is only up to date while a monster is on the arena, as are the other scalar fields.
      */
     public final MonsterDistanceToEndField MONSTER_DISTANCE_TO_END;
 
@@ -29,4 +240,347 @@ public final class ArenaScalarFieldRegister {
      * received from that point to the end zone per unit speed of a {@link Monster}.
      */
     public final MonsterAttacksToEndField MONSTER_ATTACKS_TO_END;
+
+    /**
+     * The scalar field where the value on each point equals the number of monsters in the same cell of the arena.
+     * Unlike the other scalar fields, it is always kept up to date.
+     */
+    public final MonsterDensityField MONSTER_DENSITY;
+
+    /**
+     * The grids where a tower can be built without cutting off a monster or the starting position from the end zone.
+     * Like {@link #MONSTER_DENSITY}, it is always kept up to date.
+     */
+    public final BuildabilityMap TOWER_BUILDABILITY;
+
+    /**
+     * The direction of gradient descent on each point of {@link #MONSTER_DISTANCE_TO_END}.
+     */
+    public final FlowField MONSTER_DISTANCE_TO_END_FLOW;
+
+    /**
+     * The direction of gradient descent on each point of {@link #MONSTER_ATTACKS_TO_END}.
+     */
+    public final FlowField MONSTER_ATTACKS_TO_END_FLOW;
+
+    /**
+     * The hierarchical paths to the end zone, or <code>null</code> if the hierarchical mode is disabled.
+     */
+    public final HierarchicalPathfinder MONSTER_DISTANCE_TO_END_PATHS;
+
+    /**
+     * Returns the directions that monsters follow to take the shortest path to the end zone.
+     * @return {@link #MONSTER_DISTANCE_TO_END_PATHS} if the hierarchical mode is enabled, otherwise {@link #MONSTER_DISTANCE_TO_END_FLOW}.
+     */
+    public DirectionField getDistanceToEndDirections() {
+        return MONSTER_DISTANCE_TO_END_PATHS != null ? MONSTER_DISTANCE_TO_END_PATHS : MONSTER_DISTANCE_TO_END_FLOW;
+    }
+
+    /**
+     * Returns the scalar field of a kind, creating it if it has not been requested before.
+     * A field that is created while the fields are warmed up is also acquired for the next wave.
+     * Like the built-in fields, it is only solved while it is acquired, such as by a monster that descends it.
+     * @param key The key of the kind of field.
+     * @param <TField> The type of the scalar field.
+     * @return The scalar field of that kind for the arena.
+     */
+    @SuppressWarnings("unchecked")
+    public <TField extends DoubleBufferedField<?>> TField getField(FieldKey<TField> key) {
+        TField field = (TField) fields.get(key);
+        if (field != null) return field;
+
+        field = key.factory.apply(arenaInstance);
+        field.setExecutor(executor);
+        fields.put(key, field);
+        if (isWarmedUp) field.acquire();
+        return field;
+    }
+
+    /**
+     * Returns whether a kind of scalar field has been requested, so that it exists for the arena.
+     * @param key The key of the kind of field.
+     * @return Whether {@link #getField(FieldKey)} has created the field.
+     */
+    public boolean hasField(FieldKey<?> key) { return fields.containsKey(key); }
+
+    /**
+     * Returns the number of end zones that the monsters head for.
+     * @return The number of configured end zones, or one if only the default end zone is used.
+     */
+    public int getNumGoals() { return GOALS == null ? 1 : GOALS.length / 2; }
+
+    /**
+     * Returns the x-coordinate of an end zone.
+     * @param goal The position of the end zone, between zero and {@link #getNumGoals()} exclusive.
+     * @return The x-coordinate of the point in the end zone.
+     */
+    public short getGoalX(int goal) { return GOALS == null ? ArenaManager.END_X : GOALS[2 * goal]; }
+
+    /**
+     * Returns the y-coordinate of an end zone.
+     * @param goal The position of the end zone, between zero and {@link #getNumGoals()} exclusive.
+     * @return The y-coordinate of the point in the end zone.
+     */
+    public short getGoalY(int goal) { return GOALS == null ? ArenaManager.END_Y : GOALS[2 * goal + 1]; }
+
+    /**
+     * Returns the end zone that a monster descending a scalar field in the register heads for from a point.
+     * A field other than {@link #MONSTER_ATTACKS_TO_END} is treated like {@link #MONSTER_DISTANCE_TO_END}, as is the hierarchical mode,
+     * which only has the default end zone.
+     * @param field The scalar field that the monster descends.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The position of the end zone, or zero if no end zone can be reached from the point.
+     */
+    public int getNearestGoalAt(ArenaScalarField<?> field, short x, short y) {
+        if (getNumGoals() == 1) return 0;
+
+        int goal = field == MONSTER_ATTACKS_TO_END ? MONSTER_ATTACKS_TO_END.getNearestGoalAt(x, y) : MONSTER_DISTANCE_TO_END.getNearestGoalAt(x, y);
+        return goal == FlowField.NO_GOAL ? 0 : goal;
+    }
+
+    /**
+     * Returns the distance that a monster following {@link #getDistanceToEndDirections()} travels from a point to the end zone.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The length of the hierarchical path if the hierarchical mode is enabled, otherwise the value of {@link #MONSTER_DISTANCE_TO_END}.
+     */
+    public int getDistanceToEndAt(short x, short y) {
+        return MONSTER_DISTANCE_TO_END_PATHS != null ? MONSTER_DISTANCE_TO_END_PATHS.getDistanceAt(x, y) : MONSTER_DISTANCE_TO_END.getIntValueAt(x, y);
+    }
+
+    /**
+     * Returns the evaluator of how a new tower on each grid would change the scalar fields from the starting position.
+     * @return The evaluator for the end zones of the scalar fields.
+     */
+    public PlacementEvaluator getPlacementEvaluator() { return PLACEMENT_EVALUATOR; }
+
+    /**
+     * Returns the scalar fields in the register.
+     * @return The scalar fields in the register.
+     */
+    private Iterable<DoubleBufferedField<?>> getFields() {
+        return fields.values();
+    }
+
+    /**
+     * Returns whether the distance to the end zone is read from {@link #MONSTER_DISTANCE_TO_END},
+     * so that it must be acquired for each monster.
+     * @return Whether the hierarchical mode is disabled.
+     */
+    private boolean isDistanceFieldRead() { return MONSTER_DISTANCE_TO_END_PATHS == null; }
+
+    /**
+     * Acquires the scalar fields that a monster refers to, unless they have already been acquired for it.
+     * @param monster The monster.
+     */
+    private void acquireFields(Monster monster) {
+        if (descendedFields.containsKey(monster)) return;
+
+        // A monster descends the distance field unless it descends another field in the register
+        DoubleBufferedField<?> field = MONSTER_DISTANCE_TO_END;
+        for (DoubleBufferedField<?> other : getFields()) {
+            if (other == monster.getGradientDescentField()) field = other;
+        }
+
+        if (isDistanceFieldRead()) MONSTER_DISTANCE_TO_END.acquire();
+        if (field != MONSTER_DISTANCE_TO_END) field.acquire();
+        descendedFields.put(monster, field);
+    }
+
+    /**
+     * Releases the scalar fields that have been acquired for a monster.
+     * @param monster The monster.
+     */
+    private void releaseFields(Monster monster) {
+        DoubleBufferedField<?> field = descendedFields.remove(monster);
+        if (field == null) return;
+
+        if (field != MONSTER_DISTANCE_TO_END) field.release();
+        if (isDistanceFieldRead()) MONSTER_DISTANCE_TO_END.release();
+    }
+
+    /**
+     * Sets the executor on which the scalar fields are recalculated, after waiting for pending recalculations.
+     * The executor must run tasks one at a time in the order they are submitted, such as a single-threaded executor.
+     * @param executor The executor, or <code>null</code> to recalculate the scalar fields on the thread that changes the arena.
+     * @param maxStaleFrames The number of frames for which the monsters may move on a previous version of a scalar field.
+     * If a recalculation takes longer, the end of the frame waits for it.
+     * This does not apply to the recalculations for towers that have been built or moved, which are waited for before the next frame.
+     */
+    public void setBackgroundExecutor(Executor executor, int maxStaleFrames) {
+        if (maxStaleFrames < 0) throw new IllegalArgumentException("The number of frames must be non-negative");
+
+        for (DoubleBufferedField<?> field : getFields()) field.setExecutor(executor);
+        this.executor = executor;
+        this.maxStaleFrames = maxStaleFrames;
+    }
+
+    /**
+     * Waits for the recalculations that the monsters must see before they move again, and publishes them.
+     * These are the recalculations for towers that have been built or moved, which the monsters must not walk into.
+     * This is called before each frame, and returns immediately if there are none.
+     */
+    public void awaitRequiredUpdates() {
+        for (DoubleBufferedField<?> field : getFields()) field.awaitRequired();
+    }
+
+    /**
+     * Acquires the scalar fields ahead of the next wave of monsters, so that the fields that are paused are recalculated
+     * in the background during the frames before it spawns. Does nothing if they have already been acquired.
+     */
+    public void beginWarmUp() {
+        if (isWarmedUp) return;
+
+        isWarmedUp = true;
+        for (DoubleBufferedField<?> field : getFields()) {
+            if (field != MONSTER_DISTANCE_TO_END || isDistanceFieldRead()) field.acquire();
+        }
+    }
+
+    /**
+     * Releases the scalar fields acquired by {@link #beginWarmUp()} once the wave has spawned,
+     * so that a field that none of its monsters descend is paused again. Does nothing if they have not been acquired.
+     */
+    public void endWarmUp() {
+        if (!isWarmedUp) return;
+
+        isWarmedUp = false;
+        for (DoubleBufferedField<?> field : getFields()) {
+            if (field != MONSTER_DISTANCE_TO_END || isDistanceFieldRead()) field.release();
+        }
+    }
+
+    /**
+     * Returns the number of frames for which the monsters may move on a previous version of a scalar field.
+     * @return The number of frames for which the scalar fields may be out of date.
+     */
+    public int getMaxStaleFrames() { return maxStaleFrames; }
+
+    /**
+     * Returns the file that a scalar field in the register is copied to.
+     * @param field The scalar field.
+     * @return The path of the memory-mapped copy, or <code>null</code> if scalar fields are not copied or the field has no copy.
+     */
+    public Path getMirrorPath(DoubleBufferedField<?> field) {
+        if (MAPPED_DIRECTORY == null) return null;
+
+        if (field == MONSTER_DISTANCE_TO_END) return MAPPED_DIRECTORY.resolve("distance-to-end-" + id + ".field");
+        if (field == MONSTER_ATTACKS_TO_END) return MAPPED_DIRECTORY.resolve("attacks-to-end-" + id + ".field");
+        return null;
+    }
+
+    /**
+     * Stops copying the scalar fields to their memory-mapped files, and deletes the files.
+     * Other processes that have mapped a file keep the last version that was copied to it.
+     * Called when the arena is disposed.
+     */
+    void dispose() {
+        if (distanceToEndMirror != null) {
+            MONSTER_DISTANCE_TO_END.setMirror(null);
+            closeMirror(distanceToEndMirror, getMirrorPath(MONSTER_DISTANCE_TO_END));
+            distanceToEndMirror = null;
+        }
+        if (attacksToEndMirror != null) {
+            MONSTER_ATTACKS_TO_END.setMirror(null);
+            closeMirror(attacksToEndMirror, getMirrorPath(MONSTER_ATTACKS_TO_END));
+            attacksToEndMirror = null;
+        }
+    }
+
+    /**
+     * Returns whether monsters follow the hierarchical paths. A warning is printed if the hierarchical mode is selected
+     * together with several end zones, as the paths only lead to the default end zone.
+     * @return Whether the hierarchical mode is enabled and the end zones are not configured.
+     */
+    private static boolean isHierarchical() {
+        if (!HierarchicalPathfinder.isEnabled()) return false;
+
+        if (GOALS != null) {
+            System.err.println("The hierarchical paths only lead to the default end zone, so the flow field is followed instead for the configured end zones");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses the end zones of the scalar fields.
+     * @param property The points in the end zones, as pairs of coordinates separated by semicolons, or <code>null</code>.
+     * @return The x- and y-coordinates of each point in turn, or <code>null</code> if there is only the default end zone.
+     */
+    private static short[] parseGoals(String property) {
+        if (property == null) return null;
+
+        String[] points = property.split(";");
+        short[] goals = new short[2 * points.length];
+        try {
+            for (int i = 0; i < points.length; i++) {
+                String[] coordinates = points[i].split(",");
+                if (coordinates.length != 2) throw new NumberFormatException("Expected two coordinates: " + points[i]);
+
+                goals[2 * i] = Short.parseShort(coordinates[0].trim());
+                goals[2 * i + 1] = Short.parseShort(coordinates[1].trim());
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Unable to parse the end zones of the scalar fields: " + e.getMessage());
+            return null;
+        }
+
+        return goals;
+    }
+
+    /**
+     * Creates the memory-mapped copy of a scalar field of integers.
+     * @param path The path of the file, or <code>null</code> if scalar fields are not copied.
+     * @return The copy, or <code>null</code> if scalar fields are not copied or the file cannot be mapped.
+     */
+    private static MappedArenaScalarField.OfInt createIntMirror(Path path) {
+        if (path == null) return null;
+
+        try {
+            return MappedArenaScalarField.createInt(path, ArenaManager.ARENA_WIDTH + 1, ArenaManager.ARENA_HEIGHT + 1);
+        } catch (IOException e) {
+            System.err.println("Unable to map the scalar field to " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Creates the memory-mapped copy of a scalar field of real numbers.
+     * @param path The path of the file, or <code>null</code> if scalar fields are not copied.
+     * @return The copy, or <code>null</code> if scalar fields are not copied or the file cannot be mapped.
+     */
+    private static MappedArenaScalarField.OfFloat createFloatMirror(Path path) {
+        if (path == null) return null;
+
+        try {
+            return MappedArenaScalarField.createFloat(path, ArenaManager.ARENA_WIDTH + 1, ArenaManager.ARENA_HEIGHT + 1);
+        } catch (IOException e) {
+            System.err.println("Unable to map the scalar field to " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Closes the memory-mapped copy of a scalar field and deletes its file.
+     * The mapping stays valid until it is garbage collected, so an update that is still copying to it is not affected.
+     * @param mirror The copy.
+     * @param path The path of the file.
+     */
+    private static void closeMirror(MappedArenaScalarField<?> mirror, Path path) {
+        try {
+            mirror.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Unable to delete the scalar field at " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the solutions of the scalar fields that are cached in memory. Images written to disk are kept.
+     */
+    public static void clearFieldCaches() {
+        DISTANCE_TO_END_CACHE.clear();
+        ATTACKS_TO_END_CACHE.clear();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package project.arena;
+
+import project.entity.ArenaObject;
+
+/**
+ * A renderer that displays nothing, so that the arena can be simulated without JavaFX,
+ * such as in batch jobs and benchmarks. No image is loaded for the objects on the arena.
+ */
+public final class HeadlessArenaRenderer implements ArenaRenderer {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addObject(ArenaObject object) {}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeObject(ArenaObject object) {}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void drawExplosion(short x, short y, int duration) {}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void drawRay(short sourceX, short sourceY, short targetX, short targetY, int duration) {}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void drawCircle(short centerX, short centerY, short radius, int duration) {}
+
+    /**
+     * {@inheritDoc}
+     * There is no render thread, so the change is run immediately on the calling thread.
+     */
+    @Override
+    public void runOnRenderThread(Runnable action) {
+        action.run();
+    }
+}
@@ -1,13 +1,18 @@
 package project.control;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import project.Player;
 import project.arena.ArenaEventRegister;
 import project.arena.ArenaInstance;
+import project.arena.ArenaRenderer;
 import project.arena.ArenaScalarFieldRegister;
+import project.arena.HeadlessArenaRenderer;
 import project.database.controller.Manager;
-import project.entity.ArenaObject;
 import project.entity.ArenaObjectFactory;
 import project.entity.Monster;
+import project.entity.Projectile;
 import project.entity.Tower;
 import project.query.ArenaObjectStorage;
 import project.ui.UIController;
@@ -69,6 +74,11 @@ public final class ArenaManager {
      */
     private static UIController activeUIController;
 
+    /**
+     * The active renderer, which is the active UI controller unless the arena runs without a display.
+     */
+    private static ArenaRenderer activeRenderer = new HeadlessArenaRenderer();
+
     /**
      * The active arena instance.
      */
@@ -80,6 +90,12 @@ public final class ArenaManager {
      */
     public static UIController getActiveUIController() { return activeUIController; }
 
+    /**
+     * Returns the active renderer, through which the arena is displayed.
+     * @return The active renderer, which displays nothing if there is no active UI controller.
+     */
+    public static ArenaRenderer getActiveRenderer() { return activeRenderer; }
+
     /**
      * Returns the active arena instance.
      * @return The active arena instance.
@@ -140,6 +156,26 @@ public final class ArenaManager {
      * @param player The player of the arena instance.
      */
     public static void loadNew(UIController ui, Player player) {
+        loadNew(ui, ui != null ? ui : new HeadlessArenaRenderer(), player);
+    }
+
+    /**
+     * Loads a brand new arena instance without a UI controller, which is displayed by a renderer instead,
+     * so that it can run without JavaFX. The frames are run by calling {@link ArenaInstance#processNextFrame(Object)}.
+     * @param renderer The renderer of the arena instance, such as a {@link HeadlessArenaRenderer}.
+     * @param player The player of the arena instance.
+     */
+    public static void loadHeadless(ArenaRenderer renderer, Player player) {
+        loadNew(null, renderer, player);
+    }
+
+    /**
+     * Loads a brand new arena instance.
+     * @param ui The UI controller of the arena instance, or <code>null</code> if there is none.
+     * @param renderer The renderer of the arena instance.
+     * @param player The player of the arena instance.
+     */
+    private static void loadNew(UIController ui, ArenaRenderer renderer, Player player) {
         assert ARENA_WIDTH % GRID_WIDTH == 0;
         assert ARENA_HEIGHT % GRID_HEIGHT == 0;
         assert STARTING_X >= 0 && STARTING_X <= ARENA_WIDTH;
@@ -151,7 +187,11 @@ public final class ArenaManager {
             throw new ArithmeticException("The sum of ARENA_WIDTH and ARENA_HEIGHT should not be greater than the max value of a short.");
         }
 
+        // Release the previous arena so that it can be garbage collected
+        if (activeArenaInstance != null) activeArenaInstance.dispose();
+
         activeUIController = ui;
+        activeRenderer = renderer;
         activeArenaInstance = new ArenaInstance(player);
     }
 
@@ -164,20 +204,31 @@ public final class ArenaManager {
         getActiveObjectStorage().clear();
 
         activeUIController = ui;
+        activeRenderer = ui;
         ArenaInstance newInstance = Manager.load();
 
         if (newInstance != null) {
+            activeArenaInstance.dispose();
             activeArenaInstance = newInstance;
-            for (ArenaObject o : getActiveObjectStorage().getTowers()) {
-                ArenaObjectFactory.addObject(getActiveObjectStorage(), o);
-                ui.setTowerEvent((Tower) o);
+
+            // The storage is attached to the new arena, so it indexes the loaded objects again as they are added
+            List<Tower> towers = new ArrayList<>(getActiveObjectStorage().getTowers());
+            List<Monster> monsters = new ArrayList<>(getActiveObjectStorage().getMonsters());
+            List<Projectile> projectiles = new ArrayList<>(getActiveObjectStorage().getProjectiles());
+            getActiveObjectStorage().getTowers().clear();
+            getActiveObjectStorage().getMonsters().clear();
+            getActiveObjectStorage().getProjectiles().clear();
+
+            for (Tower t : towers) {
+                ArenaObjectFactory.addObject(getActiveObjectStorage(), t);
+                ui.setTowerEvent(t);
             }
-            for (ArenaObject o : getActiveObjectStorage().getMonsters()) {
-                ((Monster)o).initialiseGradientDescentField(); // fix that monster can pass through towers
-                ArenaObjectFactory.addObject(getActiveObjectStorage(), o);
+            for (Monster m : monsters) {
+                m.initialiseGradientDescentField(); // fix that monster can pass through towers
+                ArenaObjectFactory.addObject(getActiveObjectStorage(), m);
             }
-            for (ArenaObject o : getActiveObjectStorage().getProjectiles()) {
-                ArenaObjectFactory.addObject(getActiveObjectStorage(), o);
+            for (Projectile p : projectiles) {
+                ArenaObjectFactory.addObject(getActiveObjectStorage(), p);
             }
             ui.setupNewGame(newInstance);
         }
@@ -32,10 +32,11 @@ public abstract class ArenaObject {
     protected ArenaObjectStorage storage;
 
     /**
-     * The ImageView that the object is bound to.
+     * The ImageView that the object is bound to, or <code>null</code> if it has not been created,
+     * which is the case until a renderer displays the object.
      */
     @Transient
-    protected ImageView imageView = getDefaultImage();
+    protected ImageView imageView = null;
 
     /**
      * The position of the object within the storage.
@@ -63,7 +64,7 @@ public abstract class ArenaObject {
      */
     public ArenaObject(short x, short y) {
         this.storage = ArenaManager.getActiveObjectStorage();
-        this.positionInfo = new ArenaObjectPositionInfo(imageView, x, y);
+        this.positionInfo = new ArenaObjectPositionInfo(x, y);
     }
 
     /**
@@ -95,10 +96,18 @@ public abstract class ArenaObject {
     }
 
     /**
-     * Returns the ImageView that the object is bound to.
+     * Returns the ImageView that the object is bound to, creating it from the default image on first use,
+     * so that no image is loaded for an object that is never displayed.
      * @return The ImageView that the object is bound to.
      */
-    public ImageView getImageView() { return imageView; }
+    public ImageView getImageView() {
+        if (imageView == null) {
+            imageView = getDefaultImage();
+            positionInfo.bind(imageView);
+        }
+
+        return imageView;
+    }
 
     /**
      * Returns the x-coordinate of the object within the storage.
@@ -118,24 +127,32 @@ public abstract class ArenaObject {
      * @param mover The object which moves this object.
      * @param x The x-coordinate of the new position.
      * @param y The y-coordinate of the new position.
+     * If a move batch is open, the move is delivered later together with the other moves in the batch.
      * @throws IllegalArgumentException If the position is out of bounds.
      */
     public void moveObject(Object mover, short x, short y) throws IllegalArgumentException {
         ArenaEventRegister register = ArenaManager.getActiveEventRegister();
 
-        register.ARENA_OBJECT_MOVE_START.invoke(mover,
-                new ArenaObjectEventArgs() {
-                    { subject = ArenaObject.this; }
-                }
-        );
+        if (register.isBatchingMoves()) {
+            short oldX = getX();
+            short oldY = getY();
+            this.positionInfo.setPosition(x, y);
+            register.deferMove(this, oldX, oldY, x, y);
+            return;
+        }
 
-        this.positionInfo.setPosition(x, y);
+        ArenaObjectEventArgs args = register.OBJECT_EVENT_ARGS.acquire();
+        args.subject = this;
 
-        register.ARENA_OBJECT_MOVE_END.invoke(mover,
-                new ArenaObjectEventArgs() {
-                    { subject = ArenaObject.this; }
-                }
-        );
+        try {
+            register.ARENA_OBJECT_MOVE_START.invoke(mover, args);
+
+            this.positionInfo.setPosition(x, y);
+
+            register.ARENA_OBJECT_MOVE_END.invoke(mover, args);
+        } finally {
+            register.OBJECT_EVENT_ARGS.release(args);
+        }
     }
 
     /**
@@ -149,7 +166,8 @@ public abstract class ArenaObject {
      */
     @PostLoad
     protected void loadArenaObject() {
-        this.positionInfo = new ArenaObjectPositionInfo(imageView, getX(), getY());
+        this.positionInfo = new ArenaObjectPositionInfo(getX(), getY());
+        if (imageView != null) positionInfo.bind(imageView);
     }
 
     /**
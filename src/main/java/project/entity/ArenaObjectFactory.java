@@ -1,5 +1,6 @@
 package project.entity;
 
+import project.arena.ArenaEventRegister;
 import project.control.ArenaManager;
 import project.event.eventargs.ArenaObjectEventArgs;
 
@@ -165,11 +166,17 @@ public final class ArenaObjectFactory {
             throw new IllegalStateException("The object is already attached to an arena");
         }
 
-        ArenaManager.getActiveEventRegister().ARENA_OBJECT_ADD.invoke(creator,
-                new ArenaObjectEventArgs() {
-                    { subject = o; }
-                }
-        );
+        ArenaEventRegister register = ArenaManager.getActiveEventRegister();
+        register.flushMoveBatch(creator); // Subscribers expect the locations of objects to be up to date
+
+        ArenaObjectEventArgs args = register.OBJECT_EVENT_ARGS.acquire();
+        args.subject = o;
+
+        try {
+            register.ARENA_OBJECT_ADD.invoke(creator, args);
+        } finally {
+            register.OBJECT_EVENT_ARGS.release(args);
+        }
     }
 
     /**
@@ -183,10 +190,16 @@ public final class ArenaObjectFactory {
             throw new IllegalStateException("The object is not attached to an arena");
         }
         
-        ArenaManager.getActiveEventRegister().ARENA_OBJECT_REMOVE.invoke(disposer,
-            new ArenaObjectEventArgs() {
-                { subject = o; }
-            }
-        );
+        ArenaEventRegister register = ArenaManager.getActiveEventRegister();
+        register.flushMoveBatch(disposer); // Subscribers expect the locations of objects to be up to date
+
+        ArenaObjectEventArgs args = register.OBJECT_EVENT_ARGS.acquire();
+        args.subject = o;
+
+        try {
+            register.ARENA_OBJECT_REMOVE.invoke(disposer, args);
+        } finally {
+            register.OBJECT_EVENT_ARGS.release(args);
+        }
     }
 }
\ No newline at end of file
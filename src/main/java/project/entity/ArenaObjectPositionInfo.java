@@ -35,7 +35,25 @@ public final class ArenaObjectPositionInfo {
      * @throws IllegalArgumentException If the position is out of bounds.
      */
     ArenaObjectPositionInfo(ImageView imageView, short x, short y) throws IllegalArgumentException {
+        this(x, y);
+        bind(imageView);
+    }
+
+    /**
+     * Constructs a newly allocated {@link ArenaObjectPositionInfo} object that is not bound to an ImageView.
+     * @param x The x-coordinate to store.
+     * @param y The y-coordinate to store.
+     * @throws IllegalArgumentException If the position is out of bounds.
+     */
+    ArenaObjectPositionInfo(short x, short y) throws IllegalArgumentException {
         setPosition(x, y);
+    }
+
+    /**
+     * Binds the position of an ImageView to the position, so that its image is centered on it.
+     * @param imageView The ImageView to bind.
+     */
+    void bind(ImageView imageView) {
         imageView.xProperty().bind(Bindings.add(this.x, - imageView.getImage().getWidth() / 2));
         imageView.yProperty().bind(Bindings.add(this.y, - imageView.getImage().getHeight() / 2));
     }
@@ -10,6 +10,7 @@ import javafx.scene.image.ImageView;
 import javax.persistence.*;
 
 import project.control.ArenaManager;
+import project.field.MonsterDensityField;
 import project.query.ArenaObjectCircleSelector;
 import project.query.ArenaObjectStorage.StoredType;
 import project.util.Geometry;
@@ -108,6 +109,7 @@ public class Catapult extends Tower {
 
         Monster target = null;
         if (closestTargets.isEmpty()) target = validTargets.get(0);
+        MonsterDensityField density = ArenaManager.getActiveScalarFieldRegister().MONSTER_DENSITY;
         for (Monster m :closestTargets) {//every nearest monster as a center of a circle
             int count=0;//count number of monster in the circle
             double rmsDist=Double.POSITIVE_INFINITY;//To minimize the offset
@@ -118,6 +120,11 @@ public class Catapult extends Tower {
                     if (j < 0 || j > ArenaManager.ARENA_HEIGHT) continue;
 
                     if (Geometry.isInCircle(i,j,m.getX(),m.getY(),splashRadius)){//splash radius in current point
+                        // The density counts the moves of this frame like the storage does, and the cells around the circle
+                        // cover it, so they bound the monsters in the splash, and a point that cannot reach the best count is skipped
+                        if (density.countInRectangle((short) (i - splashRadius), (short) (j - splashRadius),
+                                (short) (i + splashRadius), (short) (j + splashRadius)) < count) continue;
+
                         List<ArenaObject> monInCircle = storage.getQueryResult(
                                 new ArenaObjectCircleSelector(i, j, splashRadius), EnumSet.of(StoredType.MONSTER));  
 
@@ -102,7 +102,7 @@ public class CatapultProjectile extends Projectile {
             }
         }
 
-        ArenaManager.getActiveUIController().drawCircle(hitX, hitY, splashRadius, SPLASH_DISPLAY_DURATION);
+        ArenaManager.getActiveRenderer().drawCircle(hitX, hitY, splashRadius, SPLASH_DISPLAY_DURATION);
 
         for (ArenaObject m : monstersInSplashRange) {
             ((Monster) m).takeDamage(damage, this);
@@ -16,6 +16,7 @@ public class Fox extends Monster {
     // Fox is very smart and will try to not be attacked
     {
         gradientDescentField = ArenaManager.getActiveScalarFieldRegister().MONSTER_ATTACKS_TO_END;
+        flowField = ArenaManager.getActiveScalarFieldRegister().MONSTER_ATTACKS_TO_END_FLOW;
     }
 
     /**
@@ -44,6 +45,7 @@ public class Fox extends Monster {
     @Override
     public void initialiseGradientDescentField() {
         gradientDescentField = ArenaManager.getActiveScalarFieldRegister().MONSTER_ATTACKS_TO_END;
+        flowField = ArenaManager.getActiveScalarFieldRegister().MONSTER_ATTACKS_TO_END_FLOW;
     }
 
     /**
@@ -49,7 +49,7 @@ public class LaserProjectile extends Projectile {
         // Don't call super method to prevent double hitting
         // super()
 
-        ArenaManager.getActiveUIController().drawRay(origin.getX(), origin.getY(), getX(), getY(), LASER_DISPLAY_DURATION);
+        ArenaManager.getActiveRenderer().drawRay(origin.getX(), origin.getY(), getX(), getY(), LASER_DISPLAY_DURATION);
 
         ArenaObjectPropertySelector<Monster> selector = new ArenaObjectPropertySelector<>(Monster.class, o -> true);
         List<ArenaObject> monsters = storage.getQueryResult(selector, EnumSet.of(StoredType.MONSTER));
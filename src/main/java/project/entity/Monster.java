@@ -1,5 +1,6 @@
 package project.entity;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -9,8 +10,11 @@ import javax.persistence.*;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.scene.control.Tooltip;
+import javafx.scene.image.ImageView;
 import project.control.ArenaManager;
 import project.field.ArenaScalarField;
+import project.field.DirectionField;
+import project.field.FlowField;
 
 /**
  * Monsters spawn at the starting position and try to reach the end-zone of the arena.
@@ -39,6 +43,13 @@ public abstract class Monster extends ArenaObject implements Comparable<Monster>
     @Transient
     protected ArenaScalarField<?> gradientDescentField = ArenaManager.getActiveScalarFieldRegister().MONSTER_DISTANCE_TO_END;
 
+    /**
+     * The direction on each point that the monster follows, which descends {@link #gradientDescentField}
+     * unless the hierarchical paths are followed instead.
+     */
+    @Transient
+    protected DirectionField flowField = ArenaManager.getActiveScalarFieldRegister().getDistanceToEndDirections();
+
     /**
      * The current health of the monster. It cannot go beyond {@link #maxHealth}.
      * When this is not greater than zero, the monster is considered dead.
@@ -93,30 +104,101 @@ public abstract class Monster extends ArenaObject implements Comparable<Monster>
 
     /**
      * A linked list containing a reference to the positions that the monster has passed through in the previous frame.
+     * It is only built from {@link #trailSegments} when it is needed.
      */
     @OneToMany(cascade = {CascadeType.MERGE})
     protected List<ArenaObjectPositionInfo> trail = new LinkedList<>();
 
+    /**
+     * The packed coordinates of the monster at the start of the previous frame.
+     */
+    @Transient
+    private int trailStart = ArenaScalarField.NO_POINT;
+
+    /**
+     * The straight segments of the path that the monster has travelled in the previous frame,
+     * each stored as <code>(direction &lt;&lt; 16) | length</code>.
+     */
+    @Transient
+    private int[] trailSegments = new int[4];
+
+    /**
+     * The number of segments in {@link #trailSegments} that are in use.
+     */
+    @Transient
+    private int numTrailSegments = 0;
+
+    /**
+     * Whether {@link #trail} has been built from the segments of the previous frame.
+     */
+    @Transient
+    private boolean isTrailBuilt = true;
+
     protected void moveMonsterOneFrame() {
-        trail = new LinkedList<>();
         unusedMovement += speed;
 
         short x = getX();
         short y = getY();
-        while (unusedMovement >= 1) {
-            ArenaScalarField.ScalarFieldPoint nextPosition = gradientDescentField.descendTaxicab(x, y);
-            if (nextPosition != null) {
-                x = nextPosition.getX();
-                y = nextPosition.getY();
-                trail.add(new ArenaObjectPositionInfo(imageView, x, y));
+        trailStart = ArenaScalarField.packPoint(x, y);
+        numTrailSegments = 0;
+        isTrailBuilt = false;
+
+        if (unusedMovement >= 1) {
+            int numSteps = (int) unusedMovement;
+            unusedMovement -= numSteps;
+
+            // Take each run of steps in the same direction at once
+            while (numSteps > 0) {
+                byte direction = flowField.getDirectionAt(x, y);
+                if (direction == FlowField.NONE) break;
+
+                int length = Math.min(numSteps, flowField.getRunLengthAt(x, y));
+                addTrailSegment(direction, length);
+                int nextPosition = FlowField.move(x, y, direction, length);
+                x = ArenaScalarField.unpackX(nextPosition);
+                y = ArenaScalarField.unpackY(nextPosition);
+                numSteps -= length;
             }
-
-            unusedMovement--;
         }
 
         moveObject(this, x, y);
     }
 
+    /**
+     * Records a straight segment of the path that the monster has travelled in this frame.
+     * @param direction The direction of the segment, as in {@link ArenaScalarField#getTaxicabNeighbour(short, short, int)}.
+     * @param length The number of pixels in the segment.
+     */
+    private void addTrailSegment(byte direction, int length) {
+        if (numTrailSegments == trailSegments.length) trailSegments = Arrays.copyOf(trailSegments, numTrailSegments * 2);
+        trailSegments[numTrailSegments++] = (direction << 16) | length;
+    }
+
+    /**
+     * Builds {@link #trail} from the segments of the path that the monster has travelled in the previous frame, if it has not been built.
+     */
+    @PrePersist
+    @PreUpdate
+    private void buildTrail() {
+        if (isTrailBuilt) return;
+
+        trail = new LinkedList<>();
+        short x = ArenaScalarField.unpackX(trailStart);
+        short y = ArenaScalarField.unpackY(trailStart);
+        for (int i = 0; i < numTrailSegments; i++) {
+            byte direction = (byte) (trailSegments[i] >> 16);
+            int length = trailSegments[i] & 0xFFFF;
+            for (int j = 0; j < length; j++) {
+                int nextPosition = FlowField.move(x, y, direction, 1);
+                x = ArenaScalarField.unpackX(nextPosition);
+                y = ArenaScalarField.unpackY(nextPosition);
+                trail.add(new ArenaObjectPositionInfo(x, y));
+            }
+        }
+
+        isTrailBuilt = true;
+    }
+
     protected void updateStatusEffects() {
         // Update status effects
         boolean isSlowed = false;
@@ -154,7 +236,6 @@ public abstract class Monster extends ArenaObject implements Comparable<Monster>
         super.loadArenaObject();
         this.healthProperty.set(health);
         this.maxHealthProperty.set(maxHealth);
-        setupTooltip();
     }
 
     /**
@@ -163,14 +244,23 @@ public abstract class Monster extends ArenaObject implements Comparable<Monster>
      */
     public void initialiseGradientDescentField() {
         this.gradientDescentField = ArenaManager.getActiveScalarFieldRegister().MONSTER_DISTANCE_TO_END;
+        this.flowField = ArenaManager.getActiveScalarFieldRegister().getDistanceToEndDirections();
     }
 
+    /**
+     * Returns the scalar field used to determine the movement of the monster via gradient descent.
+     * @return The scalar field used to determine the movement of the monster.
+     */
+    public ArenaScalarField<?> getGradientDescentField() { return gradientDescentField; }
+
     /**
      * Setup tooltip to display hp of monster.
+     * It is set up by the renderer when the monster is displayed, as it creates the ImageView of the monster.
      */
     public void setupTooltip() {
         // Set up tooltip
         Tooltip tp = new Tooltip();
+        ImageView imageView = getImageView();
 
         //getDisplayDetails() is fixed so even you bind it to a property, it wont change.
         tp.textProperty().bind(Bindings.format("HP: %.2f / %.2f", healthProperty, maxHealthProperty));
@@ -189,8 +279,6 @@ public abstract class Monster extends ArenaObject implements Comparable<Monster>
         super(x, y);
 
         if (difficulty < 1) throw new IllegalArgumentException("Difficulty should be at least equal to one.");
-
-        setupTooltip();
     }
 
     /**
@@ -275,26 +363,37 @@ public abstract class Monster extends ArenaObject implements Comparable<Monster>
      * {@inheritDoc}
      */
     @Override
-    public List<ArenaObjectPositionInfo> getTrail() { return trail; }
+    public List<ArenaObjectPositionInfo> getTrail() {
+        buildTrail();
+        return trail;
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public short getTargetLocationX() { return ArenaManager.END_X; }
+    public short getTargetLocationX() { return ArenaManager.getActiveScalarFieldRegister().getGoalX(getTargetGoal()); }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public short getTargetLocationY() { return ArenaManager.END_Y; }
+    public short getTargetLocationY() { return ArenaManager.getActiveScalarFieldRegister().getGoalY(getTargetGoal()); }
+
+    /**
+     * Returns the end zone that the monster heads for, which is the one that its field descends to from its location.
+     * @return The position of the end zone in the register of the scalar fields.
+     */
+    private int getTargetGoal() {
+        return ArenaManager.getActiveScalarFieldRegister().getNearestGoalAt(gradientDescentField, getX(), getY());
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
     public double getMovementDistanceToDestination() {
-        return ArenaManager.getActiveScalarFieldRegister().MONSTER_DISTANCE_TO_END.getValueAt(getX(), getY());
+        return ArenaManager.getActiveScalarFieldRegister().getDistanceToEndAt(getX(), getY());
     }
 
     /**
@@ -117,10 +117,6 @@ public abstract class Projectile extends ArenaObject implements ObjectWithTarget
         this.deltaY = deltaY;
         this.speed = tower.getProjectileSpeed();
         this.damage = tower.getAttackPower();
-
-        System.out.println(String.format("%s@(%d, %d) -> %s@(%d, %d)",
-                tower.getDisplayName(), origin.getX(), origin.getY(), 
-                target.getDisplayName(), target.getX(), target.getY()));
     }
 
     /**
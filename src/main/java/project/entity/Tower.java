@@ -184,26 +184,22 @@ public abstract class Tower extends ArenaObject implements InformativeObject {
     public boolean tryUpgrade() {
         if (canUpgrade()) {
             ArenaEventRegister register = ArenaManager.getActiveEventRegister();
+            ArenaTowerEventArgs args = register.TOWER_EVENT_ARGS.acquire();
+            args.subject = this;
 
-            register.ARENA_TOWER_UPGRADE_START.invoke(this,
-                    new ArenaTowerEventArgs() {
-                        { subject = Tower.this; }
-                    }
-            );
+            try {
+                register.ARENA_TOWER_UPGRADE_START.invoke(this, args);
 
-            ArenaManager.getActivePlayer().spendResources(upgradeCost);
-            System.out.println(String.format("%s is being upgraded", getDisplayName()));
-            upgrade();
+                ArenaManager.getActivePlayer().spendResources(upgradeCost);
+                upgrade();
 
-            register.ARENA_TOWER_UPGRADE_END.invoke(this,
-                    new ArenaTowerEventArgs() {
-                        { subject = Tower.this; }
-                    }
-            );
+                register.ARENA_TOWER_UPGRADE_END.invoke(this, args);
+            } finally {
+                register.TOWER_EVENT_ARGS.release(args);
+            }
 
             return true;
         } else {
-            System.out.println(String.format("not enough resource to upgrade %s", getDisplayName()));
             return false;
         }
     }
@@ -0,0 +1,228 @@
+package project.event;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import project.event.EventManager.Backpressure;
+import project.event.eventargs.EventArgs;
+
+/**
+ * A bounded queue that delivers the invocations of an event to a subscriber on an {@link Executor}.
+ * <p>
+ * The queue is itself subscribed to the event, so the invoker only pays for copying the arguments and enqueuing them.
+ * At most one task drains the queue at any time, so the subscriber receives the invocations in the order they happened.
+ * @param <TEventArgs> A class type denoting the set of arguments for the event.
+ */
+final class AsyncEventQueue<TEventArgs extends EventArgs> implements EventHandler<TEventArgs>, Runnable {
+
+    /**
+     * The name of the event, which identifies it in {@link EventProfiler}.
+     */
+    private final String eventName;
+
+    /**
+     * The subscriber that receives the invocations.
+     */
+    private final EventHandler<TEventArgs> handler;
+
+    /**
+     * The executor on which the subscriber receives the invocations.
+     */
+    private final Executor executor;
+
+    /**
+     * What to do when an invocation happens while the queue is full.
+     */
+    private final Backpressure backpressure;
+
+    /**
+     * The senders of the pending invocations, stored as a ring buffer.
+     */
+    private final Object[] senders;
+
+    /**
+     * The arguments of the pending invocations, stored as a ring buffer.
+     */
+    private final Object[] args;
+
+    /**
+     * The index of the oldest pending invocation.
+     */
+    private int head = 0;
+
+    /**
+     * The number of pending invocations.
+     */
+    private int size = 0;
+
+    /**
+     * Whether a task has been submitted to the executor to drain the queue.
+     */
+    private boolean isDraining = false;
+
+    /**
+     * Whether the subscriber has been unsubscribed.
+     */
+    private boolean isClosed = false;
+
+    /**
+     * The number of invocations that were dropped or coalesced because the queue was full.
+     */
+    private long numDiscarded = 0;
+
+    /**
+     * Constructs a newly allocated {@link AsyncEventQueue} object.
+     * @param eventName The name of the event, which identifies it in {@link EventProfiler}.
+     * @param handler The subscriber that receives the invocations.
+     * @param executor The executor on which the subscriber receives the invocations.
+     * @param capacity The maximum number of pending invocations.
+     * @param backpressure What to do when an invocation happens while the queue is full.
+     */
+    AsyncEventQueue(String eventName, EventHandler<TEventArgs> handler, Executor executor, int capacity, Backpressure backpressure) {
+        if (capacity <= 0) throw new IllegalArgumentException("The capacity must be positive");
+
+        this.eventName = eventName;
+        this.handler = handler;
+        this.executor = executor;
+        this.backpressure = backpressure;
+        this.senders = new Object[capacity];
+        this.args = new Object[capacity];
+    }
+
+    /**
+     * Enqueues a copy of the invocation, applying the backpressure if the queue is full.
+     * @param sender The sender of the event.
+     * @param args The arguments of the event.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void handleEvent(Object sender, TEventArgs args) {
+        // The arguments may be pooled by the invoker
+        TEventArgs copy = (TEventArgs) args.copy();
+
+        synchronized (this) {
+            if (isClosed) return;
+
+            if (size == senders.length) {
+                switch (backpressure) {
+                    case BLOCK: {
+                        try {
+                            while (size == senders.length && !isClosed) wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            numDiscarded++;
+                            return;
+                        }
+                        if (isClosed) return;
+                        break;
+                    }
+                    case DROP: {
+                        numDiscarded++;
+                        return;
+                    }
+                    case COALESCE: {
+                        int tail = (head + size - 1) % senders.length;
+                        this.senders[tail] = sender;
+                        this.args[tail] = copy;
+                        numDiscarded++;
+                        return;
+                    }
+                }
+            }
+
+            int tail = (head + size) % senders.length;
+            this.senders[tail] = sender;
+            this.args[tail] = copy;
+            size++;
+
+            if (isDraining) return;
+            isDraining = true;
+        }
+
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            // The executor is shutting down, so deliver the pending invocations on this thread
+            while (drain());
+        }
+    }
+
+    /**
+     * Delivers the pending invocations to the subscriber.
+     * Yields the executor after one queue's worth of invocations, so that a busy event does not starve other tasks.
+     */
+    @Override
+    public void run() {
+        while (drain()) {
+            try {
+                executor.execute(this);
+                return;
+            } catch (RejectedExecutionException e) {
+                // The executor is shutting down, so deliver the rest on this thread
+            }
+        }
+    }
+
+    /**
+     * Delivers up to one queue's worth of pending invocations to the subscriber.
+     * @return <code>true</code> iff there are still pending invocations.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean drain() {
+        for (int n = 0; ; n++) {
+            Object sender;
+            TEventArgs args;
+
+            synchronized (this) {
+                if (size == 0 || isClosed) {
+                    isDraining = false;
+                    return false;
+                }
+                if (n == senders.length) return true;
+
+                sender = this.senders[head];
+                args = (TEventArgs) this.args[head];
+                this.senders[head] = null;
+                this.args[head] = null;
+                head = (head + 1) % senders.length;
+                size--;
+
+                if (backpressure == Backpressure.BLOCK) notifyAll();
+            }
+
+            try {
+                if (EventProfiler.isEnabled()) {
+                    long start = System.nanoTime();
+                    handler.handleEvent(sender, args);
+                    EventProfiler.record(eventName, handler, System.nanoTime() - start);
+                } else {
+                    handler.handleEvent(sender, args);
+                }
+            } catch (RuntimeException e) {
+                // Keep draining so that one failure does not stall the subscriber
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Discards the pending invocations and stops accepting new ones.
+     */
+    synchronized void close() {
+        isClosed = true;
+
+        for (; size > 0; size--) {
+            this.senders[head] = null;
+            this.args[head] = null;
+            head = (head + 1) % senders.length;
+        }
+
+        notifyAll();
+    }
+
+    /**
+     * Returns the number of invocations that were dropped or coalesced because the queue was full.
+     * @return The number of invocations that were dropped or coalesced.
+     */
+    synchronized long getNumDiscarded() { return numDiscarded; }
+}
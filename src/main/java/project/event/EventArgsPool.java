@@ -0,0 +1,70 @@
+package project.event;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import project.event.eventargs.EventArgs;
+
+/**
+ * A pool of reusable event arguments, so that invoking an {@link EventManager} does not allocate.
+ * <p>
+ * Each argument acquired from the pool should be released after the invocation has finished.
+ * Nested invocations acquire different arguments, so an invocation does not overwrite the arguments of another one in progress.
+ * The pool is not thread-safe.
+ * @param <TEventArgs> A class type denoting the set of arguments.
+ */
+public final class EventArgsPool<TEventArgs extends EventArgs> {
+
+    /**
+     * The function that creates a new argument when the pool is empty.
+     */
+    private final Supplier<TEventArgs> factory;
+
+    /**
+     * The arguments which are available for reuse.
+     */
+    private Object[] available = new Object[4];
+
+    /**
+     * The number of arguments which are available for reuse.
+     */
+    private int numAvailable = 0;
+
+    /**
+     * Constructs a newly allocated {@link EventArgsPool} object.
+     * @param factory The function that creates a new argument when the pool is empty.
+     */
+    public EventArgsPool(Supplier<TEventArgs> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Takes an argument from the pool, creating one if the pool is empty.
+     * @return An argument in its cleared state.
+     */
+    @SuppressWarnings("unchecked")
+    public TEventArgs acquire() {
+        if (numAvailable == 0) return factory.get();
+
+        TEventArgs args = (TEventArgs) available[--numAvailable];
+        available[numAvailable] = null;
+        return args;
+    }
+
+    /**
+     * Clears an argument and returns it to the pool.
+     * @param args The argument, which should not be used by the caller afterwards.
+     */
+    public void release(TEventArgs args) {
+        args.clear();
+
+        if (numAvailable == available.length) available = Arrays.copyOf(available, available.length * 2);
+        available[numAvailable++] = args;
+    }
+
+    /**
+     * Returns the number of arguments which are available for reuse.
+     * @return The number of arguments which are available for reuse.
+     */
+    public int getNumAvailable() { return numAvailable; }
+}
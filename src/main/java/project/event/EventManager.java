@@ -1,35 +1,114 @@
 package project.event;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
 
 import project.event.eventargs.EventArgs;
 
 /**
  * A class that manages an event.
+ * <p>
+ * Invoking the event does not allocate any memory, so it is safe to invoke it once per object per frame.
+ * Subscribers must not keep a reference to the arguments after the invocation,
+ * as they may be pooled by the invoker (see {@link EventArgsPool}).
+ * <p>
+ * Subscribers that are not needed by the simulation, such as logging or the leaderboard, can instead be subscribed
+ * with {@link #subscribeAsync(EventHandler, Executor, int, Backpressure)}. They then receive a copy of each invocation
+ * through a bounded queue drained on an executor, so that a slow subscriber does not delay the invoker.
+ * <p>
+ * Subscribers whose lifetime is shorter than the event's should be unsubscribed when they are discarded,
+ * for example by subscribing them as part of a {@link SubscriptionGroup}, or be subscribed weakly
+ * with {@link #subscribeWeak(EventHandler)}. Otherwise the event keeps them reachable.
+ * <p>
+ * The time taken by each subscriber is recorded while {@link EventProfiler} is enabled.
  * @param <TEventArgs> A class type denoting the set of arguments for the event.
  */
 public class EventManager<TEventArgs extends EventArgs> {
 
+    /**
+     * What to do when the event is invoked while the queue of an asynchronous subscriber is full.
+     */
+    public enum Backpressure {
+
+        /**
+         * The invoker waits until there is space in the queue.
+         * Do not use this if the subscriber may invoke the same event, or if the executor runs on the invoking thread.
+         */
+        BLOCK,
+
+        /**
+         * The invocation is discarded.
+         */
+        DROP,
+
+        /**
+         * The invocation replaces the latest pending invocation,
+         * for subscribers that are only interested in the latest state.
+         */
+        COALESCE;
+
+    }
+
+    /**
+     * The name of the event, which identifies it in {@link EventProfiler}.
+     */
+    private final String name;
+
     /**
      * The objects which are subscribed to the event.
      */
-    protected LinkedList<EventHandler<TEventArgs>> subscribers = new LinkedList<>();
+    protected ArrayList<EventHandler<TEventArgs>> subscribers = new ArrayList<>();
 
     /**
-     * Whether the event manager is currently invoking an event.
+     * The number of invocations of the event that are currently in progress.
+     * This is greater than one if a subscriber invokes the same event again.
      */
-    private boolean isInvokingEvent = false;
+    private int invocationDepth = 0;
 
     /**
      * The list of objects that are to be subscribed to the event at the end of the invocation.
      */
-    private LinkedList<EventHandler<TEventArgs>> toSubscribe = new LinkedList<>();
+    private ArrayList<EventHandler<TEventArgs>> toSubscribe = new ArrayList<>();
 
     /**
      * The list of objects that are to be unsubscribed from the event at the end of the invocation.
      */
-    private LinkedList<EventHandler<TEventArgs>> toUnsubscribe = new LinkedList<>();
+    private ArrayList<EventHandler<TEventArgs>> toUnsubscribe = new ArrayList<>();
+
+    /**
+     * The queues of the asynchronous subscribers, keyed by the subscriber.
+     * The queues are also contained in {@link #subscribers}.
+     */
+    private HashMap<EventHandler<TEventArgs>, AsyncEventQueue<TEventArgs>> asyncSubscribers = new HashMap<>();
+
+    /**
+     * The weak references to the weak subscribers, keyed by the subscriber.
+     * The references are also contained in {@link #subscribers}.
+     */
+    private WeakHashMap<EventHandler<TEventArgs>, WeakEventHandler<TEventArgs>> weakSubscribers = new WeakHashMap<>();
+
+    /**
+     * Constructs a newly allocated {@link EventManager} object named after its class.
+     */
+    public EventManager() {
+        this.name = getClass().getSimpleName();
+    }
+
+    /**
+     * Constructs a newly allocated {@link EventManager} object.
+     * @param name The name of the event, which identifies it in {@link EventProfiler}.
+     */
+    public EventManager(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the event.
+     * @return The name of the event.
+     */
+    public String getName() { return name; }
 
     /**
      * Subscribes an event handler to the event.
@@ -38,24 +117,115 @@ public class EventManager<TEventArgs extends EventArgs> {
      * @return <code>true</code> iff the handler was originally not subscribed to the event.
      */
     public boolean subscribe(EventHandler<TEventArgs> handler) {
+        if (asyncSubscribers.containsKey(handler) || weakSubscribers.containsKey(handler)) return false;
+
         if (!subscribers.contains(handler) && !toSubscribe.contains(handler)) {
-            if (isInvokingEvent) toSubscribe.add(handler);
+            if (invocationDepth > 0) toSubscribe.add(handler);
             else subscribers.add(handler);
             return true;
         }
 
         return false;
     }
- 
+
+    /**
+     * Subscribes an event handler to the event and adds the subscription to a group.
+     * Does nothing if the handler is already subscribed to the event, as the subscription belongs to whoever made it.
+     * @param handler The event handler.
+     * @param group The group that unsubscribes the handler when it is closed.
+     * @return The handle to the subscription, or <code>null</code> if the handler was already subscribed to the event.
+     */
+    public Subscription<TEventArgs> subscribe(EventHandler<TEventArgs> handler, SubscriptionGroup group) {
+        if (!subscribe(handler)) return null;
+
+        Subscription<TEventArgs> subscription = new Subscription<>(this, handler);
+        group.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Subscribes an event handler to the event without keeping it reachable.
+     * The handler is unsubscribed once it has been garbage collected.
+     * Does nothing if the handler is already subscribed to the event.
+     * <p>
+     * The subscriber should keep a reference to the handler, such as in a field, for as long as it wants to receive the event.
+     * Conversely, a lambda that does not capture anything is never collected, so it is never unsubscribed automatically.
+     * @param handler The event handler.
+     * @return <code>true</code> iff the handler was originally not subscribed to the event.
+     */
+    public boolean subscribeWeak(EventHandler<TEventArgs> handler) {
+        if (isSubscribed(handler)) return false;
+
+        WeakEventHandler<TEventArgs> reference = new WeakEventHandler<>(this, handler);
+        weakSubscribers.put(handler, reference);
+        return subscribe(reference);
+    }
+
+    /**
+     * Subscribes an event handler to the event without keeping it reachable, and adds the subscription to a group.
+     * See {@link #subscribeWeak(EventHandler)}.
+     * @param handler The event handler.
+     * @param group The group that unsubscribes the handler when it is closed.
+     * @return The handle to the subscription, or <code>null</code> if the handler was already subscribed to the event.
+     */
+    public Subscription<TEventArgs> subscribeWeak(EventHandler<TEventArgs> handler, SubscriptionGroup group) {
+        if (!subscribeWeak(handler)) return null;
+
+        Subscription<TEventArgs> subscription = new Subscription<>(this, handler);
+        group.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Subscribes an event handler to the event, which receives the invocations on an executor.
+     * Does nothing if the handler is already subscribed to the event.
+     * <p>
+     * The handler receives a copy of the arguments (see {@link EventArgs#copy()}), in the order of invocation,
+     * but possibly after later invocations have been delivered to the other subscribers.
+     * @param handler The event handler.
+     * @param executor The executor on which the handler receives the invocations.
+     * @param capacity The maximum number of invocations that are waiting to be delivered to the handler.
+     * @param backpressure What to do when the event is invoked while <code>capacity</code> invocations are waiting.
+     * @return <code>true</code> iff the handler was originally not subscribed to the event.
+     */
+    public boolean subscribeAsync(EventHandler<TEventArgs> handler, Executor executor, int capacity, Backpressure backpressure) {
+        if (isSubscribed(handler)) return false;
+
+        AsyncEventQueue<TEventArgs> queue = new AsyncEventQueue<>(name, handler, executor, capacity, backpressure);
+        asyncSubscribers.put(handler, queue);
+        return subscribe(queue);
+    }
+
+    /**
+     * Returns the number of invocations that were not delivered to an asynchronous subscriber because its queue was full.
+     * Invocations replaced under {@link Backpressure#COALESCE} are also counted.
+     * @param handler The event handler.
+     * @return The number of invocations that were not delivered, or <code>0</code> if the handler is not an asynchronous subscriber.
+     */
+    public long getNumDiscarded(EventHandler<TEventArgs> handler) {
+        AsyncEventQueue<TEventArgs> queue = asyncSubscribers.get(handler);
+        return queue == null ? 0 : queue.getNumDiscarded();
+    }
+
     /**
      * Unsubscribes an event handler to the event.
      * Does nothing if the handler is not already subscribed to the event.
+     * If the handler is an asynchronous subscriber, the invocations that are waiting to be delivered to it are discarded.
      * @param handler The event handler.
      * @return <code>true</code> iff the handler was originally subscribed to the event.
      */
     public boolean unsubscribe(EventHandler<TEventArgs> handler) {
+        AsyncEventQueue<TEventArgs> queue = asyncSubscribers.remove(handler);
+        if (queue != null) {
+            queue.close();
+            handler = queue;
+        } else {
+            WeakEventHandler<TEventArgs> reference = weakSubscribers.remove(handler);
+            if (reference != null) handler = reference;
+        }
+
         if (subscribers.contains(handler) && !toUnsubscribe.contains(handler)) {
-            if (isInvokingEvent) toUnsubscribe.add(handler);
+            if (invocationDepth > 0) toUnsubscribe.add(handler);
             else subscribers.remove(handler);
 
             return true;
@@ -64,22 +234,58 @@ public class EventManager<TEventArgs extends EventArgs> {
         return false;
     }
 
+    /**
+     * Returns whether an event handler is subscribed to the event in any way, or will be at the end of the invocation.
+     * @param handler The event handler.
+     * @return Whether the handler is subscribed to the event.
+     */
+    private boolean isSubscribed(EventHandler<TEventArgs> handler) {
+        return asyncSubscribers.containsKey(handler) || weakSubscribers.containsKey(handler)
+                || subscribers.contains(handler) || toSubscribe.contains(handler);
+    }
+
     /**
      * Invokes the event on each subscriber.
      * @param sender The sender of the event.
      * @param args The arguments of the event.
      */
     public void invoke(Object sender, TEventArgs args) {
-        isInvokingEvent = true;
+        invocationDepth++;
+        boolean isProfiling = EventProfiler.isEnabled();
+
+        try {
+            // Iterate by index so that no iterator is allocated
+            for (int i = 0, size = subscribers.size(); i < size; i++) {
+                EventHandler<TEventArgs> handler = subscribers.get(i);
 
-        Iterator<EventHandler<TEventArgs>> iterator = subscribers.iterator();
-        while (iterator.hasNext()) {
-            iterator.next().handleEvent(sender, args);
+                if (isProfiling) {
+                    // Weak subscriptions are recorded under the subscriber, not under the wrapper
+                    EventHandler<TEventArgs> profiled = handler instanceof WeakEventHandler
+                            ? ((WeakEventHandler<TEventArgs>) handler).getHandler() : handler;
+                    long start = System.nanoTime();
+                    handler.handleEvent(sender, args);
+                    if (profiled != null) EventProfiler.record(name, profiled, System.nanoTime() - start);
+                } else {
+                    handler.handleEvent(sender, args);
+                }
+            }
+        } finally {
+            if (--invocationDepth == 0) applyPendingSubscriptions();
         }
+    }
 
-        isInvokingEvent = false;
-        
-        while (!toSubscribe.isEmpty()) subscribers.add(toSubscribe.poll());
-        while (!toUnsubscribe.isEmpty()) subscribers.remove(toUnsubscribe.poll());
+    /**
+     * Applies the subscriptions and unsubscriptions that were requested during the invocation.
+     */
+    private void applyPendingSubscriptions() {
+        if (!toSubscribe.isEmpty()) {
+            for (int i = 0; i < toSubscribe.size(); i++) subscribers.add(toSubscribe.get(i));
+            toSubscribe.clear();
+        }
+
+        if (!toUnsubscribe.isEmpty()) {
+            for (int i = 0; i < toUnsubscribe.size(); i++) subscribers.remove(toUnsubscribe.get(i));
+            toUnsubscribe.clear();
+        }
     }
 }
\ No newline at end of file
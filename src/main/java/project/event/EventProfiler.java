@@ -0,0 +1,140 @@
+package project.event;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Records how long each class of event handlers takes to handle each event, in order to find slow subscribers.
+ * <p>
+ * Profiling is disabled by default, in which case an invocation only pays for reading a flag.
+ * It can be enabled by {@link #setEnabled(boolean)} or by the system property <code>project.event.profiling</code>.
+ * Events are identified by their names (see {@link EventManager#getName()}),
+ * so the statistics of the same event in different arenas are combined.
+ */
+public final class EventProfiler {
+
+    /**
+     * Whether invocations are being recorded.
+     */
+    private static volatile boolean isEnabled = Boolean.getBoolean("project.event.profiling");
+
+    /**
+     * The statistics, keyed by the name of the event and then by the class of the event handlers.
+     */
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<Class<?>, HandlerProfile>> profiles = new ConcurrentHashMap<>();
+
+    /**
+     * The executor on which the periodic reports are made. Created when the first report is scheduled.
+     */
+    private static ScheduledExecutorService reportExecutor = null;
+
+    /**
+     * Constructs a newly allocated {@link EventProfiler} object.
+     */
+    private EventProfiler() {}
+
+    /**
+     * Returns whether invocations are being recorded.
+     * @return Whether invocations are being recorded.
+     */
+    public static boolean isEnabled() { return isEnabled; }
+
+    /**
+     * Starts or stops recording invocations. The statistics recorded so far are kept.
+     * @param enabled Whether invocations should be recorded.
+     */
+    public static void setEnabled(boolean enabled) { isEnabled = enabled; }
+
+    /**
+     * Records the invocation of an event handler.
+     * @param eventName The name of the event.
+     * @param handler The event handler.
+     * @param nanos The time that the handler took, in nanoseconds.
+     */
+    static void record(String eventName, Object handler, long nanos) {
+        ConcurrentHashMap<Class<?>, HandlerProfile> handlers = profiles.get(eventName);
+        if (handlers == null) handlers = profiles.computeIfAbsent(eventName, k -> new ConcurrentHashMap<>());
+
+        Class<?> handlerClass = handler.getClass();
+        HandlerProfile profile = handlers.get(handlerClass);
+        if (profile == null) profile = handlers.computeIfAbsent(handlerClass, k -> new HandlerProfile(eventName, k));
+
+        profile.record(nanos);
+    }
+
+    /**
+     * Returns the statistics recorded so far, sorted by the total time taken in descending order.
+     * @return A copy of the statistics recorded so far.
+     */
+    public static List<HandlerProfile> getProfiles() {
+        List<HandlerProfile> result = new ArrayList<>();
+        for (ConcurrentHashMap<Class<?>, HandlerProfile> handlers : profiles.values()) {
+            for (HandlerProfile profile : handlers.values()) result.add(profile.copy());
+        }
+
+        result.sort(Comparator.comparingLong(HandlerProfile::getTotalNanos).reversed());
+        return result;
+    }
+
+    /**
+     * Returns the statistics of an event recorded so far, sorted by the total time taken in descending order.
+     * @param eventName The name of the event.
+     * @return A copy of the statistics of the event recorded so far.
+     */
+    public static List<HandlerProfile> getProfiles(String eventName) {
+        List<HandlerProfile> result = new ArrayList<>();
+        ConcurrentHashMap<Class<?>, HandlerProfile> handlers = profiles.get(eventName);
+        if (handlers != null) {
+            for (HandlerProfile profile : handlers.values()) result.add(profile.copy());
+        }
+
+        result.sort(Comparator.comparingLong(HandlerProfile::getTotalNanos).reversed());
+        return result;
+    }
+
+    /**
+     * Discards the statistics recorded so far.
+     */
+    public static void reset() {
+        profiles.clear();
+    }
+
+    /**
+     * Returns a human-readable report of the statistics recorded so far, one line per event and class of handlers.
+     * @return A report of the statistics recorded so far.
+     */
+    public static String getReport() {
+        StringBuilder builder = new StringBuilder("--- EVENT PROFILE ---");
+        for (HandlerProfile profile : getProfiles()) {
+            builder.append(System.lineSeparator()).append(profile);
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * Periodically outputs the report of the statistics on a background thread.
+     * @param period The time between reports.
+     * @param unit The unit of <code>period</code>.
+     * @param output The function that outputs the report, such as <code>System.out::println</code>.
+     * @return The scheduled reports, which can be cancelled.
+     */
+    public static synchronized ScheduledFuture<?> scheduleReport(long period, TimeUnit unit, Consumer<String> output) {
+        if (reportExecutor == null) {
+            reportExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "event-profiler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return reportExecutor.scheduleAtFixedRate(() -> output.accept(getReport()), period, period, unit);
+    }
+}
@@ -0,0 +1,167 @@
+package project.event;
+
+import java.util.Arrays;
+
+/**
+ * The latency statistics of a class of event handlers on an event, recorded by {@link EventProfiler}.
+ */
+public final class HandlerProfile {
+
+    /**
+     * The number of buckets in the latency histogram.
+     */
+    public static final int NUM_BUCKETS = 40;
+
+    /**
+     * The name of the event.
+     */
+    private final String eventName;
+
+    /**
+     * The class of the event handlers.
+     */
+    private final Class<?> handlerClass;
+
+    /**
+     * The number of invocations.
+     */
+    private long count = 0;
+
+    /**
+     * The sum of the latencies of the invocations, in nanoseconds.
+     */
+    private long totalNanos = 0;
+
+    /**
+     * The maximum latency of the invocations, in nanoseconds.
+     */
+    private long maxNanos = 0;
+
+    /**
+     * The latency histogram. See {@link #getHistogram()}.
+     */
+    private final long[] histogram;
+
+    /**
+     * Constructs a newly allocated {@link HandlerProfile} object.
+     * @param eventName The name of the event.
+     * @param handlerClass The class of the event handlers.
+     */
+    HandlerProfile(String eventName, Class<?> handlerClass) {
+        this.eventName = eventName;
+        this.handlerClass = handlerClass;
+        this.histogram = new long[NUM_BUCKETS];
+    }
+
+    /**
+     * Constructs a copy of a {@link HandlerProfile} object.
+     * @param other The object to copy.
+     */
+    private HandlerProfile(HandlerProfile other) {
+        this.eventName = other.eventName;
+        this.handlerClass = other.handlerClass;
+        this.count = other.count;
+        this.totalNanos = other.totalNanos;
+        this.maxNanos = other.maxNanos;
+        this.histogram = other.histogram.clone();
+    }
+
+    /**
+     * Records an invocation.
+     * @param nanos The latency of the invocation, in nanoseconds.
+     */
+    synchronized void record(long nanos) {
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) maxNanos = nanos;
+        histogram[Math.min(64 - Long.numberOfLeadingZeros(nanos), NUM_BUCKETS - 1)]++;
+    }
+
+    /**
+     * Returns a copy of the statistics that is not affected by later invocations.
+     * @return A copy of the statistics.
+     */
+    synchronized HandlerProfile copy() { return new HandlerProfile(this); }
+
+    /**
+     * Returns the name of the event.
+     * @return The name of the event.
+     */
+    public String getEventName() { return eventName; }
+
+    /**
+     * Returns the class of the event handlers.
+     * Handlers that are lambdas have a synthetic class whose name begins with the name of the class that declares them.
+     * @return The class of the event handlers.
+     */
+    public Class<?> getHandlerClass() { return handlerClass; }
+
+    /**
+     * Returns a readable name of the class of the event handlers.
+     * @return A readable name of the class of the event handlers.
+     */
+    public String getHandlerName() {
+        String name = handlerClass.getName();
+        int lambda = name.indexOf("$$Lambda");
+        return lambda < 0 ? name : name.substring(0, lambda) + " (lambda)";
+    }
+
+    /**
+     * Returns the number of invocations.
+     * @return The number of invocations.
+     */
+    public long getCount() { return count; }
+
+    /**
+     * Returns the sum of the latencies of the invocations.
+     * @return The sum of the latencies of the invocations, in nanoseconds.
+     */
+    public long getTotalNanos() { return totalNanos; }
+
+    /**
+     * Returns the maximum latency of the invocations.
+     * @return The maximum latency of the invocations, in nanoseconds.
+     */
+    public long getMaxNanos() { return maxNanos; }
+
+    /**
+     * Returns the mean latency of the invocations.
+     * @return The mean latency of the invocations, in nanoseconds, or <code>0</code> if there is no invocation.
+     */
+    public double getMeanNanos() { return count == 0 ? 0 : (double) totalNanos / count; }
+
+    /**
+     * Returns the latency histogram.
+     * Bucket <code>0</code> counts the invocations that took no measurable time, and bucket <code>i &gt; 0</code>
+     * counts those that took between <code>2^(i-1)</code> inclusive and <code>2^i</code> exclusive nanoseconds.
+     * The last bucket also counts all longer invocations.
+     * @return The latency histogram.
+     */
+    public long[] getHistogram() { return Arrays.copyOf(histogram, histogram.length); }
+
+    /**
+     * Returns the latency below which a fraction of the invocations fall, rounded up to a power of two.
+     * @param fraction The fraction, between <code>0</code> and <code>1</code>.
+     * @return The upper bound of the histogram bucket that contains the percentile, in nanoseconds.
+     */
+    public long getPercentileNanos(double fraction) {
+        long threshold = (long) Math.ceil(count * fraction);
+        long cumulative = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            cumulative += histogram[i];
+            if (cumulative >= threshold && cumulative > 0) return i == 0 ? 0 : 1L << i;
+        }
+
+        return maxNanos;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("%s -> %s: count = %d, total = %.3f ms, mean = %.1f us, p99 < %.1f us, max = %.1f us",
+                eventName, getHandlerName(), count, totalNanos / 1e6, getMeanNanos() / 1e3,
+                getPercentileNanos(0.99) / 1e3, maxNanos / 1e3);
+    }
+}
@@ -0,0 +1,64 @@
+package project.event;
+
+import project.event.eventargs.EventArgs;
+
+/**
+ * A handle to the subscription of an event handler to an event, which unsubscribes the handler when closed.
+ * @param <TEventArgs> A class type denoting the set of arguments for the event.
+ */
+public final class Subscription<TEventArgs extends EventArgs> implements AutoCloseable {
+
+    /**
+     * The event.
+     */
+    private final EventManager<TEventArgs> manager;
+
+    /**
+     * The event handler.
+     */
+    private final EventHandler<TEventArgs> handler;
+
+    /**
+     * Whether the handler has been unsubscribed through this handle.
+     */
+    private boolean isClosed = false;
+
+    /**
+     * Constructs a newly allocated {@link Subscription} object for a handler that is subscribed to an event.
+     * @param manager The event.
+     * @param handler The event handler.
+     */
+    public Subscription(EventManager<TEventArgs> manager, EventHandler<TEventArgs> handler) {
+        this.manager = manager;
+        this.handler = handler;
+    }
+
+    /**
+     * Returns the event.
+     * @return The event.
+     */
+    public EventManager<TEventArgs> getEventManager() { return manager; }
+
+    /**
+     * Returns the event handler.
+     * @return The event handler.
+     */
+    public EventHandler<TEventArgs> getHandler() { return handler; }
+
+    /**
+     * Returns whether the handler has been unsubscribed through this handle.
+     * @return Whether the handler has been unsubscribed through this handle.
+     */
+    public boolean isClosed() { return isClosed; }
+
+    /**
+     * Unsubscribes the handler from the event. Does nothing if the handle is already closed.
+     */
+    @Override
+    public void close() {
+        if (isClosed) return;
+
+        isClosed = true;
+        manager.unsubscribe(handler);
+    }
+}
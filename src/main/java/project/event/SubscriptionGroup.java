@@ -0,0 +1,60 @@
+package project.event;
+
+import java.util.ArrayList;
+
+/**
+ * A group of {@link Subscription}s that share a lifetime, such as the subscriptions made for an arena.
+ * Closing the group unsubscribes every handler in it, so that the events no longer refer to the handlers.
+ */
+public final class SubscriptionGroup implements AutoCloseable {
+
+    /**
+     * The subscriptions in the group.
+     */
+    private ArrayList<Subscription<?>> subscriptions = new ArrayList<>();
+
+    /**
+     * Whether the group has been closed.
+     */
+    private boolean isClosed = false;
+
+    /**
+     * Constructs a newly allocated {@link SubscriptionGroup} object.
+     */
+    public SubscriptionGroup() {}
+
+    /**
+     * Adds a subscription to the group.
+     * If the group has already been closed, the subscription is closed immediately instead.
+     * @param subscription The subscription.
+     */
+    public void add(Subscription<?> subscription) {
+        if (isClosed) subscription.close();
+        else subscriptions.add(subscription);
+    }
+
+    /**
+     * Returns the number of subscriptions in the group.
+     * @return The number of subscriptions in the group.
+     */
+    public int size() { return subscriptions.size(); }
+
+    /**
+     * Returns whether the group has been closed.
+     * @return Whether the group has been closed.
+     */
+    public boolean isClosed() { return isClosed; }
+
+    /**
+     * Closes every subscription in the group, in the reverse order they were added.
+     * Does nothing if the group has already been closed.
+     */
+    @Override
+    public void close() {
+        if (isClosed) return;
+
+        isClosed = true;
+        for (int i = subscriptions.size() - 1; i >= 0; i--) subscriptions.get(i).close();
+        subscriptions.clear();
+    }
+}
@@ -0,0 +1,55 @@
+package project.event;
+
+import java.lang.ref.WeakReference;
+
+import project.event.eventargs.EventArgs;
+
+/**
+ * An event handler that refers to a subscriber weakly, so that the subscription does not keep the subscriber reachable.
+ * Unsubscribes itself the first time the event is invoked after the subscriber has been collected.
+ * @param <TEventArgs> A class type denoting the set of arguments for the event.
+ */
+final class WeakEventHandler<TEventArgs extends EventArgs> implements EventHandler<TEventArgs> {
+
+    /**
+     * The event that the handler is subscribed to.
+     */
+    private final EventManager<TEventArgs> manager;
+
+    /**
+     * The subscriber.
+     */
+    private final WeakReference<EventHandler<TEventArgs>> handler;
+
+    /**
+     * Constructs a newly allocated {@link WeakEventHandler} object.
+     * @param manager The event that the handler is subscribed to.
+     * @param handler The subscriber.
+     */
+    WeakEventHandler(EventManager<TEventArgs> manager, EventHandler<TEventArgs> handler) {
+        this.manager = manager;
+        this.handler = new WeakReference<>(handler);
+    }
+
+    /**
+     * Returns the subscriber, or <code>null</code> if it has been garbage collected.
+     * @return The subscriber.
+     */
+    EventHandler<TEventArgs> getHandler() { return handler.get(); }
+
+    /**
+     * Clears the reference to the subscriber, as if it had been garbage collected. Used by tests.
+     */
+    void clear() { handler.clear(); }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handleEvent(Object sender, TEventArgs args) {
+        EventHandler<TEventArgs> handler = this.handler.get();
+
+        if (handler == null) manager.unsubscribe(this);
+        else handler.handleEvent(sender, args);
+    }
+}
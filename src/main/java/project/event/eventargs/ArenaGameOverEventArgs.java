@@ -0,0 +1,45 @@
+package project.event.eventargs;
+
+import project.Player;
+
+/**
+ * Struct containing data of a game that is over.
+ */
+public class ArenaGameOverEventArgs extends EventArgs {
+
+    /**
+     * A snapshot of the player of the game, taken when the game was over.
+     * It is not attached to any arena, so it can be read on any thread.
+     */
+    public Player player;
+
+    /**
+     * The score of the player when the game was over.
+     */
+    public int score;
+
+    /**
+     * Default constructor.
+     */
+    public ArenaGameOverEventArgs() {}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        player = null;
+        score = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArenaGameOverEventArgs copy() {
+        ArenaGameOverEventArgs copy = new ArenaGameOverEventArgs();
+        copy.player = player;
+        copy.score = score;
+        return copy;
+    }
+}
@@ -5,7 +5,7 @@ import project.entity.ArenaObject;
 /**
  * Struct containing data of an {@link ArenaObject}.
  */
-public abstract class ArenaObjectEventArgs extends EventArgs {
+public class ArenaObjectEventArgs extends EventArgs {
 
     /**
      * The subject of the event.
@@ -16,4 +16,22 @@ public abstract class ArenaObjectEventArgs extends EventArgs {
      * Default constructor.
      */
     public ArenaObjectEventArgs() {}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        subject = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArenaObjectEventArgs copy() {
+        ArenaObjectEventArgs copy = new ArenaObjectEventArgs();
+        copy.subject = subject;
+        return copy;
+    }
 }
\ No newline at end of file
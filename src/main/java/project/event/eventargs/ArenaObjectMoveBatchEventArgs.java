@@ -0,0 +1,117 @@
+package project.event.eventargs;
+
+import java.util.Arrays;
+
+import project.entity.ArenaObject;
+
+/**
+ * Struct containing the moves of multiple {@link ArenaObject}s, packed into parallel arrays.
+ * The <code>i</code>-th move is described by the <code>i</code>-th element of each array, for <code>i &lt; size</code>.
+ * An object may appear more than once, in which case its moves are in the order they happened.
+ */
+public class ArenaObjectMoveBatchEventArgs extends EventArgs {
+
+    /**
+     * The initial capacity of each array.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The number of moves in the batch.
+     */
+    public int size = 0;
+
+    /**
+     * The subject of each move.
+     */
+    public ArenaObject[] subjects = new ArenaObject[INITIAL_CAPACITY];
+
+    /**
+     * The x-coordinate of each subject before the move.
+     */
+    public short[] oldX = new short[INITIAL_CAPACITY];
+
+    /**
+     * The y-coordinate of each subject before the move.
+     */
+    public short[] oldY = new short[INITIAL_CAPACITY];
+
+    /**
+     * The x-coordinate of each subject after the move.
+     */
+    public short[] newX = new short[INITIAL_CAPACITY];
+
+    /**
+     * The y-coordinate of each subject after the move.
+     */
+    public short[] newY = new short[INITIAL_CAPACITY];
+
+    /**
+     * Default constructor.
+     */
+    public ArenaObjectMoveBatchEventArgs() {}
+
+    /**
+     * Appends a move to the batch. The arrays grow as needed, so callers should not cache them while adding.
+     * @param subject The object that was moved.
+     * @param oldX The x-coordinate of the object before the move.
+     * @param oldY The y-coordinate of the object before the move.
+     * @param newX The x-coordinate of the object after the move.
+     * @param newY The y-coordinate of the object after the move.
+     */
+    public void add(ArenaObject subject, short oldX, short oldY, short newX, short newY) {
+        if (size == subjects.length) {
+            int capacity = subjects.length * 2;
+            this.subjects = Arrays.copyOf(this.subjects, capacity);
+            this.oldX = Arrays.copyOf(this.oldX, capacity);
+            this.oldY = Arrays.copyOf(this.oldY, capacity);
+            this.newX = Arrays.copyOf(this.newX, capacity);
+            this.newY = Arrays.copyOf(this.newY, capacity);
+        }
+
+        this.subjects[size] = subject;
+        this.oldX[size] = oldX;
+        this.oldY[size] = oldY;
+        this.newX[size] = newX;
+        this.newY[size] = newY;
+        size++;
+    }
+
+    /**
+     * Returns whether any subject in the batch is of a given type.
+     * @param type The type of {@link ArenaObject}.
+     * @return Whether any subject in the batch is of the given type.
+     */
+    public boolean containsType(Class<? extends ArenaObject> type) {
+        for (int i = 0; i < size; i++) {
+            if (type.isInstance(subjects[i])) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        Arrays.fill(subjects, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArenaObjectMoveBatchEventArgs copy() {
+        ArenaObjectMoveBatchEventArgs copy = new ArenaObjectMoveBatchEventArgs();
+        int capacity = Math.max(size, 1);
+        copy.size = size;
+        copy.subjects = Arrays.copyOf(subjects, capacity);
+        copy.oldX = Arrays.copyOf(oldX, capacity);
+        copy.oldY = Arrays.copyOf(oldY, capacity);
+        copy.newX = Arrays.copyOf(newX, capacity);
+        copy.newY = Arrays.copyOf(newY, capacity);
+        return copy;
+    }
+}
@@ -5,7 +5,7 @@ import project.entity.Tower;
 /**
  * Struct containing data of a {@link Tower}.
  */
-public abstract class ArenaTowerEventArgs extends EventArgs {
+public class ArenaTowerEventArgs extends EventArgs {
 
     /**
      * The subject of the event.
@@ -16,4 +16,22 @@ public abstract class ArenaTowerEventArgs extends EventArgs {
      * Default constructor.
      */
     public ArenaTowerEventArgs() {}
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        subject = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArenaTowerEventArgs copy() {
+        ArenaTowerEventArgs copy = new ArenaTowerEventArgs();
+        copy.subject = subject;
+        return copy;
+    }
 }
\ No newline at end of file
@@ -6,13 +6,26 @@ package project.event.eventargs;
 public class EventArgs {
     
     /**
-     * A dummy field that has nothing in it.
+     * A shared instance that has nothing in it.
+     * Use it instead of allocating blank event data on each invocation.
      */
-    public static final EventArgs EMPTY = null;
+    public static final EventArgs EMPTY = new EventArgs();
 
     /**
      * Default constructor.
      */
     public EventArgs() {}
 
+    /**
+     * Resets the data to its default state so that the struct can be reused.
+     */
+    public void clear() {}
+
+    /**
+     * Returns a copy of the data that is not affected when this struct is cleared or reused.
+     * Subclasses that contain data must override this method.
+     * @return A copy of the data.
+     */
+    public EventArgs copy() { return this; }
+
 }
\ No newline at end of file
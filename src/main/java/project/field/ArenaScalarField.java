@@ -65,8 +65,59 @@ public interface ArenaScalarField<T extends Number & Comparable<T>> {
      */
     abstract void setAll(T value);
 
+    /**
+     * The packed coordinates that represent no point. See {@link #packPoint(short, short)}.
+     */
+    public static final int NO_POINT = -1;
+
+    /**
+     * The number of directions in which a point has taxicab neighbours.
+     */
+    public static final int NUM_TAXICAB_DIRECTIONS = 4;
+
+    /**
+     * Packs the coordinates of a point into an <code>int</code>, so that it can be returned without allocating.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The packed coordinates, which are never equal to {@link #NO_POINT}.
+     */
+    static int packPoint(short x, short y) { return (x << 16) | y; }
+
+    /**
+     * Returns the x-coordinate of a point packed by {@link #packPoint(short, short)}.
+     * @param point The packed coordinates.
+     * @return The x-coordinate of the point.
+     */
+    static short unpackX(int point) { return (short) (point >>> 16); }
+
+    /**
+     * Returns the y-coordinate of a point packed by {@link #packPoint(short, short)}.
+     * @param point The packed coordinates.
+     * @return The y-coordinate of the point.
+     */
+    static short unpackY(int point) { return (short) (point & 0xFFFF); }
+
+    /**
+     * Returns the immediate neighbour of the given point in one of the four cardinal directions, without allocating.
+     * The directions are left, right, up and down, in that order.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @param direction The direction, between <code>0</code> inclusive and {@link #NUM_TAXICAB_DIRECTIONS} exclusive.
+     * @return The packed coordinates of the neighbour, or {@link #NO_POINT} if it is outside the arena.
+     */
+    static int getTaxicabNeighbour(short x, short y, int direction) {
+        switch (direction) {
+            case 0: return x > 0 ? packPoint((short) (x - 1), y) : NO_POINT;
+            case 1: return x < ArenaManager.ARENA_WIDTH ? packPoint((short) (x + 1), y) : NO_POINT;
+            case 2: return y > 0 ? packPoint(x, (short) (y - 1)) : NO_POINT;
+            case 3: return y < ArenaManager.ARENA_HEIGHT ? packPoint(x, (short) (y + 1)) : NO_POINT;
+            default: throw new IllegalArgumentException(String.format("The parameter 'direction' is out of bounds. Value: %d", direction));
+        }
+    }
+
     /**
      * Returns the immediate neighbour in each of the four cardinal directions from the given point, if they exist.
+     * This allocates a list; see {@link #getTaxicabNeighbour(short, short, int)} for the allocation-free version.
      * @param x The x-coordinate of the point.
      * @param y The y-coordinate of the point.
      * @return The neighbours which satisfy the requirement, or <code>null</code> if the given point is the only point in the entire field.
@@ -96,15 +147,29 @@ public interface ArenaScalarField<T extends Number & Comparable<T>> {
      * @return The point after moving by one step, or <code>null</code> if the current point is a local minimum.
      */
     public default @Nullable ScalarFieldPoint descendTaxicab(short x, short y) {
+        int point = descendTaxicabPacked(x, y);
+        return point == NO_POINT ? null : new ScalarFieldPoint(unpackX(point), unpackY(point));
+    }
+
+    /**
+     * Performs gradient descent in one of the four cardinal directions from the given point, without allocating
+     * when the field stores primitive values.
+     * Ties are broken in the order of {@link #getTaxicabNeighbour(short, short, int)}.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The packed coordinates of the point after moving by one step,
+     * or {@link #NO_POINT} if the current point is a local minimum.
+     */
+    public default int descendTaxicabPacked(short x, short y) {
         ArenaObjectPositionInfo.assertValidPosition(x, y);
-        
-        if (getTaxicabNeighbours(x, y) == null) return null;
 
         T lowestCost = getValueAt(x, y);
-        ScalarFieldPoint lowestCostNeighbour = null;
-        for (ScalarFieldPoint neighbour : getTaxicabNeighbours(x, y)) {
-            T cost = getValueAt(neighbour.x, neighbour.y);
+        int lowestCostNeighbour = NO_POINT;
+        for (int direction = 0; direction < NUM_TAXICAB_DIRECTIONS; direction++) {
+            int neighbour = getTaxicabNeighbour(x, y, direction);
+            if (neighbour == NO_POINT) continue;
 
+            T cost = getValueAt(unpackX(neighbour), unpackY(neighbour));
             if (cost.compareTo(lowestCost) < 0) {
                 lowestCost = cost;
                 lowestCostNeighbour = neighbour;
@@ -0,0 +1,500 @@
+package project.field;
+
+import java.util.Arrays;
+
+import project.arena.ArenaEventRegister;
+import project.arena.ArenaInstance;
+import project.arena.ArenaScalarFieldRegister;
+import project.control.ArenaManager;
+import project.entity.ArenaObject;
+import project.entity.Monster;
+import project.entity.Tower;
+import project.event.EventHandler;
+import project.event.SubscriptionGroup;
+import project.event.eventargs.ArenaObjectEventArgs;
+import project.event.eventargs.ArenaObjectMoveBatchEventArgs;
+
+/**
+ * The grids of the arena where a {@link Tower} can be built, so that placing a tower can be checked in constant time.
+ * <p>
+ * A tower can be built on a grid that is not the starting position or the end zone, that has no tower or {@link Monster} on it,
+ * and that does not cut off the starting position or any grid with a monster from every end zone.
+ * The grids without towers form a graph whose articulation points are found by a depth-first search from a root joined to every end zone,
+ * which is only repeated after a tower has been added or removed. Building on a grid cuts off the grids below a child in the search tree
+ * whose subtree has no edge to an ancestor of the grid, so the number of grids with monsters in each subtree is enough
+ * to update the map after monsters have moved to other grids.
+ * Both are done at most once between changes, when the map is next queried.
+ */
+public final class BuildabilityMap {
+
+    /**
+     * The index of a grid that is not in the search tree, or of the parent of its root.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The number of grids in the x-direction.
+     */
+    private final int numGridsX;
+
+    /**
+     * The number of grids in the y-direction.
+     */
+    private final int numGridsY;
+
+    /**
+     * The index of the grid of the starting position.
+     */
+    private final int startGrid;
+
+    /**
+     * The indices of the grids of the end zones.
+     */
+    private final int[] endGrids;
+
+    /**
+     * Whether each grid is the grid of an end zone.
+     */
+    private final boolean[] isEnd;
+
+    /**
+     * The index of the root of the search tree, which is not a grid but is joined to the grid of every end zone.
+     */
+    private final int root;
+
+    /**
+     * Whether each grid has a tower, indexed by <code>gridX * numGridsY + gridY</code>.
+     */
+    private final boolean[] hasTower;
+
+    /**
+     * The number of monsters on each grid.
+     */
+    private final int[] numMonsters;
+
+    /**
+     * Whether a tower can be built on each grid.
+     */
+    private final boolean[] isBuildable;
+
+    /**
+     * The order in which each grid was discovered by the search, or {@link #NONE} if it was not reached.
+     * This and the other arrays of the search tree also have an element for {@link #root}.
+     */
+    private final int[] discovery;
+
+    /**
+     * The smallest discovery order of a grid reachable from the subtree of each grid through at most one edge outside the search tree.
+     */
+    private final int[] low;
+
+    /**
+     * The parent of each grid in the search tree.
+     */
+    private final int[] parents;
+
+    /**
+     * The grids reached by the search in the order in which they were discovered.
+     */
+    private final int[] preorder;
+
+    /**
+     * The number of grids reached by the search.
+     */
+    private int numReached = 0;
+
+    /**
+     * The number of grids that must stay connected to an end zone in the subtree of each grid.
+     */
+    private final int[] numRequiredBelow;
+
+    /**
+     * Whether the search tree is out of date with the towers.
+     */
+    private boolean isTreeStale = true;
+
+    /**
+     * Whether {@link #isBuildable} is out of date with the towers or the grids that have monsters.
+     */
+    private boolean isMapStale = true;
+
+    /**
+     * The register whose pending moves are delivered before the map is read, or <code>null</code> if it is updated by the caller.
+     */
+    private final ArenaEventRegister register;
+
+    /**
+     * The method invoked when an {@link ArenaObject} is being added.
+     */
+    private EventHandler<ArenaObjectEventArgs> onAddObject = (sender, args) -> {
+        if (args.subject instanceof Tower) {
+            setTower(getGridXOf(args.subject), getGridYOf(args.subject), true);
+        } else if (args.subject instanceof Monster) {
+            incrementMonsters(getGridXOf(args.subject), getGridYOf(args.subject), 1);
+        }
+    };
+
+    /**
+     * The method invoked when an {@link ArenaObject} is being removed.
+     */
+    private EventHandler<ArenaObjectEventArgs> onRemoveObject = (sender, args) -> {
+        if (args.subject instanceof Tower) {
+            setTower(getGridXOf(args.subject), getGridYOf(args.subject), false);
+        } else if (args.subject instanceof Monster) {
+            incrementMonsters(getGridXOf(args.subject), getGridYOf(args.subject), -1);
+        }
+    };
+
+    /**
+     * The method invoked when an {@link ArenaObject} is scheduled to be moved.
+     */
+    private EventHandler<ArenaObjectEventArgs> onStartMoveObject = (sender, args) -> {
+        if (args.subject instanceof Monster) {
+            incrementMonsters(getGridXOf(args.subject), getGridYOf(args.subject), -1);
+        }
+    };
+
+    /**
+     * The method invoked when an {@link ArenaObject} has been moved.
+     */
+    private EventHandler<ArenaObjectEventArgs> onEndMoveObject = (sender, args) -> {
+        if (args.subject instanceof Monster) {
+            incrementMonsters(getGridXOf(args.subject), getGridYOf(args.subject), 1);
+        }
+    };
+
+    /**
+     * The method invoked when multiple {@link ArenaObject}s have been moved.
+     */
+    private EventHandler<ArenaObjectMoveBatchEventArgs> onMoveObjects = (sender, args) -> {
+        for (int i = 0; i < args.size; i++) {
+            if (args.subjects[i] instanceof Monster) {
+                int oldGridX = ArenaManager.getGridXPosFromCoor(args.oldX[i]), oldGridY = ArenaManager.getGridYPosFromCoor(args.oldY[i]);
+                int newGridX = ArenaManager.getGridXPosFromCoor(args.newX[i]), newGridY = ArenaManager.getGridYPosFromCoor(args.newY[i]);
+                if (oldGridX == newGridX && oldGridY == newGridY) continue;
+
+                incrementMonsters(oldGridX, oldGridY, -1);
+                incrementMonsters(newGridX, newGridY, 1);
+            }
+        }
+    };
+
+    /**
+     * Constructs a newly allocated {@link BuildabilityMap} object and attaches it to an arena instance.
+     * The towers and monsters are recorded as they are added, so the map should be attached before any of them is.
+     * @param arenaInstance The arena instance.
+     * @param fieldRegister The register of scalar fields of the arena, whose end zones the monsters head for.
+     */
+    public BuildabilityMap(ArenaInstance arenaInstance, ArenaScalarFieldRegister fieldRegister) {
+        this(ArenaManager.getMaxHorizontalGrids(), ArenaManager.getMaxVerticalGrids(),
+                ArenaManager.getStartingGridXPos(), ArenaManager.getStartingGridYPos(),
+                getGoalGridXs(fieldRegister), getGoalGridYs(fieldRegister), arenaInstance.getEventRegister());
+
+        SubscriptionGroup subscriptions = arenaInstance.getSubscriptions();
+        register.ARENA_OBJECT_ADD.subscribe(onAddObject, subscriptions);
+        register.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_START.subscribe(onStartMoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_END.subscribe(onEndMoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_BATCH.subscribe(onMoveObjects, subscriptions);
+    }
+
+    /**
+     * Constructs a newly allocated {@link BuildabilityMap} object for grids whose towers and monsters are recorded by the caller.
+     * @param numGridsX The number of grids in the x-direction.
+     * @param numGridsY The number of grids in the y-direction.
+     * @param startGridX The x-position of the grid of the starting position.
+     * @param startGridY The y-position of the grid of the starting position.
+     * @param endGridX The x-position of the grid of the end zone.
+     * @param endGridY The y-position of the grid of the end zone.
+     * @throws IllegalArgumentException If there are no grids, or the starting position or end zone is outside them.
+     */
+    BuildabilityMap(int numGridsX, int numGridsY, int startGridX, int startGridY, int endGridX, int endGridY) throws IllegalArgumentException {
+        this(numGridsX, numGridsY, startGridX, startGridY, new int[] { endGridX }, new int[] { endGridY }, null);
+    }
+
+    /**
+     * Constructs a newly allocated {@link BuildabilityMap} object for grids with several end zones,
+     * whose towers and monsters are recorded by the caller.
+     * @param numGridsX The number of grids in the x-direction.
+     * @param numGridsY The number of grids in the y-direction.
+     * @param startGridX The x-position of the grid of the starting position.
+     * @param startGridY The y-position of the grid of the starting position.
+     * @param endGridXs The x-positions of the grids of the end zones.
+     * @param endGridYs The y-positions of the grids of the end zones, in the same order.
+     * @throws IllegalArgumentException If there are no grids or end zones, or the starting position or an end zone is outside the grids.
+     */
+    BuildabilityMap(int numGridsX, int numGridsY, int startGridX, int startGridY, int[] endGridXs, int[] endGridYs) throws IllegalArgumentException {
+        this(numGridsX, numGridsY, startGridX, startGridY, endGridXs, endGridYs, null);
+    }
+
+    /**
+     * Constructs a newly allocated {@link BuildabilityMap} object.
+     * @param numGridsX The number of grids in the x-direction.
+     * @param numGridsY The number of grids in the y-direction.
+     * @param startGridX The x-position of the grid of the starting position.
+     * @param startGridY The y-position of the grid of the starting position.
+     * @param endGridXs The x-positions of the grids of the end zones.
+     * @param endGridYs The y-positions of the grids of the end zones, in the same order.
+     * @param register The register whose pending moves are delivered before the map is read, or <code>null</code> if there is none.
+     * @throws IllegalArgumentException If there are no grids or end zones, or the starting position or an end zone is outside the grids.
+     */
+    private BuildabilityMap(int numGridsX, int numGridsY, int startGridX, int startGridY, int[] endGridXs, int[] endGridYs,
+            ArenaEventRegister register) throws IllegalArgumentException {
+        if (numGridsX <= 0 || numGridsY <= 0) throw new IllegalArgumentException("The arena must contain at least one grid");
+        if (endGridXs.length == 0 || endGridXs.length != endGridYs.length) {
+            throw new IllegalArgumentException(String.format("There must be one position for each end zone. Value: %d", endGridYs.length));
+        }
+        this.numGridsX = numGridsX;
+        this.numGridsY = numGridsY;
+        this.register = register;
+
+        int numGrids = numGridsX * numGridsY;
+        startGrid = indexOf(startGridX, startGridY);
+        if (startGrid == NONE) throw new IllegalArgumentException(String.format("The starting position is outside the arena. Value: (%d, %d)", startGridX, startGridY));
+
+        endGrids = new int[endGridXs.length];
+        isEnd = new boolean[numGrids];
+        for (int i = 0; i < endGrids.length; i++) {
+            endGrids[i] = indexOf(endGridXs[i], endGridYs[i]);
+            if (endGrids[i] == NONE) throw new IllegalArgumentException(String.format("The end zone is outside the arena. Value: (%d, %d)", endGridXs[i], endGridYs[i]));
+            isEnd[endGrids[i]] = true;
+        }
+
+        root = numGrids;
+        hasTower = new boolean[numGrids];
+        numMonsters = new int[numGrids];
+        isBuildable = new boolean[numGrids];
+        discovery = new int[numGrids + 1];
+        low = new int[numGrids + 1];
+        parents = new int[numGrids + 1];
+        preorder = new int[numGrids + 1];
+        numRequiredBelow = new int[numGrids + 1];
+    }
+
+    /**
+     * Determines whether a {@link Tower} can be built at the grid where a specified pixel is located, in constant time
+     * unless the towers or the grids that have monsters have changed since the last query.
+     * Does not take into account constraints that are not related to location.
+     * @param x The x-coordinate of the pixel.
+     * @param y The y-coordinate of the pixel.
+     * @return Whether a tower can be built at the grid where the specified pixel is located.
+     */
+    public boolean canBuildTowerAt(short x, short y) {
+        if (x < 0 || y < 0) return false;
+        return canBuildTowerOnGrid(ArenaManager.getGridXPosFromCoor(x), ArenaManager.getGridYPosFromCoor(y));
+    }
+
+    /**
+     * Determines whether a {@link Tower} can be built on a grid.
+     * @param gridX The x-position of the grid.
+     * @param gridY The y-position of the grid.
+     * @return Whether a tower can be built on the grid, which is <code>false</code> if it is outside the arena.
+     */
+    public boolean canBuildTowerOnGrid(int gridX, int gridY) {
+        int grid = indexOf(gridX, gridY);
+        if (grid == NONE) return false;
+
+        if (register != null) register.flushMoveBatch(this);
+        if (isTreeStale) rebuildTree();
+        if (isMapStale) rebuildMap();
+        return isBuildable[grid];
+    }
+
+    /**
+     * Records that a tower has been added to or removed from a grid.
+     * @param gridX The x-position of the grid.
+     * @param gridY The y-position of the grid.
+     * @param hasTower Whether the grid has a tower.
+     */
+    void setTower(int gridX, int gridY, boolean hasTower) {
+        int grid = indexOf(gridX, gridY);
+        if (grid == NONE || this.hasTower[grid] == hasTower) return;
+
+        this.hasTower[grid] = hasTower;
+        isTreeStale = true;
+        isMapStale = true;
+    }
+
+    /**
+     * Changes the number of monsters on a grid.
+     * @param gridX The x-position of the grid.
+     * @param gridY The y-position of the grid.
+     * @param amount The number of monsters that have entered the grid, which is negative if they have left.
+     */
+    void incrementMonsters(int gridX, int gridY, int amount) {
+        int grid = indexOf(gridX, gridY);
+        if (grid == NONE) return;
+
+        boolean hadMonsters = numMonsters[grid] > 0;
+        numMonsters[grid] += amount;
+        if (hadMonsters != numMonsters[grid] > 0) isMapStale = true;
+    }
+
+    /**
+     * Returns the index of a grid.
+     * @param gridX The x-position of the grid.
+     * @param gridY The y-position of the grid.
+     * @return The index of the grid, or {@link #NONE} if it is outside the arena.
+     */
+    private int indexOf(int gridX, int gridY) {
+        if (gridX < 0 || gridY < 0 || gridX >= numGridsX || gridY >= numGridsY) return NONE;
+        return gridX * numGridsY + gridY;
+    }
+
+    /**
+     * Returns the x-position of the grid of an object.
+     * @param object The object.
+     * @return The x-position of the grid.
+     */
+    private static int getGridXOf(ArenaObject object) {
+        return ArenaManager.getGridXPosFromCoor(object.getX());
+    }
+
+    /**
+     * Returns the y-position of the grid of an object.
+     * @param object The object.
+     * @return The y-position of the grid.
+     */
+    private static int getGridYOf(ArenaObject object) {
+        return ArenaManager.getGridYPosFromCoor(object.getY());
+    }
+
+    /**
+     * Returns the x-positions of the grids of the end zones of a register.
+     * @param fieldRegister The register of scalar fields.
+     * @return The x-positions of the grids of the end zones.
+     */
+    private static int[] getGoalGridXs(ArenaScalarFieldRegister fieldRegister) {
+        int[] gridXs = new int[fieldRegister.getNumGoals()];
+        for (int i = 0; i < gridXs.length; i++) gridXs[i] = ArenaManager.getGridXPosFromCoor(fieldRegister.getGoalX(i));
+        return gridXs;
+    }
+
+    /**
+     * Returns the y-positions of the grids of the end zones of a register.
+     * @param fieldRegister The register of scalar fields.
+     * @return The y-positions of the grids of the end zones.
+     */
+    private static int[] getGoalGridYs(ArenaScalarFieldRegister fieldRegister) {
+        int[] gridYs = new int[fieldRegister.getNumGoals()];
+        for (int i = 0; i < gridYs.length; i++) gridYs[i] = ArenaManager.getGridYPosFromCoor(fieldRegister.getGoalY(i));
+        return gridYs;
+    }
+
+    /**
+     * Determines whether a grid must stay connected to an end zone.
+     * @param grid The index of the grid.
+     * @return Whether the grid is the starting position or has a monster.
+     */
+    private boolean isRequired(int grid) {
+        return grid == startGrid || numMonsters[grid] > 0;
+    }
+
+    /**
+     * Searches the grids without towers from the root joined to the end zones, finding the discovery order, parent and low point of each grid.
+     */
+    private void rebuildTree() {
+        Arrays.fill(discovery, NONE);
+        numReached = 0;
+
+        // Each entry of the stack is a grid and the number of its neighbours that have been visited
+        int[] stack = new int[discovery.length];
+        int[] numVisited = new int[discovery.length];
+        int size = 0;
+
+        discovery[root] = low[root] = numReached;
+        parents[root] = NONE;
+        preorder[numReached++] = root;
+        numVisited[root] = 0;
+        stack[size++] = root;
+        while (size > 0) {
+            int grid = stack[size - 1];
+            if (numVisited[grid] == getNumNeighbours(grid)) {
+                size--;
+                int parent = parents[grid];
+                if (parent != NONE) low[parent] = Math.min(low[parent], low[grid]);
+                continue;
+            }
+
+            int neighbour = getNeighbour(grid, numVisited[grid]++);
+            if (neighbour == NONE || (neighbour != root && hasTower[neighbour] && !isEnd[neighbour])) continue;
+
+            if (discovery[neighbour] == NONE) {
+                discovery[neighbour] = low[neighbour] = numReached;
+                parents[neighbour] = grid;
+                preorder[numReached++] = neighbour;
+                numVisited[neighbour] = 0;
+                stack[size++] = neighbour;
+            } else if (neighbour != parents[grid]) {
+                low[grid] = Math.min(low[grid], discovery[neighbour]);
+            }
+        }
+
+        isTreeStale = false;
+    }
+
+    /**
+     * Finds the grids where a tower can be built from the search tree and the grids that have monsters.
+     */
+    private void rebuildMap() {
+        Arrays.fill(isBuildable, false);
+
+        int numRequired = 0;
+        for (int grid = 0; grid < numMonsters.length; grid++) {
+            if (isRequired(grid)) numRequired++;
+        }
+
+        // The root is the first grid in the order, and is not required itself
+        Arrays.fill(numRequiredBelow, 0);
+        for (int i = numReached - 1; i > 0; i--) {
+            int grid = preorder[i];
+            if (isRequired(grid)) numRequiredBelow[grid]++;
+            numRequiredBelow[parents[grid]] += numRequiredBelow[grid];
+        }
+
+        // A grid that is already cut off cannot be reached by building somewhere else
+        if (numRequiredBelow[root] == numRequired) {
+            for (int grid = 0; grid < isBuildable.length; grid++) {
+                isBuildable[grid] = !hasTower[grid] && !isRequired(grid) && !isEnd[grid];
+            }
+
+            // Building on the parent of a grid whose subtree has no other way to an end zone cuts it off
+            for (int i = 1; i < numReached; i++) {
+                int grid = preorder[i], parent = parents[grid];
+                if (parent != root && low[grid] >= discovery[parent] && numRequiredBelow[grid] > 0) isBuildable[parent] = false;
+            }
+        }
+
+        isMapStale = false;
+    }
+
+    /**
+     * Returns the number of neighbours of a grid in the search.
+     * @param grid The index of the grid, or {@link #root}.
+     * @return The number of neighbours, including those outside the arena.
+     */
+    private int getNumNeighbours(int grid) {
+        if (grid == root) return endGrids.length;
+        return isEnd[grid] ? 5 : 4;
+    }
+
+    /**
+     * Returns a neighbour of a grid.
+     * @param grid The index of the grid, or {@link #root}, whose neighbours are the grids of the end zones.
+     * @param direction The direction of the neighbour, as in {@link ArenaScalarField#getTaxicabNeighbour(short, short, int)},
+     * or the position of the end zone for the root. The grid of an end zone has the root as a fifth neighbour.
+     * @return The index of the neighbour, or {@link #NONE} if it is outside the arena.
+     */
+    private int getNeighbour(int grid, int direction) {
+        if (grid == root) return endGrids[direction];
+
+        int gridX = grid / numGridsY, gridY = grid % numGridsY;
+        switch (direction) {
+            case 0: return indexOf(gridX - 1, gridY);
+            case 1: return indexOf(gridX + 1, gridY);
+            case 2: return indexOf(gridX, gridY - 1);
+            case 3: return indexOf(gridX, gridY + 1);
+            default: return root;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package project.field;
+
+import java.util.Arrays;
+
+/**
+ * Computes approximate distances from the nearest of a set of sources to each point of a rectangular grid at a coarser
+ * resolution than {@link GridFieldSolver}, then refines them to every point so that gradient descent still works pixel by pixel.
+ * <p>
+ * The grid is divided into square cells of <code>resolution</code> points along each side, except for the last cell
+ * in each direction, which holds the remaining points. A cell is blocked iff any of its points is blocked, so the
+ * connectivity is the same as on the full grid when the resolution divides the size of the obstacles.
+ * The distances between cells are computed by {@link GridFieldSolver}, where moving into a cell costs its longest
+ * side times the average cost of moving into its points.
+ * <p>
+ * Within each cell, the value of a point is the distance of the next cell on the shortest path, plus the cost of
+ * walking in a straight line to the side facing that cell. Points in the cell of a source take their taxicab
+ * distance to the nearest source in that cell. Every point that can be reached therefore has a neighbour with a strictly
+ * lower value, so gradient descent never gets stuck, and the values differ from the exact distances by a few cells at most.
+ * <p>
+ * The coarse mode can be enabled for the scalar fields by the system property <code>project.field.resolution</code>.
+ * The solver keeps its work arrays between calls. It is not thread-safe.
+ */
+public final class CoarseFieldSolver {
+
+    /**
+     * The resolution used by the scalar fields, where <code>1</code> disables the coarse mode.
+     */
+    private static final int configuredResolution = Integer.getInteger("project.field.resolution", 1);
+
+    /**
+     * The number of points in the x-direction.
+     */
+    private final int width;
+
+    /**
+     * The number of points in the y-direction.
+     */
+    private final int height;
+
+    /**
+     * The number of points along each side of a cell.
+     */
+    private final int resolution;
+
+    /**
+     * The number of cells in the x-direction.
+     */
+    private final int numCellsX;
+
+    /**
+     * The number of cells in the y-direction.
+     */
+    private final int numCellsY;
+
+    /**
+     * The solver that calculates the distances between cells.
+     */
+    private final GridFieldSolver cellSolver;
+
+    /**
+     * Whether each cell is blocked, indexed by <code>cellX * numCellsY + cellY</code>.
+     */
+    private final boolean[] cellBlocked;
+
+    /**
+     * Whether each cell contains a source, indexed in the same way as {@link #cellBlocked}.
+     */
+    private final boolean[] isSourceCell;
+
+    /**
+     * The previous cell on the shortest path from each cell to the source, indexed in the same way as {@link #cellBlocked}.
+     */
+    private final int[] cellParents;
+
+    /**
+     * The integer distance of each cell, indexed in the same way as {@link #cellBlocked}.
+     */
+    private final int[] cellIntDistances;
+
+    /**
+     * The cost of moving into each cell for integer distances, which is its longest side.
+     */
+    private final int[] cellIntWeights;
+
+    /**
+     * The real distance of each cell, indexed in the same way as {@link #cellBlocked}.
+     */
+    private final float[] cellFloatDistances;
+
+    /**
+     * The average cost of moving into a point of each cell for real distances, indexed in the same way as {@link #cellBlocked}.
+     */
+    private final float[] cellUnitWeights;
+
+    /**
+     * The cost of moving into each cell for real distances, indexed in the same way as {@link #cellBlocked}.
+     */
+    private final float[] cellFloatWeights;
+
+    /**
+     * Returns the resolution used by the scalar fields, as set by the system property <code>project.field.resolution</code>.
+     * It must divide the width and height of a grid, so that the cells never straddle the edge of a tower.
+     * The scalar fields reject it otherwise, through {@link #CoarseFieldSolver(int, int, int, int, int)}.
+     * @return The number of points along each side of a cell.
+     */
+    public static int getConfiguredResolution() { return configuredResolution; }
+
+    /**
+     * Returns whether the scalar fields are calculated at a coarser resolution than one point per cell.
+     * @return Whether the coarse mode is enabled.
+     */
+    public static boolean isEnabled() { return configuredResolution > 1; }
+
+    /**
+     * Constructs a newly allocated {@link CoarseFieldSolver} object for a grid whose obstacles are aligned to rectangles
+     * of a given size, such as the grids on which towers are built.
+     * The resolution must divide the size of the obstacles, so that no cell is partly blocked.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     * @param resolution The number of points along each side of a cell.
+     * @param obstacleWidth The number of points between the left edges of adjacent obstacles.
+     * @param obstacleHeight The number of points between the top edges of adjacent obstacles.
+     */
+    public CoarseFieldSolver(int width, int height, int resolution, int obstacleWidth, int obstacleHeight) {
+        this(width, height, resolution);
+        if (obstacleWidth % resolution != 0 || obstacleHeight % resolution != 0) {
+            throw new IllegalArgumentException(String.format("The resolution must divide the size of the obstacles, %dx%d. Value: %d",
+                    obstacleWidth, obstacleHeight, resolution));
+        }
+    }
+
+    /**
+     * Constructs a newly allocated {@link CoarseFieldSolver} object.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     * @param resolution The number of points along each side of a cell.
+     */
+    public CoarseFieldSolver(int width, int height, int resolution) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("The grid must contain at least one point");
+        if (resolution <= 0) throw new IllegalArgumentException("The cells must contain at least one point");
+
+        this.width = width;
+        this.height = height;
+        this.resolution = resolution;
+        this.numCellsX = (width + resolution - 1) / resolution;
+        this.numCellsY = (height + resolution - 1) / resolution;
+
+        int numCells = numCellsX * numCellsY;
+        cellSolver = new GridFieldSolver(numCellsX, numCellsY);
+        cellBlocked = new boolean[numCells];
+        isSourceCell = new boolean[numCells];
+        cellParents = new int[numCells];
+        cellIntDistances = new int[numCells];
+        cellIntWeights = new int[numCells];
+        cellFloatDistances = new float[numCells];
+        cellUnitWeights = new float[numCells];
+        cellFloatWeights = new float[numCells];
+
+        for (int cellX = 0; cellX < numCellsX; cellX++) {
+            for (int cellY = 0; cellY < numCellsY; cellY++) {
+                cellIntWeights[cellSolver.indexOf(cellX, cellY)] = Math.max(getEndX(cellX) - cellX * resolution, getEndY(cellY) - cellY * resolution) + 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of points along each side of a cell.
+     * @return The number of points along each side of a cell.
+     */
+    public int getResolution() { return resolution; }
+
+    /**
+     * Returns the index of a point.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The index of the point.
+     */
+    public int indexOf(int x, int y) { return x * height + y; }
+
+    /**
+     * Computes the approximate distances when each move costs one.
+     * @param distances The array to store the distances in. Unreachable points are set to {@link GridFieldSolver#UNREACHABLE}.
+     * @param blocked Whether each point is blocked.
+     * @param source The index of the source.
+     */
+    public void solve(int[] distances, boolean[] blocked, int source) {
+        solve(distances, blocked, new int[] { source });
+    }
+
+    /**
+     * Computes the approximate distances to the nearest of several sources when each move costs one.
+     * @param distances The array to store the distances in. Unreachable points are set to {@link GridFieldSolver#UNREACHABLE}.
+     * @param blocked Whether each point is blocked.
+     * @param sources The indices of the sources.
+     */
+    public void solve(int[] distances, boolean[] blocked, int[] sources) {
+        findBlockedCells(blocked);
+        int[] sourceCells = findSourceCells(sources);
+        cellSolver.solve(cellIntDistances, cellParents, cellBlocked, cellIntWeights, resolution, sourceCells);
+
+        // Every point of the cells of the sources has a lower value than the points of the other cells
+        int maxSourceDistance = 0;
+        for (int source : sources) maxSourceDistance = Math.max(maxSourceDistance, getMaxStepsWithinCell(source));
+
+        for (int cellX = 0; cellX < numCellsX; cellX++) {
+            for (int cellY = 0; cellY < numCellsY; cellY++) {
+                int cell = cellSolver.indexOf(cellX, cellY);
+                int startX = cellX * resolution, endX = getEndX(cellX);
+                int startY = cellY * resolution, endY = getEndY(cellY);
+
+                if (isSourceCell[cell]) {
+                    for (int x = startX; x <= endX; x++) {
+                        for (int y = startY; y <= endY; y++) distances[indexOf(x, y)] = getStepsToNearestSource(sources, cell, x, y);
+                    }
+                } else if (cellIntDistances[cell] == GridFieldSolver.UNREACHABLE) {
+                    for (int x = startX; x <= endX; x++) {
+                        for (int y = startY; y <= endY; y++) distances[indexOf(x, y)] = GridFieldSolver.UNREACHABLE;
+                    }
+                } else {
+                    int base = cellIntDistances[cellParents[cell]] + maxSourceDistance;
+                    int exitDirection = getExitDirection(cell);
+                    for (int x = startX; x <= endX; x++) {
+                        for (int y = startY; y <= endY; y++) {
+                            distances[indexOf(x, y)] = base + getStepsToExit(exitDirection, x, y, startX, endX, startY, endY);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the approximate distances when each move costs a non-negative real number.
+     * @param distances The array to store the distances in. Unreachable points are set to {@link Float#POSITIVE_INFINITY}.
+     * @param blocked Whether each point is blocked.
+     * @param weights The cost of moving into each point, excluding <code>constantWeight</code>.
+     * @param constantWeight The cost added to every move.
+     * @param source The index of the source.
+     */
+    public void solve(float[] distances, boolean[] blocked, float[] weights, float constantWeight, int source) {
+        solve(distances, blocked, weights, constantWeight, new int[] { source });
+    }
+
+    /**
+     * Computes the approximate distances to the nearest of several sources when each move costs a non-negative real number.
+     * @param distances The array to store the distances in. Unreachable points are set to {@link Float#POSITIVE_INFINITY}.
+     * @param blocked Whether each point is blocked.
+     * @param weights The cost of moving into each point, excluding <code>constantWeight</code>.
+     * @param constantWeight The cost added to every move.
+     * @param sources The indices of the sources.
+     */
+    public void solve(float[] distances, boolean[] blocked, float[] weights, float constantWeight, int[] sources) {
+        findBlockedCells(blocked);
+        int[] sourceCells = findSourceCells(sources);
+        for (int cellX = 0; cellX < numCellsX; cellX++) {
+            for (int cellY = 0; cellY < numCellsY; cellY++) {
+                int cell = cellSolver.indexOf(cellX, cellY);
+                int startX = cellX * resolution, endX = getEndX(cellX);
+                int startY = cellY * resolution, endY = getEndY(cellY);
+
+                float sum = 0;
+                for (int x = startX; x <= endX; x++) {
+                    for (int y = startY; y <= endY; y++) sum += weights[indexOf(x, y)];
+                }
+
+                cellUnitWeights[cell] = sum / ((endX - startX + 1) * (endY - startY + 1)) + constantWeight;
+                cellFloatWeights[cell] = cellIntWeights[cell] * cellUnitWeights[cell];
+            }
+        }
+        cellSolver.solve(cellFloatDistances, cellParents, cellBlocked, cellFloatWeights, 0, sourceCells);
+
+        // Every point of the cells of the sources has a lower value than the points of the other cells
+        float maxSourceDistance = 0;
+        for (int i = 0; i < sources.length; i++) {
+            maxSourceDistance = Math.max(maxSourceDistance, cellUnitWeights[sourceCells[i]] * getMaxStepsWithinCell(sources[i]));
+        }
+
+        for (int cellX = 0; cellX < numCellsX; cellX++) {
+            for (int cellY = 0; cellY < numCellsY; cellY++) {
+                int cell = cellSolver.indexOf(cellX, cellY);
+                int startX = cellX * resolution, endX = getEndX(cellX);
+                int startY = cellY * resolution, endY = getEndY(cellY);
+                float unitWeight = cellUnitWeights[cell];
+
+                if (isSourceCell[cell]) {
+                    for (int x = startX; x <= endX; x++) {
+                        for (int y = startY; y <= endY; y++) distances[indexOf(x, y)] = unitWeight * getStepsToNearestSource(sources, cell, x, y);
+                    }
+                } else if (cellFloatDistances[cell] == Float.POSITIVE_INFINITY) {
+                    for (int x = startX; x <= endX; x++) {
+                        for (int y = startY; y <= endY; y++) distances[indexOf(x, y)] = Float.POSITIVE_INFINITY;
+                    }
+                } else {
+                    float base = cellFloatDistances[cellParents[cell]] + maxSourceDistance;
+                    int exitDirection = getExitDirection(cell);
+                    for (int x = startX; x <= endX; x++) {
+                        for (int y = startY; y <= endY; y++) {
+                            distances[indexOf(x, y)] = base + unitWeight * getStepsToExit(exitDirection, x, y, startX, endX, startY, endY);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the cells that contain a source.
+     * @param sources The indices of the sources.
+     * @return The index of the cell of each source.
+     */
+    private int[] findSourceCells(int[] sources) {
+        Arrays.fill(isSourceCell, false);
+
+        int[] sourceCells = new int[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            sourceCells[i] = getCellOf(sources[i]);
+            isSourceCell[sourceCells[i]] = true;
+        }
+
+        return sourceCells;
+    }
+
+    /**
+     * Returns the cell that contains a point.
+     * @param index The index of the point.
+     * @return The index of the cell.
+     */
+    private int getCellOf(int index) {
+        int x = index / height, y = index % height;
+        return cellSolver.indexOf(x / resolution, y / resolution);
+    }
+
+    /**
+     * Returns the largest number of steps from a source to a point in its cell.
+     * @param source The index of the source.
+     * @return The taxicab distance from the source to the farthest corner of its cell.
+     */
+    private int getMaxStepsWithinCell(int source) {
+        int sourceX = source / height, sourceY = source % height;
+        int cellX = sourceX / resolution, cellY = sourceY / resolution;
+        return Math.max(sourceX - cellX * resolution, getEndX(cellX) - sourceX)
+                + Math.max(sourceY - cellY * resolution, getEndY(cellY) - sourceY);
+    }
+
+    /**
+     * Returns the number of steps from a point to the nearest source in the same cell.
+     * @param sources The indices of the sources.
+     * @param cell The index of the cell, which must contain a source.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The taxicab distance to the nearest source in the cell.
+     */
+    private int getStepsToNearestSource(int[] sources, int cell, int x, int y) {
+        int minSteps = Integer.MAX_VALUE;
+        for (int source : sources) {
+            if (getCellOf(source) == cell) minSteps = Math.min(minSteps, Math.abs(x - source / height) + Math.abs(y - source % height));
+        }
+
+        return minSteps;
+    }
+
+    /**
+     * Marks each cell that contains a blocked point as blocked.
+     * @param blocked Whether each point is blocked.
+     */
+    private void findBlockedCells(boolean[] blocked) {
+        for (int cellX = 0; cellX < numCellsX; cellX++) {
+            for (int cellY = 0; cellY < numCellsY; cellY++) {
+                boolean isBlocked = false;
+                for (int x = cellX * resolution, endX = getEndX(cellX); x <= endX && !isBlocked; x++) {
+                    for (int y = cellY * resolution, endY = getEndY(cellY); y <= endY && !isBlocked; y++) {
+                        isBlocked = blocked[indexOf(x, y)];
+                    }
+                }
+
+                cellBlocked[cellSolver.indexOf(cellX, cellY)] = isBlocked;
+            }
+        }
+    }
+
+    /**
+     * Returns the last x-coordinate of a cell.
+     * @param cellX The x-position of the cell.
+     * @return The last x-coordinate of the cell.
+     */
+    private int getEndX(int cellX) { return Math.min(width - 1, cellX * resolution + resolution - 1); }
+
+    /**
+     * Returns the last y-coordinate of a cell.
+     * @param cellY The y-position of the cell.
+     * @return The last y-coordinate of the cell.
+     */
+    private int getEndY(int cellY) { return Math.min(height - 1, cellY * resolution + resolution - 1); }
+
+    /**
+     * Returns the side of a cell that faces the next cell on its shortest path.
+     * @param cell The index of the cell, which must be reachable and not be the source.
+     * @return The direction of the next cell, as in {@link ArenaScalarField#getTaxicabNeighbour(short, short, int)}.
+     */
+    private int getExitDirection(int cell) {
+        int parent = cellParents[cell];
+        if (parent == cell - numCellsY) return 0;
+        if (parent == cell + numCellsY) return 1;
+        if (parent == cell - 1) return 2;
+        return 3;
+    }
+
+    /**
+     * Returns the number of steps from a point to the next cell in a given direction.
+     * @param direction The direction, as in {@link ArenaScalarField#getTaxicabNeighbour(short, short, int)}.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @param startX The first x-coordinate of the cell.
+     * @param endX The last x-coordinate of the cell.
+     * @param startY The first y-coordinate of the cell.
+     * @param endY The last y-coordinate of the cell.
+     * @return The number of steps.
+     */
+    private static int getStepsToExit(int direction, int x, int y, int startX, int endX, int startY, int endY) {
+        switch (direction) {
+            case 0: return x - startX + 1;
+            case 1: return endX - x + 1;
+            case 2: return y - startY + 1;
+            default: return endY - y + 1;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package project.field;
+
+/**
+ * Interface for the direction that a {@link project.entity.Monster} should move in on each point of the arena.
+ */
+public interface DirectionField {
+
+    /**
+     * Returns the direction to move in from a given point.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The direction, as in {@link ArenaScalarField#getTaxicabNeighbour(short, short, int)},
+     * or {@link FlowField#NONE} if the monster should not move.
+     */
+    public abstract byte getDirectionAt(short x, short y);
+
+    /**
+     * Returns the number of consecutive steps from a given point that are in the same direction.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The number of steps that can be taken in the direction of {@link #getDirectionAt(short, short)}
+     * before the direction may change, or <code>0</code> if the monster should not move.
+     */
+    public abstract int getRunLengthAt(short x, short y);
+}
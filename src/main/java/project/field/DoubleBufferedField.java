@@ -0,0 +1,244 @@
+package project.field;
+
+import java.util.concurrent.Executor;
+
+/**
+ * A scalar field that can be recalculated on a background thread while the previous version is still being read.
+ * <p>
+ * The field keeps a front buffer, which is read by {@link #getValueAt(short, short)}, and a back buffer,
+ * which receives each new version of the field when its calculation completes.
+ * The buffers are swapped by {@link #publish()}, which is called at a frame boundary,
+ * so objects reading the field see the same consistent version throughout a frame.
+ * An update that must not be read late, such as one that blocks the points under a new tower,
+ * is instead waited for by {@link #awaitRequired()} before the next frame begins.
+ * <p>
+ * Without an executor, which is the default, each update is calculated and published immediately on the calling thread.
+ * The front buffer must only be read on the thread that publishes, which is the JavaFX application thread in the game.
+ * <p>
+ * A field is only kept up to date while it is referenced. It is resumed by the first call to {@link #acquire()},
+ * and is paused again when every reference has been released, in which case changes to the arena are ignored
+ * and the front buffer keeps the version it had. The recalculation that resumes the field is a required update,
+ * so it runs in the background until the next frame begins instead of blocking the thread that acquires the field.
+ */
+public abstract class DoubleBufferedField<T extends Number & Comparable<T>> implements ArenaScalarField<T> {
+
+    /**
+     * The executor on which updates are calculated, or <code>null</code> if they are calculated on the calling thread.
+     */
+    private Executor executor = null;
+
+    /**
+     * The lock that guards the back buffer and the versions that have been completed and published.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The number of updates that have been submitted.
+     */
+    private long submittedVersion = 0;
+
+    /**
+     * The number of updates that have been calculated and copied into the back buffer.
+     */
+    private long completedVersion = 0;
+
+    /**
+     * The number of updates that are visible in the front buffer.
+     */
+    private long publishedVersion = 0;
+
+    /**
+     * The number of the latest update that must be visible before the next frame begins.
+     */
+    private long requiredVersion = 0;
+
+    /**
+     * The number of consecutive frame boundaries at which the front buffer was not up to date.
+     */
+    private int staleFrames = 0;
+
+    /**
+     * The number of references to the field that have been acquired and not yet released.
+     */
+    private int numReferences = 0;
+
+    /**
+     * Copies the latest calculated values into the back buffer.
+     * This is called on the thread that calculated them, while the buffers are locked.
+     */
+    protected abstract void copyToBack();
+
+    /**
+     * Exchanges the front buffer and the back buffer.
+     * This is called on the thread that publishes, while the buffers are locked.
+     */
+    protected abstract void swapBuffers();
+
+    /**
+     * Brings the field up to date with the arena after it has been paused, by submitting a recalculation.
+     * This is called on the thread that acquires the field, and the recalculation must be visible before the next frame begins.
+     * By default, nothing is recalculated.
+     */
+    protected void resume() {}
+
+    /**
+     * Runs a task that modifies the state of the calculation, after all tasks that have been enqueued before it.
+     * @param task The task.
+     */
+    protected final void enqueue(Runnable task) {
+        if (executor == null) task.run();
+        else executor.execute(task);
+    }
+
+    /**
+     * Runs a task that calculates a new version of the field, after all tasks that have been enqueued before it,
+     * and copies the result into the back buffer when it completes.
+     * @param update The task.
+     */
+    protected final void submit(Runnable update) {
+        submit(update, false);
+    }
+
+    /**
+     * Runs a task that calculates a new version of the field, after all tasks that have been enqueued before it,
+     * and copies the result into the back buffer when it completes.
+     * @param update The task.
+     * @param isRequired Whether the new version must be visible before the next frame begins,
+     * such as when monsters on the previous version could move onto points that are now blocked.
+     */
+    protected final void submit(Runnable update, boolean isRequired) {
+        long version = ++submittedVersion;
+        if (isRequired) requiredVersion = version;
+        enqueue(() -> {
+            try {
+                update.run();
+            } finally {
+                synchronized (lock) {
+                    copyToBack();
+                    completedVersion = version;
+                    lock.notifyAll();
+                }
+            }
+        });
+
+        if (executor == null) publish();
+    }
+
+    /**
+     * Adds a reference to the field. If the field was paused, it is resumed,
+     * and it is brought up to date by {@link #awaitRequired()} at the latest.
+     */
+    public final void acquire() {
+        if (numReferences++ > 0) return;
+
+        resume();
+        requiredVersion = submittedVersion;
+    }
+
+    /**
+     * Removes a reference to the field. When the last reference is removed, the field is paused.
+     * @throws IllegalStateException If the field is not referenced.
+     */
+    public final void release() throws IllegalStateException {
+        if (numReferences == 0) throw new IllegalStateException("The field is not referenced");
+
+        numReferences--;
+    }
+
+    /**
+     * Returns whether the field is referenced, in which case it is kept up to date with the arena.
+     * @return Whether the field is referenced.
+     */
+    public final boolean isActive() { return numReferences > 0; }
+
+    /**
+     * Returns the executor on which updates are calculated.
+     * @return The executor on which updates are calculated, or <code>null</code> if they are calculated on the calling thread.
+     */
+    public final Executor getExecutor() { return executor; }
+
+    /**
+     * Sets the executor on which updates are calculated, after waiting for pending updates to be published.
+     * The executor must run tasks one at a time in the order they are submitted, such as a single-threaded executor.
+     * @param executor The executor, or <code>null</code> to calculate updates on the calling thread.
+     */
+    public final void setExecutor(Executor executor) {
+        awaitAndPublish();
+        this.executor = executor;
+    }
+
+    /**
+     * Returns whether an update has been submitted that is not yet visible in the front buffer.
+     * @return Whether the front buffer is out of date.
+     */
+    public final boolean isStale() {
+        synchronized (lock) {
+            return publishedVersion < submittedVersion;
+        }
+    }
+
+    /**
+     * Makes the latest completed version visible in the front buffer, if it is not already.
+     * @return Whether the front buffer is now up to date with all updates submitted.
+     */
+    public final boolean publish() {
+        synchronized (lock) {
+            if (completedVersion > publishedVersion) {
+                swapBuffers();
+                publishedVersion = completedVersion;
+            }
+
+            return publishedVersion == submittedVersion;
+        }
+    }
+
+    /**
+     * Waits for all updates submitted to complete, then makes the result visible in the front buffer.
+     * If the thread is interrupted while waiting, the latest completed version is published instead.
+     */
+    public final void awaitAndPublish() {
+        await(submittedVersion);
+    }
+
+    /**
+     * Waits for the updates that must be visible before the next frame begins, then makes the result visible in the front buffer.
+     * Does nothing if they are already visible, so the other updates may remain pending.
+     */
+    public final void awaitRequired() {
+        if (requiredVersion > publishedVersion) await(requiredVersion);
+    }
+
+    /**
+     * Waits for an update to complete, then makes the latest completed version visible in the front buffer.
+     * If the thread is interrupted while waiting, the latest completed version is published instead.
+     * @param version The number of the update.
+     */
+    private void await(long version) {
+        synchronized (lock) {
+            while (completedVersion < version) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        publish();
+    }
+
+    /**
+     * Publishes the latest completed version at a frame boundary.
+     * If the front buffer has been out of date for more than a number of frames, waits for the pending updates instead.
+     * @param maxStaleFrames The number of frames for which the front buffer may be out of date.
+     */
+    public final void onFrameBoundary(int maxStaleFrames) {
+        if (publish()) {
+            staleFrames = 0;
+        } else if (++staleFrames > maxStaleFrames) {
+            awaitAndPublish();
+            staleFrames = 0;
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package project.field;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import project.control.ArenaManager;
+
+/**
+ * Cache of solved scalar fields, keyed by the layout of the towers that the solution is based on.
+ * <p>
+ * The same layouts recur often, such as the empty arena at the start of each game, or a tower that is placed and then sold,
+ * so the values of a field and the shortest path tree behind them are restored instead of being solved again.
+ * Restoring both keeps the field consistent for the incremental repairs that follow.
+ * <p>
+ * The most recently used entries are kept in memory, up to a fixed number of entries.
+ * If a directory is set, every entry is also written there as a compressed binary image, so that it survives
+ * being evicted and restarting the game. Failing to read or write an image only causes a cache miss.
+ * <p>
+ * A solution only applies to the grid and the end zones it was solved for, so the size of the grid, the resolution
+ * of the solver and the end zones are written to the header of each image, and a hash of them to its name.
+ * An image whose header differs from the settings of the cache, or whose arrays do not fit the grid, is a cache miss.
+ * <p>
+ * The capacity and directory used by the scalar fields can be set by the system properties
+ * <code>project.field.cache.size</code> and <code>project.field.cache.dir</code>. The cache is thread-safe.
+ */
+public final class FieldCache {
+
+    /**
+     * The number of entries kept in memory by each cache of the scalar fields.
+     */
+    private static final int configuredCapacity = Integer.getInteger("project.field.cache.size", 8);
+
+    /**
+     * The directory of the images written by each cache of the scalar fields, or <code>null</code> if they are not written.
+     */
+    private static final String configuredDirectory = System.getProperty("project.field.cache.dir");
+
+    /**
+     * The first bytes of an image.
+     */
+    private static final int MAGIC = 0x464C4443;
+
+    /**
+     * The version of the format of an image.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The layout of the towers that a solution is based on.
+     */
+    public static final class Key {
+
+        /**
+         * The bits that describe the layout.
+         */
+        private final long[] words;
+
+        /**
+         * Constructs a newly allocated {@link Key} object.
+         * @param words The bits that describe the layout. The array is not copied.
+         */
+        Key(long[] words) {
+            this.words = words;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && Arrays.equals(words, ((Key) obj).words);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode() { return Arrays.hashCode(words); }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (long word : words) builder.append(String.format("%016x", word));
+            return builder.toString();
+        }
+    }
+
+    /**
+     * A solution stored in the cache.
+     */
+    private static final class Entry {
+
+        /**
+         * The integer values, or <code>null</code> if the values are real.
+         */
+        final int[] intValues;
+
+        /**
+         * The real values, or <code>null</code> if the values are integers.
+         */
+        final float[] floatValues;
+
+        /**
+         * The direction of the parent of each point, as in {@link ArenaScalarField#getTaxicabNeighbour(short, short, int)},
+         * or {@link FlowField#NONE} if the point has no parent.
+         */
+        final byte[] parentDirections;
+
+        /**
+         * Constructs a newly allocated {@link Entry} object.
+         * @param intValues The integer values, or <code>null</code> if the values are real.
+         * @param floatValues The real values, or <code>null</code> if the values are integers.
+         * @param parentDirections The direction of the parent of each point.
+         */
+        Entry(int[] intValues, float[] floatValues, byte[] parentDirections) {
+            this.intValues = intValues;
+            this.floatValues = floatValues;
+            this.parentDirections = parentDirections;
+        }
+    }
+
+    /**
+     * The name of the cache, which prefixes the names of its images.
+     */
+    private final String name;
+
+    /**
+     * The directory of the images, or <code>null</code> if they are not written.
+     */
+    private final Path directory;
+
+    /**
+     * The number of points in the x-direction.
+     */
+    private final int width;
+
+    /**
+     * The number of points in the y-direction.
+     */
+    private final int height;
+
+    /**
+     * The number of points along each side of a cell of the solver.
+     */
+    private final int resolution;
+
+    /**
+     * The x- and y-coordinates of a point in each end zone in turn.
+     */
+    private final short[] goals;
+
+    /**
+     * The hash of the settings, which is part of the names of the images.
+     */
+    private final String settingsHash;
+
+    /**
+     * The entries kept in memory, from the least recently used.
+     */
+    private final LinkedHashMap<Key, Entry> entries;
+
+    /**
+     * Returns a cache of the fields on the arena with the capacity, directory and resolution set by the system properties.
+     * @param name The name of the cache, which prefixes the names of its images.
+     * @param goals The x- and y-coordinates of a point in each end zone in turn,
+     * or <code>null</code> if there is only the end zone at {@link ArenaManager#END_X}, {@link ArenaManager#END_Y}.
+     * @return A new cache.
+     */
+    public static FieldCache withConfiguredSettings(String name, short[] goals) {
+        return new FieldCache(name, configuredCapacity, configuredDirectory == null ? null : Paths.get(configuredDirectory),
+                ArenaManager.ARENA_WIDTH + 1, ArenaManager.ARENA_HEIGHT + 1, CoarseFieldSolver.getConfiguredResolution(),
+                goals == null ? new short[] { ArenaManager.END_X, ArenaManager.END_Y } : goals);
+    }
+
+    /**
+     * Constructs a newly allocated {@link FieldCache} object for the fields on the arena that are solved at full resolution
+     * towards the end zone at {@link ArenaManager#END_X}, {@link ArenaManager#END_Y}.
+     * @param name The name of the cache, which prefixes the names of its images.
+     * @param capacity The number of entries kept in memory.
+     * @param directory The directory of the images, or <code>null</code> if they are not written.
+     */
+    public FieldCache(String name, int capacity, Path directory) {
+        this(name, capacity, directory, ArenaManager.ARENA_WIDTH + 1, ArenaManager.ARENA_HEIGHT + 1, 1,
+                new short[] { ArenaManager.END_X, ArenaManager.END_Y });
+    }
+
+    /**
+     * Constructs a newly allocated {@link FieldCache} object.
+     * @param name The name of the cache, which prefixes the names of its images.
+     * @param capacity The number of entries kept in memory.
+     * @param directory The directory of the images, or <code>null</code> if they are not written.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     * @param resolution The number of points along each side of a cell of the solver.
+     * @param goals The x- and y-coordinates of a point in each end zone in turn. The array is copied.
+     * @throws IllegalArgumentException If the capacity is negative, or the size of the grid or the resolution is not positive.
+     */
+    public FieldCache(String name, int capacity, Path directory, int width, int height, int resolution, short[] goals)
+            throws IllegalArgumentException {
+        if (capacity < 0) throw new IllegalArgumentException("The capacity must be non-negative");
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException(String.format("The size of the grid must be positive. Value: %dx%d", width, height));
+        if (resolution <= 0) throw new IllegalArgumentException(String.format("The resolution must be positive. Value: %d", resolution));
+
+        this.name = name;
+        this.directory = directory;
+        this.width = width;
+        this.height = height;
+        this.resolution = resolution;
+        this.goals = goals.clone();
+        this.settingsHash = String.format("%08x", 31 * (31 * (31 * width + height) + resolution) + Arrays.hashCode(goals));
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the number of entries kept in memory.
+     * @return The number of entries kept in memory.
+     */
+    public synchronized int size() { return entries.size(); }
+
+    /**
+     * Removes every entry kept in memory. The images are kept.
+     */
+    public synchronized void clear() { entries.clear(); }
+
+    /**
+     * Restores the integer values of a layout, if they are in the cache.
+     * @param key The layout.
+     * @param values The array to restore the values to.
+     * @param parents The array to restore the parents to.
+     * @return Whether the layout was in the cache with a value and a parent for each element of the arrays.
+     */
+    public boolean load(Key key, int[] values, int[] parents) {
+        Entry entry = find(key);
+        if (entry == null || entry.intValues == null || !fits(entry, values.length, parents.length)) return false;
+
+        System.arraycopy(entry.intValues, 0, values, 0, values.length);
+        decodeParents(entry.parentDirections, parents);
+        return true;
+    }
+
+    /**
+     * Restores the real values of a layout, if they are in the cache.
+     * @param key The layout.
+     * @param values The array to restore the values to.
+     * @param parents The array to restore the parents to.
+     * @return Whether the layout was in the cache with a value and a parent for each element of the arrays.
+     */
+    public boolean load(Key key, float[] values, int[] parents) {
+        Entry entry = find(key);
+        if (entry == null || entry.floatValues == null || !fits(entry, values.length, parents.length)) return false;
+
+        System.arraycopy(entry.floatValues, 0, values, 0, values.length);
+        decodeParents(entry.parentDirections, parents);
+        return true;
+    }
+
+    /**
+     * Stores the integer values of a layout.
+     * @param key The layout.
+     * @param values The values.
+     * @param parents The parents.
+     * @throws IllegalArgumentException If there is not a value and a parent for each point of the grid.
+     */
+    public void store(Key key, int[] values, int[] parents) throws IllegalArgumentException {
+        checkLength(values.length, parents.length);
+        add(key, new Entry(values.clone(), null, encodeParents(parents)));
+    }
+
+    /**
+     * Stores the real values of a layout.
+     * @param key The layout.
+     * @param values The values.
+     * @param parents The parents.
+     * @throws IllegalArgumentException If there is not a value and a parent for each point of the grid.
+     */
+    public void store(Key key, float[] values, int[] parents) throws IllegalArgumentException {
+        checkLength(values.length, parents.length);
+        add(key, new Entry(null, values.clone(), encodeParents(parents)));
+    }
+
+    /**
+     * Returns whether an entry has exactly as many values and parents as the arrays that it is restored to.
+     * @param entry The entry.
+     * @param numValues The length of the array of values.
+     * @param numParents The length of the array of parents.
+     * @return Whether the entry fits the arrays.
+     */
+    private static boolean fits(Entry entry, int numValues, int numParents) {
+        int length = entry.parentDirections.length;
+        return numValues == length && numParents == length;
+    }
+
+    /**
+     * Checks that there is a value and a parent for each point of the grid.
+     * @param numValues The number of values.
+     * @param numParents The number of parents.
+     * @throws IllegalArgumentException If the number of values or parents differs from the number of points.
+     */
+    private void checkLength(int numValues, int numParents) throws IllegalArgumentException {
+        if (numValues != width * height || numParents != width * height)
+            throw new IllegalArgumentException(String.format("There must be a value and a parent for each of the %d points. Value: %d, %d", width * height, numValues, numParents));
+    }
+
+    /**
+     * Returns the entry of a layout from memory, or else from its image.
+     * @param key The layout.
+     * @return The entry, or <code>null</code> if it is not in the cache.
+     */
+    private Entry find(Key key) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null || directory == null) return entry;
+        }
+
+        Entry entry = read(key);
+        if (entry != null) {
+            synchronized (this) {
+                entries.put(key, entry);
+            }
+        }
+
+        return entry;
+    }
+
+    /**
+     * Adds an entry to memory, and writes its image if a directory is set.
+     * @param key The layout.
+     * @param entry The entry.
+     */
+    private void add(Key key, Entry entry) {
+        synchronized (this) {
+            entries.put(key, entry);
+        }
+
+        if (directory != null) write(key, entry);
+    }
+
+    /**
+     * Returns the path of the image of a layout.
+     * @param key The layout.
+     * @return The path of the image.
+     */
+    private Path getImagePath(Key key) {
+        return directory.resolve(name + "-" + settingsHash + "-" + key + ".field");
+    }
+
+    /**
+     * Reads the image of a layout.
+     * @param key The layout.
+     * @return The entry, or <code>null</code> if there is no valid image for the settings of the cache.
+     */
+    private Entry read(Key key) {
+        Path path = getImagePath(key);
+        if (!Files.isRegularFile(path)) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return null;
+            if (in.readInt() != width || in.readInt() != height || in.readInt() != resolution) return null;
+            if (in.readInt() != goals.length) return null;
+            for (short goal : goals) {
+                if (in.readShort() != goal) return null;
+            }
+
+            boolean isFloat = in.readBoolean();
+            int length = in.readInt();
+            if (length != width * height) return null;
+            int[] intValues = isFloat ? null : new int[length];
+            float[] floatValues = isFloat ? new float[length] : null;
+            for (int i = 0; i < length; i++) {
+                if (isFloat) floatValues[i] = in.readFloat();
+                else intValues[i] = in.readInt();
+            }
+
+            byte[] parentDirections = new byte[length];
+            in.readFully(parentDirections);
+            return new Entry(intValues, floatValues, parentDirections);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the image of a layout. The image is written to a temporary file first, so a partial image is never read.
+     * @param key The layout.
+     * @param entry The entry.
+     */
+    private void write(Key key, Entry entry) {
+        Path path = getImagePath(key);
+        if (Files.isRegularFile(path)) return;
+
+        Path temporaryPath = null;
+        try {
+            Files.createDirectories(directory);
+            temporaryPath = Files.createTempFile(directory, name, ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(Files.newOutputStream(temporaryPath))))) {
+                boolean isFloat = entry.floatValues != null;
+                int length = entry.parentDirections.length;
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(width);
+                out.writeInt(height);
+                out.writeInt(resolution);
+                out.writeInt(goals.length);
+                for (short goal : goals) out.writeShort(goal);
+                out.writeBoolean(isFloat);
+                out.writeInt(length);
+                for (int i = 0; i < length; i++) {
+                    if (isFloat) out.writeFloat(entry.floatValues[i]);
+                    else out.writeInt(entry.intValues[i]);
+                }
+                out.write(entry.parentDirections);
+            }
+
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                if (temporaryPath != null) Files.deleteIfExists(temporaryPath);
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Encodes the parent of each point as the direction towards it.
+     * @param parents The parents, where the parent of a point is either a neighbour or {@link GridFieldSolver#NO_PARENT}.
+     * @return The direction of the parent of each point.
+     */
+    private byte[] encodeParents(int[] parents) {
+        byte[] parentDirections = new byte[parents.length];
+        for (int index = 0; index < parents.length; index++) {
+            int offset = parents[index] - index;
+            if (parents[index] == GridFieldSolver.NO_PARENT) parentDirections[index] = FlowField.NONE;
+            else if (offset == -height) parentDirections[index] = 0;
+            else if (offset == height) parentDirections[index] = 1;
+            else if (offset == -1) parentDirections[index] = 2;
+            else if (offset == 1) parentDirections[index] = 3;
+            else parentDirections[index] = FlowField.NONE;
+        }
+
+        return parentDirections;
+    }
+
+    /**
+     * Decodes the parent of each point from the direction towards it.
+     * @param parentDirections The direction of the parent of each point.
+     * @param parents The array to store the parents in.
+     */
+    private void decodeParents(byte[] parentDirections, int[] parents) {
+        for (int index = 0; index < parents.length; index++) {
+            switch (parentDirections[index]) {
+                case 0: parents[index] = index - height; break;
+                case 1: parents[index] = index + height; break;
+                case 2: parents[index] = index - 1; break;
+                case 3: parents[index] = index + 1; break;
+                default: parents[index] = GridFieldSolver.NO_PARENT; break;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package project.field;
+
+import java.util.Arrays;
+import java.util.List;
+
+import project.control.ArenaManager;
+import project.entity.Tower;
+import project.query.ArenaObjectGridSelector;
+
+/**
+ * Helper that determines which points of the arena a {@link project.entity.Monster} cannot move into,
+ * and which of them have changed since the last update.
+ */
+final class FieldObstacles {
+
+    /**
+     * Whether each point is blocked, indexed by <code>x * (ARENA_HEIGHT + 1) + y</code>.
+     */
+    final boolean[] blocked = new boolean[(ArenaManager.ARENA_WIDTH + 1) * (ArenaManager.ARENA_HEIGHT + 1)];
+
+    /**
+     * Whether each grid is blocked, as of the last update.
+     */
+    private boolean[][] isGridBlocked = new boolean[ArenaManager.getMaxHorizontalGrids()][ArenaManager.getMaxVerticalGrids()];
+
+    /**
+     * Whether each grid is blocked, being computed by the current update.
+     */
+    private boolean[][] isGridBlockedNext = new boolean[ArenaManager.getMaxHorizontalGrids()][ArenaManager.getMaxVerticalGrids()];
+
+    /**
+     * The indices of the points that have changed in the last update.
+     */
+    final int[] changed = new int[blocked.length];
+
+    /**
+     * Constructs a newly allocated {@link FieldObstacles} object where no point is blocked.
+     */
+    FieldObstacles() {}
+
+    /**
+     * Returns the positions of the towers, so that they can be read on another thread.
+     * @param towers The towers on the arena.
+     * @return The x- and y-coordinates of each tower in turn.
+     */
+    static short[] snapshot(List<Tower> towers) {
+        short[] towerPositions = new short[2 * towers.size()];
+        int i = 0;
+        for (Tower tower : towers) {
+            towerPositions[i++] = tower.getX();
+            towerPositions[i++] = tower.getY();
+        }
+
+        return towerPositions;
+    }
+
+    /**
+     * Returns the indices of the goals of a scalar field.
+     * @param goals The x- and y-coordinates of each goal in turn.
+     * @return The index of each goal, in the same order.
+     * @throws IllegalArgumentException If there is no goal or a goal is outside the arena.
+     */
+    static int[] indexGoals(short[] goals) throws IllegalArgumentException {
+        if (goals.length == 0 || goals.length % 2 != 0) throw new IllegalArgumentException("The goals must be pairs of coordinates");
+
+        int[] indices = new int[goals.length / 2];
+        for (int i = 0; i < indices.length; i++) {
+            short x = goals[2 * i], y = goals[2 * i + 1];
+            if (x < 0 || x > ArenaManager.ARENA_WIDTH || y < 0 || y > ArenaManager.ARENA_HEIGHT) {
+                throw new IllegalArgumentException(String.format("The goal is outside the arena. Value: (%d, %d)", x, y));
+            }
+            indices[i] = x * (ArenaManager.ARENA_HEIGHT + 1) + y;
+        }
+
+        return indices;
+    }
+
+    /**
+     * Marks each point whose grid contains a {@link Tower} as blocked, and each other point as not blocked.
+     * The indices of the points that have been blocked or unblocked are stored in {@link #changed}.
+     * <p>
+     * A point is blocked iff the {@link ArenaObjectGridSelector} of that point selects a tower.
+     * The selection includes the edges of the grid, so a tower on the left or top edge of a grid also blocks the previous grid.
+     * @param towerPositions The positions of the towers on the arena, as returned by {@link #snapshot(List)}.
+     * @return The number of points that have been blocked or unblocked.
+     */
+    int update(short[] towerPositions) {
+        for (boolean[] column : isGridBlockedNext) Arrays.fill(column, false);
+
+        for (int i = 0; i < towerPositions.length; i += 2) {
+            int gridX = towerPositions[i] / ArenaManager.GRID_WIDTH;
+            int gridY = towerPositions[i + 1] / ArenaManager.GRID_HEIGHT;
+            boolean isOnLeftEdge = towerPositions[i] % ArenaManager.GRID_WIDTH == 0;
+            boolean isOnTopEdge = towerPositions[i + 1] % ArenaManager.GRID_HEIGHT == 0;
+
+            blockGrid(isGridBlockedNext, gridX, gridY);
+            if (isOnLeftEdge) blockGrid(isGridBlockedNext, gridX - 1, gridY);
+            if (isOnTopEdge) blockGrid(isGridBlockedNext, gridX, gridY - 1);
+            if (isOnLeftEdge && isOnTopEdge) blockGrid(isGridBlockedNext, gridX - 1, gridY - 1);
+        }
+
+        // Only the points of the grids that have changed need to be updated
+        int numChanged = 0;
+        int height = ArenaManager.ARENA_HEIGHT + 1;
+        for (int gridX = 0; gridX < isGridBlocked.length; gridX++) {
+            for (int gridY = 0; gridY < isGridBlocked[gridX].length; gridY++) {
+                boolean isBlocked = isGridBlockedNext[gridX][gridY];
+                if (isBlocked == isGridBlocked[gridX][gridY]) continue;
+
+                // The last grid in each direction also contains the far edge of the arena
+                int startX = gridX * ArenaManager.GRID_WIDTH;
+                int endX = gridX == isGridBlocked.length - 1 ? ArenaManager.ARENA_WIDTH : startX + ArenaManager.GRID_WIDTH - 1;
+                int startY = gridY * ArenaManager.GRID_HEIGHT;
+                int endY = gridY == isGridBlocked[gridX].length - 1 ? ArenaManager.ARENA_HEIGHT : startY + ArenaManager.GRID_HEIGHT - 1;
+
+                for (int x = startX; x <= endX; x++) {
+                    for (int y = startY; y <= endY; y++) {
+                        blocked[x * height + y] = isBlocked;
+                        changed[numChanged++] = x * height + y;
+                    }
+                }
+            }
+        }
+
+        boolean[][] temp = isGridBlocked;
+        isGridBlocked = isGridBlockedNext;
+        isGridBlockedNext = temp;
+
+        return numChanged;
+    }
+
+    /**
+     * Returns which grids are blocked as of the last update, packed into bits.
+     * @param numExtraWords The number of words to leave at the end of the array for the caller.
+     * @return The bits, where the bit of each grid is set iff it is blocked.
+     */
+    long[] occupancy(int numExtraWords) {
+        int numGridsY = ArenaManager.getMaxVerticalGrids();
+        int numGrids = ArenaManager.getMaxHorizontalGrids() * numGridsY;
+        long[] words = new long[(numGrids + Long.SIZE - 1) / Long.SIZE + numExtraWords];
+
+        for (int gridX = 0; gridX < isGridBlocked.length; gridX++) {
+            for (int gridY = 0; gridY < isGridBlocked[gridX].length; gridY++) {
+                int bit = gridX * numGridsY + gridY;
+                if (isGridBlocked[gridX][gridY]) words[bit / Long.SIZE] |= 1L << (bit % Long.SIZE);
+            }
+        }
+
+        return words;
+    }
+
+    /**
+     * Marks a grid as blocked if it is within the arena.
+     * @param isGridBlocked Whether each grid is blocked.
+     * @param gridX The x-position of the grid.
+     * @param gridY The y-position of the grid.
+     */
+    private static void blockGrid(boolean[][] isGridBlocked, int gridX, int gridY) {
+        if (gridX < 0 || gridX >= isGridBlocked.length || gridY < 0 || gridY >= isGridBlocked[gridX].length) return;
+
+        isGridBlocked[gridX][gridY] = true;
+    }
+}
@@ -0,0 +1,48 @@
+package project.field;
+
+import project.entity.ArenaObjectPositionInfo;
+
+/**
+ * Interface for scalar field thats permeates the arena and stores <code>float</code> values,
+ * which can be read without boxing.
+ */
+public interface FloatArenaScalarField extends ArenaScalarField<Float> {
+
+    /**
+     * Returns the value of the scalar field at a given point, without boxing.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The value of the scalar field at the point.
+     */
+    public abstract float getFloatValueAt(short x, short y);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public default Float getValueAt(short x, short y) { return getFloatValueAt(x, y); }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public default int descendTaxicabPacked(short x, short y) {
+        ArenaObjectPositionInfo.assertValidPosition(x, y);
+
+        float lowestCost = getFloatValueAt(x, y);
+        int lowestCostNeighbour = NO_POINT;
+        for (int direction = 0; direction < NUM_TAXICAB_DIRECTIONS; direction++) {
+            int neighbour = ArenaScalarField.getTaxicabNeighbour(x, y, direction);
+            if (neighbour == NO_POINT) continue;
+
+            // Float.compare orders NaN and signed zeroes in the same way as Float.compareTo
+            float cost = getFloatValueAt(ArenaScalarField.unpackX(neighbour), ArenaScalarField.unpackY(neighbour));
+            if (Float.compare(cost, lowestCost) < 0) {
+                lowestCost = cost;
+                lowestCostNeighbour = neighbour;
+            }
+        }
+
+        return lowestCostNeighbour;
+    }
+}
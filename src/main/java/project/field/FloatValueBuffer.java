@@ -0,0 +1,172 @@
+package project.field;
+
+import java.util.Arrays;
+
+/**
+ * A flat buffer of the real values of a scalar field, indexed by <code>x * (ARENA_HEIGHT + 1) + y</code>.
+ * <p>
+ * By default each value takes 32 bits. If the system property <code>project.field.compact</code> is set,
+ * each value takes 16 bits instead, in the bfloat16 format: the upper half of a <code>float</code>, rounded to nearest.
+ * It keeps the range of a <code>float</code>, including infinity, with about three significant decimal digits.
+ */
+abstract class FloatValueBuffer {
+
+    /**
+     * Returns a new buffer where every value is zero.
+     * @param size The number of values.
+     * @return A new buffer, which is compact iff the compact mode is enabled.
+     */
+    static FloatValueBuffer allocate(int size) {
+        return IntValueBuffer.isCompact() ? new Compact(size) : new Plain(size);
+    }
+
+    /**
+     * Returns the value at an index.
+     * @param index The index.
+     * @return The value.
+     */
+    abstract float get(int index);
+
+    /**
+     * Sets the value at an index.
+     * @param index The index.
+     * @param value The value.
+     */
+    abstract void set(int index, float value);
+
+    /**
+     * Sets every value.
+     * @param value The value.
+     */
+    abstract void fill(float value);
+
+    /**
+     * Replaces every value with those of an array.
+     * @param values The values, which must have the same length as the buffer.
+     */
+    abstract void copyFrom(float[] values);
+
+    /**
+     * Returns the number of bytes used to store the values.
+     * @return The number of bytes used to store the values.
+     */
+    abstract long getSizeInBytes();
+
+    /**
+     * A buffer that stores each value in a <code>float</code>.
+     */
+    static final class Plain extends FloatValueBuffer {
+
+        /**
+         * The values.
+         */
+        private final float[] values;
+
+        /**
+         * Constructs a newly allocated {@link Plain} object.
+         * @param size The number of values.
+         */
+        Plain(int size) { values = new float[size]; }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        float get(int index) { return values[index]; }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void set(int index, float value) { values[index] = value; }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void fill(float value) { Arrays.fill(values, value); }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void copyFrom(float[] values) { System.arraycopy(values, 0, this.values, 0, this.values.length); }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        long getSizeInBytes() { return (long) Float.BYTES * values.length; }
+    }
+
+    /**
+     * A buffer that stores each value in a <code>short</code>, in the bfloat16 format.
+     */
+    static final class Compact extends FloatValueBuffer {
+
+        /**
+         * The encoded values.
+         */
+        private final short[] values;
+
+        /**
+         * Constructs a newly allocated {@link Compact} object.
+         * @param size The number of values.
+         */
+        Compact(int size) { values = new short[size]; }
+
+        /**
+         * Returns the encoding of a value, rounding to the nearest representable value with ties to even.
+         * @param value The value.
+         * @return The encoding of the value.
+         */
+        static short encode(float value) {
+            int bits = Float.floatToRawIntBits(value);
+
+            // Keep NaN a NaN, which rounding could turn into infinity
+            if (Float.isNaN(value)) return (short) ((bits >>> 16) | 0x0040);
+            return (short) ((bits + 0x7FFF + ((bits >>> 16) & 1)) >>> 16);
+        }
+
+        /**
+         * Returns the value of an encoding.
+         * @param encoding The encoding.
+         * @return The value.
+         */
+        static float decode(short encoding) {
+            return Float.intBitsToFloat(encoding << 16);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        float get(int index) { return decode(values[index]); }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void set(int index, float value) { values[index] = encode(value); }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void fill(float value) { Arrays.fill(values, encode(value)); }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void copyFrom(float[] values) {
+            for (int i = 0; i < this.values.length; i++) this.values[i] = encode(values[i]);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        long getSizeInBytes() { return (long) Short.BYTES * values.length; }
+    }
+}
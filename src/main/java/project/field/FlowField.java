@@ -0,0 +1,312 @@
+package project.field;
+
+import java.util.Arrays;
+
+import project.control.ArenaManager;
+
+/**
+ * The direction of gradient descent on each point of an {@link ArenaScalarField},
+ * so that a {@link project.entity.Monster} can step by looking up a table instead of comparing its neighbours.
+ * <p>
+ * The directions are derived from the values of the scalar field whenever it is recalculated,
+ * and are swapped together with them, so they always agree with the version of the field that is visible.
+ * Following the flow field gives the same path as {@link ArenaScalarField#descendTaxicabPacked(short, short)}.
+ * <p>
+ * Each point also stores the length of the straight run of steps starting from it,
+ * so that several steps can be taken at once with {@link #advance(short, short, int)}.
+ */
+public final class FlowField implements DirectionField {
+
+    /**
+     * The direction of a point that is a local minimum.
+     */
+    public static final byte NONE = -1;
+
+    /**
+     * The goal of a point from which gradient descent does not end at a goal.
+     */
+    public static final int NO_GOAL = -1;
+
+    /**
+     * The goal of a point that has not been labelled yet.
+     */
+    private static final int UNLABELLED = Integer.MIN_VALUE;
+
+    /**
+     * The number of points in the y-direction.
+     */
+    private static final int HEIGHT = ArenaManager.ARENA_HEIGHT + 1;
+
+    /**
+     * The number of points on the arena.
+     */
+    private static final int SIZE = (ArenaManager.ARENA_WIDTH + 1) * HEIGHT;
+
+    /**
+     * The directions and run lengths of each point that are visible.
+     */
+    private Table table = new Table();
+
+    /**
+     * The direction of each point, and the number of steps that can be taken from it before the direction changes.
+     * A table is filled by {@link FlowField#derive(int[], Table)} and then swapped into a flow field as a whole.
+     */
+    static final class Table {
+
+        /**
+         * The direction of each point, as in {@link ArenaScalarField#getTaxicabNeighbour(short, short, int)},
+         * indexed by <code>x * (ARENA_HEIGHT + 1) + y</code>.
+         */
+        final byte[] directions = new byte[SIZE];
+
+        /**
+         * The number of consecutive steps in the same direction starting from each point, indexed in the same way as {@link #directions}.
+         * This is <code>0</code> on a local minimum.
+         */
+        final short[] runLengths = new short[SIZE];
+
+        /**
+         * The goal that gradient descent from each point ends at, indexed in the same way as {@link #directions},
+         * or <code>null</code> if the goals are not labelled.
+         */
+        int[] goals = null;
+    }
+
+    /**
+     * Constructs a newly allocated {@link FlowField} object where every point is a local minimum.
+     */
+    FlowField() {
+        Arrays.fill(table.directions, NONE);
+    }
+
+    /**
+     * Returns a new table for the directions and run lengths of each point.
+     * @return A new table for the directions and run lengths of each point.
+     */
+    static Table newTable() { return new Table(); }
+
+    /**
+     * Replaces the directions and run lengths of each point.
+     * @param newTable The new table.
+     * @return The previous table, which can be reused.
+     */
+    Table swap(Table newTable) {
+        Table oldTable = table;
+        table = newTable;
+        return oldTable;
+    }
+
+    /**
+     * Returns the direction of gradient descent at a given point.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The direction, as in {@link ArenaScalarField#getTaxicabNeighbour(short, short, int)},
+     * or {@link #NONE} if the point is a local minimum.
+     */
+    @Override
+    public byte getDirectionAt(short x, short y) {
+        return table.directions[x * HEIGHT + y];
+    }
+
+    /**
+     * Returns the number of consecutive steps of gradient descent from a given point that are in the same direction.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The number of steps that can be taken in the direction of {@link #getDirectionAt(short, short)}
+     * before the direction changes, or <code>0</code> if the point is a local minimum.
+     */
+    @Override
+    public int getRunLengthAt(short x, short y) {
+        return table.runLengths[x * HEIGHT + y];
+    }
+
+    /**
+     * Returns the goal that gradient descent from a given point ends at.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The position of the goal in the goals of the scalar field,
+     * or {@link #NO_GOAL} if no goal is reached or the goals are not labelled.
+     */
+    public int getGoalAt(short x, short y) {
+        int[] goals = table.goals;
+        return goals == null ? NO_GOAL : goals[x * HEIGHT + y];
+    }
+
+    /**
+     * Performs one step of gradient descent from the given point.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The packed coordinates of the point after moving by one step,
+     * or {@link ArenaScalarField#NO_POINT} if the current point is a local minimum.
+     */
+    public int step(short x, short y) {
+        byte direction = table.directions[x * HEIGHT + y];
+        if (direction == NONE) return ArenaScalarField.NO_POINT;
+        return move(x, y, direction, 1);
+    }
+
+    /**
+     * Performs a number of steps of gradient descent from the given point, stopping early at a local minimum.
+     * Each run of steps in the same direction is taken at once, so the cost depends on the number of turns rather than the number of steps.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @param numSteps The number of steps to take.
+     * @return The packed coordinates of the point after moving.
+     */
+    public int advance(short x, short y, int numSteps) {
+        Table table = this.table;
+        int point = ArenaScalarField.packPoint(x, y);
+        while (numSteps > 0) {
+            int index = ArenaScalarField.unpackX(point) * HEIGHT + ArenaScalarField.unpackY(point);
+            byte direction = table.directions[index];
+            if (direction == NONE) break;
+
+            int length = Math.min(numSteps, table.runLengths[index]);
+            point = move(ArenaScalarField.unpackX(point), ArenaScalarField.unpackY(point), direction, length);
+            numSteps -= length;
+        }
+
+        return point;
+    }
+
+    /**
+     * Moves a point in a straight line.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @param direction The direction, as in {@link ArenaScalarField#getTaxicabNeighbour(short, short, int)}.
+     * @param length The number of pixels to move by.
+     * @return The packed coordinates of the point after moving.
+     */
+    public static int move(short x, short y, byte direction, int length) {
+        switch (direction) {
+            case 0: return ArenaScalarField.packPoint((short) (x - length), y);
+            case 1: return ArenaScalarField.packPoint((short) (x + length), y);
+            case 2: return ArenaScalarField.packPoint(x, (short) (y - length));
+            case 3: return ArenaScalarField.packPoint(x, (short) (y + length));
+            default: throw new IllegalArgumentException("Invalid direction: " + direction);
+        }
+    }
+
+    /**
+     * Derives the direction of each point from integer values, in the same way as {@link IntArenaScalarField}.
+     * @param values The values, indexed by <code>x * (ARENA_HEIGHT + 1) + y</code>.
+     * @param table The table to store the directions and run lengths in.
+     */
+    static void derive(int[] values, Table table) {
+        byte[] directions = table.directions;
+        for (int x = 0; x <= ArenaManager.ARENA_WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                int index = x * HEIGHT + y;
+                int lowestCost = values[index];
+                byte direction = NONE;
+
+                // The neighbours are compared in the order of ArenaScalarField.getTaxicabNeighbour
+                if (x > 0 && values[index - HEIGHT] < lowestCost) { lowestCost = values[index - HEIGHT]; direction = 0; }
+                if (x < ArenaManager.ARENA_WIDTH && values[index + HEIGHT] < lowestCost) { lowestCost = values[index + HEIGHT]; direction = 1; }
+                if (y > 0 && values[index - 1] < lowestCost) { lowestCost = values[index - 1]; direction = 2; }
+                if (y < HEIGHT - 1 && values[index + 1] < lowestCost) { direction = 3; }
+
+                directions[index] = direction;
+            }
+        }
+
+        deriveRunLengths(table);
+    }
+
+    /**
+     * Derives the direction of each point from real values, in the same way as {@link FloatArenaScalarField}.
+     * @param values The values, indexed by <code>x * (ARENA_HEIGHT + 1) + y</code>.
+     * @param table The table to store the directions and run lengths in.
+     */
+    static void derive(float[] values, Table table) {
+        byte[] directions = table.directions;
+        for (int x = 0; x <= ArenaManager.ARENA_WIDTH; x++) {
+            for (int y = 0; y < HEIGHT; y++) {
+                int index = x * HEIGHT + y;
+                float lowestCost = values[index];
+                byte direction = NONE;
+
+                // The neighbours are compared in the order of ArenaScalarField.getTaxicabNeighbour
+                if (x > 0 && Float.compare(values[index - HEIGHT], lowestCost) < 0) { lowestCost = values[index - HEIGHT]; direction = 0; }
+                if (x < ArenaManager.ARENA_WIDTH && Float.compare(values[index + HEIGHT], lowestCost) < 0) { lowestCost = values[index + HEIGHT]; direction = 1; }
+                if (y > 0 && Float.compare(values[index - 1], lowestCost) < 0) { lowestCost = values[index - 1]; direction = 2; }
+                if (y < HEIGHT - 1 && Float.compare(values[index + 1], lowestCost) < 0) { direction = 3; }
+
+                directions[index] = direction;
+            }
+        }
+
+        deriveRunLengths(table);
+    }
+
+    /**
+     * Labels each point with the goal that gradient descent from it ends at, after the directions have been derived.
+     * The goal found for each path is remembered for every point on it, so each point is followed once.
+     * @param table The table with the directions, to store the goals in.
+     * @param goals The indices of the goals.
+     * @param path The work array, with at least one entry for each point.
+     */
+    static void deriveGoals(Table table, int[] goals, int[] path) {
+        if (table.goals == null) table.goals = new int[SIZE];
+
+        byte[] directions = table.directions;
+        int[] labels = table.goals;
+        Arrays.fill(labels, UNLABELLED);
+        for (int i = goals.length - 1; i >= 0; i--) labels[goals[i]] = i;
+
+        for (int index = 0; index < SIZE; index++) {
+            if (labels[index] != UNLABELLED) continue;
+
+            int length = 0, current = index;
+            while (current >= 0 && labels[current] == UNLABELLED) {
+                path[length++] = current;
+                current = getNext(current, directions[current]);
+            }
+
+            int label = current < 0 ? NO_GOAL : labels[current];
+            for (int i = 0; i < length; i++) labels[path[i]] = label;
+        }
+    }
+
+    /**
+     * Returns the point that one step of gradient descent leads to.
+     * @param index The index of the point.
+     * @param direction The direction of the point.
+     * @return The index of the next point, or <code>-1</code> if the point is a local minimum.
+     */
+    private static int getNext(int index, byte direction) {
+        switch (direction) {
+            case 0: return index - HEIGHT;
+            case 1: return index + HEIGHT;
+            case 2: return index - 1;
+            case 3: return index + 1;
+            default: return -1;
+        }
+    }
+
+    /**
+     * Derives the run lengths of each point from its direction.
+     * The run length of a point is one more than that of the next point if both have the same direction,
+     * so points are visited in an order where the next point has already been visited.
+     * @param table The table with the directions, to store the run lengths in.
+     */
+    private static void deriveRunLengths(Table table) {
+        byte[] directions = table.directions;
+        short[] runLengths = table.runLengths;
+
+        // Moving left or up leads to a point with a smaller index
+        for (int index = 0; index < SIZE; index++) {
+            byte direction = directions[index];
+            if (direction == 0) runLengths[index] = (short) (directions[index - HEIGHT] == 0 ? runLengths[index - HEIGHT] + 1 : 1);
+            else if (direction == 2) runLengths[index] = (short) (directions[index - 1] == 2 ? runLengths[index - 1] + 1 : 1);
+            else if (direction == NONE) runLengths[index] = 0;
+        }
+
+        // Moving right or down leads to a point with a larger index
+        for (int index = SIZE - 1; index >= 0; index--) {
+            byte direction = directions[index];
+            if (direction == 1) runLengths[index] = (short) (directions[index + HEIGHT] == 1 ? runLengths[index + HEIGHT] + 1 : 1);
+            else if (direction == 3) runLengths[index] = (short) (directions[index + 1] == 3 ? runLengths[index + 1] + 1 : 1);
+        }
+    }
+}
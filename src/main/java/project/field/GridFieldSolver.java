@@ -0,0 +1,809 @@
+package project.field;
+
+import java.util.Arrays;
+
+/**
+ * Computes the shortest distance from a set of sources to each point of a rectangular grid,
+ * moving in the four cardinal directions.
+ * <p>
+ * The values are stored in flat arrays, where the point <code>(x, y)</code> has the index <code>x * height + y</code>.
+ * The cost of a move is the weight of the point being moved into. Points that are blocked are never moved into,
+ * so they are unreachable unless they are sources, and sources always have a distance of zero.
+ * Along with the distances, the solver records the parent of each point, which is the previous point
+ * on a shortest path from a source, or <code>-1</code> for sources and unreachable points.
+ * <p>
+ * After some points have been blocked, unblocked or reweighted, the distances can be repaired incrementally
+ * instead of being computed again. Only the points whose shortest path passes through a changed point are
+ * invalidated, and only the points whose distance may change are relaxed again,
+ * so the cost is proportional to the affected region rather than to the grid.
+ * Incremental repair requires the weights, including any constant weight, to be positive.
+ * <p>
+ * The solver keeps its work arrays between calls, so a computation does not allocate.
+ * It is not thread-safe.
+ */
+public final class GridFieldSolver {
+
+    /**
+     * The integer distance of a point that cannot be reached from any source.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * The parent of a source or of a point that cannot be reached from any source.
+     */
+    public static final int NO_PARENT = -1;
+
+    /**
+     * The number of points in the x-direction.
+     */
+    private final int width;
+
+    /**
+     * The number of points in the y-direction.
+     */
+    private final int height;
+
+    /**
+     * The FIFO queue of the breadth-first search, and the binary heap of Dijkstra's algorithm.
+     */
+    private final int[] queue;
+
+    /**
+     * The position of each point in the binary heap, or <code>-1</code> if it is not in the heap.
+     */
+    private int[] heapPositions = null;
+
+    /**
+     * The first point in each bucket of the bucket queue, or <code>-1</code> if the bucket is empty.
+     */
+    private int[] bucketHeads = null;
+
+    /**
+     * The next point in the same bucket as each point, or <code>-1</code> if it is the last one.
+     */
+    private int[] bucketNext = null;
+
+    /**
+     * The previous point in the same bucket as each point, or <code>-1</code> if it is the first one.
+     */
+    private int[] bucketPrevious = null;
+
+    /**
+     * The points invalidated during incremental repair.
+     */
+    private int[] invalidated = null;
+
+    /**
+     * Constructs a newly allocated {@link GridFieldSolver} object.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     */
+    public GridFieldSolver(int width, int height) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("The grid must contain at least one point");
+
+        this.width = width;
+        this.height = height;
+        this.queue = new int[width * height];
+    }
+
+    /**
+     * Returns the number of points in the x-direction.
+     * @return The number of points in the x-direction.
+     */
+    public int getWidth() { return width; }
+
+    /**
+     * Returns the number of points in the y-direction.
+     * @return The number of points in the y-direction.
+     */
+    public int getHeight() { return height; }
+
+    /**
+     * Returns the number of points in the grid, which is the length of each array passed to the solver.
+     * @return The number of points in the grid.
+     */
+    public int getSize() { return width * height; }
+
+    /**
+     * Returns the index of a point in the arrays passed to the solver.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The index of the point.
+     */
+    public int indexOf(int x, int y) { return x * height + y; }
+
+    /**
+     * Computes the distances when every move costs one, using breadth-first search.
+     * @param distances The array to store the distances in. Unreachable points are set to {@link #UNREACHABLE}.
+     * @param parents The array to store the parents in.
+     * @param blocked Whether each point is blocked.
+     * @param sources The indices of the sources.
+     */
+    public void solve(int[] distances, int[] parents, boolean[] blocked, int[] sources) {
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(parents, NO_PARENT);
+
+        int head = 0, tail = 0;
+        for (int source : sources) {
+            if (distances[source] != 0) {
+                distances[source] = 0;
+                queue[tail++] = source;
+            }
+        }
+
+        while (head < tail) {
+            int index = queue[head++];
+            int x = index / height, y = index - x * height;
+            int distance = distances[index] + 1;
+
+            if (x > 0) tail = visit(index - height, index, distance, distances, parents, blocked, tail);
+            if (x < width - 1) tail = visit(index + height, index, distance, distances, parents, blocked, tail);
+            if (y > 0) tail = visit(index - 1, index, distance, distances, parents, blocked, tail);
+            if (y < height - 1) tail = visit(index + 1, index, distance, distances, parents, blocked, tail);
+        }
+    }
+
+    /**
+     * Visits a neighbour during breadth-first search.
+     * @param index The index of the neighbour.
+     * @param parent The index of the point being expanded.
+     * @param distance The distance of the neighbour if it has not been visited.
+     * @param distances The distances found so far.
+     * @param parents The parents found so far.
+     * @param blocked Whether each point is blocked.
+     * @param tail The end of the queue.
+     * @return The new end of the queue.
+     */
+    private int visit(int index, int parent, int distance, int[] distances, int[] parents, boolean[] blocked, int tail) {
+        if (blocked[index] || distances[index] != UNREACHABLE) return tail;
+
+        distances[index] = distance;
+        parents[index] = parent;
+        queue[tail] = index;
+        return tail + 1;
+    }
+
+    /**
+     * Computes the distances when each move costs a small non-negative integer, using a bucket queue (Dial's algorithm).
+     * The time taken is linear in the number of points plus the largest distance.
+     * @param distances The array to store the distances in. Unreachable points are set to {@link #UNREACHABLE}.
+     * @param parents The array to store the parents in.
+     * @param blocked Whether each point is blocked.
+     * @param weights The cost of moving into each point, between <code>0</code> and <code>maxWeight</code> inclusive.
+     * @param maxWeight The largest weight.
+     * @param sources The indices of the sources.
+     */
+    public void solve(int[] distances, int[] parents, boolean[] blocked, int[] weights, int maxWeight, int[] sources) {
+        if (maxWeight < 0) throw new IllegalArgumentException("The weights must be non-negative");
+
+        // Only distances within maxWeight of the current one are ever queued, so the buckets can be reused cyclically
+        int numBuckets = maxWeight + 1;
+        if (bucketHeads == null || bucketHeads.length < numBuckets) bucketHeads = new int[numBuckets];
+        if (bucketNext == null) {
+            bucketNext = new int[width * height];
+            bucketPrevious = new int[width * height];
+        }
+        Arrays.fill(bucketHeads, 0, numBuckets, -1);
+        Arrays.fill(distances, UNREACHABLE);
+        Arrays.fill(parents, NO_PARENT);
+
+        int numQueued = 0;
+        for (int source : sources) {
+            if (distances[source] != 0) {
+                distances[source] = 0;
+                addToBucket(source, 0);
+                numQueued++;
+            }
+        }
+
+        for (int distance = 0; numQueued > 0; ) {
+            int bucket = distance % numBuckets;
+            int index = bucketHeads[bucket];
+            if (index < 0) {
+                distance++;
+                continue;
+            }
+
+            removeFromBucket(index, bucket);
+            numQueued--;
+
+            int x = index / height, y = index - x * height;
+            if (x > 0) numQueued += relax(index - height, index, distance, distances, parents, blocked, weights, numBuckets);
+            if (x < width - 1) numQueued += relax(index + height, index, distance, distances, parents, blocked, weights, numBuckets);
+            if (y > 0) numQueued += relax(index - 1, index, distance, distances, parents, blocked, weights, numBuckets);
+            if (y < height - 1) numQueued += relax(index + 1, index, distance, distances, parents, blocked, weights, numBuckets);
+        }
+    }
+
+    /**
+     * Relaxes a neighbour in the bucket queue.
+     * @param index The index of the neighbour.
+     * @param parent The index of the point being expanded.
+     * @param distance The distance of the point being expanded.
+     * @param distances The distances found so far.
+     * @param parents The parents found so far.
+     * @param blocked Whether each point is blocked.
+     * @param weights The cost of moving into each point.
+     * @param numBuckets The number of buckets.
+     * @return The change in the number of queued points.
+     */
+    private int relax(int index, int parent, int distance, int[] distances, int[] parents, boolean[] blocked, int[] weights, int numBuckets) {
+        if (blocked[index]) return 0;
+
+        int newDistance = distance + weights[index];
+        int oldDistance = distances[index];
+        if (newDistance >= oldDistance) return 0;
+
+        distances[index] = newDistance;
+        parents[index] = parent;
+
+        // With non-negative weights, a point whose distance decreases has not been expanded yet, so it is still queued
+        if (oldDistance != UNREACHABLE) removeFromBucket(index, oldDistance % numBuckets);
+        addToBucket(index, newDistance % numBuckets);
+
+        return oldDistance == UNREACHABLE ? 1 : 0;
+    }
+
+    /**
+     * Adds a point to the front of a bucket.
+     * @param index The index of the point.
+     * @param bucket The bucket.
+     */
+    private void addToBucket(int index, int bucket) {
+        int head = bucketHeads[bucket];
+        bucketPrevious[index] = -1;
+        bucketNext[index] = head;
+        if (head >= 0) bucketPrevious[head] = index;
+        bucketHeads[bucket] = index;
+    }
+
+    /**
+     * Removes a point from a bucket.
+     * @param index The index of the point.
+     * @param bucket The bucket that contains the point.
+     */
+    private void removeFromBucket(int index, int bucket) {
+        int previous = bucketPrevious[index], next = bucketNext[index];
+        if (previous >= 0) bucketNext[previous] = next;
+        else bucketHeads[bucket] = next;
+        if (next >= 0) bucketPrevious[next] = previous;
+    }
+
+    /**
+     * Computes the distances when each move costs a non-negative real number,
+     * using Dijkstra's algorithm on an indexed binary heap.
+     * @param distances The array to store the distances in. Unreachable points are set to {@link Float#POSITIVE_INFINITY}.
+     * @param parents The array to store the parents in.
+     * @param blocked Whether each point is blocked.
+     * @param weights The cost of moving into each point, excluding <code>constantWeight</code>.
+     * @param constantWeight The cost added to every move.
+     * @param sources The indices of the sources.
+     */
+    public void solve(float[] distances, int[] parents, boolean[] blocked, float[] weights, float constantWeight, int[] sources) {
+        Arrays.fill(distances, Float.POSITIVE_INFINITY);
+        Arrays.fill(parents, NO_PARENT);
+
+        int heapSize = 0;
+        for (int source : sources) {
+            if (distances[source] != 0) {
+                distances[source] = 0;
+                heapSize = push(source, heapSize, distances);
+            }
+        }
+
+        propagate(distances, parents, blocked, weights, constantWeight, heapSize);
+    }
+
+    /**
+     * Repairs the distances computed by {@link #solve(int[], int[], boolean[], int[])}
+     * after some points have been blocked or unblocked.
+     * @param distances The distances to repair.
+     * @param parents The parents to repair.
+     * @param blocked Whether each point is blocked, after the change.
+     * @param changed The indices of the points that have been blocked or unblocked.
+     * @param numChanged The number of indices in <code>changed</code> to read.
+     * @return The number of points whose distance was recomputed.
+     */
+    public int repair(int[] distances, int[] parents, boolean[] blocked, int[] changed, int numChanged) {
+        ensureHeap();
+
+        // Invalidate the points whose shortest path passes through a point that has been blocked
+        int numInvalidated = 0;
+        for (int i = 0; i < numChanged; i++) {
+            int index = changed[i];
+            if (blocked[index] && !isSource(index, distances[index] == 0, parents)) {
+                numInvalidated = invalidate(index, distances, parents, numInvalidated);
+            }
+        }
+
+        // Seed the invalidated and unblocked points from their valid neighbours
+        int heapSize = 0;
+        for (int i = 0; i < numInvalidated; i++) heapSize = seed(invalidated[i], distances, parents, blocked, heapSize);
+        for (int i = 0; i < numChanged; i++) heapSize = seed(changed[i], distances, parents, blocked, heapSize);
+
+        return numInvalidated + propagate(distances, parents, blocked, heapSize);
+    }
+
+    /**
+     * Repairs the distances computed by {@link #solve(float[], int[], boolean[], float[], float, int[])}
+     * after some points have been blocked, unblocked or reweighted.
+     * @param distances The distances to repair.
+     * @param parents The parents to repair.
+     * @param blocked Whether each point is blocked, after the change.
+     * @param weights The cost of moving into each point, excluding <code>constantWeight</code>, after the change.
+     * @param constantWeight The cost added to every move.
+     * @param changed The indices of the points that have been blocked, unblocked or reweighted.
+     * @param numChanged The number of indices in <code>changed</code> to read.
+     * @return The number of points whose distance was recomputed.
+     */
+    public int repair(float[] distances, int[] parents, boolean[] blocked, float[] weights, float constantWeight, int[] changed, int numChanged) {
+        ensureHeap();
+
+        // Invalidate the points whose shortest path passes through a point that has been blocked or become more costly
+        int numInvalidated = 0;
+        for (int i = 0; i < numChanged; i++) {
+            int index = changed[i];
+            int parent = parents[index];
+            if (isSource(index, distances[index] == 0, parents)) continue;
+
+            if (blocked[index] || (parent != NO_PARENT && distances[parent] + weights[index] + constantWeight > distances[index])) {
+                numInvalidated = invalidate(index, distances, parents, numInvalidated);
+            }
+        }
+
+        // Seed the invalidated points and the points that have become less costly from their valid neighbours
+        int heapSize = 0;
+        for (int i = 0; i < numInvalidated; i++) heapSize = seed(invalidated[i], distances, parents, blocked, weights, constantWeight, heapSize);
+        for (int i = 0; i < numChanged; i++) heapSize = seed(changed[i], distances, parents, blocked, weights, constantWeight, heapSize);
+
+        return numInvalidated + propagate(distances, parents, blocked, weights, constantWeight, heapSize);
+    }
+
+    /**
+     * Returns whether a point is a source.
+     * @param index The index of the point.
+     * @param isZero Whether the distance of the point is zero.
+     * @param parents The parents.
+     * @return Whether the point is a source.
+     */
+    private static boolean isSource(int index, boolean isZero, int[] parents) {
+        return isZero && parents[index] == NO_PARENT;
+    }
+
+    /**
+     * Marks a point and every point whose shortest path passes through it as unreachable.
+     * @param root The index of the point.
+     * @param distances The distances.
+     * @param parents The parents.
+     * @param numInvalidated The number of points invalidated so far.
+     * @return The new number of points invalidated.
+     */
+    private int invalidate(int root, int[] distances, int[] parents, int numInvalidated) {
+        if (invalidated == null) invalidated = new int[width * height];
+
+        // Points that are already unreachable have no children
+        if (distances[root] == UNREACHABLE) return numInvalidated;
+
+        int head = numInvalidated;
+        invalidated[numInvalidated++] = root;
+        distances[root] = UNREACHABLE;
+
+        while (head < numInvalidated) {
+            int index = invalidated[head++];
+            int x = index / height, y = index - x * height;
+
+            if (x > 0) numInvalidated = invalidateChild(index - height, index, distances, parents, numInvalidated);
+            if (x < width - 1) numInvalidated = invalidateChild(index + height, index, distances, parents, numInvalidated);
+            if (y > 0) numInvalidated = invalidateChild(index - 1, index, distances, parents, numInvalidated);
+            if (y < height - 1) numInvalidated = invalidateChild(index + 1, index, distances, parents, numInvalidated);
+
+            parents[index] = NO_PARENT;
+        }
+
+        return numInvalidated;
+    }
+
+    /**
+     * Invalidates a neighbour if its shortest path passes through a point being invalidated.
+     * @param index The index of the neighbour.
+     * @param parent The index of the point being invalidated.
+     * @param distances The distances.
+     * @param parents The parents.
+     * @param numInvalidated The number of points invalidated so far.
+     * @return The new number of points invalidated.
+     */
+    private int invalidateChild(int index, int parent, int[] distances, int[] parents, int numInvalidated) {
+        if (parents[index] != parent) return numInvalidated;
+
+        distances[index] = UNREACHABLE;
+        invalidated[numInvalidated] = index;
+        return numInvalidated + 1;
+    }
+
+    /**
+     * Marks a point and every point whose shortest path passes through it as unreachable.
+     * @param root The index of the point.
+     * @param distances The distances.
+     * @param parents The parents.
+     * @param numInvalidated The number of points invalidated so far.
+     * @return The new number of points invalidated.
+     */
+    private int invalidate(int root, float[] distances, int[] parents, int numInvalidated) {
+        if (invalidated == null) invalidated = new int[width * height];
+
+        // Points that are already unreachable have no children
+        if (distances[root] == Float.POSITIVE_INFINITY) return numInvalidated;
+
+        int head = numInvalidated;
+        invalidated[numInvalidated++] = root;
+        distances[root] = Float.POSITIVE_INFINITY;
+
+        while (head < numInvalidated) {
+            int index = invalidated[head++];
+            int x = index / height, y = index - x * height;
+
+            if (x > 0) numInvalidated = invalidateChild(index - height, index, distances, parents, numInvalidated);
+            if (x < width - 1) numInvalidated = invalidateChild(index + height, index, distances, parents, numInvalidated);
+            if (y > 0) numInvalidated = invalidateChild(index - 1, index, distances, parents, numInvalidated);
+            if (y < height - 1) numInvalidated = invalidateChild(index + 1, index, distances, parents, numInvalidated);
+
+            parents[index] = NO_PARENT;
+        }
+
+        return numInvalidated;
+    }
+
+    /**
+     * Invalidates a neighbour if its shortest path passes through a point being invalidated.
+     * @param index The index of the neighbour.
+     * @param parent The index of the point being invalidated.
+     * @param distances The distances.
+     * @param parents The parents.
+     * @param numInvalidated The number of points invalidated so far.
+     * @return The new number of points invalidated.
+     */
+    private int invalidateChild(int index, int parent, float[] distances, int[] parents, int numInvalidated) {
+        if (parents[index] != parent) return numInvalidated;
+
+        distances[index] = Float.POSITIVE_INFINITY;
+        invalidated[numInvalidated] = index;
+        return numInvalidated + 1;
+    }
+
+    /**
+     * Lowers the distance of a point to the best one through its neighbours, and queues it if it was lowered.
+     * @param index The index of the point.
+     * @param distances The distances.
+     * @param parents The parents.
+     * @param blocked Whether each point is blocked.
+     * @param heapSize The number of points in the heap.
+     * @return The new number of points in the heap.
+     */
+    private int seed(int index, int[] distances, int[] parents, boolean[] blocked, int heapSize) {
+        if (blocked[index]) return heapSize;
+
+        int x = index / height, y = index - x * height;
+        int best = distances[index], bestParent = NO_PARENT;
+        if (x > 0 && distances[index - height] < best - 1) { best = distances[index - height] + 1; bestParent = index - height; }
+        if (x < width - 1 && distances[index + height] < best - 1) { best = distances[index + height] + 1; bestParent = index + height; }
+        if (y > 0 && distances[index - 1] < best - 1) { best = distances[index - 1] + 1; bestParent = index - 1; }
+        if (y < height - 1 && distances[index + 1] < best - 1) { best = distances[index + 1] + 1; bestParent = index + 1; }
+        if (bestParent == NO_PARENT) return heapSize;
+
+        distances[index] = best;
+        parents[index] = bestParent;
+        return heapPositions[index] < 0 ? push(index, heapSize, distances) : siftUp(heapPositions[index], distances, heapSize);
+    }
+
+    /**
+     * Lowers the distance of a point to the best one through its neighbours, and queues it if it was lowered.
+     * @param index The index of the point.
+     * @param distances The distances.
+     * @param parents The parents.
+     * @param blocked Whether each point is blocked.
+     * @param weights The cost of moving into each point, excluding <code>constantWeight</code>.
+     * @param constantWeight The cost added to every move.
+     * @param heapSize The number of points in the heap.
+     * @return The new number of points in the heap.
+     */
+    private int seed(int index, float[] distances, int[] parents, boolean[] blocked, float[] weights, float constantWeight, int heapSize) {
+        if (blocked[index]) return heapSize;
+
+        int x = index / height, y = index - x * height;
+        float cost = weights[index] + constantWeight;
+        float best = distances[index];
+        int bestParent = NO_PARENT;
+        if (x > 0 && distances[index - height] + cost < best) { best = distances[index - height] + cost; bestParent = index - height; }
+        if (x < width - 1 && distances[index + height] + cost < best) { best = distances[index + height] + cost; bestParent = index + height; }
+        if (y > 0 && distances[index - 1] + cost < best) { best = distances[index - 1] + cost; bestParent = index - 1; }
+        if (y < height - 1 && distances[index + 1] + cost < best) { best = distances[index + 1] + cost; bestParent = index + 1; }
+        if (bestParent == NO_PARENT) return heapSize;
+
+        distances[index] = best;
+        parents[index] = bestParent;
+        return heapPositions[index] < 0 ? push(index, heapSize, distances) : siftUp(heapPositions[index], distances, heapSize);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm with unit weights from the points in the heap.
+     * @param distances The distances.
+     * @param parents The parents.
+     * @param blocked Whether each point is blocked.
+     * @param heapSize The number of points in the heap.
+     * @return The number of points expanded.
+     */
+    private int propagate(int[] distances, int[] parents, boolean[] blocked, int heapSize) {
+        int numExpanded = 0;
+
+        while (heapSize > 0) {
+            int index = queue[0];
+            heapSize = pop(heapSize, distances);
+            numExpanded++;
+
+            int distance = distances[index] + 1;
+            int x = index / height, y = index - x * height;
+            if (x > 0) heapSize = relax(index - height, index, distance, distances, parents, blocked, heapSize);
+            if (x < width - 1) heapSize = relax(index + height, index, distance, distances, parents, blocked, heapSize);
+            if (y > 0) heapSize = relax(index - 1, index, distance, distances, parents, blocked, heapSize);
+            if (y < height - 1) heapSize = relax(index + 1, index, distance, distances, parents, blocked, heapSize);
+        }
+
+        return numExpanded;
+    }
+
+    /**
+     * Relaxes a neighbour in the binary heap.
+     * @param index The index of the neighbour.
+     * @param parent The index of the point being expanded.
+     * @param newDistance The distance of the neighbour through the point being expanded.
+     * @param distances The distances found so far.
+     * @param parents The parents found so far.
+     * @param blocked Whether each point is blocked.
+     * @param heapSize The number of points in the heap.
+     * @return The new number of points in the heap.
+     */
+    private int relax(int index, int parent, int newDistance, int[] distances, int[] parents, boolean[] blocked, int heapSize) {
+        if (blocked[index] || newDistance >= distances[index]) return heapSize;
+
+        distances[index] = newDistance;
+        parents[index] = parent;
+        return heapPositions[index] < 0 ? push(index, heapSize, distances) : siftUp(heapPositions[index], distances, heapSize);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the points in the heap.
+     * @param distances The distances.
+     * @param parents The parents.
+     * @param blocked Whether each point is blocked.
+     * @param weights The cost of moving into each point, excluding <code>constantWeight</code>.
+     * @param constantWeight The cost added to every move.
+     * @param heapSize The number of points in the heap.
+     * @return The number of points expanded.
+     */
+    private int propagate(float[] distances, int[] parents, boolean[] blocked, float[] weights, float constantWeight, int heapSize) {
+        int numExpanded = 0;
+
+        while (heapSize > 0) {
+            int index = queue[0];
+            heapSize = pop(heapSize, distances);
+            numExpanded++;
+
+            float distance = distances[index];
+            int x = index / height, y = index - x * height;
+            if (x > 0) heapSize = relax(index - height, index, distance, distances, parents, blocked, weights, constantWeight, heapSize);
+            if (x < width - 1) heapSize = relax(index + height, index, distance, distances, parents, blocked, weights, constantWeight, heapSize);
+            if (y > 0) heapSize = relax(index - 1, index, distance, distances, parents, blocked, weights, constantWeight, heapSize);
+            if (y < height - 1) heapSize = relax(index + 1, index, distance, distances, parents, blocked, weights, constantWeight, heapSize);
+        }
+
+        return numExpanded;
+    }
+
+    /**
+     * Relaxes a neighbour in the binary heap.
+     * @param index The index of the neighbour.
+     * @param parent The index of the point being expanded.
+     * @param distance The distance of the point being expanded.
+     * @param distances The distances found so far.
+     * @param parents The parents found so far.
+     * @param blocked Whether each point is blocked.
+     * @param weights The cost of moving into each point, excluding <code>constantWeight</code>.
+     * @param constantWeight The cost added to every move.
+     * @param heapSize The number of points in the heap.
+     * @return The new number of points in the heap.
+     */
+    private int relax(int index, int parent, float distance, float[] distances, int[] parents, boolean[] blocked, float[] weights, float constantWeight, int heapSize) {
+        if (blocked[index]) return heapSize;
+
+        float newDistance = distance + weights[index] + constantWeight;
+        if (!(newDistance < distances[index])) return heapSize;
+
+        distances[index] = newDistance;
+        parents[index] = parent;
+        return heapPositions[index] < 0 ? push(index, heapSize, distances) : siftUp(heapPositions[index], distances, heapSize);
+    }
+
+    /**
+     * Allocates the positions of the binary heap if they have not been allocated.
+     */
+    private void ensureHeap() {
+        if (heapPositions == null) {
+            heapPositions = new int[width * height];
+            Arrays.fill(heapPositions, -1);
+        }
+    }
+
+    /**
+     * Adds a point to the binary heap.
+     * @param index The index of the point.
+     * @param heapSize The number of points in the heap.
+     * @param distances The keys of the heap.
+     * @return The new number of points in the heap.
+     */
+    private int push(int index, int heapSize, int[] distances) {
+        ensureHeap();
+        queue[heapSize] = index;
+        heapPositions[index] = heapSize;
+        return siftUp(heapSize, distances, heapSize + 1);
+    }
+
+    /**
+     * Adds a point to the binary heap.
+     * @param index The index of the point.
+     * @param heapSize The number of points in the heap.
+     * @param distances The keys of the heap.
+     * @return The new number of points in the heap.
+     */
+    private int push(int index, int heapSize, float[] distances) {
+        ensureHeap();
+        queue[heapSize] = index;
+        heapPositions[index] = heapSize;
+        return siftUp(heapSize, distances, heapSize + 1);
+    }
+
+    /**
+     * Removes the point with the smallest distance from the binary heap.
+     * @param heapSize The number of points in the heap.
+     * @param distances The keys of the heap.
+     * @return The new number of points in the heap.
+     */
+    private int pop(int heapSize, int[] distances) {
+        heapPositions[queue[0]] = -1;
+        if (--heapSize > 0) {
+            int last = queue[heapSize];
+            queue[0] = last;
+            heapPositions[last] = 0;
+            siftDown(0, heapSize, distances);
+        }
+
+        return heapSize;
+    }
+
+    /**
+     * Removes the point with the smallest distance from the binary heap.
+     * @param heapSize The number of points in the heap.
+     * @param distances The keys of the heap.
+     * @return The new number of points in the heap.
+     */
+    private int pop(int heapSize, float[] distances) {
+        heapPositions[queue[0]] = -1;
+        if (--heapSize > 0) {
+            int last = queue[heapSize];
+            queue[0] = last;
+            heapPositions[last] = 0;
+            siftDown(0, heapSize, distances);
+        }
+
+        return heapSize;
+    }
+
+    /**
+     * Moves a point up the binary heap until its parent is not further than it.
+     * @param position The position of the point in the heap.
+     * @param distances The keys of the heap.
+     * @param heapSize The number of points in the heap, which is returned unchanged.
+     * @return The number of points in the heap.
+     */
+    private int siftUp(int position, int[] distances, int heapSize) {
+        int index = queue[position];
+        int key = distances[index];
+
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            int parent = queue[parentPosition];
+            if (distances[parent] <= key) break;
+
+            queue[position] = parent;
+            heapPositions[parent] = position;
+            position = parentPosition;
+        }
+
+        queue[position] = index;
+        heapPositions[index] = position;
+        return heapSize;
+    }
+
+    /**
+     * Moves a point up the binary heap until its parent is not further than it.
+     * @param position The position of the point in the heap.
+     * @param distances The keys of the heap.
+     * @param heapSize The number of points in the heap, which is returned unchanged.
+     * @return The number of points in the heap.
+     */
+    private int siftUp(int position, float[] distances, int heapSize) {
+        int index = queue[position];
+        float key = distances[index];
+
+        while (position > 0) {
+            int parentPosition = (position - 1) >>> 1;
+            int parent = queue[parentPosition];
+            if (distances[parent] <= key) break;
+
+            queue[position] = parent;
+            heapPositions[parent] = position;
+            position = parentPosition;
+        }
+
+        queue[position] = index;
+        heapPositions[index] = position;
+        return heapSize;
+    }
+
+    /**
+     * Moves a point down the binary heap until its children are not closer than it.
+     * @param position The position of the point in the heap.
+     * @param heapSize The number of points in the heap.
+     * @param distances The keys of the heap.
+     */
+    private void siftDown(int position, int heapSize, int[] distances) {
+        int index = queue[position];
+        int key = distances[index];
+
+        while (true) {
+            int childPosition = 2 * position + 1;
+            if (childPosition >= heapSize) break;
+
+            int child = queue[childPosition];
+            if (childPosition + 1 < heapSize && distances[queue[childPosition + 1]] < distances[child]) {
+                child = queue[++childPosition];
+            }
+            if (key <= distances[child]) break;
+
+            queue[position] = child;
+            heapPositions[child] = position;
+            position = childPosition;
+        }
+
+        queue[position] = index;
+        heapPositions[index] = position;
+    }
+
+    /**
+     * Moves a point down the binary heap until its children are not closer than it.
+     * @param position The position of the point in the heap.
+     * @param heapSize The number of points in the heap.
+     * @param distances The keys of the heap.
+     */
+    private void siftDown(int position, int heapSize, float[] distances) {
+        int index = queue[position];
+        float key = distances[index];
+
+        while (true) {
+            int childPosition = 2 * position + 1;
+            if (childPosition >= heapSize) break;
+
+            int child = queue[childPosition];
+            if (childPosition + 1 < heapSize && distances[queue[childPosition + 1]] < distances[child]) {
+                child = queue[++childPosition];
+            }
+            if (key <= distances[child]) break;
+
+            queue[position] = child;
+            heapPositions[child] = position;
+            position = childPosition;
+        }
+
+        queue[position] = index;
+        heapPositions[index] = position;
+    }
+}
@@ -0,0 +1,866 @@
+package project.field;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import project.arena.ArenaEventRegister;
+import project.arena.ArenaInstance;
+import project.control.ArenaManager;
+import project.entity.ArenaObject;
+import project.entity.Tower;
+import project.event.EventHandler;
+import project.event.SubscriptionGroup;
+import project.event.eventargs.ArenaObjectEventArgs;
+import project.event.eventargs.ArenaObjectMoveBatchEventArgs;
+import project.query.ArenaObjectStorage;
+
+/**
+ * Hierarchical pathfinding to the end zone in the style of HPA*, which a {@link project.entity.Monster}
+ * can follow instead of the flow field of {@link MonsterDistanceToEndField}.
+ * <p>
+ * The arena is divided into square clusters of points. Each open part of the border between two clusters is an entrance,
+ * which can only be crossed at a few transitions. The shortest paths between the transitions of each cluster are precomputed,
+ * forming an abstract graph, and the distance from each transition to the end zone is found on the abstract graph.
+ * The path inside a cluster is only refined when a direction in it is first asked for,
+ * by searching the cluster from its transitions, starting from their distances to the end zone.
+ * <p>
+ * When towers change, only the borders of the clusters that contain a changed point are searched again,
+ * and only the clusters whose transitions or distances have changed are refined again.
+ * As borders are only crossed at transitions, a path can be slightly longer than the shortest path.
+ * <p>
+ * The hierarchical mode is selected by setting the system property <code>project.field.movement</code> to <code>hierarchical</code>.
+ * The width of the clusters in points is set by the system property <code>project.field.cluster.size</code>.
+ */
+public final class HierarchicalPathfinder implements DirectionField {
+
+    /**
+     * Whether monsters follow the hierarchical paths instead of the flow field of the distance to the end zone.
+     */
+    private static final boolean isEnabled = "hierarchical".equals(System.getProperty("project.field.movement"));
+
+    /**
+     * The width of the clusters in points when the hierarchical mode is enabled.
+     */
+    private static final int configuredClusterSize = Math.max(1, Integer.getInteger("project.field.cluster.size", 120));
+
+    /**
+     * The distance of a point or transition from which the end zone cannot be reached.
+     */
+    private static final int UNREACHABLE = GridFieldSolver.UNREACHABLE;
+
+    /**
+     * The indices of the sides of a cluster, in the order that their transitions are numbered.
+     * Each equals the direction that leaves the cluster through that side.
+     */
+    private static final int LEFT = 0, RIGHT = 1, TOP = 2, BOTTOM = 3;
+
+    /**
+     * The number of points in the x-direction.
+     */
+    private final int width;
+
+    /**
+     * The number of points in the y-direction.
+     */
+    private final int height;
+
+    /**
+     * The width of the clusters in points. The last cluster in each direction also contains the remaining points.
+     */
+    private final int clusterSize;
+
+    /**
+     * The number of clusters in the x-direction.
+     */
+    private final int numClustersX;
+
+    /**
+     * The number of clusters in the y-direction.
+     */
+    private final int numClustersY;
+
+    /**
+     * The largest distance between consecutive transitions of an entrance.
+     */
+    private final int transitionSpacing;
+
+    /**
+     * The index of the point of the end zone.
+     */
+    private final int goal;
+
+    /**
+     * Whether each point is blocked, indexed by <code>x * height + y</code>.
+     */
+    private final boolean[] blocked;
+
+    /**
+     * The obstacles that {@link #blocked} belongs to, or <code>null</code> if it is updated by the caller.
+     */
+    private final FieldObstacles obstacles;
+
+    /**
+     * The number of borders between clusters that are next to each other in the x-direction.
+     * They are numbered before the borders between clusters that are next to each other in the y-direction.
+     */
+    private final int numVerticalBorders;
+
+    /**
+     * The transitions of each border, as pairs of the index of the point in the cluster before the border
+     * and the index of the point in the cluster after it.
+     */
+    private final int[][] borderTransitions;
+
+    /**
+     * The index of the point of each transition of each cluster, with the end zone last if it is in the cluster.
+     */
+    private final int[][] nodePoints;
+
+    /**
+     * The direction that leaves each cluster from each transition, or {@link FlowField#NONE} for the end zone.
+     */
+    private final byte[][] nodeExits;
+
+    /**
+     * The shortest distance inside each cluster between each pair of its transitions, as a square matrix.
+     */
+    private final int[][] nodeDistances;
+
+    /**
+     * The distance from each transition of each cluster to the end zone on the abstract graph,
+     * if the shortest path from it leaves the cluster through its border or it is the end zone,
+     * or {@link #UNREACHABLE} otherwise, as its path is then found from the other transitions.
+     */
+    private final int[][] nodeCosts;
+
+    /**
+     * The distances of the transitions of each cluster that its directions were refined from.
+     */
+    private final int[][] refinedCosts;
+
+    /**
+     * Whether the directions of each cluster agree with the abstract graph.
+     */
+    private final boolean[] isRefined;
+
+    /**
+     * The direction to move in from each point, indexed in the same way as {@link #blocked}.
+     * Only valid in the clusters that have been refined.
+     */
+    private final byte[] directions;
+
+    /**
+     * The number of consecutive steps in the same direction from each point, indexed in the same way as {@link #blocked}.
+     */
+    private final short[] runLengths;
+
+    /**
+     * The length of the path from each point to the end zone, indexed in the same way as {@link #blocked},
+     * or {@link #UNREACHABLE} if there is none. Only valid in the clusters that have been refined.
+     */
+    private final int[] pathDistances;
+
+    /**
+     * The distance of each point of the cluster being searched, indexed by <code>localX * clusterHeight + localY</code>.
+     */
+    private final int[] localDistances;
+
+    /**
+     * The queue of the points of the cluster being searched.
+     */
+    private final int[] queue;
+
+    /**
+     * The method invoked when an {@link ArenaObject} is being added.
+     */
+    private EventHandler<ArenaObjectEventArgs> onAddObject = (sender, args) -> {
+        if (args.subject instanceof Tower) {
+            updateObstacles(ArenaManager.getActiveObjectStorage());
+        }
+    };
+
+    /**
+     * The method invoked when an {@link ArenaObject} is being removed.
+     */
+    private EventHandler<ArenaObjectEventArgs> onRemoveObject = (sender, args) -> {
+        if (args.subject instanceof Tower) {
+            updateObstacles(ArenaManager.getActiveObjectStorage());
+        }
+    };
+
+    /**
+     * The method invoked when an {@link ArenaObject} has been moved.
+     */
+    private EventHandler<ArenaObjectEventArgs> onEndMoveObject = (sender, args) -> {
+        if (args.subject instanceof Tower) {
+            updateObstacles(ArenaManager.getActiveObjectStorage());
+        }
+    };
+
+    /**
+     * The method invoked when multiple {@link ArenaObject}s have been moved.
+     * The paths are updated at most once for the whole batch.
+     */
+    private EventHandler<ArenaObjectMoveBatchEventArgs> onMoveObjects = (sender, args) -> {
+        if (args.containsType(Tower.class)) {
+            updateObstacles(ArenaManager.getActiveObjectStorage());
+        }
+    };
+
+    /**
+     * Constructs a newly allocated {@link HierarchicalPathfinder} object and attaches it to an arena instance.
+     * @param arenaInstance The arena instance.
+     * @param clusterSize The width of the clusters in points.
+     */
+    public HierarchicalPathfinder(ArenaInstance arenaInstance, int clusterSize) {
+        this(ArenaManager.ARENA_WIDTH + 1, ArenaManager.ARENA_HEIGHT + 1, clusterSize,
+                ArenaManager.END_X * (ArenaManager.ARENA_HEIGHT + 1) + ArenaManager.END_Y, new FieldObstacles());
+
+        obstacles.update(FieldObstacles.snapshot(arenaInstance.getStorage().getTowers()));
+        rebuild();
+
+        ArenaEventRegister register = arenaInstance.getEventRegister();
+        SubscriptionGroup subscriptions = arenaInstance.getSubscriptions();
+        register.ARENA_OBJECT_ADD.subscribe(onAddObject, subscriptions);
+        register.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_END.subscribe(onEndMoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_BATCH.subscribe(onMoveObjects, subscriptions);
+    }
+
+    /**
+     * Constructs a newly allocated {@link HierarchicalPathfinder} object for a grid whose obstacles are updated by the caller.
+     * {@link #rebuild()} must be called before the directions are read.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     * @param clusterSize The width of the clusters in points.
+     * @param goal The index of the point to find paths to.
+     * @param blocked Whether each point is blocked, indexed by <code>x * height + y</code>.
+     */
+    HierarchicalPathfinder(int width, int height, int clusterSize, int goal, boolean[] blocked) {
+        this(width, height, clusterSize, goal, blocked, null);
+    }
+
+    /**
+     * Constructs a newly allocated {@link HierarchicalPathfinder} object for the obstacles of the arena.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     * @param clusterSize The width of the clusters in points.
+     * @param goal The index of the point to find paths to.
+     * @param obstacles The obstacles of the arena.
+     */
+    private HierarchicalPathfinder(int width, int height, int clusterSize, int goal, FieldObstacles obstacles) {
+        this(width, height, clusterSize, goal, obstacles.blocked, obstacles);
+    }
+
+    /**
+     * Constructs a newly allocated {@link HierarchicalPathfinder} object.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     * @param clusterSize The width of the clusters in points.
+     * @param goal The index of the point to find paths to.
+     * @param blocked Whether each point is blocked, indexed by <code>x * height + y</code>.
+     * @param obstacles The obstacles that the blocked points belong to, or <code>null</code> if they are updated by the caller.
+     */
+    private HierarchicalPathfinder(int width, int height, int clusterSize, int goal, boolean[] blocked, FieldObstacles obstacles) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("The grid must contain at least one point");
+        if (clusterSize <= 0) throw new IllegalArgumentException(String.format("The cluster size must be positive. Value: %d", clusterSize));
+        if (goal < 0 || goal >= width * height) throw new IllegalArgumentException(String.format("The goal is outside the grid. Value: %d", goal));
+
+        this.width = width;
+        this.height = height;
+        this.clusterSize = clusterSize;
+        this.numClustersX = Math.max(1, width / clusterSize);
+        this.numClustersY = Math.max(1, height / clusterSize);
+        this.transitionSpacing = Math.max(1, clusterSize / 3);
+        this.goal = goal;
+        this.blocked = blocked;
+        this.obstacles = obstacles;
+
+        int numClusters = numClustersX * numClustersY;
+        numVerticalBorders = (numClustersX - 1) * numClustersY;
+        borderTransitions = new int[numVerticalBorders + numClustersX * (numClustersY - 1)][];
+        nodePoints = new int[numClusters][];
+        nodeExits = new byte[numClusters][];
+        nodeDistances = new int[numClusters][];
+        nodeCosts = new int[numClusters][];
+        refinedCosts = new int[numClusters][];
+        isRefined = new boolean[numClusters];
+        directions = new byte[width * height];
+        runLengths = new short[width * height];
+        pathDistances = new int[width * height];
+
+        // The last cluster in each direction is the largest
+        int maxClusterSize = (width - (numClustersX - 1) * clusterSize) * (height - (numClustersY - 1) * clusterSize);
+        localDistances = new int[maxClusterSize];
+        queue = new int[maxClusterSize];
+    }
+
+    /**
+     * Returns whether monsters follow the hierarchical paths, as set by the system property <code>project.field.movement</code>.
+     * @return Whether the hierarchical mode is enabled.
+     */
+    public static boolean isEnabled() { return isEnabled; }
+
+    /**
+     * Returns the width of the clusters in points, as set by the system property <code>project.field.cluster.size</code>.
+     * @return The width of the clusters in points.
+     */
+    public static int getConfiguredClusterSize() { return configuredClusterSize; }
+
+    /**
+     * Returns the width of the clusters in points.
+     * @return The width of the clusters in points.
+     */
+    public int getClusterSize() { return clusterSize; }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte getDirectionAt(short x, short y) {
+        int cluster = clusterOf(x, y);
+        if (!isRefined[cluster]) refine(cluster);
+        return directions[x * height + y];
+    }
+
+    /**
+     * {@inheritDoc}
+     * The run ends at the border of the cluster.
+     */
+    @Override
+    public int getRunLengthAt(short x, short y) {
+        int cluster = clusterOf(x, y);
+        if (!isRefined[cluster]) refine(cluster);
+        return runLengths[x * height + y];
+    }
+
+    /**
+     * Returns the length of the path that the directions lead along from a point to the end zone.
+     * This can be slightly longer than the shortest distance, in the same way as the path.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The number of steps to the end zone, or {@link GridFieldSolver#UNREACHABLE} if the end zone cannot be reached.
+     */
+    public int getDistanceAt(short x, short y) {
+        int cluster = clusterOf(x, y);
+        if (!isRefined[cluster]) refine(cluster);
+        return pathDistances[x * height + y];
+    }
+
+    /**
+     * Updates the obstacles from the towers on the arena, and the paths if any point has been blocked or unblocked.
+     * @param storage The storage to base the update on.
+     */
+    private void updateObstacles(ArenaObjectStorage storage) {
+        int numChanged = obstacles.update(FieldObstacles.snapshot(storage.getTowers()));
+        if (numChanged > 0) update(obstacles.changed, numChanged);
+    }
+
+    /**
+     * Builds the abstract graph for the whole grid.
+     */
+    void rebuild() {
+        for (int border = 0; border < borderTransitions.length; border++) findTransitions(border);
+
+        boolean[] isDirty = new boolean[nodePoints.length];
+        Arrays.fill(isDirty, true);
+        connect(isDirty);
+    }
+
+    /**
+     * Updates the abstract graph after points have been blocked or unblocked.
+     * Only the borders of the clusters that contain a changed point are searched again.
+     * @param changed The indices of the points that have been blocked or unblocked.
+     * @param numChanged The number of points that have been blocked or unblocked.
+     */
+    void update(int[] changed, int numChanged) {
+        boolean[] isTouched = new boolean[nodePoints.length];
+        for (int i = 0; i < numChanged; i++) isTouched[clusterOf(changed[i] / height, changed[i] % height)] = true;
+
+        // A changed border also changes the transitions of the cluster on its other side
+        boolean[] isDirty = new boolean[nodePoints.length];
+        for (int cluster = 0; cluster < nodePoints.length; cluster++) {
+            if (!isTouched[cluster]) continue;
+
+            isDirty[cluster] = true;
+            int clusterX = cluster / numClustersY, clusterY = cluster % numClustersY;
+            for (int side = LEFT; side <= BOTTOM; side++) {
+                int border = borderOf(clusterX, clusterY, side);
+                if (border < 0) continue;
+
+                findTransitions(border);
+                isDirty[neighbourOf(clusterX, clusterY, side)] = true;
+            }
+        }
+
+        connect(isDirty);
+    }
+
+    /**
+     * Finds the transitions of the clusters that have changed and the shortest paths between them,
+     * then finds the distances to the end zone on the abstract graph,
+     * and marks the clusters whose directions no longer agree with it.
+     * @param isDirty Whether the transitions or the blocked points of each cluster have changed.
+     */
+    private void connect(boolean[] isDirty) {
+        for (int cluster = 0; cluster < nodePoints.length; cluster++) {
+            if (isDirty[cluster]) findNodes(cluster);
+        }
+
+        // Number the transitions of all clusters, and pair the two transitions on either side of each border
+        int[] bases = new int[nodePoints.length + 1];
+        for (int cluster = 0; cluster < nodePoints.length; cluster++) bases[cluster + 1] = bases[cluster] + nodePoints[cluster].length;
+
+        int[] partners = new int[bases[nodePoints.length]];
+        int[] clusters = new int[partners.length];
+        Arrays.fill(partners, -1);
+        for (int cluster = 0; cluster < nodePoints.length; cluster++) Arrays.fill(clusters, bases[cluster], bases[cluster + 1], cluster);
+        for (int clusterX = 0; clusterX < numClustersX; clusterX++) {
+            for (int clusterY = 0; clusterY < numClustersY; clusterY++) {
+                int cluster = clusterX * numClustersY + clusterY;
+                for (int side = RIGHT; side <= BOTTOM; side += 2) {
+                    int border = borderOf(clusterX, clusterY, side);
+                    if (border < 0) continue;
+
+                    int neighbour = neighbourOf(clusterX, clusterY, side);
+                    int node = bases[cluster] + sideOffset(clusterX, clusterY, side);
+                    int neighbourNode = bases[neighbour] + sideOffset(neighbour / numClustersY, neighbour % numClustersY, side - 1);
+                    for (int i = 0; i < borderTransitions[border].length / 2; i++) {
+                        partners[node + i] = neighbourNode + i;
+                        partners[neighbourNode + i] = node + i;
+                    }
+                }
+            }
+        }
+
+        int[] costs = findCosts(bases, partners, clusters);
+
+        for (int cluster = 0; cluster < nodePoints.length; cluster++) {
+            nodeCosts[cluster] = new int[nodePoints[cluster].length];
+            for (int node = bases[cluster]; node < bases[cluster + 1]; node++) {
+                // At a corner, two transitions share a point, and only one of them may be left through its border
+                int partner = partners[node];
+                boolean isLeft = partner < 0 || (costs[partner] != UNREACHABLE && costs[node] == costs[partner] + 1);
+                nodeCosts[cluster][node - bases[cluster]] = isLeft ? costs[node] : UNREACHABLE;
+            }
+            if (isDirty[cluster] || !Arrays.equals(nodeCosts[cluster], refinedCosts[cluster])) isRefined[cluster] = false;
+        }
+    }
+
+    /**
+     * Finds the distance from each transition to the end zone on the abstract graph with Dijkstra's algorithm.
+     * @param bases The number of the first transition of each cluster.
+     * @param partners The number of the transition on the other side of the border of each transition, or <code>-1</code> for the end zone.
+     * @param clusters The cluster of each transition.
+     * @return The distance of each transition.
+     */
+    private int[] findCosts(int[] bases, int[] partners, int[] clusters) {
+        int[] costs = new int[partners.length];
+        Arrays.fill(costs, UNREACHABLE);
+
+        // The abstract graph is small, so a priority queue of boxed entries is sufficient
+        PriorityQueue<Long> pending = new PriorityQueue<>();
+        int goalCluster = clusterOf(goal / height, goal % height);
+        int[] goalPoints = nodePoints[goalCluster];
+        if (goalPoints.length > 0 && goalPoints[goalPoints.length - 1] == goal && nodeExits[goalCluster][goalPoints.length - 1] == FlowField.NONE) {
+            int goalNode = bases[goalCluster + 1] - 1;
+            costs[goalNode] = 0;
+            pending.add((long) goalNode);
+        }
+
+        while (!pending.isEmpty()) {
+            long entry = pending.poll();
+            int node = (int) entry;
+            int cost = (int) (entry >>> 32);
+            if (cost > costs[node]) continue;
+
+            if (partners[node] >= 0 && cost + 1 < costs[partners[node]]) {
+                costs[partners[node]] = cost + 1;
+                pending.add(((long) (cost + 1) << 32) | partners[node]);
+            }
+
+            int cluster = clusters[node];
+            int numNodes = nodePoints[cluster].length;
+            int row = (node - bases[cluster]) * numNodes;
+            for (int i = 0; i < numNodes; i++) {
+                int distance = nodeDistances[cluster][row + i];
+                int other = bases[cluster] + i;
+                if (distance != UNREACHABLE && cost + distance < costs[other]) {
+                    costs[other] = cost + distance;
+                    pending.add(((long) (cost + distance) << 32) | other);
+                }
+            }
+        }
+
+        return costs;
+    }
+
+    /**
+     * Finds the transitions of a border. Each open part of the border is an entrance,
+     * which is crossed in the middle if it is narrow, or at both ends and at regular intervals between them otherwise.
+     * @param border The number of the border.
+     */
+    private void findTransitions(int border) {
+        boolean isVertical = border < numVerticalBorders;
+        int clusterX, clusterY, length, start;
+        if (isVertical) {
+            clusterX = border / numClustersY;
+            clusterY = border % numClustersY;
+            start = startY(clusterY);
+            length = endY(clusterY) - start + 1;
+        } else {
+            clusterX = (border - numVerticalBorders) / (numClustersY - 1);
+            clusterY = (border - numVerticalBorders) % (numClustersY - 1);
+            start = startX(clusterX);
+            length = endX(clusterX) - start + 1;
+        }
+
+        int[] pairs = new int[2 * length];
+        int numPairs = 0;
+        int entranceStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean isOpen = i < length && !blocked[before(isVertical, clusterX, clusterY, start + i)]
+                    && !blocked[after(isVertical, clusterX, clusterY, start + i)];
+
+            if (isOpen && entranceStart < 0) entranceStart = start + i;
+            if (isOpen || entranceStart < 0) continue;
+
+            int entranceEnd = start + i - 1;
+            if (entranceEnd - entranceStart < transitionSpacing) {
+                int middle = (entranceStart + entranceEnd) / 2;
+                pairs[numPairs++] = before(isVertical, clusterX, clusterY, middle);
+                pairs[numPairs++] = after(isVertical, clusterX, clusterY, middle);
+            } else {
+                for (int position = entranceStart; ; position = Math.min(position + transitionSpacing, entranceEnd)) {
+                    pairs[numPairs++] = before(isVertical, clusterX, clusterY, position);
+                    pairs[numPairs++] = after(isVertical, clusterX, clusterY, position);
+                    if (position == entranceEnd) break;
+                }
+            }
+            entranceStart = -1;
+        }
+
+        borderTransitions[border] = Arrays.copyOf(pairs, numPairs);
+    }
+
+    /**
+     * Returns the index of the point just before a border.
+     * @param isVertical Whether the border is between clusters that are next to each other in the x-direction.
+     * @param clusterX The x-position of the cluster before the border.
+     * @param clusterY The y-position of the cluster before the border.
+     * @param position The coordinate of the point along the border.
+     * @return The index of the point.
+     */
+    private int before(boolean isVertical, int clusterX, int clusterY, int position) {
+        return isVertical ? endX(clusterX) * height + position : position * height + endY(clusterY);
+    }
+
+    /**
+     * Returns the index of the point just after a border.
+     * @param isVertical Whether the border is between clusters that are next to each other in the x-direction.
+     * @param clusterX The x-position of the cluster before the border.
+     * @param clusterY The y-position of the cluster before the border.
+     * @param position The coordinate of the point along the border.
+     * @return The index of the point.
+     */
+    private int after(boolean isVertical, int clusterX, int clusterY, int position) {
+        return isVertical ? (endX(clusterX) + 1) * height + position : position * height + endY(clusterY) + 1;
+    }
+
+    /**
+     * Collects the transitions of a cluster from its borders and finds the shortest distances between them inside the cluster.
+     * @param cluster The number of the cluster.
+     */
+    private void findNodes(int cluster) {
+        int clusterX = cluster / numClustersY, clusterY = cluster % numClustersY;
+        boolean hasGoal = clusterOf(goal / height, goal % height) == cluster && !blocked[goal];
+
+        int numNodes = hasGoal ? 1 : 0;
+        for (int side = LEFT; side <= BOTTOM; side++) {
+            int border = borderOf(clusterX, clusterY, side);
+            if (border >= 0) numNodes += borderTransitions[border].length / 2;
+        }
+
+        int[] points = new int[numNodes];
+        byte[] exits = new byte[numNodes];
+        int node = 0;
+        for (int side = LEFT; side <= BOTTOM; side++) {
+            int border = borderOf(clusterX, clusterY, side);
+            if (border < 0) continue;
+
+            // The cluster is after the border on its left and top sides, and before it on the others
+            int offset = side == LEFT || side == TOP ? 1 : 0;
+            for (int i = 0; i < borderTransitions[border].length; i += 2) {
+                points[node] = borderTransitions[border][i + offset];
+                exits[node++] = (byte) side;
+            }
+        }
+        if (hasGoal) {
+            points[node] = goal;
+            exits[node] = FlowField.NONE;
+        }
+
+        // The distances are symmetric, so the last transition does not need to be searched from
+        int[] distances = new int[numNodes * numNodes];
+        for (int i = 0; i < numNodes - 1; i++) {
+            search(cluster, new int[] { points[i] }, new int[] { 0 }, 1, null);
+            for (int j = i + 1; j < numNodes; j++) {
+                distances[i * numNodes + j] = distances[j * numNodes + i] = localDistances[toLocal(cluster, points[j])];
+            }
+        }
+
+        nodePoints[cluster] = points;
+        nodeExits[cluster] = exits;
+        nodeDistances[cluster] = distances;
+    }
+
+    /**
+     * Refines the directions inside a cluster from the distances of its transitions to the end zone.
+     * Each point moves towards the transition that minimizes its distance inside the cluster plus the distance of the transition,
+     * and each transition that is best left through its border moves across it.
+     * @param cluster The number of the cluster.
+     */
+    private void refine(int cluster) {
+        int[] costs = nodeCosts[cluster];
+        int numSeeds = 0;
+        Integer[] order = new Integer[costs.length];
+        for (int i = 0; i < costs.length; i++) {
+            if (costs[i] != UNREACHABLE) order[numSeeds++] = i;
+        }
+        Arrays.sort(order, 0, numSeeds, (a, b) -> Integer.compare(costs[a], costs[b]));
+
+        int[] seeds = new int[numSeeds];
+        int[] seedCosts = new int[numSeeds];
+        byte[] seedExits = new byte[numSeeds];
+        for (int i = 0; i < numSeeds; i++) {
+            seeds[i] = nodePoints[cluster][order[i]];
+            seedCosts[i] = costs[order[i]];
+            seedExits[i] = nodeExits[cluster][order[i]];
+        }
+
+        search(cluster, seeds, seedCosts, numSeeds, seedExits);
+        findRunLengths(cluster);
+
+        int startX = startX(cluster / numClustersY), endX = endX(cluster / numClustersY);
+        int startY = startY(cluster % numClustersY), clusterHeight = endY(cluster % numClustersY) - startY + 1;
+        for (int x = startX; x <= endX; x++) {
+            System.arraycopy(localDistances, (x - startX) * clusterHeight, pathDistances, x * height + startY, clusterHeight);
+        }
+        refinedCosts[cluster] = costs;
+        isRefined[cluster] = true;
+    }
+
+    /**
+     * Searches a cluster breadth-first from some points with initial distances, without leaving the cluster.
+     * The distances are stored in {@link #localDistances}.
+     * @param cluster The number of the cluster.
+     * @param seeds The indices of the points to start from, in ascending order of their initial distances.
+     * @param seedDistances The initial distance of each point to start from.
+     * @param numSeeds The number of points to start from.
+     * @param seedExits The direction that leaves the cluster from each point to start from,
+     * or <code>null</code> if {@link #directions} should not be updated.
+     */
+    private void search(int cluster, int[] seeds, int[] seedDistances, int numSeeds, byte[] seedExits) {
+        int startX = startX(cluster / numClustersY), endX = endX(cluster / numClustersY);
+        int startY = startY(cluster % numClustersY), endY = endY(cluster % numClustersY);
+        int clusterHeight = endY - startY + 1;
+        int clusterArea = (endX - startX + 1) * clusterHeight;
+        Arrays.fill(localDistances, 0, clusterArea, UNREACHABLE);
+        if (seedExits != null) {
+            for (int x = startX; x <= endX; x++) {
+                Arrays.fill(directions, x * height + startY, x * height + endY + 1, FlowField.NONE);
+            }
+        }
+
+        // The queue stays sorted by distance, so each seed is expanded when the queue reaches its distance
+        int head = 0, tail = 0, nextSeed = 0;
+        while (head < tail || nextSeed < numSeeds) {
+            int local, distance;
+            if (nextSeed < numSeeds && (head == tail || seedDistances[nextSeed] <= localDistances[queue[head]])) {
+                local = toLocal(cluster, seeds[nextSeed]);
+                distance = seedDistances[nextSeed];
+                if (blocked[seeds[nextSeed]] || distance >= localDistances[local]) {
+                    nextSeed++;
+                    continue;
+                }
+
+                localDistances[local] = distance;
+                if (seedExits != null) directions[seeds[nextSeed]] = seedExits[nextSeed];
+                nextSeed++;
+            } else {
+                local = queue[head++];
+                distance = localDistances[local];
+            }
+
+            // Each neighbour moves back in the opposite direction
+            int localX = local / clusterHeight, localY = local % clusterHeight;
+            int index = (startX + localX) * height + startY + localY;
+            if (localX > 0) tail = relax(index - height, local - clusterHeight, distance + 1, (byte) 1, tail, seedExits != null);
+            if (startX + localX < endX) tail = relax(index + height, local + clusterHeight, distance + 1, (byte) 0, tail, seedExits != null);
+            if (localY > 0) tail = relax(index - 1, local - 1, distance + 1, (byte) 3, tail, seedExits != null);
+            if (startY + localY < endY) tail = relax(index + 1, local + 1, distance + 1, (byte) 2, tail, seedExits != null);
+        }
+    }
+
+    /**
+     * Queues a point of the cluster being searched if it is not blocked and its distance can be lowered.
+     * @param index The index of the point.
+     * @param local The index of the point in {@link #localDistances}.
+     * @param distance The new distance of the point.
+     * @param direction The direction to move in from the point.
+     * @param tail The end of the queue.
+     * @param isRefining Whether {@link #directions} should be updated.
+     * @return The new end of the queue.
+     */
+    private int relax(int index, int local, int distance, byte direction, int tail, boolean isRefining) {
+        if (blocked[index] || distance >= localDistances[local]) return tail;
+
+        // Each point is queued at most once, as the distances taken from the queue never decrease
+        localDistances[local] = distance;
+        if (isRefining) directions[index] = direction;
+        queue[tail] = local;
+        return tail + 1;
+    }
+
+    /**
+     * Derives the run length of each point of a cluster from its direction, in the same way as {@link FlowField}.
+     * A run that leaves the cluster ends on the other side of the border.
+     * @param cluster The number of the cluster.
+     */
+    private void findRunLengths(int cluster) {
+        int startX = startX(cluster / numClustersY), endX = endX(cluster / numClustersY);
+        int startY = startY(cluster % numClustersY), endY = endY(cluster % numClustersY);
+
+        // Moving left or up leads to a point with a smaller index
+        for (int x = startX; x <= endX; x++) {
+            for (int y = startY; y <= endY; y++) {
+                int index = x * height + y;
+                byte direction = directions[index];
+                if (direction == 0) runLengths[index] = x == startX ? 1 : nextRunLength(index, index - height, direction);
+                else if (direction == 2) runLengths[index] = y == startY ? 1 : nextRunLength(index, index - 1, direction);
+                else if (direction == FlowField.NONE) runLengths[index] = 0;
+            }
+        }
+
+        // Moving right or down leads to a point with a larger index
+        for (int x = endX; x >= startX; x--) {
+            for (int y = endY; y >= startY; y--) {
+                int index = x * height + y;
+                byte direction = directions[index];
+                if (direction == 1) runLengths[index] = x == endX ? 1 : nextRunLength(index, index + height, direction);
+                else if (direction == 3) runLengths[index] = y == endY ? 1 : nextRunLength(index, index + 1, direction);
+            }
+        }
+    }
+
+    /**
+     * Returns the run length of a point whose next point is in the same cluster.
+     * @param index The index of the point.
+     * @param next The index of the next point.
+     * @param direction The direction of the point.
+     * @return The run length of the point.
+     */
+    private short nextRunLength(int index, int next, byte direction) {
+        if (directions[next] != direction) return 1;
+        return (short) Math.min(Short.MAX_VALUE, runLengths[next] + 1);
+    }
+
+    /**
+     * Returns the number of the border on a side of a cluster.
+     * @param clusterX The x-position of the cluster.
+     * @param clusterY The y-position of the cluster.
+     * @param side The side of the cluster.
+     * @return The number of the border, or <code>-1</code> if the side is on the edge of the grid.
+     */
+    private int borderOf(int clusterX, int clusterY, int side) {
+        switch (side) {
+            case LEFT: return clusterX > 0 ? (clusterX - 1) * numClustersY + clusterY : -1;
+            case RIGHT: return clusterX < numClustersX - 1 ? clusterX * numClustersY + clusterY : -1;
+            case TOP: return clusterY > 0 ? numVerticalBorders + clusterX * (numClustersY - 1) + clusterY - 1 : -1;
+            default: return clusterY < numClustersY - 1 ? numVerticalBorders + clusterX * (numClustersY - 1) + clusterY : -1;
+        }
+    }
+
+    /**
+     * Returns the number of the cluster on the other side of a side of a cluster.
+     * @param clusterX The x-position of the cluster.
+     * @param clusterY The y-position of the cluster.
+     * @param side The side of the cluster, which must not be on the edge of the grid.
+     * @return The number of the neighbouring cluster.
+     */
+    private int neighbourOf(int clusterX, int clusterY, int side) {
+        switch (side) {
+            case LEFT: return (clusterX - 1) * numClustersY + clusterY;
+            case RIGHT: return (clusterX + 1) * numClustersY + clusterY;
+            case TOP: return clusterX * numClustersY + clusterY - 1;
+            default: return clusterX * numClustersY + clusterY + 1;
+        }
+    }
+
+    /**
+     * Returns the number of the first transition on a side of a cluster, among the transitions of the cluster.
+     * @param clusterX The x-position of the cluster.
+     * @param clusterY The y-position of the cluster.
+     * @param side The side of the cluster.
+     * @return The number of the first transition on the side.
+     */
+    private int sideOffset(int clusterX, int clusterY, int side) {
+        int offset = 0;
+        for (int previous = LEFT; previous < side; previous++) {
+            int border = borderOf(clusterX, clusterY, previous);
+            if (border >= 0) offset += borderTransitions[border].length / 2;
+        }
+
+        return offset;
+    }
+
+    /**
+     * Returns the number of the cluster that contains a point.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The number of the cluster.
+     */
+    private int clusterOf(int x, int y) {
+        return Math.min(x / clusterSize, numClustersX - 1) * numClustersY + Math.min(y / clusterSize, numClustersY - 1);
+    }
+
+    /**
+     * Returns the index of a point among the points of its cluster.
+     * @param cluster The number of the cluster.
+     * @param index The index of the point.
+     * @return The index of the point in {@link #localDistances}.
+     */
+    private int toLocal(int cluster, int index) {
+        int clusterY = cluster % numClustersY;
+        int clusterHeight = endY(clusterY) - startY(clusterY) + 1;
+        return (index / height - startX(cluster / numClustersY)) * clusterHeight + (index % height - startY(clusterY));
+    }
+
+    /**
+     * Returns the smallest x-coordinate of the clusters at an x-position.
+     * @param clusterX The x-position of the clusters.
+     * @return The smallest x-coordinate.
+     */
+    private int startX(int clusterX) { return clusterX * clusterSize; }
+
+    /**
+     * Returns the largest x-coordinate of the clusters at an x-position.
+     * @param clusterX The x-position of the clusters.
+     * @return The largest x-coordinate.
+     */
+    private int endX(int clusterX) { return clusterX == numClustersX - 1 ? width - 1 : (clusterX + 1) * clusterSize - 1; }
+
+    /**
+     * Returns the smallest y-coordinate of the clusters at a y-position.
+     * @param clusterY The y-position of the clusters.
+     * @return The smallest y-coordinate.
+     */
+    private int startY(int clusterY) { return clusterY * clusterSize; }
+
+    /**
+     * Returns the largest y-coordinate of the clusters at a y-position.
+     * @param clusterY The y-position of the clusters.
+     * @return The largest y-coordinate.
+     */
+    private int endY(int clusterY) { return clusterY == numClustersY - 1 ? height - 1 : (clusterY + 1) * clusterSize - 1; }
+}
@@ -0,0 +1,47 @@
+package project.field;
+
+import project.entity.ArenaObjectPositionInfo;
+
+/**
+ * Interface for scalar field thats permeates the arena and stores <code>int</code> values,
+ * which can be read without boxing.
+ */
+public interface IntArenaScalarField extends ArenaScalarField<Integer> {
+
+    /**
+     * Returns the value of the scalar field at a given point, without boxing.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The value of the scalar field at the point.
+     */
+    public abstract int getIntValueAt(short x, short y);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public default Integer getValueAt(short x, short y) { return getIntValueAt(x, y); }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public default int descendTaxicabPacked(short x, short y) {
+        ArenaObjectPositionInfo.assertValidPosition(x, y);
+
+        int lowestCost = getIntValueAt(x, y);
+        int lowestCostNeighbour = NO_POINT;
+        for (int direction = 0; direction < NUM_TAXICAB_DIRECTIONS; direction++) {
+            int neighbour = ArenaScalarField.getTaxicabNeighbour(x, y, direction);
+            if (neighbour == NO_POINT) continue;
+
+            int cost = getIntValueAt(ArenaScalarField.unpackX(neighbour), ArenaScalarField.unpackY(neighbour));
+            if (cost < lowestCost) {
+                lowestCost = cost;
+                lowestCostNeighbour = neighbour;
+            }
+        }
+
+        return lowestCostNeighbour;
+    }
+}
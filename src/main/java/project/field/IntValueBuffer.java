@@ -0,0 +1,192 @@
+package project.field;
+
+import java.util.Arrays;
+
+/**
+ * A flat buffer of the integer values of a scalar field, indexed by <code>x * (ARENA_HEIGHT + 1) + y</code>.
+ * <p>
+ * By default each value takes 32 bits. If the system property <code>project.field.compact</code> is set,
+ * each value takes 16 bits instead: values between <code>0</code> and <code>65534</code> are stored exactly,
+ * larger values saturate to <code>65534</code>, negative values are stored as <code>0</code>,
+ * and {@link GridFieldSolver#UNREACHABLE} is preserved.
+ */
+abstract class IntValueBuffer {
+
+    /**
+     * Whether new buffers store each value in 16 bits.
+     */
+    private static final boolean isCompact = Boolean.getBoolean("project.field.compact");
+
+    /**
+     * Returns a new buffer where every value is zero.
+     * @param size The number of values.
+     * @return A new buffer, which is compact iff the compact mode is enabled.
+     */
+    static IntValueBuffer allocate(int size) {
+        return isCompact ? new Compact(size) : new Plain(size);
+    }
+
+    /**
+     * Returns whether new buffers store each value in fewer bits than an <code>int</code>,
+     * as set by the system property <code>project.field.compact</code>.
+     * @return Whether the compact mode is enabled.
+     */
+    static boolean isCompact() { return isCompact; }
+
+    /**
+     * Returns the value at an index.
+     * @param index The index.
+     * @return The value.
+     */
+    abstract int get(int index);
+
+    /**
+     * Sets the value at an index.
+     * @param index The index.
+     * @param value The value.
+     */
+    abstract void set(int index, int value);
+
+    /**
+     * Sets every value.
+     * @param value The value.
+     */
+    abstract void fill(int value);
+
+    /**
+     * Replaces every value with those of an array.
+     * @param values The values, which must have the same length as the buffer.
+     */
+    abstract void copyFrom(int[] values);
+
+    /**
+     * Returns the number of bytes used to store the values.
+     * @return The number of bytes used to store the values.
+     */
+    abstract long getSizeInBytes();
+
+    /**
+     * A buffer that stores each value in an <code>int</code>.
+     */
+    static final class Plain extends IntValueBuffer {
+
+        /**
+         * The values.
+         */
+        private final int[] values;
+
+        /**
+         * Constructs a newly allocated {@link Plain} object.
+         * @param size The number of values.
+         */
+        Plain(int size) { values = new int[size]; }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        int get(int index) { return values[index]; }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void set(int index, int value) { values[index] = value; }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void fill(int value) { Arrays.fill(values, value); }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void copyFrom(int[] values) { System.arraycopy(values, 0, this.values, 0, this.values.length); }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        long getSizeInBytes() { return (long) Integer.BYTES * values.length; }
+    }
+
+    /**
+     * A buffer that stores each value in a <code>char</code>.
+     */
+    static final class Compact extends IntValueBuffer {
+
+        /**
+         * The encoding of {@link GridFieldSolver#UNREACHABLE}.
+         */
+        private static final char UNREACHABLE = Character.MAX_VALUE;
+
+        /**
+         * The largest value that can be stored.
+         */
+        private static final int MAX_VALUE = Character.MAX_VALUE - 1;
+
+        /**
+         * The encoded values.
+         */
+        private final char[] values;
+
+        /**
+         * Constructs a newly allocated {@link Compact} object.
+         * @param size The number of values.
+         */
+        Compact(int size) { values = new char[size]; }
+
+        /**
+         * Returns the encoding of a value.
+         * @param value The value.
+         * @return The encoding of the value.
+         */
+        static char encode(int value) {
+            if (value == GridFieldSolver.UNREACHABLE) return UNREACHABLE;
+            return (char) Math.max(0, Math.min(MAX_VALUE, value));
+        }
+
+        /**
+         * Returns the value of an encoding.
+         * @param encoding The encoding.
+         * @return The value.
+         */
+        static int decode(char encoding) {
+            return encoding == UNREACHABLE ? GridFieldSolver.UNREACHABLE : encoding;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        int get(int index) { return decode(values[index]); }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void set(int index, int value) { values[index] = encode(value); }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void fill(int value) { Arrays.fill(values, encode(value)); }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        void copyFrom(int[] values) {
+            for (int i = 0; i < this.values.length; i++) this.values[i] = encode(values[i]);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        long getSizeInBytes() { return (long) Character.BYTES * values.length; }
+    }
+}
@@ -0,0 +1,441 @@
+package project.field;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A scalar field whose values are stored off-heap in a memory-mapped file, so that other tools and processes
+ * can read a live field without it being serialized.
+ * <p>
+ * The file starts with a header of {@value #HEADER_SIZE} bytes, followed by one 32-bit value per point,
+ * where the point <code>(x, y)</code> has the index <code>x * height + y</code>. Everything is little-endian.
+ * <table>
+ * <caption>Header</caption>
+ * <tr><th>Offset</th><th>Type</th><th>Content</th></tr>
+ * <tr><td>0</td><td>int</td><td>{@link #MAGIC}</td></tr>
+ * <tr><td>4</td><td>int</td><td>{@link #FORMAT_VERSION}</td></tr>
+ * <tr><td>8</td><td>int</td><td>The kind of the values: {@link #KIND_INT} or {@link #KIND_FLOAT}</td></tr>
+ * <tr><td>12</td><td>int</td><td>The number of points in the x-direction</td></tr>
+ * <tr><td>16</td><td>int</td><td>The number of points in the y-direction</td></tr>
+ * <tr><td>20</td><td>int</td><td>The size of the header</td></tr>
+ * <tr><td>24</td><td>long</td><td>The sequence number</td></tr>
+ * </table>
+ * <p>
+ * Changes are published like a seqlock. The single writer makes the sequence number odd, writes the values,
+ * then makes it even again, so the number of versions published is half the sequence number.
+ * A reader that wants a consistent copy reads the sequence number, the values, and the sequence number again,
+ * and retries if it was odd or has changed, as done by {@link OfInt#read(int[])} and {@link OfFloat#read(float[])}.
+ * Reading a single value is always safe, but consecutive reads may see different versions.
+ * <p>
+ * The mapping is released when the object is garbage collected, even after {@link #close()}.
+ * @param <T> The type of the values.
+ */
+public abstract class MappedArenaScalarField<T extends Number & Comparable<T>> implements ArenaScalarField<T>, AutoCloseable {
+
+    /**
+     * The first bytes of the file.
+     */
+    public static final int MAGIC = 0x46435341;
+
+    /**
+     * The version of the format of the file.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     * The kind of a field whose values are <code>int</code>s.
+     */
+    public static final int KIND_INT = 0;
+
+    /**
+     * The kind of a field whose values are <code>float</code>s.
+     */
+    public static final int KIND_FLOAT = 1;
+
+    /**
+     * The size of the header in bytes.
+     */
+    public static final int HEADER_SIZE = 64;
+
+    /**
+     * The offset of the sequence number in the header.
+     */
+    private static final int SEQUENCE_OFFSET = 24;
+
+    /**
+     * The handle to access the sequence number with memory ordering.
+     */
+    private static final VarHandle SEQUENCE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The channel of the file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The mapped file, including the header.
+     */
+    protected final MappedByteBuffer buffer;
+
+    /**
+     * The number of points in the x-direction.
+     */
+    private final int width;
+
+    /**
+     * The number of points in the y-direction.
+     */
+    protected final int height;
+
+    /**
+     * Constructs a newly allocated {@link MappedArenaScalarField} object.
+     * @param channel The channel of the file.
+     * @param buffer The mapped file, including the header.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     */
+    private MappedArenaScalarField(FileChannel channel, MappedByteBuffer buffer, int width, int height) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.width = width;
+        this.height = height;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Creates a file for a field of <code>int</code>s, or reuses it if it already exists, and maps it for writing.
+     * The file is never truncated, so it stays valid for other processes that have mapped it.
+     * @param path The path of the file.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     * @return The field.
+     * @throws IOException If the file cannot be created or mapped.
+     */
+    public static OfInt createInt(Path path, int width, int height) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new OfInt(channel, map(channel, FileChannel.MapMode.READ_WRITE, KIND_INT, width, height), width, height);
+    }
+
+    /**
+     * Creates a file for a field of <code>float</code>s, or reuses it if it already exists, and maps it for writing.
+     * The file is never truncated, so it stays valid for other processes that have mapped it.
+     * @param path The path of the file.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     * @return The field.
+     * @throws IOException If the file cannot be created or mapped.
+     */
+    public static OfFloat createFloat(Path path, int width, int height) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new OfFloat(channel, map(channel, FileChannel.MapMode.READ_WRITE, KIND_FLOAT, width, height), width, height);
+    }
+
+    /**
+     * Maps an existing file for reading.
+     * @param path The path of the file.
+     * @return The field, which is an {@link OfInt} or an {@link OfFloat} depending on the kind in the header.
+     * @throws IOException If the file cannot be opened or mapped.
+     */
+    public static MappedArenaScalarField<?> open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_SIZE) throw new IllegalArgumentException("The file is not a mapped scalar field: " + path);
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION || header.getInt(20) != HEADER_SIZE) {
+                throw new IllegalArgumentException("The file is not a mapped scalar field: " + path);
+            }
+
+            int kind = header.getInt(8), width = header.getInt(12), height = header.getInt(16);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE + 4L * width * height);
+            switch (kind) {
+                case KIND_INT: return new OfInt(channel, buffer, width, height);
+                case KIND_FLOAT: return new OfFloat(channel, buffer, width, height);
+                default: throw new IllegalArgumentException(String.format("The kind of the field is unknown. Value: %d", kind));
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps a file for writing and initializes its header.
+     * @param channel The channel of the file.
+     * @param mode The mode of the mapping.
+     * @param kind The kind of the values.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     * @return The mapped file.
+     * @throws IOException If the file cannot be mapped.
+     */
+    private static MappedByteBuffer map(FileChannel channel, FileChannel.MapMode mode, int kind, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0) {
+            channel.close();
+            throw new IllegalArgumentException("The field must contain at least one point");
+        }
+
+        try {
+            MappedByteBuffer buffer = channel.map(mode, 0, HEADER_SIZE + 4L * width * height);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            // Continue the sequence of a previous writer, so that readers never see an old version number again
+            long sequence = buffer.getInt(0) == MAGIC ? ((long) SEQUENCE.getVolatile(buffer, SEQUENCE_OFFSET) + 1) & ~1L : 0;
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, FORMAT_VERSION);
+            buffer.putInt(8, kind);
+            buffer.putInt(12, width);
+            buffer.putInt(16, height);
+            buffer.putInt(20, HEADER_SIZE);
+            SEQUENCE.setVolatile(buffer, SEQUENCE_OFFSET, sequence);
+            return buffer;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the values of the mapped file, after the header.
+     * @return A buffer of the values.
+     */
+    protected final ByteBuffer getData() {
+        ByteBuffer data = buffer.duplicate();
+        data.position(HEADER_SIZE);
+        return data.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns the number of points in the x-direction.
+     * @return The number of points in the x-direction.
+     */
+    public final int getWidth() { return width; }
+
+    /**
+     * Returns the number of points in the y-direction.
+     * @return The number of points in the y-direction.
+     */
+    public final int getHeight() { return height; }
+
+    /**
+     * Returns the number of versions that have been published.
+     * @return The number of versions that have been published, rounded down if a version is being published.
+     */
+    public final long getVersion() {
+        return (long) SEQUENCE.getAcquire(buffer, SEQUENCE_OFFSET) / 2;
+    }
+
+    /**
+     * Marks the start of a change. Only the writer may call this.
+     * @return The sequence number before the change.
+     */
+    protected final long beginWrite() {
+        long sequence = (long) SEQUENCE.getOpaque(buffer, SEQUENCE_OFFSET);
+        SEQUENCE.setVolatile(buffer, SEQUENCE_OFFSET, sequence + 1);
+        VarHandle.storeStoreFence();
+        return sequence;
+    }
+
+    /**
+     * Marks the end of a change. Only the writer may call this.
+     * @param sequence The sequence number returned by {@link #beginWrite()}.
+     */
+    protected final void endWrite(long sequence) {
+        SEQUENCE.setRelease(buffer, SEQUENCE_OFFSET, sequence + 2);
+    }
+
+    /**
+     * Marks the start of a consistent read.
+     * @return The sequence number, or <code>-1</code> if a change is being published.
+     */
+    protected final long beginRead() {
+        long sequence = (long) SEQUENCE.getAcquire(buffer, SEQUENCE_OFFSET);
+        return (sequence & 1) == 0 ? sequence : -1;
+    }
+
+    /**
+     * Returns whether a read that started with a given sequence number is consistent.
+     * @param sequence The sequence number returned by {@link #beginRead()}.
+     * @return Whether no change has been published since the read started.
+     */
+    protected final boolean endRead(long sequence) {
+        VarHandle.loadLoadFence();
+        return (long) SEQUENCE.getVolatile(buffer, SEQUENCE_OFFSET) == sequence;
+    }
+
+    /**
+     * Releases the file. The mapping stays valid until it is garbage collected.
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * A mapped scalar field of <code>int</code>s.
+     */
+    public static final class OfInt extends MappedArenaScalarField<Integer> implements IntArenaScalarField {
+
+        /**
+         * The values.
+         */
+        private final IntBuffer values;
+
+        /**
+         * Constructs a newly allocated {@link OfInt} object.
+         * @param channel The channel of the file.
+         * @param buffer The mapped file, including the header.
+         * @param width The number of points in the x-direction.
+         * @param height The number of points in the y-direction.
+         */
+        private OfInt(FileChannel channel, MappedByteBuffer buffer, int width, int height) {
+            super(channel, buffer, width, height);
+            values = getData().asIntBuffer();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getIntValueAt(short x, short y) {
+            return values.get(x * height + y);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setValueAt(short x, short y, Integer value) {
+            long sequence = beginWrite();
+            values.put(x * height + y, value);
+            endWrite(sequence);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setAll(Integer value) {
+            long sequence = beginWrite();
+            for (int i = 0; i < values.capacity(); i++) values.put(i, value);
+            endWrite(sequence);
+        }
+
+        /**
+         * Replaces every value as a single version.
+         * @param newValues The values, indexed by <code>x * height + y</code>.
+         */
+        public void publish(int[] newValues) {
+            long sequence = beginWrite();
+            IntBuffer view = values.duplicate();
+            view.put(newValues, 0, view.capacity());
+            endWrite(sequence);
+        }
+
+        /**
+         * Copies every value of a single version, waiting for a change being published to complete.
+         * @param destination The array to copy the values to, indexed by <code>x * height + y</code>.
+         * @return The number of versions that had been published when the values were copied.
+         */
+        public long read(int[] destination) {
+            while (true) {
+                long sequence = beginRead();
+                if (sequence >= 0) {
+                    values.duplicate().get(destination, 0, values.capacity());
+                    if (endRead(sequence)) return sequence / 2;
+                }
+
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * A mapped scalar field of <code>float</code>s.
+     */
+    public static final class OfFloat extends MappedArenaScalarField<Float> implements FloatArenaScalarField {
+
+        /**
+         * The values.
+         */
+        private final FloatBuffer values;
+
+        /**
+         * Constructs a newly allocated {@link OfFloat} object.
+         * @param channel The channel of the file.
+         * @param buffer The mapped file, including the header.
+         * @param width The number of points in the x-direction.
+         * @param height The number of points in the y-direction.
+         */
+        private OfFloat(FileChannel channel, MappedByteBuffer buffer, int width, int height) {
+            super(channel, buffer, width, height);
+            values = getData().asFloatBuffer();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public float getFloatValueAt(short x, short y) {
+            return values.get(x * height + y);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setValueAt(short x, short y, Float value) {
+            long sequence = beginWrite();
+            values.put(x * height + y, value);
+            endWrite(sequence);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setAll(Float value) {
+            long sequence = beginWrite();
+            for (int i = 0; i < values.capacity(); i++) values.put(i, value);
+            endWrite(sequence);
+        }
+
+        /**
+         * Replaces every value as a single version.
+         * @param newValues The values, indexed by <code>x * height + y</code>.
+         */
+        public void publish(float[] newValues) {
+            long sequence = beginWrite();
+            FloatBuffer view = values.duplicate();
+            view.put(newValues, 0, view.capacity());
+            endWrite(sequence);
+        }
+
+        /**
+         * Copies every value of a single version, waiting for a change being published to complete.
+         * @param destination The array to copy the values to, indexed by <code>x * height + y</code>.
+         * @return The number of versions that had been published when the values were copied.
+         */
+        public long read(float[] destination) {
+            while (true) {
+                long sequence = beginRead();
+                if (sequence >= 0) {
+                    values.duplicate().get(destination, 0, values.capacity());
+                    if (endRead(sequence)) return sequence / 2;
+                }
+
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
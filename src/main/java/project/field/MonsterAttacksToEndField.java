@@ -1,44 +1,189 @@
 package project.field;
 
 import java.util.Arrays;
-import java.util.EnumSet;
-import java.util.PriorityQueue;
+import java.util.List;
 
 import project.arena.ArenaEventRegister;
 import project.arena.ArenaInstance;
 import project.control.ArenaManager;
 import project.entity.Tower;
 import project.event.EventHandler;
+import project.event.SubscriptionGroup;
 import project.event.eventargs.ArenaObjectEventArgs;
+import project.event.eventargs.ArenaObjectMoveBatchEventArgs;
 import project.event.eventargs.ArenaTowerEventArgs;
-import project.query.ArenaObjectGridSelector;
 import project.query.ArenaObjectStorage;
-import project.query.ArenaObjectStorage.StoredType;
 
 /**
  * A scalar field where the value on each point equals the minimum distance
  * travelled from that point to the end zone.
+ * <p>
+ * The field is paused when it is constructed, and is only solved once it has been acquired.
  */
-public final class MonsterAttacksToEndField implements ArenaScalarField<Float> {
+public final class MonsterAttacksToEndField extends DoubleBufferedField<Float> implements FloatArenaScalarField {
 
     /**
-     * The values of the scalar field.
+     * The values of the scalar field as of the latest update, indexed by <code>x * (ARENA_HEIGHT + 1) + y</code>.
+     * Only accessed by the updates.
      */
-    protected float[][] values = new float[ArenaManager.ARENA_WIDTH + 1][ArenaManager.ARENA_HEIGHT + 1];
+    private float[] latestValues = new float[(ArenaManager.ARENA_WIDTH + 1) * (ArenaManager.ARENA_HEIGHT + 1)];
+
+    /**
+     * The values of the scalar field that are visible, indexed in the same way as {@link #latestValues}.
+     * They may be stored in a compact encoding, as only the flow field is derived from them at full precision.
+     */
+    private FloatValueBuffer values = FloatValueBuffer.allocate(latestValues.length);
+
+    /**
+     * The values of the scalar field that are waiting to become visible, indexed in the same way as {@link #latestValues}.
+     */
+    private FloatValueBuffer backValues = FloatValueBuffer.allocate(latestValues.length);
+
+    /**
+     * The direction of gradient descent on each point that is visible.
+     */
+    private final FlowField flowField = new FlowField();
+
+    /**
+     * The direction of gradient descent and run length of each point that are waiting to become visible.
+     */
+    private FlowField.Table backTable = FlowField.newTable();
+
+    /**
+     * The off-heap copy of the scalar field that receives each new version, or <code>null</code> if there is none.
+     * Only accessed by the updates.
+     */
+    private MappedArenaScalarField.OfFloat mirror = null;
+
+    /**
+     * The previous point on the shortest path from each point to the end zone, indexed in the same way as {@link #latestValues}.
+     */
+    private int[] parents = new int[latestValues.length];
+
+    /**
+     * The points that are blocked by a {@link Tower}.
+     */
+    private FieldObstacles obstacles = new FieldObstacles();
+
+    /**
+     * The number of points in the y-direction, by which the x-coordinate of a point is multiplied in its index.
+     */
+    private static final int HEIGHT = ArenaManager.ARENA_HEIGHT + 1;
+
+    /**
+     * Whether the entire field is recalculated in parallel, as the parallel mode is enabled.
+     * The solvers are taken from a {@link SolverPool}, so their work arrays are shared with the fields of other arenas.
+     */
+    private final boolean isParallel = ParallelGridFieldSolver.isEnabled();
+
+    /**
+     * Whether the field is calculated at a coarser resolution, as the coarse mode is enabled.
+     */
+    private final boolean isCoarse = CoarseFieldSolver.isEnabled();
+
+    /**
+     * The cache of the solutions for each layout of towers, or <code>null</code> if solutions are not cached.
+     */
+    private final FieldCache cache;
+
+    /**
+     * The indices of the points in the end zones.
+     */
+    private final int[] sources;
+
+    /**
+     * The work array for labelling each point with its end zone, or <code>null</code> if there is only one end zone.
+     * Only accessed by the updates.
+     */
+    private final int[] goalPath;
+
+    /**
+     * The cost of each step in addition to the attacks received, to avoid getting stuck.
+     */
+    static final float MOVEMENT_COST = 0.001f;
+
+    /**
+     * The number of entries for each column of the pending increments, which is one more than the number of points.
+     */
+    private static final int PENDING_HEIGHT = ArenaManager.ARENA_HEIGHT + 2;
+
+    /**
+     * The number of units that one attack per frame is divided into.
+     * The rings are accumulated in these units, so removing a ring exactly cancels adding it.
+     */
+    private static final float ATTACK_UNITS = 1 << 16;
 
     /**
      * The scalar field representing the number of tower attacks per frame against a monster at that location.
+     * Only accessed by the updates.
+     * <p>
+     * The rings of the towers are recorded as spans on each column in a difference array, and the prefix sums are taken
+     * once before the field is next read, so any number of tower changes between two updates costs one pass over the columns they touch.
+     * <p>
+     * The amount of each ring is rounded to a whole number of {@link #ATTACK_UNITS}, and the values remain exact multiples of it
+     * while they are below <code>2^24</code> units, so each value only depends on the rings that cover it, not on the order of the changes.
      */
-    protected class TowerAttacksPerFrameField implements ArenaScalarField<Float> {
+    protected class TowerAttacksPerFrameField implements FloatArenaScalarField {
 
-        protected float[][] values = new float[ArenaManager.ARENA_WIDTH + 1][ArenaManager.ARENA_HEIGHT + 1];
+        /**
+         * The values of the scalar field, indexed in the same way as {@link MonsterAttacksToEndField#latestValues}.
+         */
+        protected float[] values = new float[(ArenaManager.ARENA_WIDTH + 1) * (ArenaManager.ARENA_HEIGHT + 1)];
+
+        /**
+         * The indices of the points whose value has changed since the last call to {@link #clearChanges()}.
+         */
+        private int[] changed = new int[values.length];
+
+        /**
+         * The number of indices in {@link #changed}.
+         */
+        private int numChanged = 0;
+
+        /**
+         * Whether each point is in {@link #changed}, indexed in the same way as {@link #values}.
+         */
+        private boolean[] isChanged = new boolean[values.length];
+
+        /**
+         * Whether every point should be considered changed, in which case {@link #changed} is not maintained.
+         */
+        private boolean isAllChanged = false;
+
+        /**
+         * The increments waiting to be applied in {@link #ATTACK_UNITS}, stored as the difference from the previous point
+         * on the same column, indexed by <code>x * PENDING_HEIGHT + y</code>.
+         */
+        private int[] pendingDeltas = new int[(ArenaManager.ARENA_WIDTH + 1) * PENDING_HEIGHT];
+
+        /**
+         * Whether each column has increments waiting to be applied.
+         */
+        private boolean[] isColumnPending = new boolean[ArenaManager.ARENA_WIDTH + 1];
+
+        /**
+         * The x-coordinates of the columns that have increments waiting to be applied.
+         */
+        private int[] pendingColumns = new int[ArenaManager.ARENA_WIDTH + 1];
+
+        /**
+         * The number of x-coordinates in {@link #pendingColumns}.
+         */
+        private int numPendingColumns = 0;
+
+        /**
+         * The sum of the hashes of the rings that have been added, minus those of the rings that have been removed,
+         * so that the same set of rings gives the same value regardless of the order of the changes.
+         */
+        private long ringHash = 0;
 
         /**
          * {@inheritDoc}
          */
         @Override
-        public Float getValueAt(short x, short y) {
-            return this.values[x][y];
+        public float getFloatValueAt(short x, short y) {
+            applyPendingIncrements();
+            return this.values[x * HEIGHT + y];
         }
 
         /**
@@ -46,7 +191,10 @@ public final class MonsterAttacksToEndField implements ArenaScalarField<Float> {
          */
         @Override
         public void setValueAt(short x, short y, Float value) {
-            this.values[x][y] = value;
+            applyPendingIncrements();
+            int index = x * HEIGHT + y;
+            this.values[index] = value;
+            markChanged(index);
         }
         
         /**
@@ -54,124 +202,131 @@ public final class MonsterAttacksToEndField implements ArenaScalarField<Float> {
          */
         @Override
         public void setAll(Float value) {
-            for (int x = 0; x < ArenaManager.ARENA_WIDTH; x++) {
-                Arrays.fill(this.values[x], value);
-            }
+            discardPendingIncrements();
+            ringHash = mix(Float.floatToIntBits(value));
+            Arrays.fill(this.values, value);
+            isAllChanged = true;
+        }
+
+        /**
+         * Records that the value or the obstacle state of a point has changed.
+         * @param index The index of the point.
+         */
+        private void markChanged(int index) {
+            if (isAllChanged || isChanged[index]) return;
+
+            isChanged[index] = true;
+            changed[numChanged++] = index;
+        }
+
+        /**
+         * Forgets the changes recorded so far.
+         */
+        private void clearChanges() {
+            for (int i = 0; i < numChanged; i++) isChanged[changed[i]] = false;
+            numChanged = 0;
+            isAllChanged = false;
         }
 
         /**
          * Increments the value at each point on the scalar field within a defined circular ring.
+         * The increment is recorded as a span on each column, and is only applied by {@link #applyPendingIncrements()}.
          * @param amount The increment amount.
          * @param centerX The center x-coordinate of the ring.
          * @param centerY The center y-coordinate of the ring.
          * @param minRadius The minimum radius of the ring.
          * @param maxRadius The maximum radius of the ring.
          */
-        private void incrementRing(Float amount, short centerX, short centerY, short minRadius, short maxRadius) 
-        {
+        private void incrementRing(float amount, short centerX, short centerY, short minRadius, short maxRadius) {
             assert minRadius >= 0 && maxRadius >= 0 && minRadius <= maxRadius;
 
-            short startX = (short) Math.max(0, centerX - maxRadius);
-            short endX = (short) Math.min(ArenaManager.ARENA_WIDTH, centerX + maxRadius);
-            short effectiveWidth = (short) (endX - startX);
-    
-            short startY = (short) Math.max(0, centerY - maxRadius);
-            short endY = (short) Math.min(ArenaManager.ARENA_HEIGHT, centerY + maxRadius);
-            short effectiveHeight = (short) (endY - startY);
-    
-            short endX_intermediate = (short) Math.max(0, Math.min(endX, centerX - minRadius));
-            short startX_intermediate = (short) Math.max(0, Math.min(endX_intermediate, centerX + minRadius));
-            if (endX_intermediate == startX_intermediate) startX_intermediate++;
-    
-            short endY_intermediate = (short) Math.max(0, Math.min(endY, centerY - minRadius));
-            short startY_intermediate = (short) Math.max(0, Math.min(endY_intermediate, centerY + minRadius));
-            if (endY_intermediate == startY_intermediate) startY_intermediate++;
-    
-            // Determine outer loop to reduce calculations
-            if (effectiveWidth < effectiveHeight) {
-                for (short x = startX; x <= endX_intermediate; x++) {    
-                    short deltaX = (short) (x - centerX);
-    
-                    short flooredMaxSqrt = (short) Math.sqrt(maxRadius * maxRadius - deltaX * deltaX);
-                    short inner_startY = (short) Math.max(0, centerY - flooredMaxSqrt);
-                    short inner_endY = (short) Math.max(0, Math.min(ArenaManager.ARENA_HEIGHT, centerY + flooredMaxSqrt));
-    
-                    short flooredMinSqrt = (short) Math.sqrt(minRadius * minRadius - deltaX * deltaX);
-                    short inner_endY_intermediate = (short) Math.max(0, centerY - flooredMinSqrt);
-                    short inner_startY_intermediate = (short) Math.max(0, Math.min(ArenaManager.ARENA_HEIGHT, centerY + flooredMinSqrt));
-                    if (inner_endY_intermediate == inner_startY_intermediate) inner_startY_intermediate++;
-
-                    for (short y = inner_startY; y <= inner_endY_intermediate; y++) {
-                        setValueAt(x, y, getValueAt(x, y) + amount);
-                    }
+            long hash = mix(((long) Float.floatToIntBits(Math.abs(amount)) << 32) | (centerX << 16) | centerY);
+            hash = mix(hash ^ ((minRadius << 16) | maxRadius));
+            ringHash += amount < 0 ? -hash : hash;
 
-                    for (short y = inner_startY_intermediate; y <= inner_endY; y++) {
-                        setValueAt(x, y, getValueAt(x, y) + amount);
-                    }
-                }
+            int units = Math.round(Math.abs(amount) * ATTACK_UNITS);
+            if (amount < 0) units = -units;
 
-                for (short x = startX_intermediate; x <= endX; x++) {    
-                    short deltaX = (short) (x - centerX);
-    
-                    short flooredMaxSqrt = (short) Math.sqrt(maxRadius * maxRadius - deltaX * deltaX);
-                    short inner_startY = (short) Math.max(0, centerY - flooredMaxSqrt);
-                    short inner_endY = (short) Math.max(0, Math.min(ArenaManager.ARENA_HEIGHT, centerY + flooredMaxSqrt));
-    
-                    short flooredMinSqrt = (short) Math.sqrt(minRadius * minRadius - deltaX * deltaX);
-                    short inner_endY_intermediate = (short) Math.max(0, centerY - flooredMinSqrt);
-                    short inner_startY_intermediate = (short) Math.max(0, Math.min(ArenaManager.ARENA_HEIGHT, centerY + flooredMinSqrt));
-                    if (inner_endY_intermediate == inner_startY_intermediate) inner_startY_intermediate++;
+            int startX = Math.max(0, centerX - maxRadius);
+            int endX = Math.min(ArenaManager.ARENA_WIDTH, centerX + maxRadius);
 
-                    for (short y = inner_startY; y <= inner_endY_intermediate; y++) {
-                        setValueAt(x, y, getValueAt(x, y) + amount);
-                    }
+            // A point is within the ring iff its euclidean distance from the center is between the radii inclusive
+            for (int x = startX; x <= endX; x++) {
+                int deltaXSquared = (x - centerX) * (x - centerX);
+                int outerHalfHeight = floorSqrt(maxRadius * maxRadius - deltaXSquared);
+                int holeSize = minRadius * minRadius - deltaXSquared;
 
-                    for (short y = inner_startY_intermediate; y <= inner_endY; y++) {
-                        setValueAt(x, y, getValueAt(x, y) + amount);
-                    }
+                if (holeSize <= 0) {
+                    addSpan(x, centerY - outerHalfHeight, centerY + outerHalfHeight, units);
+                } else {
+                    int innerHalfHeight = floorSqrt(holeSize - 1);
+                    addSpan(x, centerY - outerHalfHeight, centerY - innerHalfHeight - 1, units);
+                    addSpan(x, centerY + innerHalfHeight + 1, centerY + outerHalfHeight, units);
                 }
-            } else {
-                for (short y = startY; y <= endY_intermediate; y++) {
-                    short deltaY = (short) (y - centerY);
-    
-                    short flooredMaxSqrt = (short) Math.sqrt(maxRadius * maxRadius - deltaY * deltaY);
-                    short inner_startX = (short) Math.max(0, centerX - flooredMaxSqrt);
-                    short inner_endX = (short) Math.max(0, Math.min(ArenaManager.ARENA_WIDTH, centerX + flooredMaxSqrt));
-    
-                    short flooredMinSqrt = (short) Math.sqrt(minRadius * minRadius - deltaY * deltaY);
-                    short inner_endX_intermediate = (short) Math.max(0, centerX - flooredMinSqrt);
-                    short inner_startX_intermediate = (short) Math.max(0, Math.min(ArenaManager.ARENA_WIDTH, centerX + flooredMinSqrt));
-                    if (inner_endX_intermediate == inner_startX_intermediate) inner_startX_intermediate++;
+            }
+        }
 
-                    for (short x = inner_startX; x <= inner_endX_intermediate; x++) {
-                        setValueAt(x, y, getValueAt(x, y) + amount);
-                    }
+        /**
+         * Records an increment of the value at each point of a column between two y-coordinates inclusive.
+         * @param x The x-coordinate of the column.
+         * @param startY The first y-coordinate of the span.
+         * @param endY The last y-coordinate of the span.
+         * @param units The increment amount in {@link #ATTACK_UNITS}.
+         */
+        private void addSpan(int x, int startY, int endY, int units) {
+            startY = Math.max(0, startY);
+            endY = Math.min(ArenaManager.ARENA_HEIGHT, endY);
+            if (startY > endY) return;
+
+            int base = x * PENDING_HEIGHT;
+            pendingDeltas[base + startY] += units;
+            pendingDeltas[base + endY + 1] -= units;
+
+            if (!isColumnPending[x]) {
+                isColumnPending[x] = true;
+                pendingColumns[numPendingColumns++] = x;
+            }
+        }
 
-                    for (short x = inner_startX_intermediate; x <= inner_endX; x++) {
-                        setValueAt(x, y, getValueAt(x, y) + amount);
+        /**
+         * Applies the increments recorded since the last call, by taking the prefix sums of each column that has one.
+         * The points whose value has changed are recorded as changed.
+         */
+        private void applyPendingIncrements() {
+            for (int i = 0; i < numPendingColumns; i++) {
+                int x = pendingColumns[i];
+                int base = x * PENDING_HEIGHT;
+                int increment = 0;
+
+                for (int y = 0; y <= ArenaManager.ARENA_HEIGHT; y++) {
+                    increment += pendingDeltas[base + y];
+                    pendingDeltas[base + y] = 0;
+
+                    if (increment != 0) {
+                        int index = x * HEIGHT + y;
+                        this.values[index] = (Math.round(this.values[index] * ATTACK_UNITS) + increment) / ATTACK_UNITS;
+                        markChanged(index);
                     }
                 }
-                for (short y = startY_intermediate; y <= endY; y++) {
-                    short deltaY = (short) (y - centerY);
-    
-                    short flooredMaxSqrt = (short) Math.sqrt(maxRadius * maxRadius - deltaY * deltaY);
-                    short inner_startX = (short) Math.max(0, centerX - flooredMaxSqrt);
-                    short inner_endX = (short) Math.min(ArenaManager.ARENA_WIDTH, centerX + flooredMaxSqrt);
-    
-                    short flooredMinSqrt = (short) Math.sqrt(minRadius * minRadius - deltaY * deltaY);
-                    short inner_endX_intermediate = (short) Math.max(0, centerX - flooredMinSqrt);
-                    short inner_startX_intermediate = (short) Math.min(ArenaManager.ARENA_WIDTH, centerX + flooredMinSqrt);
-                    if (inner_endX_intermediate == inner_startX_intermediate) inner_startX_intermediate++;
 
-                    for (short x = inner_startX; x <= inner_endX_intermediate; x++) {
-                        setValueAt(x, y, getValueAt(x, y) + amount);
-                    }
+                pendingDeltas[base + PENDING_HEIGHT - 1] = 0;
+                isColumnPending[x] = false;
+            }
 
-                    for (short x = inner_startX_intermediate; x <= inner_endX; x++) {
-                        setValueAt(x, y, getValueAt(x, y) + amount);
-                    }
-                }
+            numPendingColumns = 0;
+        }
+
+        /**
+         * Discards the increments recorded since the last call to {@link #applyPendingIncrements()}.
+         */
+        private void discardPendingIncrements() {
+            for (int i = 0; i < numPendingColumns; i++) {
+                int base = pendingColumns[i] * PENDING_HEIGHT;
+                Arrays.fill(pendingDeltas, base, base + PENDING_HEIGHT, 0);
+                isColumnPending[pendingColumns[i]] = false;
             }
+
+            numPendingColumns = 0;
         }
     }
 
@@ -181,9 +336,9 @@ public final class MonsterAttacksToEndField implements ArenaScalarField<Float> {
      * The method invoked when an {@link ArenaObject} is being added.
      */
     private EventHandler<ArenaObjectEventArgs> onAddObject = (sender, args) -> {
-        if (args.subject instanceof Tower) {
+        if (args.subject instanceof Tower && isActive()) {
             Tower tower = (Tower) args.subject;
-            towerAttacksPerFrameField.incrementRing(
+            enqueueIncrementRing(
                     1f / tower.getReload(),
                     tower.getX(),
                     tower.getY(),
@@ -191,7 +346,7 @@ public final class MonsterAttacksToEndField implements ArenaScalarField<Float> {
                     tower.getMaxRange()
             );
 
-            recalculate(ArenaManager.getActiveObjectStorage());
+            update(ArenaManager.getActiveObjectStorage(), true);
         }
     };
 
@@ -199,9 +354,9 @@ public final class MonsterAttacksToEndField implements ArenaScalarField<Float> {
      * The method invoked when an {@link ArenaObject} is being removed.
      */
     private EventHandler<ArenaObjectEventArgs> onRemoveObject = (sender, args) -> {
-        if (args.subject instanceof Tower) {
+        if (args.subject instanceof Tower && isActive()) {
             Tower tower = (Tower) args.subject;
-            towerAttacksPerFrameField.incrementRing(
+            enqueueIncrementRing(
                     -1f / tower.getReload(),
                     tower.getX(),
                     tower.getY(),
@@ -209,7 +364,7 @@ public final class MonsterAttacksToEndField implements ArenaScalarField<Float> {
                     tower.getMaxRange()
             );
             
-            recalculate(ArenaManager.getActiveObjectStorage());
+            update(ArenaManager.getActiveObjectStorage(), false);
         }
     };
 
@@ -217,9 +372,9 @@ public final class MonsterAttacksToEndField implements ArenaScalarField<Float> {
      * The method invoked when an {@link ArenaObject} is scheduled to be moved.
      */
     private EventHandler<ArenaObjectEventArgs> onStartMoveObject = (sender, args) -> {
-        if (args.subject instanceof Tower) {
+        if (args.subject instanceof Tower && isActive()) {
             Tower tower = (Tower) args.subject;
-            towerAttacksPerFrameField.incrementRing(
+            enqueueIncrementRing(
                     -1f / tower.getReload(),
                     tower.getX(),
                     tower.getY(),
@@ -233,9 +388,9 @@ public final class MonsterAttacksToEndField implements ArenaScalarField<Float> {
      * The method invoked when an {@link ArenaObject} has been moved.
      */
     private EventHandler<ArenaObjectEventArgs> onEndMoveObject = (sender, args) -> {
-        if (args.subject instanceof Tower) {
+        if (args.subject instanceof Tower && isActive()) {
             Tower tower = (Tower) args.subject;
-            towerAttacksPerFrameField.incrementRing(
+            enqueueIncrementRing(
                     1f / tower.getReload(),
                     tower.getX(),
                     tower.getY(),
@@ -243,16 +398,51 @@ public final class MonsterAttacksToEndField implements ArenaScalarField<Float> {
                     tower.getMaxRange()
             );
 
-            recalculate(ArenaManager.getActiveObjectStorage());
+            update(ArenaManager.getActiveObjectStorage(), true);
         }
     };
 
+    /**
+     * The method invoked when multiple {@link ArenaObject}s have been moved.
+     * The field is updated at most once for the whole batch.
+     */
+    private EventHandler<ArenaObjectMoveBatchEventArgs> onMoveObjects = (sender, args) -> {
+        if (!isActive()) return;
+
+        boolean isTowerMoved = false;
+
+        for (int i = 0; i < args.size; i++) {
+            if (args.subjects[i] instanceof Tower) {
+                Tower tower = (Tower) args.subjects[i];
+                enqueueIncrementRing(
+                        -1f / tower.getReload(),
+                        args.oldX[i],
+                        args.oldY[i],
+                        tower.getMinRange(),
+                        tower.getMaxRange()
+                );
+                enqueueIncrementRing(
+                        1f / tower.getReload(),
+                        args.newX[i],
+                        args.newY[i],
+                        tower.getMinRange(),
+                        tower.getMaxRange()
+                );
+                isTowerMoved = true;
+            }
+        }
+
+        if (isTowerMoved) update(ArenaManager.getActiveObjectStorage(), true);
+    };
+
     /**
      * The method invoked when a {@link Tower} is scheduled to be upgraded.
      */
     private EventHandler<ArenaTowerEventArgs> onStartUpgradeTower = (sender, args) -> {
+        if (!isActive()) return;
+
         Tower tower = args.subject;
-        towerAttacksPerFrameField.incrementRing(
+        enqueueIncrementRing(
                 -1f / tower.getReload(),
                 tower.getX(),
                 tower.getY(),
@@ -265,8 +455,10 @@ public final class MonsterAttacksToEndField implements ArenaScalarField<Float> {
      * The method invoked when a {@link Tower} has been upgraded.
      */
     private EventHandler<ArenaTowerEventArgs> onEndUpgradeTower = (sender, args) -> {
+        if (!isActive()) return;
+
         Tower tower = args.subject;
-        towerAttacksPerFrameField.incrementRing(
+        enqueueIncrementRing(
                 1f / tower.getReload(),
                 tower.getX(),
                 tower.getY(),
@@ -274,7 +466,7 @@ public final class MonsterAttacksToEndField implements ArenaScalarField<Float> {
                 tower.getMaxRange()
         );
 
-        recalculate(ArenaManager.getActiveObjectStorage());
+        update(ArenaManager.getActiveObjectStorage(), false);
     };
 
     /**
@@ -282,68 +474,271 @@ public final class MonsterAttacksToEndField implements ArenaScalarField<Float> {
      * @param arenaInstance The arena instance.
      */
     public MonsterAttacksToEndField(ArenaInstance arenaInstance) {
-        recalculate(arenaInstance.getStorage());
+        this(arenaInstance, null);
+    }
+
+    /**
+     * Constructs a newly allocated {@link MonsterAttacksToEndField} object and attaches it to an arena instance.
+     * @param arenaInstance The arena instance.
+     * @param cache The cache of the solutions for each layout of towers, or <code>null</code> if solutions are not cached.
+     */
+    public MonsterAttacksToEndField(ArenaInstance arenaInstance, FieldCache cache) {
+        this(arenaInstance, cache, new short[] { ArenaManager.END_X, ArenaManager.END_Y });
+    }
+
+    /**
+     * Constructs a newly allocated {@link MonsterAttacksToEndField} object for several end zones and attaches it to an arena instance.
+     * Each point descends to the nearest end zone. One calculation handles every end zone,
+     * and each point is also labelled with the end zone that it descends to.
+     * @param arenaInstance The arena instance.
+     * @param cache The cache of the solutions for each layout of towers, or <code>null</code> if solutions are not cached.
+     * It must only be shared by fields with the same end zones.
+     * @param goals The x- and y-coordinates of a point in each end zone in turn.
+     * @throws IllegalArgumentException If there is no end zone or an end zone is outside the arena.
+     */
+    public MonsterAttacksToEndField(ArenaInstance arenaInstance, FieldCache cache, short[] goals) throws IllegalArgumentException {
+        this.cache = cache;
+        this.sources = FieldObstacles.indexGoals(goals);
+        this.goalPath = sources.length > 1 ? new int[latestValues.length] : null;
 
         ArenaEventRegister register = arenaInstance.getEventRegister();
-        register.ARENA_OBJECT_ADD.subscribe(onAddObject);
-        register.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject);
-        register.ARENA_OBJECT_MOVE_START.subscribe(onStartMoveObject);
-        register.ARENA_OBJECT_MOVE_END.subscribe(onEndMoveObject);
-        register.ARENA_TOWER_UPGRADE_START.subscribe(onStartUpgradeTower);
-        register.ARENA_TOWER_UPGRADE_END.subscribe(onEndUpgradeTower);
+        SubscriptionGroup subscriptions = arenaInstance.getSubscriptions();
+        register.ARENA_OBJECT_ADD.subscribe(onAddObject, subscriptions);
+        register.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_START.subscribe(onStartMoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_END.subscribe(onEndMoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_BATCH.subscribe(onMoveObjects, subscriptions);
+        register.ARENA_TOWER_UPGRADE_START.subscribe(onStartUpgradeTower, subscriptions);
+        register.ARENA_TOWER_UPGRADE_END.subscribe(onEndUpgradeTower, subscriptions);
     }
 
+    /**
+     * {@inheritDoc}
+     */
     @Override
-    public Float getValueAt(short x, short y) {
-        return this.values[x][y];
+    public float getFloatValueAt(short x, short y) {
+        return values.get(x * HEIGHT + y);
     }
     
     @Override
     public void setValueAt(short x, short y, Float value) {
-        this.values[x][y] = value;
+        values.set(x * HEIGHT + y, value);
     }
 
     @Override
     public void setAll(Float value) {
-        for (int x = 0; x < ArenaManager.ARENA_WIDTH + 1; x++) {
-            Arrays.fill(this.values[x], value);
-        }
+        values.fill(value);
     }
 
     /**
      * Recalculates the entire scalar field.
-     * @param storage The storage to base the calculation on.
+     * @param towerPositions The positions of the towers to base the calculation on.
      */
-    private void recalculate(ArenaObjectStorage storage) {
-        final float MOVEMENT_COST = 0.001f; // To avoid getting stuck
-
-        // Reset values
-        setAll(Float.POSITIVE_INFINITY);
-
-        // Calculate distance
-    	PriorityQueue<ScalarFieldPoint> openSet = new PriorityQueue<>((o1, o2) -> Float.compare(getValueAt(o1.getX(), o1.getY()), getValueAt(o2.getX(), o2.getY())));
-        openSet.add(new ScalarFieldPoint(ArenaManager.END_X, ArenaManager.END_Y));
-
-        setValueAt(ArenaManager.END_X, ArenaManager.END_Y, 0f);
-    	while (!openSet.isEmpty()) {
-            ScalarFieldPoint current = openSet.poll();
-            short currentX = current.getX();
-            short currentY = current.getY();
-    		// Monsters can only travel horizontally or vertically
-    		for (ScalarFieldPoint neighbour : ArenaScalarField.getTaxicabNeighbours(currentX, currentY)) {
-                short neighbourX = neighbour.getX();
-                short neighbourY = neighbour.getY();
-
-                // Monsters can only go to grids that do not contain a Tower
-                ArenaObjectGridSelector selector = new ArenaObjectGridSelector(neighbourX, neighbourY);
-                if (storage.getQueryResult(selector, EnumSet.of(StoredType.TOWER)).isEmpty()) {
-        			float newCost = getValueAt(currentX, currentY) + towerAttacksPerFrameField.getValueAt(neighbourX, neighbourY) + MOVEMENT_COST;
-        			if (getValueAt(neighbourX, neighbourY) > newCost) {
-                        setValueAt(neighbourX, neighbourY, newCost);
-        				openSet.add(new ScalarFieldPoint(neighbourX, neighbourY));
-        			}
-    			}
-    		}
+    private void recalculate(short[] towerPositions) {
+        // Monsters can only go to grids that do not contain a Tower
+        obstacles.update(towerPositions);
+
+        // Monsters can only travel horizontally or vertically, and each step costs the attacks received at the destination
+        FieldCache.Key key = getCacheKey();
+        if (key == null || !cache.load(key, latestValues, parents)) {
+            if (isCoarse) {
+                CoarseFieldSolver solver = SolverPool.COARSE.acquire();
+                solver.solve(latestValues, obstacles.blocked, towerAttacksPerFrameField.values, MOVEMENT_COST, sources);
+                SolverPool.COARSE.release(solver);
+            } else if (isParallel) {
+                ParallelGridFieldSolver solver = SolverPool.PARALLEL.acquire();
+                solver.solve(latestValues, parents, obstacles.blocked, towerAttacksPerFrameField.values, MOVEMENT_COST, sources);
+                SolverPool.PARALLEL.release(solver);
+            } else {
+                GridFieldSolver solver = SolverPool.GRID.acquire();
+                solver.solve(latestValues, parents, obstacles.blocked, towerAttacksPerFrameField.values, MOVEMENT_COST, sources);
+                SolverPool.GRID.release(solver);
+            }
+            if (key != null) cache.store(key, latestValues, parents);
         }
+        towerAttacksPerFrameField.clearChanges();
+    }
+
+    /**
+     * Recalculates the entire scalar field from the towers on the arena, which may have changed while the field was paused,
+     * so the rings of the towers are recorded again instead of being applied as increments.
+     */
+    @Override
+    protected void resume() {
+        List<Tower> towers = ArenaManager.getActiveObjectStorage().getTowers();
+        short[] towerPositions = FieldObstacles.snapshot(towers);
+        float[] amounts = new float[towers.size()];
+        short[] rings = new short[towers.size() * 4];
+        for (int i = 0; i < towers.size(); i++) {
+            Tower tower = towers.get(i);
+            amounts[i] = 1f / tower.getReload();
+            rings[i * 4] = tower.getX();
+            rings[i * 4 + 1] = tower.getY();
+            rings[i * 4 + 2] = tower.getMinRange();
+            rings[i * 4 + 3] = tower.getMaxRange();
+        }
+
+        submit(() -> {
+            towerAttacksPerFrameField.setAll(0f);
+            for (int i = 0; i < amounts.length; i++) {
+                towerAttacksPerFrameField.incrementRing(amounts[i], rings[i * 4], rings[i * 4 + 1], rings[i * 4 + 2], rings[i * 4 + 3]);
+            }
+            towerAttacksPerFrameField.applyPendingIncrements();
+            recalculate(towerPositions);
+        });
+    }
+
+    /**
+     * Updates the scalar field after towers have been added, removed, moved or upgraded.
+     * Only the points whose shortest path to the end zone is affected by the grids that have been blocked
+     * or unblocked, or by the attacks that have changed, are recalculated, unless the field is calculated at a coarser resolution.
+     * If the layout of the towers has been solved before, the cached solution is restored instead.
+     * @param storage The storage to base the calculation on.
+     * @param isBlocking Whether a tower has been added or moved, so that monsters must not move on the previous version.
+     */
+    private void update(ArenaObjectStorage storage, boolean isBlocking) {
+        short[] towerPositions = FieldObstacles.snapshot(storage.getTowers());
+        submit(() -> {
+            towerAttacksPerFrameField.applyPendingIncrements();
+            if (isCoarse || towerAttacksPerFrameField.isAllChanged) {
+                recalculate(towerPositions);
+                return;
+            }
+
+            int numBlockChanged = obstacles.update(towerPositions);
+            for (int i = 0; i < numBlockChanged; i++) towerAttacksPerFrameField.markChanged(obstacles.changed[i]);
+
+            if (towerAttacksPerFrameField.numChanged > 0) {
+                FieldCache.Key key = getCacheKey();
+                if (key == null || !cache.load(key, latestValues, parents)) {
+                    GridFieldSolver solver = SolverPool.GRID.acquire();
+                    solver.repair(latestValues, parents, obstacles.blocked, towerAttacksPerFrameField.values, MOVEMENT_COST,
+                            towerAttacksPerFrameField.changed, towerAttacksPerFrameField.numChanged);
+                    SolverPool.GRID.release(solver);
+                    if (key != null) cache.store(key, latestValues, parents);
+                }
+            }
+            towerAttacksPerFrameField.clearChanges();
+        }, isBlocking);
+    }
+
+    /**
+     * Returns the layout of the towers that the next solution is based on,
+     * which are the grids that are blocked and the rings that the towers attack.
+     * Coarse solutions are not cached, as the coarse solver leaves the parents of the previous solution in place.
+     * @return The key of the layout in the cache, or <code>null</code> if solutions are not cached.
+     */
+    private FieldCache.Key getCacheKey() {
+        if (cache == null || isCoarse) return null;
+
+        long[] words = obstacles.occupancy(1);
+        words[words.length - 1] = towerAttacksPerFrameField.ringHash;
+        return new FieldCache.Key(words);
+    }
+
+    /**
+     * Scrambles the bits of a number, so that similar numbers give unrelated hashes.
+     * @param value The number.
+     * @return The hash of the number.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Returns the largest integer whose square is not greater than a given number.
+     * @param n The number.
+     * @return The integer square root of the number, or <code>-1</code> if the number is negative.
+     */
+    private static int floorSqrt(int n) {
+        if (n < 0) return -1;
+
+        int root = (int) Math.sqrt(n);
+        while (root * root > n) root--;
+        while ((root + 1) * (root + 1) <= n) root++;
+        return root;
+    }
+
+    /**
+     * Returns a copy of the number of tower attacks per frame against a monster at each point, after the pending increments.
+     * Must only be called when no update is running.
+     * @return The values, indexed in the same way as {@link #latestValues}.
+     */
+    float[] copyTowerAttacksPerFrame() {
+        towerAttacksPerFrameField.applyPendingIncrements();
+        return Arrays.copyOf(towerAttacksPerFrameField.values, towerAttacksPerFrameField.values.length);
+    }
+
+    /**
+     * Increments the number of tower attacks per frame within a circular ring, after the updates that have been submitted.
+     * @param amount The increment amount.
+     * @param centerX The center x-coordinate of the ring.
+     * @param centerY The center y-coordinate of the ring.
+     * @param minRadius The minimum radius of the ring.
+     * @param maxRadius The maximum radius of the ring.
+     */
+    private void enqueueIncrementRing(float amount, short centerX, short centerY, short minRadius, short maxRadius) {
+        enqueue(() -> towerAttacksPerFrameField.incrementRing(amount, centerX, centerY, minRadius, maxRadius));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void copyToBack() {
+        backValues.copyFrom(latestValues);
+        FlowField.derive(latestValues, backTable);
+        if (goalPath != null) FlowField.deriveGoals(backTable, sources, goalPath);
+        if (mirror != null) mirror.publish(latestValues);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void swapBuffers() {
+        FloatValueBuffer temp = values;
+        values = backValues;
+        backValues = temp;
+        backTable = flowField.swap(backTable);
+    }
+
+    /**
+     * Returns the direction of gradient descent on each point of the visible version of the scalar field.
+     * @return The flow field of the scalar field.
+     */
+    public FlowField getFlowField() { return flowField; }
+
+    /**
+     * Returns the number of end zones that the scalar field descends to.
+     * @return The number of end zones.
+     */
+    public int getNumGoals() { return sources.length; }
+
+    /**
+     * Returns the end zone that gradient descent from a given point ends at, on the visible version of the scalar field.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The position of the end zone in the goals of the scalar field, or {@link FlowField#NO_GOAL} if no end zone is reached.
+     */
+    public int getNearestGoalAt(short x, short y) {
+        if (goalPath != null) return flowField.getGoalAt(x, y);
+
+        // With one end zone, descent only stops early on a point that cannot reach it
+        return flowField.getDirectionAt(x, y) != FlowField.NONE || values.get(x * HEIGHT + y) == 0 ? 0 : FlowField.NO_GOAL;
+    }
+
+    /**
+     * Sets the off-heap copy of the scalar field, which receives the current version and then each new version
+     * as soon as its calculation completes, so that it can be read by other threads or processes.
+     * @param mirror The off-heap copy, or <code>null</code> to stop copying.
+     */
+    public void setMirror(MappedArenaScalarField.OfFloat mirror) {
+        enqueue(() -> {
+            this.mirror = mirror;
+            if (mirror != null) mirror.publish(latestValues);
+        });
     }
 }
\ No newline at end of file
@@ -0,0 +1,348 @@
+package project.field;
+
+import java.util.Arrays;
+
+import project.arena.ArenaEventRegister;
+import project.arena.ArenaInstance;
+import project.control.ArenaManager;
+import project.entity.ArenaObject;
+import project.entity.Monster;
+import project.event.EventHandler;
+import project.event.SubscriptionGroup;
+import project.event.eventargs.ArenaObjectEventArgs;
+import project.event.eventargs.ArenaObjectMoveBatchEventArgs;
+
+/**
+ * A scalar field where the value on each point equals the number of {@link Monster}s in the same cell,
+ * so that the number of monsters near a location can be found without querying the storage.
+ * <p>
+ * The arena is divided into square cells of <code>resolution</code> points along each side, except for the last cell
+ * in each direction, which holds the remaining points. The count of each cell is updated as monsters are added, removed and moved.
+ * A summed-area table of the counts is rebuilt at most once between changes, when the field is next queried,
+ * after which the number of monsters in any rectangle of cells takes four lookups.
+ * Moves made during a frame are counted as soon as the field is read, in the same way as the storage,
+ * so the counts always agree with the queries on the storage, without delivering the move batch of the frame.
+ * <p>
+ * The resolution is set by the system property <code>project.field.density.resolution</code>.
+ */
+public final class MonsterDensityField implements IntArenaScalarField {
+
+    /**
+     * The resolution used by the register of scalar fields.
+     */
+    private static final int configuredResolution = Math.max(1, Integer.getInteger("project.field.density.resolution", 10));
+
+    /**
+     * The number of points in the x-direction.
+     */
+    private final int width;
+
+    /**
+     * The number of points in the y-direction.
+     */
+    private final int height;
+
+    /**
+     * The number of points along each side of a cell.
+     */
+    private final int resolution;
+
+    /**
+     * The number of cells in the y-direction.
+     */
+    private final int numCellsY;
+
+    /**
+     * The number of monsters in each cell, indexed by <code>cellX * numCellsY + cellY</code>.
+     */
+    private final int[] counts;
+
+    /**
+     * The number of monsters in the cells before each cell in both directions,
+     * indexed by <code>cellX * (numCellsY + 1) + cellY</code>, where the first row and column are zero.
+     */
+    private final int[] sums;
+
+    /**
+     * Whether {@link #counts} has changed since {@link #sums} was last rebuilt.
+     */
+    private boolean isSumsStale = false;
+
+    /**
+     * The register of events that the field is subscribed to, or <code>null</code> if the monsters are counted by the caller.
+     */
+    private ArenaEventRegister register = null;
+
+    /**
+     * The undelivered move batch whose first moves have been counted, or <code>null</code> if none.
+     */
+    private ArenaObjectMoveBatchEventArgs appliedBatch = null;
+
+    /**
+     * The number of moves in {@link #appliedBatch} that have been counted.
+     */
+    private int numAppliedMoves = 0;
+
+    /**
+     * The batch that is being delivered after all of its moves have been counted, or <code>null</code> if none.
+     */
+    private ArenaObjectMoveBatchEventArgs completedBatch = null;
+
+    /**
+     * The method invoked when an {@link ArenaObject} is being added.
+     */
+    private EventHandler<ArenaObjectEventArgs> onAddObject = (sender, args) -> {
+        if (args.subject instanceof Monster) {
+            increment(args.subject.getX(), args.subject.getY(), 1);
+        }
+    };
+
+    /**
+     * The method invoked when an {@link ArenaObject} is being removed.
+     */
+    private EventHandler<ArenaObjectEventArgs> onRemoveObject = (sender, args) -> {
+        if (args.subject instanceof Monster) {
+            increment(args.subject.getX(), args.subject.getY(), -1);
+        }
+    };
+
+    /**
+     * The method invoked when an {@link ArenaObject} is scheduled to be moved.
+     */
+    private EventHandler<ArenaObjectEventArgs> onStartMoveObject = (sender, args) -> {
+        if (args.subject instanceof Monster) {
+            increment(args.subject.getX(), args.subject.getY(), -1);
+        }
+    };
+
+    /**
+     * The method invoked when an {@link ArenaObject} has been moved.
+     */
+    private EventHandler<ArenaObjectEventArgs> onEndMoveObject = (sender, args) -> {
+        if (args.subject instanceof Monster) {
+            increment(args.subject.getX(), args.subject.getY(), 1);
+        }
+    };
+
+    /**
+     * The method invoked when multiple {@link ArenaObject}s have been moved.
+     * The moves that have already been counted by {@link #applyPendingMoves()} are skipped.
+     */
+    private EventHandler<ArenaObjectMoveBatchEventArgs> onMoveObjects = (sender, args) -> {
+        int from = 0;
+        if (args == completedBatch) {
+            from = args.size;
+            completedBatch = null;
+        } else if (args == appliedBatch) {
+            from = numAppliedMoves;
+            appliedBatch = null;
+            numAppliedMoves = 0;
+        }
+
+        applyMoves(args, from, args.size);
+    };
+
+    /**
+     * Constructs a newly allocated {@link MonsterDensityField} object and attaches it to an arena instance.
+     * The monsters are counted as they are added, so the field should be attached before any monster is.
+     * @param arenaInstance The arena instance.
+     * @param resolution The number of points along each side of a cell.
+     * @throws IllegalArgumentException If the resolution is not positive.
+     */
+    public MonsterDensityField(ArenaInstance arenaInstance, int resolution) throws IllegalArgumentException {
+        this(ArenaManager.ARENA_WIDTH + 1, ArenaManager.ARENA_HEIGHT + 1, resolution);
+
+        this.register = arenaInstance.getEventRegister();
+        SubscriptionGroup subscriptions = arenaInstance.getSubscriptions();
+        register.ARENA_OBJECT_ADD.subscribe(onAddObject, subscriptions);
+        register.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_START.subscribe(onStartMoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_END.subscribe(onEndMoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_BATCH.subscribe(onMoveObjects, subscriptions);
+    }
+
+    /**
+     * Constructs a newly allocated {@link MonsterDensityField} object for a grid whose monsters are counted by the caller.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     * @param resolution The number of points along each side of a cell.
+     * @throws IllegalArgumentException If the grid is empty or the resolution is not positive.
+     */
+    MonsterDensityField(int width, int height, int resolution) throws IllegalArgumentException {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("The grid must contain at least one point");
+        if (resolution <= 0) throw new IllegalArgumentException(String.format("The resolution must be positive. Value: %d", resolution));
+
+        this.width = width;
+        this.height = height;
+        this.resolution = resolution;
+
+        int numCellsX = (width + resolution - 1) / resolution;
+        numCellsY = (height + resolution - 1) / resolution;
+        counts = new int[numCellsX * numCellsY];
+        sums = new int[(numCellsX + 1) * (numCellsY + 1)];
+    }
+
+    /**
+     * Returns the resolution used by the register of scalar fields, as set by the system property <code>project.field.density.resolution</code>.
+     * @return The number of points along each side of a cell.
+     */
+    public static int getConfiguredResolution() { return configuredResolution; }
+
+    /**
+     * Returns the number of points along each side of a cell.
+     * @return The number of points along each side of a cell.
+     */
+    public int getResolution() { return resolution; }
+
+    /**
+     * {@inheritDoc}
+     * This is the number of monsters in the cell that contains the point.
+     */
+    @Override
+    public int getIntValueAt(short x, short y) {
+        applyPendingMoves();
+        return counts[getCellOf(x, y)];
+    }
+
+    /**
+     * {@inheritDoc}
+     * This sets the number of monsters in the cell that contains the point.
+     */
+    @Override
+    public void setValueAt(short x, short y, Integer value) {
+        counts[getCellOf(x, y)] = value;
+        isSumsStale = true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * This sets the number of monsters in every cell.
+     */
+    @Override
+    public void setAll(Integer value) {
+        Arrays.fill(counts, value);
+        isSumsStale = true;
+    }
+
+    /**
+     * Returns the number of monsters on the arena.
+     * @return The number of monsters on the arena.
+     */
+    public int getNumMonsters() {
+        return countInRectangle((short) 0, (short) 0, (short) (width - 1), (short) (height - 1));
+    }
+
+    /**
+     * Returns the number of monsters in the cells that overlap a rectangle, in constant time.
+     * As whole cells are counted, monsters up to one cell outside the rectangle may be included.
+     * Parts of the rectangle outside the arena are ignored.
+     * @param minX The smallest x-coordinate of the rectangle.
+     * @param minY The smallest y-coordinate of the rectangle.
+     * @param maxX The largest x-coordinate of the rectangle.
+     * @param maxY The largest y-coordinate of the rectangle.
+     * @return The number of monsters in the cells, or <code>0</code> if the rectangle does not overlap the arena.
+     */
+    public int countInRectangle(short minX, short minY, short maxX, short maxY) {
+        int startX = Math.max(0, minX), endX = Math.min(width - 1, maxX);
+        int startY = Math.max(0, minY), endY = Math.min(height - 1, maxY);
+        if (startX > endX || startY > endY) return 0;
+
+        applyPendingMoves();
+        if (isSumsStale) rebuildSums();
+
+        int rowLength = numCellsY + 1;
+        int startCellX = startX / resolution, endCellX = endX / resolution + 1;
+        int startCellY = startY / resolution, endCellY = endY / resolution + 1;
+        return sums[endCellX * rowLength + endCellY] - sums[startCellX * rowLength + endCellY]
+                - sums[endCellX * rowLength + startCellY] + sums[startCellX * rowLength + startCellY];
+    }
+
+    /**
+     * Returns the approximate number of monsters within a circle, in constant time.
+     * The circle is approximated by the square of the same area and center, whose cells are counted as in
+     * {@link #countInRectangle(short, short, short, short)}.
+     * @param x The x-coordinate of the center.
+     * @param y The y-coordinate of the center.
+     * @param radius The radius of the circle, which must be non-negative.
+     * @return The approximate number of monsters within the circle.
+     */
+    public int countInCircle(short x, short y, short radius) {
+        int halfSide = (int) Math.round(radius * Math.sqrt(Math.PI) / 2);
+        return countInRectangle((short) Math.max(Short.MIN_VALUE, x - halfSide), (short) Math.max(Short.MIN_VALUE, y - halfSide),
+                (short) Math.min(Short.MAX_VALUE, x + halfSide), (short) Math.min(Short.MAX_VALUE, y + halfSide));
+    }
+
+    /**
+     * Changes the number of monsters in the cell that contains a point.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @param amount The number of monsters that have entered the cell, which is negative if they have left.
+     */
+    void increment(short x, short y, int amount) {
+        counts[getCellOf(x, y)] += amount;
+        isSumsStale = true;
+    }
+
+    /**
+     * Counts part of a move batch.
+     * @param batch The move batch.
+     * @param from The index of the first move to count, inclusive.
+     * @param to The index of the last move to count, exclusive.
+     */
+    private void applyMoves(ArenaObjectMoveBatchEventArgs batch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (batch.subjects[i] instanceof Monster) {
+                increment(batch.oldX[i], batch.oldY[i], -1);
+                increment(batch.newX[i], batch.newY[i], 1);
+            }
+        }
+    }
+
+    /**
+     * Brings the counts up to date with the moves that are pending in the current move batch, without delivering it.
+     */
+    private void applyPendingMoves() {
+        if (register == null) return;
+
+        ArenaObjectMoveBatchEventArgs pending = register.getPendingMoves();
+        if (pending != appliedBatch) {
+            // The previous batch is being delivered to the subscribers before this field
+            if (appliedBatch != null) {
+                applyMoves(appliedBatch, numAppliedMoves, appliedBatch.size);
+                completedBatch = appliedBatch;
+            }
+            appliedBatch = pending;
+            numAppliedMoves = 0;
+        }
+
+        applyMoves(pending, numAppliedMoves, pending.size);
+        numAppliedMoves = pending.size;
+    }
+
+    /**
+     * Returns the cell that contains a point.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The index of the cell.
+     */
+    private int getCellOf(short x, short y) {
+        return x / resolution * numCellsY + y / resolution;
+    }
+
+    /**
+     * Rebuilds the summed-area table from the count of each cell.
+     */
+    private void rebuildSums() {
+        int rowLength = numCellsY + 1;
+        int numCellsX = counts.length / numCellsY;
+        for (int cellX = 0; cellX < numCellsX; cellX++) {
+            int rowSum = 0;
+            for (int cellY = 0; cellY < numCellsY; cellY++) {
+                rowSum += counts[cellX * numCellsY + cellY];
+                sums[(cellX + 1) * rowLength + cellY + 1] = sums[cellX * rowLength + cellY + 1] + rowSum;
+            }
+        }
+
+        isSumsStale = false;
+    }
+}
@@ -1,37 +1,105 @@
 package project.field;
 
-import java.util.Arrays;
-import java.util.EnumSet;
-import java.util.PriorityQueue;
-
 import project.arena.ArenaEventRegister;
 import project.arena.ArenaInstance;
 import project.control.ArenaManager;
 import project.entity.ArenaObject;
 import project.entity.Tower;
 import project.event.EventHandler;
+import project.event.SubscriptionGroup;
 import project.event.eventargs.ArenaObjectEventArgs;
-import project.query.ArenaObjectGridSelector;
+import project.event.eventargs.ArenaObjectMoveBatchEventArgs;
 import project.query.ArenaObjectStorage;
-import project.query.ArenaObjectStorage.StoredType;
 
 /**
  * A scalar field where the value on each point equals the minimum distance
  * travelled from that point to the end zone.
+ * <p>
+ * The field is paused when it is constructed, and is only solved once it has been acquired.
  */
-public final class MonsterDistanceToEndField implements ArenaScalarField<Integer> {
+public final class MonsterDistanceToEndField extends DoubleBufferedField<Integer> implements IntArenaScalarField {
+
+    /**
+     * The values of the scalar field as of the latest update, indexed by <code>x * (ARENA_HEIGHT + 1) + y</code>.
+     * Only accessed by the updates.
+     */
+    private int[] latestValues = new int[(ArenaManager.ARENA_WIDTH + 1) * (ArenaManager.ARENA_HEIGHT + 1)];
+
+    /**
+     * The values of the scalar field that are visible, indexed in the same way as {@link #latestValues}.
+     * They may be stored in a compact encoding, as only the flow field is derived from them at full precision.
+     */
+    private IntValueBuffer values = IntValueBuffer.allocate(latestValues.length);
+
+    /**
+     * The values of the scalar field that are waiting to become visible, indexed in the same way as {@link #latestValues}.
+     */
+    private IntValueBuffer backValues = IntValueBuffer.allocate(latestValues.length);
+
+    /**
+     * The direction of gradient descent on each point that is visible.
+     */
+    private final FlowField flowField = new FlowField();
+
+    /**
+     * The direction of gradient descent and run length of each point that are waiting to become visible.
+     */
+    private FlowField.Table backTable = FlowField.newTable();
+
+    /**
+     * The off-heap copy of the scalar field that receives each new version, or <code>null</code> if there is none.
+     * Only accessed by the updates.
+     */
+    private MappedArenaScalarField.OfInt mirror = null;
+
+    /**
+     * The previous point on the shortest path from each point to the end zone, indexed in the same way as {@link #latestValues}.
+     */
+    private int[] parents = new int[latestValues.length];
+
+    /**
+     * The points that are blocked by a {@link Tower}.
+     */
+    private FieldObstacles obstacles = new FieldObstacles();
+
+    /**
+     * The number of points in the y-direction, by which the x-coordinate of a point is multiplied in its index.
+     */
+    private static final int HEIGHT = ArenaManager.ARENA_HEIGHT + 1;
+
+    /**
+     * Whether the entire field is recalculated in parallel, as the parallel mode is enabled.
+     * The solvers are taken from a {@link SolverPool}, so their work arrays are shared with the fields of other arenas.
+     */
+    private final boolean isParallel = ParallelGridFieldSolver.isEnabled();
+
+    /**
+     * Whether the field is calculated at a coarser resolution, as the coarse mode is enabled.
+     */
+    private final boolean isCoarse = CoarseFieldSolver.isEnabled();
 
     /**
-     * The values of the scalar field.
+     * The cache of the solutions for each layout of towers, or <code>null</code> if solutions are not cached.
      */
-    protected int[][] values = new int[ArenaManager.ARENA_WIDTH + 1][ArenaManager.ARENA_HEIGHT + 1];
+    private final FieldCache cache;
+
+    /**
+     * The indices of the points in the end zones.
+     */
+    private final int[] sources;
+
+    /**
+     * The work array for labelling each point with its end zone, or <code>null</code> if there is only one end zone.
+     * Only accessed by the updates.
+     */
+    private final int[] goalPath;
 
     /**
      * The method invoked when an {@link ArenaObject} is being added.
      */
     private EventHandler<ArenaObjectEventArgs> onAddObject = (sender, args) -> {
-        if (args.subject instanceof Tower) {
-            recalculate(ArenaManager.getActiveObjectStorage());
+        if (args.subject instanceof Tower && isActive()) {
+            update(ArenaManager.getActiveObjectStorage(), true);
         }
     };
 
@@ -39,8 +107,8 @@ public final class MonsterDistanceToEndField implements ArenaScalarField<Integer
      * The method invoked when an {@link ArenaObject} is being removed.
      */
     private EventHandler<ArenaObjectEventArgs> onRemoveObject = (sender, args) -> {
-        if (args.subject instanceof Tower) {
-            recalculate(ArenaManager.getActiveObjectStorage());
+        if (args.subject instanceof Tower && isActive()) {
+            update(ArenaManager.getActiveObjectStorage(), false);
         }
     };
 
@@ -48,8 +116,18 @@ public final class MonsterDistanceToEndField implements ArenaScalarField<Integer
      * The method invoked when an {@link ArenaObject} has been moved.
      */
     private EventHandler<ArenaObjectEventArgs> onEndMoveObject = (sender, args) -> {
-        if (args.subject instanceof Tower) {
-            recalculate(ArenaManager.getActiveObjectStorage());
+        if (args.subject instanceof Tower && isActive()) {
+            update(ArenaManager.getActiveObjectStorage(), true);
+        }
+    };
+
+    /**
+     * The method invoked when multiple {@link ArenaObject}s have been moved.
+     * The field is updated at most once for the whole batch.
+     */
+    private EventHandler<ArenaObjectMoveBatchEventArgs> onMoveObjects = (sender, args) -> {
+        if (args.containsType(Tower.class) && isActive()) {
+            update(ArenaManager.getActiveObjectStorage(), true);
         }
     };
 
@@ -58,21 +136,47 @@ public final class MonsterDistanceToEndField implements ArenaScalarField<Integer
      * @param arenaInstance The arena instance.
      */
     public MonsterDistanceToEndField(ArenaInstance arenaInstance) {
-        
-        recalculate(arenaInstance.getStorage());
-        
+        this(arenaInstance, null);
+    }
+
+    /**
+     * Constructs a newly allocated {@link MonsterDistanceToEndField} object and attaches it to an arena instance.
+     * @param arenaInstance The arena instance.
+     * @param cache The cache of the solutions for each layout of towers, or <code>null</code> if solutions are not cached.
+     */
+    public MonsterDistanceToEndField(ArenaInstance arenaInstance, FieldCache cache) {
+        this(arenaInstance, cache, new short[] { ArenaManager.END_X, ArenaManager.END_Y });
+    }
+
+    /**
+     * Constructs a newly allocated {@link MonsterDistanceToEndField} object for several end zones and attaches it to an arena instance.
+     * Each point descends to the nearest end zone. One calculation handles every end zone,
+     * and each point is also labelled with the end zone that it descends to.
+     * @param arenaInstance The arena instance.
+     * @param cache The cache of the solutions for each layout of towers, or <code>null</code> if solutions are not cached.
+     * It must only be shared by fields with the same end zones.
+     * @param goals The x- and y-coordinates of a point in each end zone in turn.
+     * @throws IllegalArgumentException If there is no end zone or an end zone is outside the arena.
+     */
+    public MonsterDistanceToEndField(ArenaInstance arenaInstance, FieldCache cache, short[] goals) throws IllegalArgumentException {
+        this.cache = cache;
+        this.sources = FieldObstacles.indexGoals(goals);
+        this.goalPath = sources.length > 1 ? new int[latestValues.length] : null;
+
         ArenaEventRegister register = arenaInstance.getEventRegister();
-        register.ARENA_OBJECT_ADD.subscribe(onAddObject);
-        register.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject);
-        register.ARENA_OBJECT_MOVE_END.subscribe(onEndMoveObject);
+        SubscriptionGroup subscriptions = arenaInstance.getSubscriptions();
+        register.ARENA_OBJECT_ADD.subscribe(onAddObject, subscriptions);
+        register.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_END.subscribe(onEndMoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_BATCH.subscribe(onMoveObjects, subscriptions);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public Integer getValueAt(short x, short y) {
-        return values[x][y];
+    public int getIntValueAt(short x, short y) {
+        return values.get(x * HEIGHT + y);
     }
 
     /**
@@ -80,7 +184,7 @@ public final class MonsterDistanceToEndField implements ArenaScalarField<Integer
      */
     @Override
     public void setValueAt(short x, short y, Integer value) {
-        values[x][y] = value;
+        values.set(x * HEIGHT + y, value);
     }
     
     /**
@@ -88,43 +192,146 @@ public final class MonsterDistanceToEndField implements ArenaScalarField<Integer
      */
     @Override
     public void setAll(Integer value) {
-        for (int x = 0; x < ArenaManager.ARENA_WIDTH; x++) {
-            Arrays.fill(values[x], value);
-        }
+        values.fill(value);
     }
 
     /**
      * Recalculates the entire scalar field.
-     * @param storage The storage to base the calculation on.
+     * @param towerPositions The positions of the towers to base the calculation on.
      */
-    private void recalculate(ArenaObjectStorage storage) {
-        // Reset values
-        setAll(Integer.MAX_VALUE);
-
-        // Calculate distance
-    	PriorityQueue<ScalarFieldPoint> openSet = new PriorityQueue<>((o1, o2) -> Integer.compare(getValueAt(o1.getX(), o1.getY()), getValueAt(o2.getX(), o2.getY())));
-        openSet.add(new ScalarFieldPoint(ArenaManager.END_X, ArenaManager.END_Y));
-
-        setValueAt(ArenaManager.END_X, ArenaManager.END_Y, 0);
-    	while (!openSet.isEmpty()) {
-            ScalarFieldPoint current = openSet.poll();
-            short currentX = current.getX();
-            short currentY = current.getY();
-    		// Monsters can only travel horizontally or vertically
-    		for (ScalarFieldPoint neighbour : ArenaScalarField.getTaxicabNeighbours(currentX, currentY)) {
-                short neighbourX = neighbour.getX();
-                short neighbourY = neighbour.getY();
-
-                // Monsters can only go to grids that do not contain a Tower
-                ArenaObjectGridSelector selector = new ArenaObjectGridSelector(neighbourX, neighbourY);
-                if (storage.getQueryResult(selector, EnumSet.of(StoredType.TOWER)).isEmpty()) {
-        			int newCost = getValueAt(currentX, currentY) + 1;
-        			if (getValueAt(neighbourX, neighbourY) > newCost) {
-                        setValueAt(neighbourX, neighbourY, newCost);
-        				openSet.add(new ScalarFieldPoint(neighbourX, neighbourY));
-        			}
-    			}
-    		}
+    private void recalculate(short[] towerPositions) {
+        // Monsters can only go to grids that do not contain a Tower
+        obstacles.update(towerPositions);
+
+        // Monsters can only travel horizontally or vertically, and each step costs one
+        FieldCache.Key key = getCacheKey();
+        if (key == null || !cache.load(key, latestValues, parents)) {
+            if (isCoarse) {
+                solveCoarse();
+            } else if (isParallel) {
+                ParallelGridFieldSolver solver = SolverPool.PARALLEL.acquire();
+                solver.solve(latestValues, parents, obstacles.blocked, sources);
+                SolverPool.PARALLEL.release(solver);
+            } else {
+                GridFieldSolver solver = SolverPool.GRID.acquire();
+                solver.solve(latestValues, parents, obstacles.blocked, sources);
+                SolverPool.GRID.release(solver);
+            }
+            if (key != null) cache.store(key, latestValues, parents);
         }
     }
+
+    /**
+     * Recalculates the entire scalar field from the towers on the arena, which may have changed while the field was paused.
+     */
+    @Override
+    protected void resume() {
+        short[] towerPositions = FieldObstacles.snapshot(ArenaManager.getActiveObjectStorage().getTowers());
+        submit(() -> recalculate(towerPositions));
+    }
+
+    /**
+     * Updates the scalar field after towers have been added, removed or moved.
+     * Only the points whose shortest path to the end zone is affected by the grids that have been blocked
+     * or unblocked are recalculated, unless the field is calculated at a coarser resolution.
+     * If the layout of the towers has been solved before, the cached solution is restored instead.
+     * @param storage The storage to base the calculation on.
+     * @param isBlocking Whether a tower has been added or moved, so that monsters must not move on the previous version.
+     */
+    private void update(ArenaObjectStorage storage, boolean isBlocking) {
+        short[] towerPositions = FieldObstacles.snapshot(storage.getTowers());
+        submit(() -> {
+            int numChanged = obstacles.update(towerPositions);
+            if (numChanged == 0) return;
+
+            FieldCache.Key key = getCacheKey();
+            if (key != null && cache.load(key, latestValues, parents)) return;
+
+            if (isCoarse) {
+                solveCoarse();
+            } else {
+                GridFieldSolver solver = SolverPool.GRID.acquire();
+                solver.repair(latestValues, parents, obstacles.blocked, obstacles.changed, numChanged);
+                SolverPool.GRID.release(solver);
+            }
+            if (key != null) cache.store(key, latestValues, parents);
+        }, isBlocking);
+    }
+
+    /**
+     * Calculates the entire scalar field at a coarser resolution.
+     */
+    private void solveCoarse() {
+        CoarseFieldSolver solver = SolverPool.COARSE.acquire();
+        solver.solve(latestValues, obstacles.blocked, sources);
+        SolverPool.COARSE.release(solver);
+    }
+
+    /**
+     * Returns the layout of the towers that the next solution is based on, which are the grids that are blocked.
+     * Coarse solutions are not cached, as the coarse solver leaves the parents of the previous solution in place.
+     * @return The key of the layout in the cache, or <code>null</code> if solutions are not cached.
+     */
+    private FieldCache.Key getCacheKey() {
+        return cache == null || isCoarse ? null : new FieldCache.Key(obstacles.occupancy(0));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void copyToBack() {
+        backValues.copyFrom(latestValues);
+        FlowField.derive(latestValues, backTable);
+        if (goalPath != null) FlowField.deriveGoals(backTable, sources, goalPath);
+        if (mirror != null) mirror.publish(latestValues);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void swapBuffers() {
+        IntValueBuffer temp = values;
+        values = backValues;
+        backValues = temp;
+        backTable = flowField.swap(backTable);
+    }
+
+    /**
+     * Returns the direction of gradient descent on each point of the visible version of the scalar field.
+     * @return The flow field of the scalar field.
+     */
+    public FlowField getFlowField() { return flowField; }
+
+    /**
+     * Returns the number of end zones that the scalar field descends to.
+     * @return The number of end zones.
+     */
+    public int getNumGoals() { return sources.length; }
+
+    /**
+     * Returns the end zone that gradient descent from a given point ends at, on the visible version of the scalar field.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The position of the end zone in the goals of the scalar field, or {@link FlowField#NO_GOAL} if no end zone is reached.
+     */
+    public int getNearestGoalAt(short x, short y) {
+        if (goalPath != null) return flowField.getGoalAt(x, y);
+
+        // With one end zone, descent only stops early on a point that cannot reach it
+        return flowField.getDirectionAt(x, y) != FlowField.NONE || values.get(x * HEIGHT + y) == 0 ? 0 : FlowField.NO_GOAL;
+    }
+
+    /**
+     * Sets the off-heap copy of the scalar field, which receives the current version and then each new version
+     * as soon as its calculation completes, so that it can be read by other threads or processes.
+     * @param mirror The off-heap copy, or <code>null</code> to stop copying.
+     */
+    public void setMirror(MappedArenaScalarField.OfInt mirror) {
+        enqueue(() -> {
+            this.mirror = mirror;
+            if (mirror != null) mirror.publish(latestValues);
+        });
+    }
 }
\ No newline at end of file
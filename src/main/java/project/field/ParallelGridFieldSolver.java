@@ -0,0 +1,556 @@
+package project.field;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the same distances as {@link GridFieldSolver}, in parallel on a {@link ForkJoinPool}.
+ * <p>
+ * The grid is divided into square tiles. Each tile runs Dijkstra's algorithm on its own points, seeded by the sources
+ * it contains and by the distances on the borders of the neighbouring tiles. A tile whose border changes reactivates
+ * the neighbouring tiles, and the computation ends when no tile is active. Tiles are coloured like a checkerboard,
+ * and only tiles of one colour run at the same time, so no two running tiles share a border.
+ * <p>
+ * Every distance is the minimum over all paths of the cost evaluated along the path in the same order as
+ * {@link GridFieldSolver}, so the distances are identical to those of the sequential solver.
+ * The parents may differ where several shortest paths exist, but each still lies on a shortest path,
+ * so the results can be repaired by {@link GridFieldSolver}.
+ * <p>
+ * The parallel mode can be enabled for the scalar fields by the system property <code>project.field.parallel</code>.
+ * The solver keeps its work arrays between calls. It is not thread-safe.
+ */
+public final class ParallelGridFieldSolver {
+
+    /**
+     * The default number of points along each side of a tile.
+     */
+    public static final int DEFAULT_TILE_SIZE = 64;
+
+    /**
+     * Whether the scalar fields use the parallel solver for full recalculations.
+     */
+    private static final boolean isEnabled = Boolean.getBoolean("project.field.parallel");
+
+    /**
+     * The number of points in the x-direction.
+     */
+    private final int width;
+
+    /**
+     * The number of points in the y-direction.
+     */
+    private final int height;
+
+    /**
+     * The number of points along each side of a tile.
+     */
+    private final int tileSize;
+
+    /**
+     * The number of tiles in the x-direction.
+     */
+    private final int numTilesX;
+
+    /**
+     * The number of tiles in the y-direction.
+     */
+    private final int numTilesY;
+
+    /**
+     * The pool on which the tiles are processed.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The work arrays of each tile, indexed by <code>tileX * numTilesY + tileY</code>.
+     */
+    private final Tile[] tiles;
+
+    /**
+     * Whether each tile needs to be processed.
+     */
+    private final boolean[] isActive;
+
+    /**
+     * The tiles being processed in the current half-round.
+     */
+    private final int[] activeTiles;
+
+    /**
+     * The integer distances being computed, or <code>null</code> if real distances are being computed.
+     */
+    private int[] intDistances;
+
+    /**
+     * The real distances being computed, or <code>null</code> if integer distances are being computed.
+     */
+    private float[] floatDistances;
+
+    /**
+     * The parents being computed.
+     */
+    private int[] parents;
+
+    /**
+     * Whether each point is blocked.
+     */
+    private boolean[] blocked;
+
+    /**
+     * The cost of moving into each point, excluding {@link #constantWeight}, or <code>null</code> for unit weights.
+     */
+    private float[] weights;
+
+    /**
+     * The cost added to every move.
+     */
+    private float constantWeight;
+
+    /**
+     * The work arrays of a tile.
+     */
+    private final class Tile {
+
+        /**
+         * The first x-coordinate of the tile.
+         */
+        final int startX;
+
+        /**
+         * The first y-coordinate of the tile.
+         */
+        final int startY;
+
+        /**
+         * The last x-coordinate of the tile.
+         */
+        final int endX;
+
+        /**
+         * The last y-coordinate of the tile.
+         */
+        final int endY;
+
+        /**
+         * The binary heap of the points of the tile, by their index in the grid.
+         */
+        final int[] heap;
+
+        /**
+         * The position of each point of the tile in the heap, or <code>-1</code> if it is not in the heap,
+         * indexed by <code>(x - startX) * (endY - startY + 1) + (y - startY)</code>.
+         */
+        final int[] heapPositions;
+
+        /**
+         * The sources in the tile that have not been expanded yet.
+         */
+        final int[] pendingSources;
+
+        /**
+         * The number of sources in {@link #pendingSources}.
+         */
+        int numPendingSources = 0;
+
+        /**
+         * The number of points in the heap.
+         */
+        int heapSize = 0;
+
+        /**
+         * Whether a point on the left, right, top or bottom border of the tile has changed.
+         */
+        boolean isLeftChanged, isRightChanged, isTopChanged, isBottomChanged;
+
+        /**
+         * Constructs a newly allocated {@link Tile} object.
+         * @param tileX The x-position of the tile.
+         * @param tileY The y-position of the tile.
+         */
+        Tile(int tileX, int tileY) {
+            startX = tileX * tileSize;
+            startY = tileY * tileSize;
+            endX = Math.min(width, startX + tileSize) - 1;
+            endY = Math.min(height, startY + tileSize) - 1;
+
+            int size = (endX - startX + 1) * (endY - startY + 1);
+            heap = new int[size];
+            heapPositions = new int[size];
+            pendingSources = new int[size];
+            Arrays.fill(heapPositions, -1);
+        }
+
+        /**
+         * Returns the index of a point in {@link #heapPositions}.
+         * @param index The index of the point in the grid.
+         * @return The index of the point in the tile.
+         */
+        int localIndexOf(int index) {
+            int x = index / height, y = index - x * height;
+            return (x - startX) * (endY - startY + 1) + (y - startY);
+        }
+
+        /**
+         * Seeds the tile from its neighbours and its pending sources, then runs Dijkstra's algorithm within it.
+         */
+        void process() {
+            isLeftChanged = isRightChanged = isTopChanged = isBottomChanged = false;
+
+            for (int i = 0; i < numPendingSources; i++) {
+                push(pendingSources[i]);
+                markBorder(pendingSources[i]);
+            }
+            numPendingSources = 0;
+
+            // Points on the border may be reached through the neighbouring tiles
+            for (int y = startY; y <= endY; y++) {
+                if (startX > 0) relax(startX * height + y, (startX - 1) * height + y);
+                if (endX < width - 1) relax(endX * height + y, (endX + 1) * height + y);
+            }
+            for (int x = startX; x <= endX; x++) {
+                if (startY > 0) relax(x * height + startY, x * height + startY - 1);
+                if (endY < height - 1) relax(x * height + endY, x * height + endY + 1);
+            }
+
+            while (heapSize > 0) {
+                int index = heap[0];
+                pop();
+
+                int x = index / height, y = index - x * height;
+                if (x > startX) relax(index - height, index);
+                if (x < endX) relax(index + height, index);
+                if (y > startY) relax(index - 1, index);
+                if (y < endY) relax(index + 1, index);
+            }
+        }
+
+        /**
+         * Lowers the distance of a point in the tile through a neighbour, and queues it if it was lowered.
+         * @param index The index of the point.
+         * @param parent The index of the neighbour.
+         */
+        void relax(int index, int parent) {
+            if (blocked[index]) return;
+
+            if (intDistances != null) {
+                int distance = intDistances[parent];
+                if (distance == GridFieldSolver.UNREACHABLE || distance + 1 >= intDistances[index]) return;
+                intDistances[index] = distance + 1;
+            } else {
+                float newDistance = floatDistances[parent] + weights[index] + constantWeight;
+                if (!(newDistance < floatDistances[index])) return;
+                floatDistances[index] = newDistance;
+            }
+
+            parents[index] = parent;
+            markBorder(index);
+
+            int position = heapPositions[localIndexOf(index)];
+            if (position < 0) push(index);
+            else siftUp(position);
+        }
+
+        /**
+         * Records that a point has changed if it is on the border of the tile.
+         * @param index The index of the point.
+         */
+        void markBorder(int index) {
+            int x = index / height, y = index - x * height;
+            if (x == startX) isLeftChanged = true;
+            if (x == endX) isRightChanged = true;
+            if (y == startY) isTopChanged = true;
+            if (y == endY) isBottomChanged = true;
+        }
+
+        /**
+         * Returns whether a point is closer than another point.
+         * @param index The index of the first point.
+         * @param other The index of the second point.
+         * @return Whether the first point is closer.
+         */
+        boolean isCloser(int index, int other) {
+            return intDistances != null ? intDistances[index] < intDistances[other] : floatDistances[index] < floatDistances[other];
+        }
+
+        /**
+         * Adds a point to the heap.
+         * @param index The index of the point.
+         */
+        void push(int index) {
+            heap[heapSize] = index;
+            heapPositions[localIndexOf(index)] = heapSize;
+            siftUp(heapSize++);
+        }
+
+        /**
+         * Removes the closest point from the heap.
+         */
+        void pop() {
+            heapPositions[localIndexOf(heap[0])] = -1;
+            if (--heapSize > 0) {
+                heap[0] = heap[heapSize];
+                heapPositions[localIndexOf(heap[0])] = 0;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * Moves a point up the heap until its parent is not further than it.
+         * @param position The position of the point in the heap.
+         */
+        void siftUp(int position) {
+            int index = heap[position];
+            while (position > 0) {
+                int parentPosition = (position - 1) >>> 1;
+                int parent = heap[parentPosition];
+                if (!isCloser(index, parent)) break;
+
+                heap[position] = parent;
+                heapPositions[localIndexOf(parent)] = position;
+                position = parentPosition;
+            }
+
+            heap[position] = index;
+            heapPositions[localIndexOf(index)] = position;
+        }
+
+        /**
+         * Moves a point down the heap until its children are not closer than it.
+         * @param position The position of the point in the heap.
+         */
+        void siftDown(int position) {
+            int index = heap[position];
+            while (true) {
+                int childPosition = 2 * position + 1;
+                if (childPosition >= heapSize) break;
+
+                int child = heap[childPosition];
+                if (childPosition + 1 < heapSize && isCloser(heap[childPosition + 1], child)) {
+                    child = heap[++childPosition];
+                }
+                if (!isCloser(child, index)) break;
+
+                heap[position] = child;
+                heapPositions[localIndexOf(child)] = position;
+                position = childPosition;
+            }
+
+            heap[position] = index;
+            heapPositions[localIndexOf(index)] = position;
+        }
+    }
+
+    /**
+     * Processes a range of the active tiles, splitting it between the workers of the pool.
+     */
+    private final class TileRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The first position in {@link ParallelGridFieldSolver#activeTiles} to process.
+         */
+        private final int from;
+
+        /**
+         * The position after the last one in {@link ParallelGridFieldSolver#activeTiles} to process.
+         */
+        private final int to;
+
+        /**
+         * Constructs a newly allocated {@link TileRange} object.
+         * @param from The first position to process.
+         * @param to The position after the last one to process.
+         */
+        TileRange(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                tiles[activeTiles[from]].process();
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TileRange(from, middle), new TileRange(middle, to));
+            }
+        }
+    }
+
+    /**
+     * Returns whether the scalar fields use the parallel solver for full recalculations,
+     * as set by the system property <code>project.field.parallel</code>.
+     * @return Whether the parallel solver is enabled.
+     */
+    public static boolean isEnabled() { return isEnabled; }
+
+    /**
+     * Constructs a newly allocated {@link ParallelGridFieldSolver} object
+     * with the default tile size on the common pool.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     */
+    public ParallelGridFieldSolver(int width, int height) {
+        this(width, height, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a newly allocated {@link ParallelGridFieldSolver} object.
+     * @param width The number of points in the x-direction.
+     * @param height The number of points in the y-direction.
+     * @param tileSize The number of points along each side of a tile.
+     * @param pool The pool on which the tiles are processed.
+     */
+    public ParallelGridFieldSolver(int width, int height, int tileSize, ForkJoinPool pool) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("The grid must contain at least one point");
+        if (tileSize <= 0) throw new IllegalArgumentException("The tiles must contain at least one point");
+
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.pool = pool;
+        this.numTilesX = (width + tileSize - 1) / tileSize;
+        this.numTilesY = (height + tileSize - 1) / tileSize;
+
+        tiles = new Tile[numTilesX * numTilesY];
+        for (int tileX = 0; tileX < numTilesX; tileX++) {
+            for (int tileY = 0; tileY < numTilesY; tileY++) tiles[tileX * numTilesY + tileY] = new Tile(tileX, tileY);
+        }
+        isActive = new boolean[tiles.length];
+        activeTiles = new int[tiles.length];
+    }
+
+    /**
+     * Returns the number of points in the grid, which is the length of each array passed to the solver.
+     * @return The number of points in the grid.
+     */
+    public int getSize() { return width * height; }
+
+    /**
+     * Returns the index of a point in the arrays passed to the solver.
+     * @param x The x-coordinate of the point.
+     * @param y The y-coordinate of the point.
+     * @return The index of the point.
+     */
+    public int indexOf(int x, int y) { return x * height + y; }
+
+    /**
+     * Computes the same distances as {@link GridFieldSolver#solve(int[], int[], boolean[], int[])}.
+     * @param distances The array to store the distances in. Unreachable points are set to {@link GridFieldSolver#UNREACHABLE}.
+     * @param parents The array to store the parents in.
+     * @param blocked Whether each point is blocked.
+     * @param sources The indices of the sources.
+     */
+    public void solve(int[] distances, int[] parents, boolean[] blocked, int[] sources) {
+        Arrays.fill(distances, GridFieldSolver.UNREACHABLE);
+        for (int source : sources) distances[source] = 0;
+
+        this.intDistances = distances;
+        this.floatDistances = null;
+        this.weights = null;
+        run(parents, blocked, sources);
+    }
+
+    /**
+     * Computes the same distances as {@link GridFieldSolver#solve(float[], int[], boolean[], float[], float, int[])}.
+     * @param distances The array to store the distances in. Unreachable points are set to {@link Float#POSITIVE_INFINITY}.
+     * @param parents The array to store the parents in.
+     * @param blocked Whether each point is blocked.
+     * @param weights The cost of moving into each point, excluding <code>constantWeight</code>.
+     * @param constantWeight The cost added to every move.
+     * @param sources The indices of the sources.
+     */
+    public void solve(float[] distances, int[] parents, boolean[] blocked, float[] weights, float constantWeight, int[] sources) {
+        Arrays.fill(distances, Float.POSITIVE_INFINITY);
+        for (int source : sources) distances[source] = 0;
+
+        this.intDistances = null;
+        this.floatDistances = distances;
+        this.weights = weights;
+        this.constantWeight = constantWeight;
+        run(parents, blocked, sources);
+    }
+
+    /**
+     * Processes the tiles in half-rounds until none is active.
+     * @param parents The array to store the parents in.
+     * @param blocked Whether each point is blocked.
+     * @param sources The indices of the sources, whose distances have been set to zero.
+     */
+    private void run(int[] parents, boolean[] blocked, int[] sources) {
+        Arrays.fill(parents, GridFieldSolver.NO_PARENT);
+        this.parents = parents;
+        this.blocked = blocked;
+
+        Arrays.fill(isActive, false);
+        for (int source : sources) {
+            Tile tile = tiles[tileOf(source)];
+            boolean isDuplicate = false;
+            for (int i = 0; i < tile.numPendingSources; i++) isDuplicate |= tile.pendingSources[i] == source;
+            if (!isDuplicate) tile.pendingSources[tile.numPendingSources++] = source;
+            isActive[tileOf(source)] = true;
+        }
+
+        try {
+            boolean isAnyActive = true;
+            while (isAnyActive) {
+                isAnyActive = false;
+                for (int colour = 0; colour < 2; colour++) {
+                    int numActive = 0;
+                    for (int tileX = 0; tileX < numTilesX; tileX++) {
+                        for (int tileY = (tileX + colour) & 1; tileY < numTilesY; tileY += 2) {
+                            int tile = tileX * numTilesY + tileY;
+                            if (isActive[tile]) {
+                                isActive[tile] = false;
+                                activeTiles[numActive++] = tile;
+                            }
+                        }
+                    }
+                    if (numActive == 0) continue;
+
+                    isAnyActive = true;
+                    if (numActive == 1) tiles[activeTiles[0]].process();
+                    else pool.invoke(new TileRange(0, numActive));
+
+                    // Tiles of the other colour next to a changed border need to be processed again
+                    for (int i = 0; i < numActive; i++) activateNeighbours(activeTiles[i]);
+                }
+            }
+        } finally {
+            this.intDistances = null;
+            this.floatDistances = null;
+            this.weights = null;
+            this.parents = null;
+            this.blocked = null;
+        }
+    }
+
+    /**
+     * Returns the tile that contains a point.
+     * @param index The index of the point.
+     * @return The index of the tile.
+     */
+    private int tileOf(int index) {
+        int x = index / height, y = index - x * height;
+        return (x / tileSize) * numTilesY + y / tileSize;
+    }
+
+    /**
+     * Activates the neighbours of a tile that share a border that has changed.
+     * @param tileIndex The index of the tile.
+     */
+    private void activateNeighbours(int tileIndex) {
+        Tile tile = tiles[tileIndex];
+        int tileX = tileIndex / numTilesY, tileY = tileIndex - tileX * numTilesY;
+
+        if (tile.isLeftChanged && tileX > 0) isActive[tileIndex - numTilesY] = true;
+        if (tile.isRightChanged && tileX < numTilesX - 1) isActive[tileIndex + numTilesY] = true;
+        if (tile.isTopChanged && tileY > 0) isActive[tileIndex - 1] = true;
+        if (tile.isBottomChanged && tileY < numTilesY - 1) isActive[tileIndex + 1] = true;
+    }
+}
@@ -0,0 +1,759 @@
+package project.field;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import project.control.ArenaManager;
+import project.entity.Tower;
+
+/**
+ * Evaluates how building a {@link Tower} on each grid of the arena would change the distance and the attacks
+ * that a {@link project.entity.Monster} receives on its way from the starting position to the end zone,
+ * as {@link MonsterDistanceToEndField} and {@link MonsterAttacksToEndField} would calculate them.
+ * <p>
+ * Both scalar fields are solved once for the current towers, and every grid is evaluated against them.
+ * A new tower only blocks its grid and adds attacks within its ring, so the cost from the starting position cannot decrease.
+ * If the grid and the ring miss the current shortest path, the cost is unchanged. Otherwise, the new cost is found by an A* search
+ * from the starting position to the end zone, guided by the current scalar field, which is a lower bound of the new one.
+ * With that guide, the search only leaves the current shortest path to go around the changes.
+ * The searches for different grids run in parallel on a {@link ForkJoinPool}.
+ * <p>
+ * The evaluator keeps its work arrays between calls. It is thread-safe, but calls are not run concurrently with each other.
+ */
+public final class PlacementEvaluator {
+
+    /**
+     * The number of points in the x-direction.
+     */
+    private static final int WIDTH = ArenaManager.ARENA_WIDTH + 1;
+
+    /**
+     * The number of points in the y-direction.
+     */
+    private static final int HEIGHT = ArenaManager.ARENA_HEIGHT + 1;
+
+    /**
+     * The indices of the points in the end zones.
+     */
+    private final int[] sources;
+
+    /**
+     * Whether each point is in an end zone.
+     */
+    private final boolean[] isSource = new boolean[WIDTH * HEIGHT];
+
+    /**
+     * The index of the starting position.
+     */
+    private final int start;
+
+    /**
+     * The pool on which the grids are evaluated.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The solver that calculates the current scalar fields.
+     */
+    private final GridFieldSolver solver = new GridFieldSolver(WIDTH, HEIGHT);
+
+    /**
+     * The searches that are not in use, so that their work arrays are reused.
+     */
+    private final ConcurrentLinkedDeque<Search> idleSearches = new ConcurrentLinkedDeque<>();
+
+    /**
+     * The change to the scalar fields from the starting position if a tower were built on each grid.
+     */
+    public static final class Impacts {
+
+        /**
+         * The number of grids in the y-direction.
+         */
+        private final int numGridsY;
+
+        /**
+         * The distance from the starting position to the end zone with the current towers.
+         */
+        private final int baseDistance;
+
+        /**
+         * The attacks received from the starting position to the end zone with the current towers.
+         */
+        private final float baseAttacks;
+
+        /**
+         * Whether each grid has been evaluated, indexed by <code>gridX * numGridsY + gridY</code>.
+         */
+        private final boolean[] isEvaluated;
+
+        /**
+         * The change to the distance if a tower were built on each grid.
+         */
+        private final int[] distanceDeltas;
+
+        /**
+         * The change to the attacks if a tower were built on each grid.
+         */
+        private final float[] attacksDeltas;
+
+        /**
+         * The number of grids that needed a search, rather than missing the current shortest paths.
+         */
+        private int numSearched = 0;
+
+        /**
+         * Constructs a newly allocated {@link Impacts} object where no grid has been evaluated.
+         * @param numGridsX The number of grids in the x-direction.
+         * @param numGridsY The number of grids in the y-direction.
+         * @param baseDistance The distance from the starting position to the end zone with the current towers.
+         * @param baseAttacks The attacks received from the starting position to the end zone with the current towers.
+         */
+        private Impacts(int numGridsX, int numGridsY, int baseDistance, float baseAttacks) {
+            this.numGridsY = numGridsY;
+            this.baseDistance = baseDistance;
+            this.baseAttacks = baseAttacks;
+            isEvaluated = new boolean[numGridsX * numGridsY];
+            distanceDeltas = new int[isEvaluated.length];
+            attacksDeltas = new float[isEvaluated.length];
+        }
+
+        /**
+         * Returns the distance from the starting position to the end zone with the current towers.
+         * @return The distance, or {@link GridFieldSolver#UNREACHABLE} if the end zone cannot be reached.
+         */
+        public int getBaseDistance() { return baseDistance; }
+
+        /**
+         * Returns the attacks received per unit speed from the starting position to the end zone with the current towers.
+         * @return The attacks, or {@link Float#POSITIVE_INFINITY} if the end zone cannot be reached.
+         */
+        public float getBaseAttacks() { return baseAttacks; }
+
+        /**
+         * Returns whether building a tower on a grid has been evaluated.
+         * @param gridX The x-position of the grid.
+         * @param gridY The y-position of the grid.
+         * @return Whether the grid is one of the candidates, which is <code>false</code> if it is outside the arena.
+         */
+        public boolean isEvaluated(int gridX, int gridY) {
+            if (gridX < 0 || gridY < 0 || gridY >= numGridsY || gridX >= isEvaluated.length / numGridsY) return false;
+            return isEvaluated[gridX * numGridsY + gridY];
+        }
+
+        /**
+         * Returns the change to the distance from the starting position to the end zone if a tower were built on a grid.
+         * @param gridX The x-position of the grid.
+         * @param gridY The y-position of the grid.
+         * @return The increase in the distance, which is never negative, or {@link GridFieldSolver#UNREACHABLE}
+         * if the tower would cut off the starting position.
+         * @throws IllegalArgumentException If the grid has not been evaluated.
+         */
+        public int getDistanceDelta(int gridX, int gridY) throws IllegalArgumentException {
+            return distanceDeltas[indexOfEvaluated(gridX, gridY)];
+        }
+
+        /**
+         * Returns the change to the attacks received per unit speed from the starting position to the end zone if a tower were built on a grid.
+         * @param gridX The x-position of the grid.
+         * @param gridY The y-position of the grid.
+         * @return The increase in the attacks, or {@link Float#POSITIVE_INFINITY} if the tower would cut off the starting position.
+         * @throws IllegalArgumentException If the grid has not been evaluated.
+         */
+        public float getAttacksDelta(int gridX, int gridY) throws IllegalArgumentException {
+            return attacksDeltas[indexOfEvaluated(gridX, gridY)];
+        }
+
+        /**
+         * Returns the number of grids whose tower would change the current shortest path of either scalar field,
+         * so that the new cost had to be searched for.
+         * @return The number of grids that needed a search.
+         */
+        public int getNumSearched() { return numSearched; }
+
+        /**
+         * Returns the index of a grid that has been evaluated.
+         * @param gridX The x-position of the grid.
+         * @param gridY The y-position of the grid.
+         * @return The index of the grid.
+         * @throws IllegalArgumentException If the grid has not been evaluated.
+         */
+        private int indexOfEvaluated(int gridX, int gridY) throws IllegalArgumentException {
+            if (!isEvaluated(gridX, gridY)) throw new IllegalArgumentException(String.format("The grid has not been evaluated. Value: (%d, %d)", gridX, gridY));
+            return gridX * numGridsY + gridY;
+        }
+    }
+
+    /**
+     * A grid whose tower changes the current shortest path of at least one scalar field.
+     */
+    private static final class Candidate {
+
+        /**
+         * The index of the grid.
+         */
+        final int grid;
+
+        /**
+         * The range of the points of the grid, inclusive.
+         */
+        final int startX, endX, startY, endY;
+
+        /**
+         * The center of the tower.
+         */
+        final int centerX, centerY;
+
+        /**
+         * Whether the tower changes the shortest path of each scalar field.
+         */
+        final boolean isDistanceChanged, isAttacksChanged;
+
+        /**
+         * Constructs a newly allocated {@link Candidate} object.
+         * @param grid The index of the grid.
+         * @param startX The first x-coordinate of the grid.
+         * @param endX The last x-coordinate of the grid.
+         * @param startY The first y-coordinate of the grid.
+         * @param endY The last y-coordinate of the grid.
+         * @param isDistanceChanged Whether the tower changes the shortest path of the distance.
+         * @param isAttacksChanged Whether the tower changes the shortest path of the attacks.
+         */
+        Candidate(int grid, int startX, int endX, int startY, int endY, boolean isDistanceChanged, boolean isAttacksChanged) {
+            this.grid = grid;
+            this.startX = startX;
+            this.endX = endX;
+            this.startY = startY;
+            this.endY = endY;
+            this.centerX = startX + ArenaManager.GRID_WIDTH / 2;
+            this.centerY = startY + ArenaManager.GRID_HEIGHT / 2;
+            this.isDistanceChanged = isDistanceChanged;
+            this.isAttacksChanged = isAttacksChanged;
+        }
+
+        /**
+         * Returns whether a point is within the grid.
+         * @param x The x-coordinate of the point.
+         * @param y The y-coordinate of the point.
+         * @return Whether the tower would block the point.
+         */
+        boolean contains(int x, int y) {
+            return x >= startX && x <= endX && y >= startY && y <= endY;
+        }
+
+        /**
+         * Returns whether a point is within the ring of the tower.
+         * @param x The x-coordinate of the point.
+         * @param y The y-coordinate of the point.
+         * @param minRangeSquared The square of the minimum range of the tower.
+         * @param maxRangeSquared The square of the maximum range of the tower.
+         * @return Whether the tower would attack the point.
+         */
+        boolean isInRing(int x, int y, int minRangeSquared, int maxRangeSquared) {
+            int distanceSquared = (x - centerX) * (x - centerX) + (y - centerY) * (y - centerY);
+            return distanceSquared >= minRangeSquared && distanceSquared <= maxRangeSquared;
+        }
+    }
+
+    /**
+     * The parameters of one call to {@link PlacementEvaluator#evaluate(boolean[], float[], boolean[], float, short, short)}.
+     */
+    private static final class Evaluation {
+
+        /**
+         * Whether each point is blocked by the current towers.
+         */
+        final boolean[] blocked;
+
+        /**
+         * The current attacks per frame on each point.
+         */
+        final float[] weights;
+
+        /**
+         * The current distance from each point, as a lower bound of the new one.
+         */
+        final float[] distanceBounds;
+
+        /**
+         * The current attacks from each point, as a lower bound of the new ones.
+         */
+        final float[] attacksBounds;
+
+        /**
+         * The attacks per frame of the new tower.
+         */
+        final float attacksPerFrame;
+
+        /**
+         * The squares of the radii of the ring of the new tower.
+         */
+        final int minRangeSquared, maxRangeSquared;
+
+        /**
+         * The grids that needed a search.
+         */
+        final Candidate[] candidates;
+
+        /**
+         * The results.
+         */
+        final Impacts impacts;
+
+        /**
+         * Constructs a newly allocated {@link Evaluation} object.
+         * @param blocked Whether each point is blocked by the current towers.
+         * @param weights The current attacks per frame on each point.
+         * @param distanceBounds The current distance from each point.
+         * @param attacksBounds The current attacks from each point.
+         * @param attacksPerFrame The attacks per frame of the new tower.
+         * @param minRange The minimum range of the new tower.
+         * @param maxRange The maximum range of the new tower.
+         * @param candidates The grids that needed a search.
+         * @param impacts The results.
+         */
+        Evaluation(boolean[] blocked, float[] weights, float[] distanceBounds, float[] attacksBounds,
+                float attacksPerFrame, short minRange, short maxRange, Candidate[] candidates, Impacts impacts) {
+            this.blocked = blocked;
+            this.weights = weights;
+            this.distanceBounds = distanceBounds;
+            this.attacksBounds = attacksBounds;
+            this.attacksPerFrame = attacksPerFrame;
+            this.minRangeSquared = minRange * minRange;
+            this.maxRangeSquared = maxRange * maxRange;
+            this.candidates = candidates;
+            this.impacts = impacts;
+        }
+    }
+
+    /**
+     * Evaluates a range of candidates, splitting it until each task has one.
+     */
+    private final class CandidateRange extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The evaluation that the candidates belong to.
+         */
+        private final Evaluation evaluation;
+
+        /**
+         * The first candidate in the range.
+         */
+        private final int from;
+
+        /**
+         * The candidate after the last one in the range.
+         */
+        private final int to;
+
+        /**
+         * Constructs a newly allocated {@link CandidateRange} object.
+         * @param evaluation The evaluation that the candidates belong to.
+         * @param from The first candidate in the range.
+         * @param to The candidate after the last one in the range.
+         */
+        CandidateRange(Evaluation evaluation, int from, int to) {
+            this.evaluation = evaluation;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CandidateRange(evaluation, from, middle), new CandidateRange(evaluation, middle, to));
+                return;
+            }
+
+            Search search = idleSearches.poll();
+            if (search == null) search = new Search();
+            try {
+                search.evaluate(evaluation, evaluation.candidates[from]);
+            } finally {
+                idleSearches.offer(search);
+            }
+        }
+    }
+
+    /**
+     * The work arrays of an A* search, which are reused between searches without being cleared.
+     */
+    private final class Search {
+
+        /**
+         * The cost from the starting position to each point found so far.
+         */
+        private final float[] costs = new float[WIDTH * HEIGHT];
+
+        /**
+         * The cost of each point plus its lower bound to the end zone, which orders the heap.
+         */
+        private final float[] estimates = new float[costs.length];
+
+        /**
+         * The search in which each point was last reached, as {@link #currentSearch} was then.
+         */
+        private final int[] reachedIn = new int[costs.length];
+
+        /**
+         * The points in the heap.
+         */
+        private final int[] heap = new int[costs.length];
+
+        /**
+         * The position of each point in the heap, or <code>-1</code> if it is not in the heap.
+         */
+        private final int[] heapPositions = new int[costs.length];
+
+        /**
+         * The number of searches run so far, which marks the points reached by the current one.
+         */
+        private int currentSearch = 0;
+
+        /**
+         * Evaluates the scalar fields whose shortest path a candidate changes.
+         * @param evaluation The evaluation that the candidate belongs to.
+         * @param candidate The candidate.
+         */
+        void evaluate(Evaluation evaluation, Candidate candidate) {
+            Impacts impacts = evaluation.impacts;
+            if (candidate.isDistanceChanged) {
+                float distance = run(evaluation, candidate, evaluation.distanceBounds, false);
+                impacts.distanceDeltas[candidate.grid] = distance == Float.POSITIVE_INFINITY
+                        ? GridFieldSolver.UNREACHABLE : (int) distance - impacts.baseDistance;
+            }
+            if (candidate.isAttacksChanged) {
+                float attacks = run(evaluation, candidate, evaluation.attacksBounds, true);
+                impacts.attacksDeltas[candidate.grid] = Math.max(0, attacks - impacts.baseAttacks);
+            }
+        }
+
+        /**
+         * Finds the cost from the starting position to the end zone with the tower of a candidate.
+         * Each move costs one step for the distance, or the attacks on the point being left plus {@link MonsterAttacksToEndField#MOVEMENT_COST}
+         * for the attacks, which adds up to the same cost as the scalar fields, which are solved from the end zone.
+         * @param evaluation The evaluation that the candidate belongs to.
+         * @param candidate The candidate.
+         * @param bounds The current cost from each point, which is a lower bound of the new one.
+         * @param isAttacks Whether the attacks are found rather than the distance.
+         * @return The cost, or {@link Float#POSITIVE_INFINITY} if the end zone cannot be reached.
+         */
+        private float run(Evaluation evaluation, Candidate candidate, float[] bounds, boolean isAttacks) {
+            currentSearch++;
+            int heapSize = 0;
+
+            reach(start, 0, bounds);
+            heapSize = push(start, heapSize);
+            while (heapSize > 0) {
+                int index = heap[0];
+                heapSize = pop(heapSize);
+                if (isSource[index]) return costs[index];
+
+                int x = index / HEIGHT, y = index - x * HEIGHT;
+                float cost = costs[index];
+                if (isAttacks) {
+                    cost += evaluation.weights[index] + MonsterAttacksToEndField.MOVEMENT_COST;
+                    if (candidate.isInRing(x, y, evaluation.minRangeSquared, evaluation.maxRangeSquared)) cost += evaluation.attacksPerFrame;
+                } else {
+                    cost += 1;
+                }
+
+                if (x > 0) heapSize = relax(evaluation, candidate, index - HEIGHT, x - 1, y, cost, bounds, heapSize);
+                if (x < WIDTH - 1) heapSize = relax(evaluation, candidate, index + HEIGHT, x + 1, y, cost, bounds, heapSize);
+                if (y > 0) heapSize = relax(evaluation, candidate, index - 1, x, y - 1, cost, bounds, heapSize);
+                if (y < HEIGHT - 1) heapSize = relax(evaluation, candidate, index + 1, x, y + 1, cost, bounds, heapSize);
+            }
+
+            return Float.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Relaxes a neighbour in the heap.
+         * @param evaluation The evaluation that the candidate belongs to.
+         * @param candidate The candidate.
+         * @param index The index of the neighbour.
+         * @param x The x-coordinate of the neighbour.
+         * @param y The y-coordinate of the neighbour.
+         * @param cost The cost of the neighbour through the point being expanded.
+         * @param bounds The lower bound of the cost from each point to the end zone.
+         * @param heapSize The number of points in the heap.
+         * @return The new number of points in the heap.
+         */
+        private int relax(Evaluation evaluation, Candidate candidate, int index, int x, int y, float cost, float[] bounds, int heapSize) {
+            if (evaluation.blocked[index] || candidate.contains(x, y)) return heapSize;
+
+            if (reachedIn[index] != currentSearch) {
+                reach(index, cost, bounds);
+                return push(index, heapSize);
+            }
+            if (!(cost < costs[index])) return heapSize;
+
+            costs[index] = cost;
+            estimates[index] = cost + bounds[index];
+            if (heapPositions[index] < 0) return push(index, heapSize);
+
+            siftUp(heapPositions[index]);
+            return heapSize;
+        }
+
+        /**
+         * Records that a point has been reached for the first time in the current search.
+         * @param index The index of the point.
+         * @param cost The cost of the point.
+         * @param bounds The lower bound of the cost from each point to the end zone.
+         */
+        private void reach(int index, float cost, float[] bounds) {
+            reachedIn[index] = currentSearch;
+            costs[index] = cost;
+            estimates[index] = cost + bounds[index];
+            heapPositions[index] = -1;
+        }
+
+        /**
+         * Returns whether a point should be expanded before another one.
+         * Among points with the same estimate, the one that has travelled further is preferred,
+         * so that the search follows one of many shortest paths instead of expanding all of them.
+         * @param a The index of the first point.
+         * @param b The index of the second point.
+         * @return Whether the first point comes first.
+         */
+        private boolean precedes(int a, int b) {
+            return estimates[a] < estimates[b] || (estimates[a] == estimates[b] && costs[a] > costs[b]);
+        }
+
+        /**
+         * Adds a point to the heap.
+         * @param index The index of the point.
+         * @param heapSize The number of points in the heap.
+         * @return The new number of points in the heap.
+         */
+        private int push(int index, int heapSize) {
+            heap[heapSize] = index;
+            heapPositions[index] = heapSize;
+            siftUp(heapSize);
+            return heapSize + 1;
+        }
+
+        /**
+         * Removes the first point from the heap.
+         * @param heapSize The number of points in the heap.
+         * @return The new number of points in the heap.
+         */
+        private int pop(int heapSize) {
+            heapPositions[heap[0]] = -1;
+            heapSize--;
+            if (heapSize > 0) {
+                heap[0] = heap[heapSize];
+                heapPositions[heap[0]] = 0;
+                siftDown(0, heapSize);
+            }
+            return heapSize;
+        }
+
+        /**
+         * Moves a point up the heap until its parent comes before it.
+         * @param position The position of the point.
+         */
+        private void siftUp(int position) {
+            int index = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) >>> 1;
+                if (!precedes(index, heap[parent])) break;
+
+                heap[position] = heap[parent];
+                heapPositions[heap[position]] = position;
+                position = parent;
+            }
+            heap[position] = index;
+            heapPositions[index] = position;
+        }
+
+        /**
+         * Moves a point down the heap until it comes before its children.
+         * @param position The position of the point.
+         * @param heapSize The number of points in the heap.
+         */
+        private void siftDown(int position, int heapSize) {
+            int index = heap[position];
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && precedes(heap[child + 1], heap[child])) child++;
+                if (!precedes(heap[child], index)) break;
+
+                heap[position] = heap[child];
+                heapPositions[heap[position]] = position;
+                position = child;
+            }
+            heap[position] = index;
+            heapPositions[index] = position;
+        }
+    }
+
+    /**
+     * Constructs a newly allocated {@link PlacementEvaluator} object for the end zone at {@link ArenaManager#END_X}, {@link ArenaManager#END_Y}
+     * on the common pool.
+     */
+    public PlacementEvaluator() {
+        this(new short[] { ArenaManager.END_X, ArenaManager.END_Y }, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a newly allocated {@link PlacementEvaluator} object for several end zones.
+     * @param goals The x- and y-coordinates of a point in each end zone in turn, as passed to the scalar fields.
+     * @param pool The pool on which the grids are evaluated.
+     * @throws IllegalArgumentException If there is no end zone or an end zone is outside the arena.
+     */
+    public PlacementEvaluator(short[] goals, ForkJoinPool pool) throws IllegalArgumentException {
+        this.sources = FieldObstacles.indexGoals(goals);
+        this.start = solver.indexOf(ArenaManager.STARTING_X, ArenaManager.STARTING_Y);
+        this.pool = pool;
+
+        for (int source : sources) isSource[source] = true;
+    }
+
+    /**
+     * Evaluates building a tower on each grid where a tower can be built.
+     * @param towers The towers on the arena.
+     * @param buildability The grids where a tower can be built.
+     * @param attacksPerFrame The attacks per frame of the new tower, which is the reciprocal of its reload time.
+     * @param minRange The minimum range of the new tower.
+     * @param maxRange The maximum range of the new tower.
+     * @return The change to the distance and the attacks from the starting position for each grid.
+     * @throws IllegalArgumentException If the ranges are negative or the minimum range exceeds the maximum range.
+     */
+    public Impacts evaluate(List<Tower> towers, BuildabilityMap buildability, float attacksPerFrame, short minRange, short maxRange)
+            throws IllegalArgumentException {
+        FieldObstacles obstacles = new FieldObstacles();
+        obstacles.update(FieldObstacles.snapshot(towers));
+
+        float[] weights = new float[WIDTH * HEIGHT];
+        for (Tower tower : towers) addRing(weights, 1f / tower.getReload(), tower.getX(), tower.getY(), tower.getMinRange(), tower.getMaxRange());
+
+        int numGridsX = ArenaManager.getMaxHorizontalGrids(), numGridsY = ArenaManager.getMaxVerticalGrids();
+        boolean[] isCandidateGrid = new boolean[numGridsX * numGridsY];
+        for (int gridX = 0; gridX < numGridsX; gridX++) {
+            for (int gridY = 0; gridY < numGridsY; gridY++) isCandidateGrid[gridX * numGridsY + gridY] = buildability.canBuildTowerOnGrid(gridX, gridY);
+        }
+
+        return evaluate(obstacles.blocked, weights, isCandidateGrid, attacksPerFrame, minRange, maxRange);
+    }
+
+    /**
+     * Evaluates building a tower on each of a set of grids.
+     * @param blocked Whether each point is blocked by the current towers.
+     * @param weights The current attacks per frame on each point.
+     * @param isCandidateGrid Whether to evaluate each grid, indexed by <code>gridX * numGridsY + gridY</code>.
+     * @param attacksPerFrame The attacks per frame of the new tower.
+     * @param minRange The minimum range of the new tower.
+     * @param maxRange The maximum range of the new tower.
+     * @return The change to the distance and the attacks from the starting position for each grid.
+     * @throws IllegalArgumentException If the ranges are negative or the minimum range exceeds the maximum range.
+     */
+    synchronized Impacts evaluate(boolean[] blocked, float[] weights, boolean[] isCandidateGrid, float attacksPerFrame, short minRange, short maxRange)
+            throws IllegalArgumentException {
+        if (minRange < 0 || maxRange < minRange) throw new IllegalArgumentException(String.format("The ranges must be ordered and non-negative. Value: [%d, %d]", minRange, maxRange));
+
+        int[] distances = new int[WIDTH * HEIGHT];
+        int[] distanceParents = new int[distances.length];
+        float[] attacks = new float[distances.length];
+        int[] attacksParents = new int[distances.length];
+        solver.solve(distances, distanceParents, blocked, sources);
+        solver.solve(attacks, attacksParents, blocked, weights, MonsterAttacksToEndField.MOVEMENT_COST, sources);
+
+        int numGridsX = ArenaManager.getMaxHorizontalGrids(), numGridsY = ArenaManager.getMaxVerticalGrids();
+        Impacts impacts = new Impacts(numGridsX, numGridsY, distances[start], attacks[start]);
+        if (distances[start] == GridFieldSolver.UNREACHABLE) return impacts;
+
+        int[] distancePath = tracePath(distanceParents);
+        int[] attacksPath = tracePath(attacksParents);
+        int minRangeSquared = minRange * minRange, maxRangeSquared = maxRange * maxRange;
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int gridX = 0; gridX < numGridsX; gridX++) {
+            for (int gridY = 0; gridY < numGridsY; gridY++) {
+                int grid = gridX * numGridsY + gridY;
+                if (!isCandidateGrid[grid]) continue;
+                impacts.isEvaluated[grid] = true;
+
+                // The last grid in each direction also contains the far edge of the arena
+                int startX = gridX * ArenaManager.GRID_WIDTH;
+                int endX = gridX == numGridsX - 1 ? ArenaManager.ARENA_WIDTH : startX + ArenaManager.GRID_WIDTH - 1;
+                int startY = gridY * ArenaManager.GRID_HEIGHT;
+                int endY = gridY == numGridsY - 1 ? ArenaManager.ARENA_HEIGHT : startY + ArenaManager.GRID_HEIGHT - 1;
+                Candidate candidate = new Candidate(grid, startX, endX, startY, endY, false, false);
+
+                // A path that avoids the grid and the ring keeps its cost, and no path can become cheaper
+                boolean isDistanceChanged = false, isAttacksChanged = false;
+                for (int index : distancePath) isDistanceChanged |= candidate.contains(index / HEIGHT, index % HEIGHT);
+                for (int i = 0; i < attacksPath.length && !isAttacksChanged; i++) {
+                    int x = attacksPath[i] / HEIGHT, y = attacksPath[i] % HEIGHT;
+
+                    // The cost of a path includes the attacks on every point except the end zone
+                    isAttacksChanged = candidate.contains(x, y) || (attacksPerFrame != 0 && i < attacksPath.length - 1
+                            && candidate.isInRing(x, y, minRangeSquared, maxRangeSquared));
+                }
+
+                if (isDistanceChanged || isAttacksChanged) {
+                    candidates.add(new Candidate(grid, startX, endX, startY, endY, isDistanceChanged, isAttacksChanged));
+                }
+            }
+        }
+        impacts.numSearched = candidates.size();
+        if (candidates.isEmpty()) return impacts;
+
+        float[] distanceBounds = new float[distances.length];
+        for (int i = 0; i < distances.length; i++) {
+            distanceBounds[i] = distances[i] == GridFieldSolver.UNREACHABLE ? Float.POSITIVE_INFINITY : distances[i];
+        }
+
+        Evaluation evaluation = new Evaluation(blocked, weights, distanceBounds, attacks, attacksPerFrame, minRange, maxRange,
+                candidates.toArray(new Candidate[0]), impacts);
+        pool.invoke(new CandidateRange(evaluation, 0, evaluation.candidates.length));
+        return impacts;
+    }
+
+    /**
+     * Adds the attacks per frame of a tower to each point within its ring, as {@link MonsterAttacksToEndField} does.
+     * @param weights The attacks per frame on each point.
+     * @param amount The attacks per frame of the tower.
+     * @param centerX The center x-coordinate of the ring.
+     * @param centerY The center y-coordinate of the ring.
+     * @param minRadius The minimum radius of the ring.
+     * @param maxRadius The maximum radius of the ring.
+     */
+    static void addRing(float[] weights, float amount, short centerX, short centerY, short minRadius, short maxRadius) {
+        int startX = Math.max(0, centerX - maxRadius), endX = Math.min(WIDTH - 1, centerX + maxRadius);
+        int startY = Math.max(0, centerY - maxRadius), endY = Math.min(HEIGHT - 1, centerY + maxRadius);
+        for (int x = startX; x <= endX; x++) {
+            for (int y = startY; y <= endY; y++) {
+                int distanceSquared = (x - centerX) * (x - centerX) + (y - centerY) * (y - centerY);
+                if (distanceSquared >= minRadius * minRadius && distanceSquared <= maxRadius * maxRadius) weights[x * HEIGHT + y] += amount;
+            }
+        }
+    }
+
+    /**
+     * Returns the shortest path from the starting position to the end zone.
+     * @param parents The next point on the shortest path from each point, as found by {@link GridFieldSolver}.
+     * @return The indices of the points on the path, from the starting position to the end zone.
+     */
+    private int[] tracePath(int[] parents) {
+        int length = 1;
+        for (int index = start; parents[index] != GridFieldSolver.NO_PARENT; index = parents[index]) length++;
+
+        int[] path = new int[length];
+        path[0] = start;
+        for (int i = 1; i < length; i++) path[i] = parents[path[i - 1]];
+        return path;
+    }
+}
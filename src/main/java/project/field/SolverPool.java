@@ -0,0 +1,94 @@
+package project.field;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import project.control.ArenaManager;
+
+/**
+ * A pool of solvers for the size of the arena, shared by the scalar fields of every arena,
+ * so that the work arrays of a solver are only allocated once for all the fields that do not solve at the same time.
+ * <p>
+ * Each solver acquired from the pool should be released as soon as the calculation has finished.
+ * A solver whose calculation has thrown is not released, as its work arrays may be left in an inconsistent state.
+ * The pool only grows to the number of calculations that run at the same time,
+ * so the fields of all arenas updated on one thread share one solver of each kind.
+ * The pool is thread-safe.
+ * @param <TSolver> The type of the solvers.
+ */
+final class SolverPool<TSolver> {
+
+    /**
+     * The solvers that calculate a field sequentially.
+     */
+    static final SolverPool<GridFieldSolver> GRID = new SolverPool<>(
+            () -> new GridFieldSolver(ArenaManager.ARENA_WIDTH + 1, ArenaManager.ARENA_HEIGHT + 1));
+
+    /**
+     * The solvers that recalculate an entire field in parallel. Only used if the parallel mode is enabled.
+     */
+    static final SolverPool<ParallelGridFieldSolver> PARALLEL = new SolverPool<>(
+            () -> new ParallelGridFieldSolver(ArenaManager.ARENA_WIDTH + 1, ArenaManager.ARENA_HEIGHT + 1));
+
+    /**
+     * The solvers that calculate a field at a coarser resolution. Only used if the coarse mode is enabled.
+     */
+    static final SolverPool<CoarseFieldSolver> COARSE = new SolverPool<>(
+            () -> new CoarseFieldSolver(ArenaManager.ARENA_WIDTH + 1, ArenaManager.ARENA_HEIGHT + 1, CoarseFieldSolver.getConfiguredResolution(),
+                    ArenaManager.GRID_WIDTH, ArenaManager.GRID_HEIGHT));
+
+    /**
+     * The function that creates a new solver when the pool is empty.
+     */
+    private final Supplier<TSolver> factory;
+
+    /**
+     * The solvers which are available for reuse.
+     */
+    private Object[] available = new Object[4];
+
+    /**
+     * The number of solvers which are available for reuse.
+     */
+    private int numAvailable = 0;
+
+    /**
+     * Constructs a newly allocated {@link SolverPool} object.
+     * @param factory The function that creates a new solver when the pool is empty.
+     */
+    SolverPool(Supplier<TSolver> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Takes a solver from the pool, creating one if the pool is empty.
+     * @return A solver that is not used by any other calculation.
+     */
+    @SuppressWarnings("unchecked")
+    TSolver acquire() {
+        synchronized (this) {
+            if (numAvailable > 0) {
+                TSolver solver = (TSolver) available[--numAvailable];
+                available[numAvailable] = null;
+                return solver;
+            }
+        }
+
+        return factory.get();
+    }
+
+    /**
+     * Returns a solver to the pool.
+     * @param solver The solver, which should not be used by the caller afterwards.
+     */
+    synchronized void release(TSolver solver) {
+        if (numAvailable == available.length) available = Arrays.copyOf(available, available.length * 2);
+        available[numAvailable++] = solver;
+    }
+
+    /**
+     * Returns the number of solvers which are available for reuse.
+     * @return The number of solvers which are available for reuse.
+     */
+    synchronized int getNumAvailable() { return numAvailable; }
+}
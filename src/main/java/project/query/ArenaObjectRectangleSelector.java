@@ -131,7 +131,7 @@ public class ArenaObjectRectangleSelector implements ArenaObjectSelector {
 
             for (short x = startX; x <= endX; x++) {
                 for (ArenaObject o : index.get(x)) {
-                    if (o.getY() < startY || o.getY() > endY) continue;
+                    if (!isInSelection(o)) continue;
                     if (isAllSatisfied(o, types, filters)) result.add(o);
                 }
             }
@@ -140,7 +140,7 @@ public class ArenaObjectRectangleSelector implements ArenaObjectSelector {
 
             for (short y = startY; y <= endY; y++) {
                 for (ArenaObject o : index.get(y)) {
-                    if (o.getX() < startX || o.getX() > endX) continue;
+                    if (!isInSelection(o)) continue;
                     if (isAllSatisfied(o, types, filters)) result.add(o);
                 }
             }
@@ -13,12 +13,18 @@ import project.entity.Monster;
 import project.entity.Projectile;
 import project.entity.Tower;
 import project.event.EventHandler;
+import project.event.SubscriptionGroup;
 import project.event.eventargs.ArenaObjectEventArgs;
+import project.event.eventargs.ArenaObjectMoveBatchEventArgs;
 
 /**
  * Manages the storage of objects in the {@link ArenaInstance}.
  * 
  * Add or remove objects from this storage by invoking the events in {@link ArenaManager#getActiveEventRegister()}.
+ * 
+ * While a move batch is open, the position-based index is brought up to date lazily: the first read of the index after
+ * some moves applies the moves that are pending in the batch, without delivering it, and the moves that have already been
+ * applied are skipped when the batch is delivered. Queries made during a frame are therefore exact.
  */
 @Entity(name="ArenaObjectStorage")
 public final class ArenaObjectStorage {
@@ -152,6 +158,30 @@ public final class ArenaObjectStorage {
 
     }
 
+    /**
+     * The register of events that the storage is subscribed to, or <code>null</code> if it is not attached to an arena.
+     */
+    @Transient
+    private ArenaEventRegister register;
+
+    /**
+     * The undelivered move batch whose first moves have been applied to the position-based index, or <code>null</code> if none.
+     */
+    @Transient
+    private ArenaObjectMoveBatchEventArgs appliedBatch;
+
+    /**
+     * The number of moves in {@link #appliedBatch} that have been applied to the position-based index.
+     */
+    @Transient
+    private int numAppliedMoves = 0;
+
+    /**
+     * The batch that is being delivered after all of its moves have been applied to the position-based index, or <code>null</code> if none.
+     */
+    @Transient
+    private ArenaObjectMoveBatchEventArgs completedBatch;
+
     /**
      * The method invoked when an {@link ArenaObject} is being added.
      */
@@ -257,32 +287,103 @@ public final class ArenaObjectStorage {
     };
 
     /**
-     * Default constructor.
+     * The method invoked when multiple {@link ArenaObject}s have been moved.
+     * The moves that have already been applied by {@link #applyPendingMoves()} are skipped.
      */
-    public ArenaObjectStorage() {}
+    @Transient
+    private EventHandler<ArenaObjectMoveBatchEventArgs> onMoveObjects = (sender, args) -> {
+        int from = 0;
+        if (args == completedBatch) {
+            from = args.size;
+            completedBatch = null;
+        } else if (args == appliedBatch) {
+            from = numAppliedMoves;
+            appliedBatch = null;
+            numAppliedMoves = 0;
+        }
+
+        applyMoves(args, from, args.size);
+    };
 
     /**
-     * register objects to the arena.
+     * Applies part of a move batch to the position-based index.
+     * The index is only touched for the coordinates that have changed.
+     * @param batch The move batch.
+     * @param from The index of the first move to apply, inclusive.
+     * @param to The index of the last move to apply, exclusive.
+     */
+    private void applyMoves(ArenaObjectMoveBatchEventArgs batch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            ArenaObject subject = batch.subjects[i];
+            short oldX = batch.oldX[i];
+            short oldY = batch.oldY[i];
+            short newX = batch.newX[i];
+            short newY = batch.newY[i];
+
+            if (oldX != newX) {
+                List<ArenaObject> xList_old = objectsAtX.get(oldX);
+                assert (xList_old.contains(subject));
+                xList_old.remove(subject);
+                objectsAtX.get(newX).add(subject);
+            }
+
+            if (oldY != newY) {
+                List<ArenaObject> yList_old = objectsAtY.get(oldY);
+                assert (yList_old.contains(subject));
+                yList_old.remove(subject);
+                objectsAtY.get(newY).add(subject);
+            }
+        }
+    }
+
+    /**
+     * Brings the position-based index up to date with the moves that are pending in the current move batch, without delivering it.
      */
-    @PostLoad
-    protected void registerMoves() {
-        ArenaEventRegister register = ArenaManager.getActiveEventRegister();
-        register.ARENA_OBJECT_ADD.subscribe(onAddObject);
-        register.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject);
-        register.ARENA_OBJECT_MOVE_START.subscribe(onStartMoveObject);
-        register.ARENA_OBJECT_MOVE_END.subscribe(onEndMoveObject);
+    private void applyPendingMoves() {
+        if (register == null) return;
+
+        ArenaObjectMoveBatchEventArgs pending = register.getPendingMoves();
+        if (pending != appliedBatch) {
+            // The previous batch is being delivered to the subscribers before this storage
+            if (appliedBatch != null) {
+                applyMoves(appliedBatch, numAppliedMoves, appliedBatch.size);
+                completedBatch = appliedBatch;
+            }
+            appliedBatch = pending;
+            numAppliedMoves = 0;
+        }
+
+        applyMoves(pending, numAppliedMoves, pending.size);
+        numAppliedMoves = pending.size;
     }
 
+    /**
+     * Default constructor.
+     */
+    public ArenaObjectStorage() {}
+
     /**
      * Constructs a newly allocated {@link ArenaObjectStorage} object and attaches it to an arena instance.
      * @param arenaInstance The arena instance.
      */
     public ArenaObjectStorage(ArenaInstance arenaInstance) {
-        ArenaEventRegister register = arenaInstance.getEventRegister();
-        register.ARENA_OBJECT_ADD.subscribe(onAddObject);
-        register.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject);
-        register.ARENA_OBJECT_MOVE_START.subscribe(onStartMoveObject);
-        register.ARENA_OBJECT_MOVE_END.subscribe(onEndMoveObject);
+        attachToArena(arenaInstance);
+    }
+
+    /**
+     * Subscribes the storage to each event of an arena instance.
+     * A storage generated from the database is attached by the arena instance that owns it, once that has been loaded.
+     * @param arenaInstance The arena instance to attach to.
+     */
+    public void attachToArena(ArenaInstance arenaInstance) {
+        SubscriptionGroup subscriptions = arenaInstance.getSubscriptions();
+
+        this.register = arenaInstance.getEventRegister();
+        register.ARENA_OBJECT_ADD.subscribe(onAddObject, subscriptions);
+        register.ARENA_OBJECT_REMOVE.subscribe(onRemoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_START.subscribe(onStartMoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_END.subscribe(onEndMoveObject, subscriptions);
+        register.ARENA_OBJECT_MOVE_BATCH.subscribe(onMoveObjects, subscriptions);
     }
 
     /**
@@ -297,18 +398,20 @@ public final class ArenaObjectStorage {
     }
 
     /**
-     * Returns the index for x-coordinate.
+     * Returns the index for x-coordinate, after applying the pending moves.
      * @return The index for x-coordinate.
      */
     ArrayList<List<ArenaObject>> getXIndex() {
+        applyPendingMoves();
         return objectsAtX;
     }
 
     /**
-     * Returns the index for y-coordinate.
+     * Returns the index for y-coordinate, after applying the pending moves.
      * @return The index for y-coordinate.
      */
     ArrayList<List<ArenaObject>> getYIndex() {
+        applyPendingMoves();
         return objectsAtY;
     }
 
@@ -4,6 +4,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
@@ -38,16 +40,23 @@ import javafx.util.Duration;
 import org.springframework.web.client.RestTemplate;
 import project.Player;
 import project.arena.ArenaInstance;
+import project.arena.ArenaRenderer;
 import project.control.ArenaManager;
+import project.entity.ArenaObject;
 import project.entity.ArenaObjectFactory;
+import project.entity.Monster;
 import project.entity.Tower;
 import project.entity.ArenaObjectFactory.TowerType;
 import project.event.EventHandler;
+import project.event.EventManager;
+import project.event.EventManager.Backpressure;
+import project.event.Subscription;
+import project.event.eventargs.ArenaGameOverEventArgs;
 import project.event.eventargs.EventArgs;
 import project.util.Geometry;
 
 
-public class UIController {
+public class UIController implements ArenaRenderer {
     @FXML
     private Button buttonNextFrame;
 
@@ -153,23 +162,53 @@ public class UIController {
      */
     private Label grids[][] = new Label[ArenaManager.getMaxVerticalGrids()][ArenaManager.getMaxHorizontalGrids()];
 
+    /**
+     * The executor on which the scores are sent to the leaderboard, so that the game does not wait for the server.
+     */
+    private static final Executor LEADERBOARD_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "leaderboard");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The executor on which the scalar fields are recalculated, so that building a tower does not freeze the game.
+     */
+    private static final Executor FIELD_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "scalar-field");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The number of frames for which the monsters may move on a previous version of a scalar field,
+     * unless a tower has been built or moved or the field has been resumed since, in which case the next frame waits for the new version.
+     */
+    private static final int MAX_FIELD_STALE_FRAMES = 2;
+
     /**
      * The method invoked when the game is over.
+     * It is subscribed weakly, so the arena does not keep the controller reachable.
      */
-    private EventHandler<EventArgs> onGameover = (sender, args) -> {
+    private EventHandler<ArenaGameOverEventArgs> onGameover = (sender, args) -> {
         System.out.println("Gameover");
 
-        if(mode==GameMode.PLAY){
-            RestTemplate restTemplate = new RestTemplate();
-            String url ="http://localhost:8080/players/add_post";
-            Player result =  restTemplate.postForObject(url, player,Player.class);
-            System.out.println(result);
-        }
         mode = GameMode.END;
         enableGameButton();
         showAlert("Gameover","Gameover").setOnCloseRequest(e -> resetGame());
     };
 
+    /**
+     * The method invoked on {@link #LEADERBOARD_EXECUTOR} when a game that is played is over.
+     * It only reads the snapshot of the player in the event data, not the arena that sent the event.
+     */
+    private EventHandler<ArenaGameOverEventArgs> onRecordScore = (sender, args) -> {
+        RestTemplate restTemplate = new RestTemplate();
+        String url ="http://localhost:8080/players/add_post";
+        Player result =  restTemplate.postForObject(url, args.player, Player.class);
+        System.out.println(result);
+    };
+
     /**
      * A function that create the Arena
      */
@@ -229,7 +268,8 @@ public class UIController {
         remainingResources.textProperty().bind(Bindings.format("Money: %d", player.resourcesProperty()));
         labelScore.textProperty().bind(Bindings.format("Score: %d", player.scoreProperty()));
         ArenaManager.loadNew(this, player);
-        ArenaManager.getActiveEventRegister().ARENA_GAME_OVER.subscribe(onGameover);
+        ArenaManager.getActiveEventRegister().ARENA_GAME_OVER.subscribeWeak(onGameover, ArenaManager.getActiveArenaInstance().getSubscriptions());
+        ArenaManager.getActiveScalarFieldRegister().setBackgroundExecutor(FIELD_EXECUTOR, MAX_FIELD_STALE_FRAMES);
     }
 
     /**
@@ -240,7 +280,8 @@ public class UIController {
         player = arenaInstance.getPlayer();
         remainingResources.textProperty().bind(Bindings.format("Money: %d", player.resourcesProperty()));
         labelScore.textProperty().bind(Bindings.format("Score: %d", player.scoreProperty()));
-        ArenaManager.getActiveEventRegister().ARENA_GAME_OVER.subscribe(onGameover);
+        ArenaManager.getActiveEventRegister().ARENA_GAME_OVER.subscribeWeak(onGameover, ArenaManager.getActiveArenaInstance().getSubscriptions());
+        ArenaManager.getActiveScalarFieldRegister().setBackgroundExecutor(FIELD_EXECUTOR, MAX_FIELD_STALE_FRAMES);
         enableGameButton();
     }
 
@@ -265,8 +306,7 @@ public class UIController {
                 removeFromPane(n);
             }
 
-            ArenaManager.getActiveEventRegister().ARENA_NEXT_FRAME.invoke(this, new EventArgs());
-            ArenaManager.getActiveEventRegister().ARENA_NEXT_FRAME_END.invoke(this, new EventArgs());
+            ArenaManager.getActiveArenaInstance().processNextFrame(this);
         }
     }
 
@@ -329,6 +369,17 @@ public class UIController {
             resetGame();
 
         mode = gameMode;
+
+        // Only the games that are played are recorded on the leaderboard
+        EventManager<ArenaGameOverEventArgs> gameOver = ArenaManager.getActiveEventRegister().ARENA_GAME_OVER;
+        if (mode == GameMode.PLAY) {
+            if (gameOver.subscribeAsync(onRecordScore, LEADERBOARD_EXECUTOR, 1, Backpressure.DROP)) {
+                ArenaManager.getActiveArenaInstance().getSubscriptions().add(new Subscription<>(gameOver, onRecordScore));
+            }
+        } else {
+            gameOver.unsubscribe(onRecordScore);
+        }
+
         disableGameButton();
         timeline = new Timeline(new KeyFrame(Duration.seconds(0.2), e -> nextFrame()));
         timeline.setCycleCount(Timeline.INDEFINITE);
@@ -572,7 +623,11 @@ public class UIController {
         vb.getChildren().addAll(upgradeBtn, destroyBtn);
 
         upgradeBtn.setOnAction(e2 -> {
-            t.tryUpgrade();
+            if (t.tryUpgrade()) {
+                System.out.println(String.format("%s is being upgraded", t.getDisplayName()));
+            } else {
+                System.out.println(String.format("not enough resource to upgrade %s", t.getDisplayName()));
+            }
             paneArena.getChildren().remove(vb);
         });
         destroyBtn.setOnAction(e2 -> {
@@ -614,6 +669,42 @@ public class UIController {
         Platform.runLater(() -> paneArena.getChildren().remove(n));
     }
 
+    /**
+     * {@inheritDoc}
+     * The ImageView of the object is added to the {@link AnchorPane}, and a monster also shows its health in a tooltip.
+     */
+    @Override
+    public void addObject(ArenaObject object) {
+        if (object instanceof Monster) ((Monster) object).setupTooltip();
+        addToPane(object.getImageView());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeObject(ArenaObject object) {
+        removeFromPane(object.getImageView());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void drawExplosion(short x, short y, int duration) {
+        Image img = new Image("/collision.png", ArenaManager.GRID_WIDTH / 4, ArenaManager.GRID_WIDTH / 4, true, true);
+        drawImage(img, x, y, duration);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The change is run later on the JavaFX application thread.
+     */
+    @Override
+    public void runOnRenderThread(Runnable action) {
+        Platform.runLater(action);
+    }
+
     /**
      * Draws an image at a specified point.
      * @param img The image.
@@ -637,6 +728,7 @@ public class UIController {
      * @param targetY The y-coordinate of the target point.
      * @param duration The duration in number of frames that the ray will remain on the arena.
      */
+    @Override
     public void drawRay(short sourceX, short sourceY, short targetX, short targetY, int duration) {
         Point2D edgePt = Geometry.intersectBox(sourceX, sourceY, targetX, targetY,
                                                     0, 0, ArenaManager.ARENA_WIDTH, ArenaManager.ARENA_HEIGHT);
@@ -655,6 +747,7 @@ public class UIController {
      * @param radius The radius of the circle.
      * @param duration The duration in number of frames that the circle will remain on the arena.
      */
+    @Override
     public void drawCircle(short centerX, short centerY, short radius, int duration) {
         Circle circle = new Circle(centerX, centerY, radius);
         circle.setFill(Color.rgb(128, 64, 0));
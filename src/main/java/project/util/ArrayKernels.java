@@ -0,0 +1,47 @@
+package project.util;
+
+/**
+ * Helper class to implement arithmetic over arrays of numbers.
+ * <p>
+ * The loops are unrolled into independent lanes and only use plain arithmetic and comparisons,
+ * so that the processor can overlap consecutive iterations without depending on an incubating vector API.
+ */
+public final class ArrayKernels {
+    private ArrayKernels() {}
+
+    /**
+     * Widens a range to include the finite values in part of an array. Infinities and NaN are ignored.
+     * @param values The array.
+     * @param from The index of the first value, inclusive.
+     * @param to The index of the last value, exclusive.
+     * @param range The minimum value followed by the maximum value, which are updated in place.
+     */
+    public static void findFiniteRange(double[] values, int from, int to, double[] range) {
+        // Independent lanes, so that consecutive comparisons do not wait for each other
+        double min0 = range[0], min1 = range[0], min2 = range[0], min3 = range[0];
+        double max0 = range[1], max1 = range[1], max2 = range[1], max3 = range[1];
+
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            double value0 = values[i], value1 = values[i + 1], value2 = values[i + 2], value3 = values[i + 3];
+
+            // Comparisons with NaN are false, and each infinity can only be an extreme on one side
+            if (value0 < min0 && value0 != Double.NEGATIVE_INFINITY) min0 = value0;
+            if (value1 < min1 && value1 != Double.NEGATIVE_INFINITY) min1 = value1;
+            if (value2 < min2 && value2 != Double.NEGATIVE_INFINITY) min2 = value2;
+            if (value3 < min3 && value3 != Double.NEGATIVE_INFINITY) min3 = value3;
+            if (value0 > max0 && value0 != Double.POSITIVE_INFINITY) max0 = value0;
+            if (value1 > max1 && value1 != Double.POSITIVE_INFINITY) max1 = value1;
+            if (value2 > max2 && value2 != Double.POSITIVE_INFINITY) max2 = value2;
+            if (value3 > max3 && value3 != Double.POSITIVE_INFINITY) max3 = value3;
+        }
+        for (; i < to; i++) {
+            double value = values[i];
+            if (value < min0 && value != Double.NEGATIVE_INFINITY) min0 = value;
+            if (value > max0 && value != Double.POSITIVE_INFINITY) max0 = value;
+        }
+
+        range[0] = Math.min(Math.min(min0, min1), Math.min(min2, min3));
+        range[1] = Math.max(Math.max(max0, max1), Math.max(max2, max3));
+    }
+}
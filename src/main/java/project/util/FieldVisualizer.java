@@ -2,6 +2,8 @@ package project.util;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
 
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
@@ -9,6 +11,7 @@ import javax.swing.JLabel;
 
 import project.control.ArenaManager;
 import project.field.ArenaScalarField;
+import project.field.MappedArenaScalarField;
 
 /**
  * Helper class to visualize numerical 2D arrays.
@@ -90,29 +93,51 @@ public final class FieldVisualizer {
         visualizeDoubleArray(doubles);
     }
 
+    /**
+     * Visualizes a consistent version of a scalar field that is published to a memory-mapped file,
+     * possibly by another process.
+     * @param path The path of the file.
+     */
+    public static void visualizeMappedField(Path path) {
+        try (MappedArenaScalarField<?> field = MappedArenaScalarField.open(path)) {
+            int width = field.getWidth();
+            int height = field.getHeight();
+            double[][] doubles = new double[width][height];
+
+            if (field instanceof MappedArenaScalarField.OfInt) {
+                int[] values = new int[width * height];
+                ((MappedArenaScalarField.OfInt) field).read(values);
+                for (int i = 0; i < values.length; i++) {
+                    doubles[i / height][i % height] = values[i] == Integer.MAX_VALUE ? Double.POSITIVE_INFINITY : values[i];
+                }
+            } else {
+                float[] values = new float[width * height];
+                ((MappedArenaScalarField.OfFloat) field).read(values);
+                for (int i = 0; i < values.length; i++) doubles[i / height][i % height] = values[i];
+            }
+
+            visualizeDoubleArray(doubles);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Unable to read the scalar field from " + path + ": " + e.getMessage());
+        }
+    }
+
     /**
      * Visualizes an array of doubles as a heat map. Colors range from blue (smallest value) to red (largest value).
      * @param arr The array to visualize.
      */
     public static void visualizeDoubleArray(double[][] arr) {
-        double maxValue = 0;
-        double minValue = 0;
+        double[] range = { 0, 0 };
         int width = arr.length;
         int height = 0;
 
         // Get max and min values
         for (int i = 0; i < width; i++) {
             if (arr[i].length > height) height = arr[i].length;
-
-            for (int j = 0; j < height; j++) {
-                double value = arr[i][j];
-
-                if (value != Double.POSITIVE_INFINITY && value != Double.NEGATIVE_INFINITY) {
-                    if (value < minValue) minValue = value;
-                    if (value > maxValue) maxValue = value;
-                }
-            }
+            ArrayKernels.findFiniteRange(arr[i], 0, arr[i].length, range);
         }
+        double minValue = range[0];
+        double maxValue = range[1];
 
         // Initialize the display array
         openArray = new double[width][height];
@@ -100,6 +100,9 @@ public class JavaFXTester extends ApplicationTest {
 		this.primaryStage.show();
 		this.appController = (UIController)loader.getController();
 		this.appController.createArena();
+
+		// The tests expect the scalar fields to be up to date as soon as the arena changes
+		ArenaManager.getActiveScalarFieldRegister().setBackgroundExecutor(null, 0);
 	}
 
 	/**
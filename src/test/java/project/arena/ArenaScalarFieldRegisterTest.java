@@ -0,0 +1,93 @@
+package project.arena;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Test;
+
+import project.Player;
+import project.control.ArenaManager;
+import project.field.MonsterAttacksToEndField;
+
+/**
+ * Tests the {@link ArenaScalarFieldRegister} class.
+ */
+public class ArenaScalarFieldRegisterTest {
+
+    private int numCreated = 0;
+
+    // Another kind of field, which each arena only creates when it is requested
+    private final ArenaScalarFieldRegister.FieldKey<MonsterAttacksToEndField> key = new ArenaScalarFieldRegister.FieldKey<>(arenaInstance -> {
+        numCreated++;
+        return new MonsterAttacksToEndField(arenaInstance);
+    });
+
+    @After
+    public void tearDown() {
+        ArenaManager.getActiveArenaInstance().dispose();
+    }
+
+    @Test
+    public void testBuiltInFields() {
+        ArenaManager.loadHeadless(new HeadlessArenaRenderer(), new Player("headless", 0));
+        ArenaScalarFieldRegister register = ArenaManager.getActiveScalarFieldRegister();
+
+        assertSame(register.MONSTER_DISTANCE_TO_END, register.getField(ArenaScalarFieldRegister.DISTANCE_TO_END));
+        assertSame(register.MONSTER_ATTACKS_TO_END, register.getField(ArenaScalarFieldRegister.ATTACKS_TO_END));
+        assertFalse(register.MONSTER_DISTANCE_TO_END.isActive());
+        assertFalse(register.MONSTER_ATTACKS_TO_END.isActive());
+    }
+
+    @Test
+    public void testDefaultGoal() {
+        ArenaManager.loadHeadless(new HeadlessArenaRenderer(), new Player("headless", 0));
+        ArenaScalarFieldRegister register = ArenaManager.getActiveScalarFieldRegister();
+
+        // Without configured end zones, every monster heads for the default one
+        assertEquals(1, register.getNumGoals());
+        assertEquals(ArenaManager.END_X, register.getGoalX(0));
+        assertEquals(ArenaManager.END_Y, register.getGoalY(0));
+        assertEquals(0, register.getNearestGoalAt(register.MONSTER_ATTACKS_TO_END, ArenaManager.STARTING_X, ArenaManager.STARTING_Y));
+    }
+
+    @Test
+    public void testLazyField() {
+        ArenaManager.loadHeadless(new HeadlessArenaRenderer(), new Player("headless", 0));
+        ArenaScalarFieldRegister register = ArenaManager.getActiveScalarFieldRegister();
+        Executor executor = Runnable::run;
+        register.setBackgroundExecutor(executor, 0);
+
+        // The field is only created when it is first requested, and then once per arena
+        assertFalse(register.hasField(key));
+        assertEquals(0, numCreated);
+        MonsterAttacksToEndField field = register.getField(key);
+        assertTrue(register.hasField(key));
+        assertSame(field, register.getField(key));
+        assertEquals(1, numCreated);
+        assertSame(executor, field.getExecutor());
+        assertFalse(field.isActive());
+
+        // It is warmed up ahead of a wave like the built-in fields
+        register.beginWarmUp();
+        assertTrue(field.isActive());
+        register.endWarmUp();
+        assertFalse(field.isActive());
+
+        // A field created during the warm up is released at its end
+        ArenaManager.loadHeadless(new HeadlessArenaRenderer(), new Player("headless", 0));
+        register = ArenaManager.getActiveScalarFieldRegister();
+        register.beginWarmUp();
+        MonsterAttacksToEndField other = register.getField(key);
+        assertNotSame(field, other);
+        assertEquals(2, numCreated);
+        assertTrue(other.isActive());
+        register.endWarmUp();
+        assertFalse(other.isActive());
+    }
+}
@@ -0,0 +1,156 @@
+package project.arena;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+import project.Player;
+import project.control.ArenaManager;
+import project.entity.ArenaObject;
+import project.entity.ArenaObjectFactory;
+import project.entity.ArenaObjectFactory.TowerType;
+import project.entity.Monster;
+import project.entity.Tower;
+import project.field.ArenaScalarField;
+import project.field.DirectionField;
+import project.field.FlowField;
+
+/**
+ * Tests running an {@link ArenaInstance} without a UI controller.
+ */
+public class HeadlessSimulationTest {
+
+    // Counts what would have been displayed
+    private static final class CountingRenderer implements ArenaRenderer {
+        int numAdded = 0, numRemoved = 0, numExplosions = 0, numShapes = 0;
+
+        @Override
+        public void addObject(ArenaObject object) { numAdded++; }
+
+        @Override
+        public void removeObject(ArenaObject object) { numRemoved++; }
+
+        @Override
+        public void drawExplosion(short x, short y, int duration) { numExplosions++; }
+
+        @Override
+        public void drawRay(short sourceX, short sourceY, short targetX, short targetY, int duration) { numShapes++; }
+
+        @Override
+        public void drawCircle(short centerX, short centerY, short radius, int duration) { numShapes++; }
+
+        @Override
+        public void runOnRenderThread(Runnable action) { action.run(); }
+    }
+
+    @After
+    public void tearDown() {
+        ArenaManager.getActiveArenaInstance().dispose();
+    }
+
+    @Test
+    public void testFrames() {
+        CountingRenderer renderer = new CountingRenderer();
+        ArenaManager.loadHeadless(renderer, new Player("headless", 1000));
+        ArenaInstance arenaInstance = ArenaManager.getActiveArenaInstance();
+        arenaInstance.setRandom(new Random(3111));
+        assertEquals(renderer, ArenaManager.getActiveRenderer());
+
+        // Towers along the path of the monsters
+        for (short x = 100; x <= 340; x += 80) {
+            ArenaObjectFactory.createTower(this, TowerType.BASIC, x, (short) 60);
+        }
+        assertEquals(4, arenaInstance.getStorage().getTowers().size());
+
+        for (int i = 0; i < 200; i++) arenaInstance.processNextFrame(this);
+
+        // Monsters have spawned and been shot, and the player has been paid for them
+        assertTrue(renderer.numAdded > 4);
+        assertTrue(renderer.numRemoved > 0);
+        assertTrue(renderer.numExplosions > 0);
+        assertTrue(arenaInstance.getPlayer().getResources() > 1000);
+        assertEquals(renderer.numAdded - renderer.numRemoved, arenaInstance.getStorage().getTowers().size()
+                + arenaInstance.getStorage().getMonsters().size() + arenaInstance.getStorage().getProjectiles().size());
+    }
+
+    // Follows the flow field from a point for some steps, and returns the packed position of the next grid reached, or -1 if there is none
+    private static int getNextGrid(DirectionField directions, short x, short y, int numSteps) {
+        short gridX = ArenaManager.getGridXPosFromCoor(x);
+        short gridY = ArenaManager.getGridYPosFromCoor(y);
+        for (int n = 0; n < numSteps; n++) {
+            byte direction = directions.getDirectionAt(x, y);
+            if (direction == FlowField.NONE) return -1;
+
+            int next = FlowField.move(x, y, direction, 1);
+            x = ArenaScalarField.unpackX(next);
+            y = ArenaScalarField.unpackY(next);
+            if (ArenaManager.getGridXPosFromCoor(x) != gridX || ArenaManager.getGridYPosFromCoor(y) != gridY) {
+                return ArenaScalarField.packPoint(ArenaManager.getGridXPosFromCoor(x), ArenaManager.getGridYPosFromCoor(y));
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void testBackgroundFieldsBlockNewTowers() {
+        ArenaManager.loadHeadless(new HeadlessArenaRenderer(), new Player("headless", 0));
+        ArenaInstance arenaInstance = ArenaManager.getActiveArenaInstance();
+        ArenaScalarFieldRegister register = ArenaManager.getActiveScalarFieldRegister();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        // Slow down each recalculation so that it is still running when the next frame begins
+        register.setBackgroundExecutor(task -> executor.execute(() -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            task.run();
+        }), 2);
+
+        try {
+            int numTowers = 0;
+            for (int i = 0; i < 300; i++) {
+                // Build towers on the grids that the monsters are about to enter, while they may still be moving on the previous fields
+                for (Monster m : arenaInstance.getStorage().getMonsters()) {
+                    int next = getNextGrid(register.getDistanceToEndDirections(), m.getX(), m.getY(), (int) Math.ceil(m.getSpeed()));
+                    short gridX = ArenaScalarField.unpackX(next);
+                    short gridY = ArenaScalarField.unpackY(next);
+                    if (next != -1 && register.TOWER_BUILDABILITY.canBuildTowerOnGrid(gridX, gridY)) {
+                        ArenaObjectFactory.createTower(this, TowerType.BASIC,
+                                ArenaManager.getGridCenterXFromPos(gridX), ArenaManager.getGridCenterYFromPos(gridY));
+                        numTowers++;
+                    }
+                }
+
+                arenaInstance.processNextFrame(this);
+
+                for (Monster m : arenaInstance.getStorage().getMonsters()) {
+                    for (Tower t : arenaInstance.getStorage().getTowers()) {
+                        assertFalse(ArenaManager.getGridXPosFromCoor(m.getX()) == ArenaManager.getGridXPosFromCoor(t.getX())
+                                && ArenaManager.getGridYPosFromCoor(m.getY()) == ArenaManager.getGridYPosFromCoor(t.getY()));
+                    }
+                }
+            }
+            assertTrue(numTowers > 0);
+        } finally {
+            register.setBackgroundExecutor(null, 0);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testNoOpRenderer() {
+        ArenaManager.loadHeadless(new HeadlessArenaRenderer(), new Player("headless", 0));
+        ArenaInstance arenaInstance = ArenaManager.getActiveArenaInstance();
+
+        for (int i = 0; i < 100; i++) arenaInstance.processNextFrame(this);
+        assertTrue(arenaInstance.getStorage().getMonsters().size() > 0);
+    }
+}
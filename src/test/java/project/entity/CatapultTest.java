@@ -1,15 +1,21 @@
 package project.entity;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import project.JavaFXTester;
+import project.arena.ArenaEventRegister;
+import project.control.ArenaManager;
 import project.entity.Monster;
 import project.entity.ArenaObjectFactory.MonsterType;
 import project.entity.ArenaObjectFactory.TowerType;
+import project.query.ArenaObjectCircleSelector;
 import project.util.CollectionComparator;
 import project.util.Geometry;
 
@@ -99,4 +105,71 @@ public class CatapultTest extends JavaFXTester {
             Assert.assertTrue(Geometry.isInCircle( m.getX(), m.getY(), catapult.targetLocationX, catapult.targetLocationY,25));
         }
     }
+
+    @Test
+    public void testSplashMatchesBruteForce() {
+        Random rng = new Random(3111);
+        ArenaEventRegister register = ArenaManager.getActiveEventRegister();
+        Catapult catapult = (Catapult) ArenaObjectFactory.createTower(this, TowerType.CATAPULT, (short) 370, (short) 10);
+        short r = catapult.getSplashRadius();
+
+        List<Monster> monsters = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            short x = (short) (200 + rng.nextInt(120)), y = (short) (100 + rng.nextInt(120));
+            monsters.add(ArenaObjectFactory.createMonster(this, MonsterType.UNICORN, x, y, 1));
+        }
+
+        for (int n = 0; n < 5; n++) {
+            // The monsters gather during the frame, and the catapult shoots before the moves are delivered
+            register.beginMoveBatch();
+            for (Monster m : monsters) {
+                m.moveObject(this, (short) (m.getX() + (260 - m.getX()) / 3 + rng.nextInt(11) - 5),
+                        (short) (m.getY() + (160 - m.getY()) / 3 + rng.nextInt(11) - 5));
+            }
+
+            List<Monster> validTargets = new ArrayList<>(monsters);
+            validTargets.sort(Comparator.comparingDouble(Monster::getMovementDistanceToDestination));
+            int closestDistance = (int) validTargets.get(0).getMovementDistanceToDestination();
+
+            // Tries every point around every closest target, counting the monsters in the splash one by one
+            int expectedCount = 0;
+            short expectedX = 0, expectedY = 0;
+            double rmsDist = Double.POSITIVE_INFINITY;
+            for (Monster t : validTargets) {
+                if ((int) t.getMovementDistanceToDestination() != closestDistance) break;
+
+                for (short i = (short) (t.getX() - r); i < t.getX() + r; i++) {
+                    for (short j = (short) (t.getY() - r); j < t.getY() + r; j++) {
+                        if (i < 0 || i > ArenaManager.ARENA_WIDTH || j < 0 || j > ArenaManager.ARENA_HEIGHT) continue;
+                        if (!Geometry.isInCircle(i, j, t.getX(), t.getY(), r)) continue;
+
+                        ArenaObjectCircleSelector selector = new ArenaObjectCircleSelector(i, j, r);
+                        int count = 0;
+                        double thisRMSDist = 0;
+                        for (Monster m : monsters) {
+                            if (!selector.isInSelection(m)) continue;
+                            count++;
+                            thisRMSDist += (i - m.getX()) * (i - m.getX()) + (j - m.getY()) * (j - m.getY());
+                        }
+                        if (count < expectedCount) continue;
+
+                        thisRMSDist = Math.sqrt(thisRMSDist / count);
+                        if (thisRMSDist < rmsDist) {
+                            expectedCount = count;
+                            expectedX = i;
+                            expectedY = j;
+                            rmsDist = thisRMSDist;
+                        }
+                    }
+                }
+            }
+
+            catapult.shoot(validTargets);
+            register.endMoveBatch(this);
+
+            Assert.assertEquals(expectedX, catapult.targetLocationX);
+            Assert.assertEquals(expectedY, catapult.targetLocationY);
+            Assert.assertEquals(expectedCount, catapult.monstersInSplashRange.size());
+        }
+    }
 }
\ No newline at end of file
@@ -1,11 +1,30 @@
 package project.event;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import project.event.EventManager.Backpressure;
+import project.event.eventargs.ArenaObjectEventArgs;
+import project.event.eventargs.ArenaObjectMoveBatchEventArgs;
 import project.event.eventargs.EventArgs;
 
 /**
@@ -65,4 +84,250 @@ public class EventManagerTester extends EventManager<EventArgs> {
         invoke(this, new EventArgs()); assertTrue(!is_h1_called && !is_h2_called && !is_h3_called);
         reset();
     }
+
+    @Test
+    public void testNestedInvocation() {
+        EventHandler<EventArgs> h2 = (sender, args) -> { is_h2_called = true; };
+        EventHandler<EventArgs> h1 = (sender, args) -> {
+            if (!is_h1_called) {
+                is_h1_called = true;
+                subscribe((s, a) -> { is_h3_called = true; });
+                invoke(this, args); // Nested invocation should not apply the pending subscription
+                assertTrue(subscribers.size() == 2);
+            }
+        };
+
+        subscribe(h1); subscribe(h2);
+        invoke(this, EventArgs.EMPTY); assertTrue(is_h1_called && is_h2_called && !is_h3_called);
+        assertTrue(subscribers.size() == 3);
+        reset();
+    }
+
+    @Test
+    public void testPool() {
+        EventArgsPool<ArenaObjectEventArgs> pool = new EventArgsPool<>(ArenaObjectEventArgs::new);
+        ArenaObjectEventArgs outer = pool.acquire();
+        ArenaObjectEventArgs inner = pool.acquire();
+        assertTrue(outer != inner);
+
+        pool.release(inner);
+        pool.release(outer);
+        assertEquals(2, pool.getNumAvailable());
+        assertSame(outer, pool.acquire());
+        assertSame(inner, pool.acquire());
+        assertNull(inner.subject);
+    }
+
+    @Test
+    public void testAllocationFree() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        EventManager<ArenaObjectEventArgs> manager = new EventManager<>();
+        EventArgsPool<ArenaObjectEventArgs> pool = new EventArgsPool<>(ArenaObjectEventArgs::new);
+        manager.subscribe((sender, args) -> { is_h1_called = args.subject == null; });
+        manager.subscribe((sender, args) -> { is_h2_called = true; });
+        subscribe((sender, args) -> { is_h3_called = true; });
+
+        final int NUM_INVOCATIONS = 100000;
+        for (int i = 0; i < NUM_INVOCATIONS; i++) {
+            ArenaObjectEventArgs args = pool.acquire();
+            manager.invoke(this, args);
+            pool.release(args);
+            invoke(this, EventArgs.EMPTY);
+        }
+
+        long allocatedBefore = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < NUM_INVOCATIONS; i++) {
+            ArenaObjectEventArgs args = pool.acquire();
+            manager.invoke(this, args);
+            pool.release(args);
+            invoke(this, EventArgs.EMPTY);
+        }
+        long allocated = bean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertTrue(is_h1_called && is_h2_called && is_h3_called);
+        // Allow for the allocation of the measurement itself, but not one object per invocation
+        assertTrue(String.format("%d bytes allocated", allocated), allocated < NUM_INVOCATIONS);
+        reset();
+    }
+
+    @Test
+    public void testAsyncOrdering() throws InterruptedException {
+        EventManager<ArenaObjectMoveBatchEventArgs> manager = new EventManager<>();
+        EventArgsPool<ArenaObjectMoveBatchEventArgs> pool = new EventArgsPool<>(ArenaObjectMoveBatchEventArgs::new);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+
+        manager.subscribeAsync((sender, args) -> {
+            // The arguments must have been copied before they were released to the pool
+            assertEquals(1, args.size);
+            assertEquals(((Integer) sender).shortValue(), args.oldX[0]);
+            received.add((Integer) sender);
+        }, executor, 4, Backpressure.BLOCK);
+        assertEquals(1, manager.subscribers.size());
+
+        final int NUM_INVOCATIONS = 1000;
+        for (int i = 0; i < NUM_INVOCATIONS; i++) {
+            ArenaObjectMoveBatchEventArgs args = pool.acquire();
+            args.add(null, (short) i, (short) 0, (short) 0, (short) 0);
+            manager.invoke(i, args);
+            pool.release(args);
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(NUM_INVOCATIONS, received.size());
+        for (int i = 0; i < NUM_INVOCATIONS; i++) assertEquals(i, (int) received.get(i));
+    }
+
+    @Test
+    public void testAsyncBackpressure() {
+        List<Runnable> tasks = new ArrayList<>();
+        List<Object> received = new ArrayList<>();
+        EventHandler<EventArgs> h1 = (sender, args) -> received.add(sender);
+
+        // The tasks are only run when the test says so, so the queue fills up
+        subscribeAsync(h1, tasks::add, 2, Backpressure.DROP);
+        for (int i = 0; i < 5; i++) invoke(i, EventArgs.EMPTY);
+        assertEquals(1, tasks.size());
+        assertEquals(3, getNumDiscarded(h1));
+        tasks.remove(0).run();
+        assertEquals(List.of(0, 1), received);
+        assertTrue(unsubscribe(h1));
+        assertTrue(subscribers.isEmpty());
+        received.clear();
+
+        subscribeAsync(h1, tasks::add, 2, Backpressure.COALESCE);
+        for (int i = 0; i < 5; i++) invoke(i, EventArgs.EMPTY);
+        assertEquals(3, getNumDiscarded(h1));
+        tasks.remove(0).run();
+        assertEquals(List.of(0, 4), received);
+        received.clear();
+
+        // Unsubscribing discards the pending invocations
+        invoke(5, EventArgs.EMPTY);
+        unsubscribe(h1);
+        tasks.remove(0).run();
+        assertTrue(received.isEmpty());
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    public void testAsyncRejected() {
+        List<Object> received = new ArrayList<>();
+        EventHandler<EventArgs> h1 = (sender, args) -> received.add(sender);
+        Executor rejecting = task -> { throw new RejectedExecutionException(); };
+
+        // The invocations are delivered on the invoking thread, and the queue keeps accepting new ones
+        subscribeAsync(h1, rejecting, 2, Backpressure.DROP);
+        for (int i = 0; i < 5; i++) invoke(i, EventArgs.EMPTY);
+        assertEquals(List.of(0, 1, 2, 3, 4), received);
+        assertEquals(0, getNumDiscarded(h1));
+        assertTrue(unsubscribe(h1));
+    }
+
+    @Test
+    public void testProfiling() {
+        EventManager<EventArgs> manager = new EventManager<>("TEST_PROFILING");
+        EventHandler<EventArgs> h1 = (sender, args) -> { is_h1_called = true; };
+        EventHandler<EventArgs> h2 = (sender, args) -> {
+            long start = System.nanoTime();
+            while (System.nanoTime() - start < 100000);
+        };
+        EventHandler<EventArgs> h3 = (sender, args) -> { is_h3_called = true; };
+        manager.subscribe(h1);
+        manager.subscribe(h2);
+        manager.subscribeWeak(h3);
+
+        manager.invoke(this, EventArgs.EMPTY);
+        assertTrue(EventProfiler.getProfiles("TEST_PROFILING").isEmpty());
+
+        EventProfiler.setEnabled(true);
+        try {
+            for (int i = 0; i < 10; i++) manager.invoke(this, EventArgs.EMPTY);
+        } finally {
+            EventProfiler.setEnabled(false);
+        }
+        manager.invoke(this, EventArgs.EMPTY);
+
+        List<HandlerProfile> profiles = EventProfiler.getProfiles("TEST_PROFILING");
+        assertEquals(3, profiles.size());
+        // Sorted by the total time taken, so the slow handler comes first
+        assertSame(h2.getClass(), profiles.get(0).getHandlerClass());
+        // The weak subscriber is recorded under its own class
+        Set<Class<?>> fastClasses = new HashSet<>();
+        fastClasses.add(profiles.get(1).getHandlerClass());
+        fastClasses.add(profiles.get(2).getHandlerClass());
+        assertEquals(new HashSet<>(Arrays.asList(h1.getClass(), h3.getClass())), fastClasses);
+        assertTrue(profiles.get(0).getHandlerName().startsWith(EventManagerTester.class.getName()));
+        for (HandlerProfile profile : profiles) {
+            assertEquals(10, profile.getCount());
+            long numInHistogram = 0;
+            for (long n : profile.getHistogram()) numInHistogram += n;
+            assertEquals(10, numInHistogram);
+            assertTrue(profile.getMaxNanos() <= profile.getTotalNanos());
+        }
+        assertTrue(profiles.get(0).getMaxNanos() >= 100000);
+        assertTrue(EventProfiler.getReport().contains("TEST_PROFILING"));
+
+        EventProfiler.reset();
+        assertTrue(EventProfiler.getProfiles("TEST_PROFILING").isEmpty());
+    }
+
+    @Test
+    public void testSubscriptionGroup() {
+        EventHandler<EventArgs> h1 = (sender, args) -> { is_h1_called = true; };
+        EventHandler<EventArgs> h2 = (sender, args) -> { is_h2_called = true; };
+        EventHandler<EventArgs> h3 = (sender, args) -> { is_h3_called = true; };
+        EventManager<EventArgs> other = new EventManager<>();
+        SubscriptionGroup group = new SubscriptionGroup();
+
+        Subscription<EventArgs> s1 = subscribe(h1, group);
+        subscribeWeak(h2, group);
+        other.subscribe(h3, group);
+        assertEquals(3, group.size());
+        assertEquals(2, subscribers.size());
+
+        s1.close(); assertTrue(s1.isClosed());
+        invoke(this, EventArgs.EMPTY); other.invoke(this, EventArgs.EMPTY);
+        assertTrue(!is_h1_called && is_h2_called && is_h3_called);
+        reset();
+
+        group.close();
+        assertTrue(group.isClosed());
+        assertTrue(subscribers.isEmpty());
+        assertTrue(other.subscribers.isEmpty());
+        invoke(this, EventArgs.EMPTY); other.invoke(this, EventArgs.EMPTY);
+        assertTrue(!is_h1_called && !is_h2_called && !is_h3_called);
+
+        // Subscriptions added to a closed group are closed immediately
+        subscribe(h1, group);
+        assertTrue(subscribers.isEmpty());
+
+        // A handler that is already subscribed is not handed to the group, so closing the group keeps it subscribed
+        SubscriptionGroup another = new SubscriptionGroup();
+        assertTrue(subscribe(h1));
+        assertNull(subscribe(h1, another));
+        assertNull(subscribeWeak(h1, another));
+        assertEquals(0, another.size());
+        another.close();
+        assertEquals(1, subscribers.size());
+    }
+
+    @Test
+    public void testWeakSubscription() {
+        EventHandler<EventArgs> h1 = (sender, args) -> { is_h1_called = true; };
+        assertTrue(subscribeWeak(h1));
+        assertTrue(!subscribeWeak(h1) && !subscribe(h1)); // No repetition
+        invoke(this, EventArgs.EMPTY); assertTrue(is_h1_called);
+        reset();
+
+        // Simulate the collection of the handler, which is unsubscribed when the event is next invoked
+        assertEquals(1, subscribers.size());
+        ((WeakEventHandler<EventArgs>) subscribers.get(0)).clear();
+        invoke(this, EventArgs.EMPTY);
+        assertTrue(subscribers.isEmpty());
+        assertTrue(!is_h1_called);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package project.field;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import project.control.ArenaManager;
+
+/**
+ * Tests the {@link ArenaScalarField}, {@link IntArenaScalarField} and {@link FloatArenaScalarField} interfaces.
+ */
+public class ArenaScalarFieldTest {
+    // Number of random points
+    private static final int NUM_RANDOM_POINTS = 10000;
+
+    private static final int WIDTH = ArenaManager.ARENA_WIDTH + 1;
+    private static final int HEIGHT = ArenaManager.ARENA_HEIGHT + 1;
+
+    private Random rng = new Random(3111);
+
+    // A field that only implements the generic interface, as a reference
+    private static class BoxedField<T extends Number & Comparable<T>> implements ArenaScalarField<T> {
+        private Object[] values = new Object[WIDTH * HEIGHT];
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T getValueAt(short x, short y) { return (T) values[x * HEIGHT + y]; }
+
+        @Override
+        public void setValueAt(short x, short y, T value) { values[x * HEIGHT + y] = value; }
+
+        @Override
+        public void setAll(T value) { Arrays.fill(values, value); }
+    }
+
+    private static class IntField implements IntArenaScalarField {
+        private int[] values = new int[WIDTH * HEIGHT];
+
+        @Override
+        public int getIntValueAt(short x, short y) { return values[x * HEIGHT + y]; }
+
+        @Override
+        public void setValueAt(short x, short y, Integer value) { values[x * HEIGHT + y] = value; }
+
+        @Override
+        public void setAll(Integer value) { Arrays.fill(values, value); }
+    }
+
+    private static class FloatField implements FloatArenaScalarField {
+        private float[] values = new float[WIDTH * HEIGHT];
+
+        @Override
+        public float getFloatValueAt(short x, short y) { return values[x * HEIGHT + y]; }
+
+        @Override
+        public void setValueAt(short x, short y, Float value) { values[x * HEIGHT + y] = value; }
+
+        @Override
+        public void setAll(Float value) { Arrays.fill(values, value); }
+    }
+
+    @Test
+    public void testPackPoint() {
+        for (short x = 0; x <= ArenaManager.ARENA_WIDTH; x++) {
+            for (short y = 0; y <= ArenaManager.ARENA_HEIGHT; y++) {
+                int point = ArenaScalarField.packPoint(x, y);
+                assertEquals(true, point != ArenaScalarField.NO_POINT);
+                assertEquals(x, ArenaScalarField.unpackX(point));
+                assertEquals(y, ArenaScalarField.unpackY(point));
+            }
+        }
+    }
+
+    @Test
+    public void testDescendInt() {
+        BoxedField<Integer> expected = new BoxedField<>();
+        IntField actual = new IntField();
+        for (short x = 0; x < WIDTH; x++) {
+            for (short y = 0; y < HEIGHT; y++) {
+                // Few distinct values, so that ties are common
+                int value = rng.nextInt(4);
+                expected.setValueAt(x, y, value);
+                actual.setValueAt(x, y, value);
+            }
+        }
+
+        assertSameDescent(expected, actual);
+    }
+
+    @Test
+    public void testDescendFloat() {
+        BoxedField<Float> expected = new BoxedField<>();
+        FloatField actual = new FloatField();
+        float[] choices = { 0f, -0f, 1f, Float.POSITIVE_INFINITY, Float.NaN };
+        for (short x = 0; x < WIDTH; x++) {
+            for (short y = 0; y < HEIGHT; y++) {
+                float value = choices[rng.nextInt(choices.length)];
+                expected.setValueAt(x, y, value);
+                actual.setValueAt(x, y, value);
+            }
+        }
+
+        assertSameDescent(expected, actual);
+    }
+
+    private <T extends Number & Comparable<T>> void assertSameDescent(ArenaScalarField<T> expected, ArenaScalarField<T> actual) {
+        // Include the corners and edges, where some neighbours do not exist
+        short[] edges = { 0, 1, (short) (WIDTH - 1) };
+        for (short x : edges) {
+            for (short y : edges) assertEquals(expected.descendTaxicabPacked(x, y), actual.descendTaxicabPacked(x, y));
+        }
+
+        for (int n = 0; n < NUM_RANDOM_POINTS; n++) {
+            short x = (short) rng.nextInt(WIDTH), y = (short) rng.nextInt(HEIGHT);
+            assertEquals(expected.descendTaxicabPacked(x, y), actual.descendTaxicabPacked(x, y));
+
+            ArenaScalarField.ScalarFieldPoint point = actual.descendTaxicab(x, y);
+            int packed = actual.descendTaxicabPacked(x, y);
+            if (point == null) {
+                assertEquals(ArenaScalarField.NO_POINT, packed);
+            } else {
+                assertEquals(point.getX(), ArenaScalarField.unpackX(packed));
+                assertEquals(point.getY(), ArenaScalarField.unpackY(packed));
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package project.field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link BuildabilityMap} class.
+ */
+public class BuildabilityMapTest {
+
+    private static final int NUM_GRIDS_X = 12;
+    private static final int NUM_GRIDS_Y = 12;
+    private static final int START_X = 0, START_Y = 0;
+    private static final int END_X = 11, END_Y = 0;
+
+    private Random rng = new Random(3111);
+
+    // The end zones that the brute-force search starts from
+    private int[] endXs = { END_X }, endYs = { END_Y };
+
+    // Marks the grids without towers that can be reached from a grid
+    private static void search(boolean[][] hasTower, boolean[][] visited, int x, int y) {
+        if (x < 0 || y < 0 || x >= NUM_GRIDS_X || y >= NUM_GRIDS_Y) return;
+        if (visited[x][y] || hasTower[x][y]) return;
+        visited[x][y] = true;
+
+        search(hasTower, visited, x + 1, y);
+        search(hasTower, visited, x - 1, y);
+        search(hasTower, visited, x, y + 1);
+        search(hasTower, visited, x, y - 1);
+    }
+
+    // Determines whether a tower can be built on a grid by searching from the end zones with the tower in place
+    private boolean canBuild(boolean[][] hasTower, int[][] numMonsters, int x, int y) {
+        if (hasTower[x][y] || numMonsters[x][y] > 0) return false;
+        if (x == START_X && y == START_Y) return false;
+        for (int i = 0; i < endXs.length; i++) {
+            if (x == endXs[i] && y == endYs[i]) return false;
+        }
+
+        hasTower[x][y] = true;
+        boolean[][] visited = new boolean[NUM_GRIDS_X][NUM_GRIDS_Y];
+        for (int i = 0; i < endXs.length; i++) search(hasTower, visited, endXs[i], endYs[i]);
+        hasTower[x][y] = false;
+
+        if (!visited[START_X][START_Y]) return false;
+        for (int i = 0; i < NUM_GRIDS_X; i++) {
+            for (int j = 0; j < NUM_GRIDS_Y; j++) {
+                if (numMonsters[i][j] > 0 && !visited[i][j]) return false;
+            }
+        }
+        return true;
+    }
+
+    private void assertMatchesSearch(BuildabilityMap map, boolean[][] hasTower, int[][] numMonsters) {
+        for (int x = 0; x < NUM_GRIDS_X; x++) {
+            for (int y = 0; y < NUM_GRIDS_Y; y++) {
+                assertEquals(String.format("Grid (%d, %d)", x, y), canBuild(hasTower, numMonsters, x, y), map.canBuildTowerOnGrid(x, y));
+            }
+        }
+    }
+
+    // Builds and sells towers and moves monsters at random, checking the map against the search after each step
+    private void simulate(BuildabilityMap map) {
+        boolean[][] hasTower = new boolean[NUM_GRIDS_X][NUM_GRIDS_Y];
+        int[][] numMonsters = new int[NUM_GRIDS_X][NUM_GRIDS_Y];
+        assertMatchesSearch(map, hasTower, numMonsters);
+
+        for (int n = 0; n < 200; n++) {
+            // Towers are only built where they are allowed, as the game does, and are sometimes sold
+            int x = rng.nextInt(NUM_GRIDS_X), y = rng.nextInt(NUM_GRIDS_Y);
+            if (hasTower[x][y] && rng.nextInt(4) == 0) {
+                hasTower[x][y] = false;
+                map.setTower(x, y, false);
+            } else if (map.canBuildTowerOnGrid(x, y)) {
+                hasTower[x][y] = true;
+                map.setTower(x, y, true);
+            }
+
+            // Monsters move to a neighbouring grid without a tower, and new ones appear at the starting position
+            for (int i = 0; i < 3; i++) {
+                int fromX = rng.nextInt(NUM_GRIDS_X), fromY = rng.nextInt(NUM_GRIDS_Y);
+                if (numMonsters[fromX][fromY] == 0) continue;
+
+                int toX = fromX, toY = fromY;
+                if (rng.nextBoolean()) toX += rng.nextBoolean() ? 1 : -1;
+                else toY += rng.nextBoolean() ? 1 : -1;
+                if (toX < 0 || toY < 0 || toX >= NUM_GRIDS_X || toY >= NUM_GRIDS_Y || hasTower[toX][toY]) continue;
+
+                numMonsters[fromX][fromY]--;
+                map.incrementMonsters(fromX, fromY, -1);
+                numMonsters[toX][toY]++;
+                map.incrementMonsters(toX, toY, 1);
+            }
+            numMonsters[START_X][START_Y]++;
+            map.incrementMonsters(START_X, START_Y, 1);
+
+            assertMatchesSearch(map, hasTower, numMonsters);
+        }
+    }
+
+    @Test
+    public void testTowersAndMonsters() {
+        simulate(new BuildabilityMap(NUM_GRIDS_X, NUM_GRIDS_Y, START_X, START_Y, END_X, END_Y));
+    }
+
+    @Test
+    public void testSeveralEndZones() {
+        // A grid is only cut off if it can reach neither end zone
+        endXs = new int[] { END_X, 0 };
+        endYs = new int[] { END_Y, NUM_GRIDS_Y - 1 };
+        simulate(new BuildabilityMap(NUM_GRIDS_X, NUM_GRIDS_Y, START_X, START_Y, endXs, endYs));
+    }
+
+    @Test
+    public void testOutsideArena() {
+        BuildabilityMap map = new BuildabilityMap(NUM_GRIDS_X, NUM_GRIDS_Y, START_X, START_Y, END_X, END_Y);
+        assertFalse(map.canBuildTowerOnGrid(-1, 0));
+        assertFalse(map.canBuildTowerOnGrid(0, NUM_GRIDS_Y));
+        assertFalse(map.canBuildTowerOnGrid(START_X, START_Y));
+        assertFalse(map.canBuildTowerOnGrid(END_X, END_Y));
+    }
+}
@@ -0,0 +1,179 @@
+package project.field;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import project.control.ArenaManager;
+
+/**
+ * Tests the {@link CoarseFieldSolver} class.
+ */
+public class CoarseFieldSolverTest {
+
+    private static final int WIDTH = ArenaManager.ARENA_WIDTH + 1;
+    private static final int HEIGHT = ArenaManager.ARENA_HEIGHT + 1;
+    private static final int SIZE = WIDTH * HEIGHT;
+    private static final int[] RESOLUTIONS = { 2, 5, 8, 10, 20, 40 };
+
+    private Random rng = new Random(3111);
+
+    // Blocks whole grids other than the end zone, like towers do
+    private boolean[] blockRandomGrids(GridFieldSolver solver) {
+        boolean[] blocked = new boolean[SIZE];
+        for (int i = 0; i < 40; i++) {
+            int gridX = rng.nextInt(12) * 40, gridY = rng.nextInt(12) * 40;
+            if (gridX == ArenaManager.END_X / 40 * 40 && gridY == ArenaManager.END_Y / 40 * 40) continue;
+            for (int x = gridX; x < gridX + 40; x++) for (int y = gridY; y < gridY + 40; y++) blocked[solver.indexOf(x, y)] = true;
+        }
+        return blocked;
+    }
+
+    // Gradient descent from every reachable point must end at the source
+    private void assertDescendsToSource(FlowField flowField, int source, boolean[] isReachable) {
+        for (short x = 0; x < WIDTH; x++) {
+            for (short y = 0; y < HEIGHT; y++) {
+                if (!isReachable[x * HEIGHT + y]) continue;
+
+                int point = flowField.advance(x, y, SIZE);
+                assertEquals(String.format("Descent from (%d, %d) is stuck", x, y),
+                        source, ArenaScalarField.unpackX(point) * HEIGHT + ArenaScalarField.unpackY(point));
+            }
+        }
+    }
+
+    @Test
+    public void testObstacleResolutions() {
+        for (int resolution : RESOLUTIONS) {
+            new CoarseFieldSolver(WIDTH, HEIGHT, resolution, ArenaManager.GRID_WIDTH, ArenaManager.GRID_HEIGHT);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonDivisorResolution() {
+        // Cells of 3 points would straddle the edges of the 40-point grids, so they would be blocked by towers next to them
+        new CoarseFieldSolver(WIDTH, HEIGHT, 3, ArenaManager.GRID_WIDTH, ArenaManager.GRID_HEIGHT);
+    }
+
+    @Test
+    public void testFullResolution() {
+        // With one point per cell, the distances are exact
+        GridFieldSolver solver = new GridFieldSolver(WIDTH, HEIGHT);
+        CoarseFieldSolver coarseSolver = new CoarseFieldSolver(WIDTH, HEIGHT, 1);
+        int source = solver.indexOf(ArenaManager.END_X, ArenaManager.END_Y);
+        boolean[] blocked = blockRandomGrids(solver);
+
+        int[] expected = new int[SIZE];
+        solver.solve(expected, new int[SIZE], blocked, new int[] { source });
+        int[] actual = new int[SIZE];
+        coarseSolver.solve(actual, blocked, source);
+
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void testIntValues() {
+        GridFieldSolver solver = new GridFieldSolver(WIDTH, HEIGHT);
+        int source = solver.indexOf(ArenaManager.END_X, ArenaManager.END_Y);
+
+        for (int resolution : RESOLUTIONS) {
+            CoarseFieldSolver coarseSolver = new CoarseFieldSolver(WIDTH, HEIGHT, resolution);
+            boolean[] blocked = blockRandomGrids(solver);
+
+            int[] expected = new int[SIZE];
+            solver.solve(expected, new int[SIZE], blocked, new int[] { source });
+            int[] actual = new int[SIZE];
+            coarseSolver.solve(actual, blocked, source);
+
+            // The same points are reachable, and the distances are close to the exact ones
+            boolean[] isReachable = new boolean[SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                isReachable[i] = expected[i] != GridFieldSolver.UNREACHABLE;
+                assertEquals(isReachable[i], actual[i] != GridFieldSolver.UNREACHABLE);
+                if (isReachable[i]) assertTrue(Math.abs(actual[i] - expected[i]) <= 6 * resolution);
+            }
+
+            FlowField flowField = new FlowField();
+            FlowField.Table table = FlowField.newTable();
+            FlowField.derive(actual, table);
+            flowField.swap(table);
+            assertDescendsToSource(flowField, source, isReachable);
+        }
+    }
+
+    @Test
+    public void testFloatValues() {
+        GridFieldSolver solver = new GridFieldSolver(WIDTH, HEIGHT);
+        int source = solver.indexOf(ArenaManager.END_X, ArenaManager.END_Y);
+        float[] weights = new float[SIZE];
+        for (int i = 0; i < SIZE; i++) weights[i] = rng.nextInt(3) == 0 ? rng.nextFloat() : 0;
+
+        for (int resolution : RESOLUTIONS) {
+            CoarseFieldSolver coarseSolver = new CoarseFieldSolver(WIDTH, HEIGHT, resolution);
+            boolean[] blocked = blockRandomGrids(solver);
+
+            float[] expected = new float[SIZE];
+            solver.solve(expected, new int[SIZE], blocked, weights, 0.001f, new int[] { source });
+            float[] actual = new float[SIZE];
+            coarseSolver.solve(actual, blocked, weights, 0.001f, source);
+
+            boolean[] isReachable = new boolean[SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                isReachable[i] = expected[i] != Float.POSITIVE_INFINITY;
+                assertEquals(isReachable[i], actual[i] != Float.POSITIVE_INFINITY);
+            }
+
+            FlowField flowField = new FlowField();
+            FlowField.Table table = FlowField.newTable();
+            FlowField.derive(actual, table);
+            flowField.swap(table);
+            assertDescendsToSource(flowField, source, isReachable);
+        }
+    }
+
+    @Test
+    public void testMultipleSources() {
+        GridFieldSolver solver = new GridFieldSolver(WIDTH, HEIGHT);
+        int[] sources = { solver.indexOf(ArenaManager.END_X, ArenaManager.END_Y), solver.indexOf(20, 460), solver.indexOf(23, 455) };
+        int[] path = new int[SIZE];
+
+        for (int resolution : RESOLUTIONS) {
+            CoarseFieldSolver coarseSolver = new CoarseFieldSolver(WIDTH, HEIGHT, resolution);
+            boolean[] blocked = blockRandomGrids(solver);
+            for (int source : sources) {
+                for (int x = source / HEIGHT / 40 * 40; x < source / HEIGHT / 40 * 40 + 40; x++) {
+                    for (int y = source % HEIGHT / 40 * 40; y < source % HEIGHT / 40 * 40 + 40; y++) blocked[solver.indexOf(x, y)] = false;
+                }
+            }
+
+            int[] expected = new int[SIZE];
+            solver.solve(expected, new int[SIZE], blocked, sources);
+            int[] actual = new int[SIZE];
+            coarseSolver.solve(actual, blocked, sources);
+
+            FlowField.Table table = FlowField.newTable();
+            FlowField.derive(actual, table);
+            FlowField.deriveGoals(table, sources, path);
+            FlowField flowField = new FlowField();
+            flowField.swap(table);
+
+            // Descent from every reachable point ends at the source it is labelled with
+            for (short x = 0; x < WIDTH; x++) {
+                for (short y = 0; y < HEIGHT; y++) {
+                    int index = x * HEIGHT + y;
+                    assertEquals(expected[index] != GridFieldSolver.UNREACHABLE, actual[index] != GridFieldSolver.UNREACHABLE);
+                    if (expected[index] == GridFieldSolver.UNREACHABLE) continue;
+
+                    int point = flowField.advance(x, y, SIZE);
+                    int goal = flowField.getGoalAt(x, y);
+                    assertTrue(String.format("Descent from (%d, %d) is stuck", x, y), goal != FlowField.NO_GOAL);
+                    assertEquals(sources[goal], ArenaScalarField.unpackX(point) * HEIGHT + ArenaScalarField.unpackY(point));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package project.field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the {@link DoubleBufferedField} class.
+ */
+public class DoubleBufferedFieldTest {
+
+    // A field with a single value, whose updates wait for a gate to open
+    private static class TestField extends DoubleBufferedField<Integer> {
+        private int front = 0;
+        private int back = 0;
+        private int latest = 0;
+        private CountDownLatch gate = new CountDownLatch(0);
+        private int numResumed = 0;
+        private boolean isRequired = false;
+
+        @Override
+        public Integer getValueAt(short x, short y) { return front; }
+
+        @Override
+        public void setValueAt(short x, short y, Integer value) {
+            CountDownLatch currentGate = gate;
+            submit(() -> {
+                try {
+                    currentGate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                latest = value;
+            }, isRequired);
+        }
+
+        @Override
+        public void setAll(Integer value) { setValueAt((short) 0, (short) 0, value); }
+
+        @Override
+        protected void resume() {
+            numResumed++;
+            setValueAt((short) 0, (short) 0, numResumed * 100);
+        }
+
+        @Override
+        protected void copyToBack() { back = latest; }
+
+        @Override
+        protected void swapBuffers() {
+            int temp = front;
+            front = back;
+            back = temp;
+        }
+    }
+
+    private ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSynchronous() {
+        TestField field = new TestField();
+        field.setValueAt((short) 0, (short) 0, 5);
+        assertEquals(5, (int) field.getValueAt((short) 0, (short) 0));
+        assertFalse(field.isStale());
+    }
+
+    @Test
+    public void testPublishAtFrameBoundary() throws Exception {
+        TestField field = new TestField();
+        field.setExecutor(executor);
+        field.gate = new CountDownLatch(1);
+
+        // The previous version stays visible while the update is pending
+        field.setValueAt((short) 0, (short) 0, 5);
+        assertTrue(field.isStale());
+        field.onFrameBoundary(1);
+        assertEquals(0, (int) field.getValueAt((short) 0, (short) 0));
+
+        // The completed version is not visible before the frame boundary
+        field.gate.countDown();
+        executor.submit(() -> {}).get();
+        assertEquals(0, (int) field.getValueAt((short) 0, (short) 0));
+
+        field.onFrameBoundary(1);
+        assertEquals(5, (int) field.getValueAt((short) 0, (short) 0));
+        assertFalse(field.isStale());
+    }
+
+    @Test
+    public void testStalenessBound() throws Exception {
+        final int MAX_STALE_FRAMES = 3;
+
+        TestField field = new TestField();
+        field.setExecutor(executor);
+        field.gate = new CountDownLatch(1);
+        field.setValueAt((short) 0, (short) 0, 7);
+
+        for (int i = 0; i < MAX_STALE_FRAMES; i++) {
+            field.onFrameBoundary(MAX_STALE_FRAMES);
+            assertEquals(0, (int) field.getValueAt((short) 0, (short) 0));
+        }
+
+        // The next frame boundary waits for the update
+        CountDownLatch gate = field.gate;
+        new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {}
+            gate.countDown();
+        }).start();
+        field.onFrameBoundary(MAX_STALE_FRAMES);
+        assertEquals(7, (int) field.getValueAt((short) 0, (short) 0));
+    }
+
+    @Test
+    public void testRequiredUpdate() throws Exception {
+        TestField field = new TestField();
+        field.setExecutor(executor);
+        field.gate = new CountDownLatch(1);
+
+        // An update that is not required may stay pending
+        field.setValueAt((short) 0, (short) 0, 3);
+        field.awaitRequired();
+        assertEquals(0, (int) field.getValueAt((short) 0, (short) 0));
+
+        // A required update is waited for, with the updates before it
+        field.isRequired = true;
+        field.setValueAt((short) 0, (short) 0, 9);
+        CountDownLatch gate = field.gate;
+        new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {}
+            gate.countDown();
+        }).start();
+        field.awaitRequired();
+        assertEquals(9, (int) field.getValueAt((short) 0, (short) 0));
+        assertFalse(field.isStale());
+
+        // Later updates that are not required stay pending again
+        field.isRequired = false;
+        field.gate = new CountDownLatch(1);
+        field.setValueAt((short) 0, (short) 0, 4);
+        field.awaitRequired();
+        assertEquals(9, (int) field.getValueAt((short) 0, (short) 0));
+        field.gate.countDown();
+    }
+
+    @Test
+    public void testLatestVersionPublished() {
+        TestField field = new TestField();
+        field.setExecutor(executor);
+        field.gate = new CountDownLatch(1);
+        for (int value = 1; value <= 10; value++) field.setValueAt((short) 0, (short) 0, value);
+
+        field.gate.countDown();
+        field.awaitAndPublish();
+        assertEquals(10, (int) field.getValueAt((short) 0, (short) 0));
+        assertFalse(field.isStale());
+    }
+
+    @Test
+    public void testReferences() {
+        TestField field = new TestField();
+        field.setExecutor(executor);
+        assertFalse(field.isActive());
+
+        // The first reference resumes the field without waiting for it, and the next frame waits for it to be up to date
+        field.gate = new CountDownLatch(1);
+        field.acquire();
+        assertTrue(field.isActive());
+        assertEquals(1, field.numResumed);
+        assertEquals(0, (int) field.getValueAt((short) 0, (short) 0));
+        assertTrue(field.isStale());
+
+        field.gate.countDown();
+        field.awaitRequired();
+        assertEquals(100, (int) field.getValueAt((short) 0, (short) 0));
+        assertFalse(field.isStale());
+
+        field.acquire();
+        field.release();
+        assertTrue(field.isActive());
+        assertEquals(1, field.numResumed);
+
+        // The field is paused when the last reference is released, and resumed again by the next one
+        field.release();
+        assertFalse(field.isActive());
+        field.acquire();
+        assertEquals(2, field.numResumed);
+        field.awaitRequired();
+        assertEquals(200, (int) field.getValueAt((short) 0, (short) 0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReleaseUnreferenced() {
+        new TestField().release();
+    }
+}
@@ -0,0 +1,169 @@
+package project.field;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import project.control.ArenaManager;
+
+/**
+ * Tests the {@link FieldCache} class.
+ */
+public class FieldCacheTest {
+
+    private static final int HEIGHT = ArenaManager.ARENA_HEIGHT + 1;
+    private static final int SIZE = (ArenaManager.ARENA_WIDTH + 1) * HEIGHT;
+
+    private Random rng = new Random(3111);
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("field-cache");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (DirectoryStream<Path> images = Files.newDirectoryStream(directory)) {
+            for (Path image : images) Files.delete(image);
+        }
+        Files.delete(directory);
+    }
+
+    // Solves a distance field with some random grids blocked
+    private int[][] solveRandomLayout(FieldCache.Key[] key) {
+        GridFieldSolver solver = new GridFieldSolver(ArenaManager.ARENA_WIDTH + 1, HEIGHT);
+        FieldObstacles obstacles = new FieldObstacles();
+        short[] towerPositions = new short[10];
+        for (int i = 0; i < towerPositions.length; i += 2) {
+            towerPositions[i] = (short) (rng.nextInt(11) * 40 + 20);
+            towerPositions[i + 1] = (short) (rng.nextInt(11) * 40 + 60);
+        }
+        obstacles.update(towerPositions);
+
+        int[] values = new int[SIZE];
+        int[] parents = new int[SIZE];
+        solver.solve(values, parents, obstacles.blocked, new int[] { solver.indexOf(ArenaManager.END_X, ArenaManager.END_Y) });
+        key[0] = new FieldCache.Key(obstacles.occupancy(0));
+        return new int[][] { values, parents };
+    }
+
+    @Test
+    public void testMemory() {
+        FieldCache cache = new FieldCache("test", 2, null);
+        FieldCache.Key[] keys = new FieldCache.Key[3];
+        int[][][] solutions = new int[3][][];
+        for (int i = 0; i < 3; i++) {
+            FieldCache.Key[] key = new FieldCache.Key[1];
+            solutions[i] = solveRandomLayout(key);
+            keys[i] = key[0];
+        }
+
+        int[] values = new int[SIZE];
+        int[] parents = new int[SIZE];
+        assertFalse(cache.load(keys[0], values, parents));
+
+        cache.store(keys[0], solutions[0][0], solutions[0][1]);
+        cache.store(keys[1], solutions[1][0], solutions[1][1]);
+        assertTrue(cache.load(keys[0], values, parents));
+        assertArrayEquals(solutions[0][0], values);
+        assertArrayEquals(solutions[0][1], parents);
+
+        // The least recently used entry is evicted
+        cache.store(keys[2], solutions[2][0], solutions[2][1]);
+        assertEquals(2, cache.size());
+        assertFalse(cache.load(keys[1], values, parents));
+        assertTrue(cache.load(keys[0], values, parents));
+        assertTrue(cache.load(keys[2], values, parents));
+        assertArrayEquals(solutions[2][0], values);
+        assertArrayEquals(solutions[2][1], parents);
+
+        // Integer and real values are not mixed up
+        assertFalse(cache.load(keys[0], new float[SIZE], parents));
+
+        // Arrays of another size are a cache miss
+        assertFalse(cache.load(keys[0], new int[SIZE - 1], parents));
+        assertFalse(cache.load(keys[0], values, new int[SIZE + 1]));
+    }
+
+    @Test
+    public void testDisk() throws IOException {
+        FieldCache.Key[] key = new FieldCache.Key[1];
+        int[][] solution = solveRandomLayout(key);
+        float[] floatValues = new float[SIZE];
+        for (int i = 0; i < SIZE; i++) floatValues[i] = rng.nextFloat();
+        FieldCache.Key floatKey = new FieldCache.Key(new long[] { 42 });
+
+        FieldCache cache = new FieldCache("test", 0, directory);
+        cache.store(key[0], solution[0], solution[1]);
+        cache.store(floatKey, floatValues, solution[1]);
+        assertEquals(0, cache.size());
+
+        // A new cache restores the images written by the previous one
+        FieldCache newCache = new FieldCache("test", 1, directory);
+        int[] values = new int[SIZE];
+        int[] parents = new int[SIZE];
+        assertTrue(newCache.load(key[0], values, parents));
+        assertArrayEquals(solution[0], values);
+        assertArrayEquals(solution[1], parents);
+
+        float[] restoredFloatValues = new float[SIZE];
+        assertTrue(newCache.load(floatKey, restoredFloatValues, parents));
+        assertArrayEquals(floatValues, restoredFloatValues, 0);
+
+        // A corrupt image is a cache miss
+        try (DirectoryStream<Path> images = Files.newDirectoryStream(directory)) {
+            for (Path image : images) Files.write(image, new byte[] { 1, 2, 3 });
+        }
+        assertFalse(new FieldCache("test", 1, directory).load(key[0], values, parents));
+    }
+
+    @Test
+    public void testSettings() throws IOException {
+        FieldCache.Key[] key = new FieldCache.Key[1];
+        int[][] solution = solveRandomLayout(key);
+        int[] values = new int[SIZE];
+        int[] parents = new int[SIZE];
+        short[] goals = { ArenaManager.END_X, ArenaManager.END_Y };
+        short[] otherGoals = { 20, 460 };
+
+        new FieldCache("test", 0, directory).store(key[0], solution[0], solution[1]);
+        assertTrue(new FieldCache("test", 0, directory).load(key[0], values, parents));
+
+        // Images of other end zones, resolutions or grids are a cache miss
+        assertFalse(new FieldCache("test", 0, directory, ArenaManager.ARENA_WIDTH + 1, HEIGHT, 1, otherGoals).load(key[0], values, parents));
+        assertFalse(new FieldCache("test", 0, directory, ArenaManager.ARENA_WIDTH + 1, HEIGHT, 4, goals).load(key[0], values, parents));
+        assertFalse(new FieldCache("test", 0, directory, ArenaManager.ARENA_WIDTH, HEIGHT, 1, goals).load(key[0], values, parents));
+
+        // An image with the name of another cache is checked against the header
+        FieldCache other = new FieldCache("other", 0, directory, ArenaManager.ARENA_WIDTH + 1, HEIGHT, 1, otherGoals);
+        other.store(key[0], solution[0], solution[1]);
+        try (DirectoryStream<Path> images = Files.newDirectoryStream(directory, "test-*")) {
+            for (Path image : images) {
+                try (DirectoryStream<Path> otherImages = Files.newDirectoryStream(directory, "other-*")) {
+                    for (Path otherImage : otherImages) Files.copy(image, otherImage, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        assertFalse(new FieldCache("other", 0, directory, ArenaManager.ARENA_WIDTH + 1, HEIGHT, 1, otherGoals).load(key[0], values, parents));
+
+        // Solutions for another grid are not stored
+        try {
+            new FieldCache("test", 0, null).store(key[0], new int[SIZE - 1], parents);
+            fail();
+        } catch (IllegalArgumentException e) {}
+    }
+}
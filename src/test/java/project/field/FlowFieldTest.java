@@ -0,0 +1,184 @@
+package project.field;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import project.control.ArenaManager;
+
+/**
+ * Tests the {@link FlowField} class.
+ */
+public class FlowFieldTest {
+
+    private static final int HEIGHT = ArenaManager.ARENA_HEIGHT + 1;
+    private static final int SIZE = (ArenaManager.ARENA_WIDTH + 1) * HEIGHT;
+
+    private Random rng = new Random(3111);
+
+    // The flow field must agree with the gradient descent of the field on every point
+    private void assertSameSteps(FlowField flowField, ArenaScalarField<?> field) {
+        for (short x = 0; x <= ArenaManager.ARENA_WIDTH; x++) {
+            for (short y = 0; y <= ArenaManager.ARENA_HEIGHT; y++) {
+                assertEquals(field.descendTaxicabPacked(x, y), flowField.step(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testIntValues() {
+        int[] values = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) values[i] = rng.nextInt(4) == 0 ? GridFieldSolver.UNREACHABLE : rng.nextInt(5);
+
+        FlowField flowField = new FlowField();
+        FlowField.Table table = FlowField.newTable();
+        FlowField.derive(values, table);
+        flowField.swap(table);
+
+        IntArenaScalarField field = new IntArenaScalarField() {
+            @Override
+            public int getIntValueAt(short x, short y) { return values[x * HEIGHT + y]; }
+
+            @Override
+            public void setValueAt(short x, short y, Integer value) { values[x * HEIGHT + y] = value; }
+
+            @Override
+            public void setAll(Integer value) {}
+        };
+        assertSameSteps(flowField, field);
+    }
+
+    @Test
+    public void testFloatValues() {
+        float[] values = new float[SIZE];
+        float[] choices = { 0f, -0f, 0.5f, 1f, Float.POSITIVE_INFINITY, Float.NaN };
+        for (int i = 0; i < SIZE; i++) values[i] = choices[rng.nextInt(choices.length)];
+
+        FlowField flowField = new FlowField();
+        FlowField.Table table = FlowField.newTable();
+        FlowField.derive(values, table);
+        flowField.swap(table);
+
+        FloatArenaScalarField field = new FloatArenaScalarField() {
+            @Override
+            public float getFloatValueAt(short x, short y) { return values[x * HEIGHT + y]; }
+
+            @Override
+            public void setValueAt(short x, short y, Float value) { values[x * HEIGHT + y] = value; }
+
+            @Override
+            public void setAll(Float value) {}
+        };
+        assertSameSteps(flowField, field);
+    }
+
+    @Test
+    public void testWalkToEnd() {
+        // Follow the flow of a distance field from the start to the end zone
+        GridFieldSolver solver = new GridFieldSolver(ArenaManager.ARENA_WIDTH + 1, HEIGHT);
+        boolean[] blocked = new boolean[SIZE];
+        for (int x = 0; x < 400; x++) blocked[solver.indexOf(x, 200)] = true;
+        int[] values = new int[SIZE];
+        solver.solve(values, new int[SIZE], blocked, new int[] { solver.indexOf(ArenaManager.END_X, ArenaManager.END_Y) });
+
+        FlowField flowField = new FlowField();
+        FlowField.Table table = FlowField.newTable();
+        FlowField.derive(values, table);
+        flowField.swap(table);
+
+        short x = 20, y = 460;
+        int numSteps = 0;
+        for (int point = flowField.step(x, y); point != ArenaScalarField.NO_POINT; point = flowField.step(x, y)) {
+            x = ArenaScalarField.unpackX(point);
+            y = ArenaScalarField.unpackY(point);
+            numSteps++;
+        }
+
+        assertEquals(ArenaManager.END_X, x);
+        assertEquals(ArenaManager.END_Y, y);
+        assertEquals(values[solver.indexOf(20, 460)], numSteps);
+    }
+
+    @Test
+    public void testAdvance() {
+        GridFieldSolver solver = new GridFieldSolver(ArenaManager.ARENA_WIDTH + 1, HEIGHT);
+        boolean[] blocked = new boolean[SIZE];
+        for (int i = 0; i < 40; i++) {
+            int gridX = rng.nextInt(12) * 40, gridY = rng.nextInt(12) * 40;
+            for (int x = gridX; x < gridX + 40; x++) for (int y = gridY; y < gridY + 40; y++) blocked[solver.indexOf(x, y)] = true;
+        }
+        int[] values = new int[SIZE];
+        solver.solve(values, new int[SIZE], blocked, new int[] { solver.indexOf(ArenaManager.END_X, ArenaManager.END_Y) });
+
+        FlowField flowField = new FlowField();
+        FlowField.Table table = FlowField.newTable();
+        FlowField.derive(values, table);
+        flowField.swap(table);
+
+        // Advancing by runs must end on the same point as stepping one pixel at a time
+        for (int i = 0; i < 1000; i++) {
+            short x = (short) rng.nextInt(ArenaManager.ARENA_WIDTH + 1), y = (short) rng.nextInt(HEIGHT);
+            int numSteps = rng.nextInt(1000);
+
+            short stepX = x, stepY = y;
+            for (int j = 0; j < numSteps; j++) {
+                int point = flowField.step(stepX, stepY);
+                if (point == ArenaScalarField.NO_POINT) break;
+                stepX = ArenaScalarField.unpackX(point);
+                stepY = ArenaScalarField.unpackY(point);
+            }
+
+            assertEquals(ArenaScalarField.packPoint(stepX, stepY), flowField.advance(x, y, numSteps));
+        }
+    }
+
+    @Test
+    public void testGoals() {
+        GridFieldSolver solver = new GridFieldSolver(ArenaManager.ARENA_WIDTH + 1, HEIGHT);
+        boolean[] blocked = new boolean[SIZE];
+        for (int i = 0; i < 40; i++) {
+            int gridX = rng.nextInt(12) * 40, gridY = rng.nextInt(12) * 40;
+            for (int x = gridX; x < gridX + 40; x++) for (int y = gridY; y < gridY + 40; y++) blocked[solver.indexOf(x, y)] = true;
+        }
+        int[] goals = { solver.indexOf(ArenaManager.END_X, ArenaManager.END_Y), solver.indexOf(20, 460), solver.indexOf(240, 260) };
+        for (int goal : goals) blocked[goal] = false;
+
+        // One pass from every goal gives the minimum of one pass per goal
+        int[] values = new int[SIZE], minimum = new int[SIZE];
+        int[][] valuesPerGoal = new int[goals.length][SIZE];
+        FlowField.Table table = FlowField.newTable();
+        solver.solve(values, new int[SIZE], blocked, goals);
+        FlowField.derive(values, table);
+        FlowField.deriveGoals(table, goals, new int[SIZE]);
+
+        for (int i = 0; i < goals.length; i++) solver.solve(valuesPerGoal[i], new int[SIZE], blocked, new int[] { goals[i] });
+        for (int index = 0; index < SIZE; index++) {
+            minimum[index] = valuesPerGoal[0][index];
+            for (int i = 1; i < goals.length; i++) minimum[index] = Math.min(minimum[index], valuesPerGoal[i][index]);
+        }
+        assertArrayEquals(minimum, values);
+
+        FlowField flowField = new FlowField();
+        flowField.swap(table);
+
+        // Each point is labelled with the goal that descent from it reaches, which is a nearest one if the point is reachable
+        for (short x = 0; x <= ArenaManager.ARENA_WIDTH; x++) {
+            for (short y = 0; y < HEIGHT; y++) {
+                int index = solver.indexOf(x, y);
+                int goal = flowField.getGoalAt(x, y);
+                int point = flowField.advance(x, y, SIZE);
+                int end = solver.indexOf(ArenaScalarField.unpackX(point), ArenaScalarField.unpackY(point));
+                if (values[end] != 0) {
+                    assertEquals(FlowField.NO_GOAL, goal);
+                    continue;
+                }
+
+                assertEquals(goals[goal], end);
+                if (!blocked[index]) assertEquals(values[index], valuesPerGoal[goal][index]);
+            }
+        }
+    }
+}
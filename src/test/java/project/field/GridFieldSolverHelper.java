@@ -0,0 +1,61 @@
+package project.field;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+/**
+ * Helper class to generate random grids for the tests of {@link GridFieldSolver} and {@link ParallelGridFieldSolver},
+ * and to check the fields that they solve.
+ */
+public class GridFieldSolverHelper {
+
+    /**
+     * Generates the blocked points of a random grid.
+     * @param rng The random number generator.
+     * @param size The number of points on the grid.
+     * @param density The probability that each point is blocked.
+     * @return Whether each point is blocked.
+     */
+    public static boolean[] randomBlocked(Random rng, int size, double density) {
+        boolean[] blocked = new boolean[size];
+        for (int i = 0; i < size; i++) blocked[i] = rng.nextDouble() < density;
+        return blocked;
+    }
+
+    /**
+     * Generates one to three random sources on a grid.
+     * @param rng The random number generator.
+     * @param size The number of points on the grid.
+     * @return The indices of the sources, which may repeat.
+     */
+    public static int[] randomSources(Random rng, int size) {
+        int[] sources = new int[1 + rng.nextInt(3)];
+        for (int i = 0; i < sources.length; i++) sources[i] = rng.nextInt(size);
+        return sources;
+    }
+
+    /**
+     * Asserts that each reachable point that is not a source is one step further than its parent, which is a neighbour,
+     * and that the other points have no parent.
+     * @param height The number of points in the y-direction.
+     * @param distances The solved distances.
+     * @param parents The solved parents.
+     * @param sources The indices of the sources.
+     */
+    public static void assertParentsConsistent(int height, int[] distances, int[] parents, int[] sources) {
+        for (int i = 0; i < distances.length; i++) {
+            int parent = parents[i];
+            if (parent == GridFieldSolver.NO_PARENT) {
+                boolean isSource = false;
+                for (int source : sources) isSource |= source == i;
+                assertEquals(isSource ? 0 : GridFieldSolver.UNREACHABLE, distances[i]);
+            } else {
+                int dx = Math.abs(parent / height - i / height);
+                int dy = Math.abs(parent % height - i % height);
+                assertEquals(1, dx + dy);
+                assertEquals(distances[parent] + 1, distances[i]);
+            }
+        }
+    }
+}
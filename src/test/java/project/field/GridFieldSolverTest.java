@@ -0,0 +1,260 @@
+package project.field;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static project.field.GridFieldSolverHelper.assertParentsConsistent;
+import static project.field.GridFieldSolverHelper.randomBlocked;
+import static project.field.GridFieldSolverHelper.randomSources;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link GridFieldSolver} class.
+ */
+public class GridFieldSolverTest {
+    // Number of random grids
+    private static final int NUM_RANDOM_GRIDS = 50;
+
+    private Random rng = new Random(3111);
+
+    // Reference implementation: Dijkstra's algorithm with a priority queue of (distance, index) pairs
+    private double[] solveReference(int width, int height, boolean[] blocked, double[] weights, int[] sources) {
+        double[] distances = new double[width * height];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        PriorityQueue<double[]> openSet = new PriorityQueue<>((o1, o2) -> Double.compare(o1[0], o2[0]));
+        for (int source : sources) {
+            distances[source] = 0;
+            openSet.add(new double[] { 0, source });
+        }
+
+        while (!openSet.isEmpty()) {
+            double[] current = openSet.poll();
+            int index = (int) current[1];
+            if (current[0] > distances[index]) continue;
+
+            int x = index / height, y = index % height;
+            int[][] neighbours = { { x - 1, y }, { x + 1, y }, { x, y - 1 }, { x, y + 1 } };
+            for (int[] neighbour : neighbours) {
+                if (neighbour[0] < 0 || neighbour[0] >= width || neighbour[1] < 0 || neighbour[1] >= height) continue;
+
+                int neighbourIndex = neighbour[0] * height + neighbour[1];
+                if (blocked[neighbourIndex]) continue;
+
+                double newCost = distances[index] + weights[neighbourIndex];
+                if (newCost < distances[neighbourIndex]) {
+                    distances[neighbourIndex] = newCost;
+                    openSet.add(new double[] { newCost, neighbourIndex });
+                }
+            }
+        }
+
+        return distances;
+    }
+
+    @Test
+    public void testUnitWeights() {
+        for (int n = 0; n < NUM_RANDOM_GRIDS; n++) {
+            int width = 1 + rng.nextInt(40), height = 1 + rng.nextInt(40);
+            GridFieldSolver solver = new GridFieldSolver(width, height);
+            boolean[] blocked = randomBlocked(rng, solver.getSize(), 0.3);
+            int[] sources = randomSources(rng, solver.getSize());
+            double[] weights = new double[solver.getSize()];
+            Arrays.fill(weights, 1);
+
+            int[] distances = new int[solver.getSize()];
+            solver.solve(distances, new int[solver.getSize()], blocked, sources);
+
+            double[] expected = solveReference(width, height, blocked, weights, sources);
+            for (int i = 0; i < distances.length; i++) {
+                assertEquals(expected[i] == Double.POSITIVE_INFINITY ? GridFieldSolver.UNREACHABLE : (int) expected[i], distances[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testIntegerWeights() {
+        GridFieldSolver solver = new GridFieldSolver(30, 30);
+        for (int n = 0; n < NUM_RANDOM_GRIDS; n++) {
+            int maxWeight = rng.nextInt(10);
+            boolean[] blocked = randomBlocked(rng, solver.getSize(), 0.2);
+            int[] sources = randomSources(rng, solver.getSize());
+            int[] weights = new int[solver.getSize()];
+            double[] referenceWeights = new double[solver.getSize()];
+            for (int i = 0; i < weights.length; i++) referenceWeights[i] = weights[i] = rng.nextInt(maxWeight + 1);
+
+            // The solver is reused, so no state leaks from one computation to the next
+            int[] distances = new int[solver.getSize()];
+            solver.solve(distances, new int[solver.getSize()], blocked, weights, maxWeight, sources);
+
+            double[] expected = solveReference(30, 30, blocked, referenceWeights, sources);
+            for (int i = 0; i < distances.length; i++) {
+                assertEquals(expected[i] == Double.POSITIVE_INFINITY ? GridFieldSolver.UNREACHABLE : (int) expected[i], distances[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testFloatWeights() {
+        GridFieldSolver solver = new GridFieldSolver(30, 30);
+        for (int n = 0; n < NUM_RANDOM_GRIDS; n++) {
+            boolean[] blocked = randomBlocked(rng, solver.getSize(), 0.2);
+            int[] sources = randomSources(rng, solver.getSize());
+            float[] weights = new float[solver.getSize()];
+            double[] referenceWeights = new double[solver.getSize()];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = rng.nextInt(4) == 0 ? rng.nextFloat() * 5 : 0;
+                referenceWeights[i] = weights[i] + 0.001f;
+            }
+
+            float[] distances = new float[solver.getSize()];
+            solver.solve(distances, new int[solver.getSize()], blocked, weights, 0.001f, sources);
+
+            double[] expected = solveReference(30, 30, blocked, referenceWeights, sources);
+            for (int i = 0; i < distances.length; i++) {
+                assertEquals(expected[i], distances[i], 1e-3);
+            }
+        }
+    }
+
+    @Test
+    public void testArenaSize() {
+        final int SIZE = 481;
+        GridFieldSolver solver = new GridFieldSolver(SIZE, SIZE);
+        boolean[] blocked = new boolean[solver.getSize()];
+        for (int x = 40; x < 440; x++) blocked[solver.indexOf(x, 200)] = true;
+        int[] sources = { solver.indexOf(460, 20) };
+
+        int[] distances = new int[solver.getSize()];
+        int[] parents = new int[solver.getSize()];
+        float[] floatDistances = new float[solver.getSize()];
+        float[] floatWeights = new float[solver.getSize()];
+        solver.solve(distances, parents, blocked, sources);
+        solver.solve(floatDistances, parents, blocked, floatWeights, 1, sources);
+
+        assertEquals(460 + 20, distances[solver.indexOf(0, 0)]);
+        assertEquals(0, distances[sources[0]]);
+        assertEquals(GridFieldSolver.UNREACHABLE, distances[solver.indexOf(100, 200)]);
+
+        float[] expected = new float[solver.getSize()];
+        for (int i = 0; i < expected.length; i++) expected[i] = distances[i] == GridFieldSolver.UNREACHABLE ? Float.POSITIVE_INFINITY : distances[i];
+        assertArrayEquals(expected, floatDistances, 0);
+    }
+
+    // Blocks or unblocks random rectangles, like towers being added or removed, and returns the number of changed points
+    private int changeRandomRectangles(boolean[] blocked, int width, int height, int[] changed) {
+        int numChanged = 0;
+        boolean[] isChanged = new boolean[blocked.length];
+        for (int r = 1 + rng.nextInt(3); r > 0; r--) {
+            int startX = rng.nextInt(width), startY = rng.nextInt(height);
+            int endX = Math.min(width - 1, startX + rng.nextInt(8)), endY = Math.min(height - 1, startY + rng.nextInt(8));
+            boolean isBlocked = rng.nextBoolean();
+            for (int x = startX; x <= endX; x++) {
+                for (int y = startY; y <= endY; y++) {
+                    int index = x * height + y;
+                    if (blocked[index] == isBlocked || isChanged[index]) continue;
+
+                    blocked[index] = isBlocked;
+                    isChanged[index] = true;
+                    changed[numChanged++] = index;
+                }
+            }
+        }
+
+        return numChanged;
+    }
+
+    @Test
+    public void testRepairUnitWeights() {
+        final int WIDTH = 40, HEIGHT = 30;
+        GridFieldSolver solver = new GridFieldSolver(WIDTH, HEIGHT);
+        boolean[] blocked = randomBlocked(rng, solver.getSize(), 0.2);
+        int[] sources = randomSources(rng, solver.getSize());
+        int[] distances = new int[solver.getSize()], parents = new int[solver.getSize()];
+        solver.solve(distances, parents, blocked, sources);
+
+        int[] changed = new int[solver.getSize()];
+        int[] expected = new int[solver.getSize()], expectedParents = new int[solver.getSize()];
+        for (int n = 0; n < NUM_RANDOM_GRIDS; n++) {
+            int numChanged = changeRandomRectangles(blocked, WIDTH, HEIGHT, changed);
+            solver.repair(distances, parents, blocked, changed, numChanged);
+
+            solver.solve(expected, expectedParents, blocked, sources);
+            assertArrayEquals(expected, distances);
+            assertParentsConsistent(solver.getHeight(), distances, parents, sources);
+        }
+    }
+
+    @Test
+    public void testRepairFloatWeights() {
+        final int WIDTH = 30, HEIGHT = 40;
+        GridFieldSolver solver = new GridFieldSolver(WIDTH, HEIGHT);
+        boolean[] blocked = randomBlocked(rng, solver.getSize(), 0.1);
+        int[] sources = randomSources(rng, solver.getSize());
+        float[] weights = new float[solver.getSize()];
+        float[] distances = new float[solver.getSize()];
+        int[] parents = new int[solver.getSize()];
+        solver.solve(distances, parents, blocked, weights, 0.001f, sources);
+
+        int[] changed = new int[solver.getSize()];
+        float[] expected = new float[solver.getSize()];
+        int[] expectedParents = new int[solver.getSize()];
+        for (int n = 0; n < NUM_RANDOM_GRIDS; n++) {
+            int numChanged = changeRandomRectangles(blocked, WIDTH, HEIGHT, changed);
+
+            // Add or remove the attacks of a tower around a random point
+            boolean[] isChanged = new boolean[solver.getSize()];
+            for (int i = 0; i < numChanged; i++) isChanged[changed[i]] = true;
+            int centerX = rng.nextInt(WIDTH), centerY = rng.nextInt(HEIGHT), radius = 1 + rng.nextInt(6);
+            float amount = (rng.nextBoolean() ? 1 : -1) * rng.nextFloat();
+            for (int x = Math.max(0, centerX - radius); x <= Math.min(WIDTH - 1, centerX + radius); x++) {
+                for (int y = Math.max(0, centerY - radius); y <= Math.min(HEIGHT - 1, centerY + radius); y++) {
+                    int index = x * HEIGHT + y;
+                    weights[index] = Math.max(0, weights[index] + amount);
+                    if (!isChanged[index]) {
+                        isChanged[index] = true;
+                        changed[numChanged++] = index;
+                    }
+                }
+            }
+
+            solver.repair(distances, parents, blocked, weights, 0.001f, changed, numChanged);
+
+            solver.solve(expected, expectedParents, blocked, weights, 0.001f, sources);
+            assertArrayEquals(expected, distances, 1e-4f);
+        }
+    }
+
+    @Test
+    public void testRepairArenaSize() {
+        final int SIZE = 481;
+        GridFieldSolver solver = new GridFieldSolver(SIZE, SIZE);
+        boolean[] blocked = new boolean[solver.getSize()];
+        int[] sources = { solver.indexOf(460, 20) };
+        int[] distances = new int[solver.getSize()], parents = new int[solver.getSize()];
+        solver.solve(distances, parents, blocked, sources);
+
+        // Add and then remove a tower grid near the end zone, where many shortest paths pass through
+        int[] changed = new int[40 * 40];
+        int numChanged = 0;
+        for (int x = 400; x < 440; x++) {
+            for (int y = 40; y < 80; y++) {
+                blocked[solver.indexOf(x, y)] = true;
+                changed[numChanged++] = solver.indexOf(x, y);
+            }
+        }
+
+        int[] expected = new int[solver.getSize()], expectedParents = new int[solver.getSize()];
+        solver.repair(distances, parents, blocked, changed, numChanged);
+        solver.solve(expected, expectedParents, blocked, sources);
+        assertArrayEquals(expected, distances);
+
+        for (int i = 0; i < numChanged; i++) blocked[changed[i]] = false;
+        solver.repair(distances, parents, blocked, changed, numChanged);
+        solver.solve(expected, expectedParents, blocked, sources);
+        assertArrayEquals(expected, distances);
+    }
+}
@@ -0,0 +1,121 @@
+package project.field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import project.control.ArenaManager;
+
+/**
+ * Tests the {@link HierarchicalPathfinder} class.
+ */
+public class HierarchicalPathfinderTest {
+
+    private static final int WIDTH = ArenaManager.ARENA_WIDTH + 1;
+    private static final int HEIGHT = ArenaManager.ARENA_HEIGHT + 1;
+    private static final int SIZE = WIDTH * HEIGHT;
+    private static final int[] CLUSTER_SIZES = { 40, 100, 120, 481 };
+
+    private Random rng = new Random(3111);
+
+    // Blocks or unblocks whole grids other than the end zone, like towers do, and returns the number of points changed
+    private int toggleRandomGrids(boolean[] blocked, int numGrids, int[] changed) {
+        int numChanged = 0;
+        for (int i = 0; i < numGrids; i++) {
+            int gridX = rng.nextInt(12) * 40, gridY = rng.nextInt(12) * 40;
+            if (gridX == ArenaManager.END_X / 40 * 40 && gridY == ArenaManager.END_Y / 40 * 40) continue;
+            for (int x = gridX; x < gridX + 40; x++) {
+                for (int y = gridY; y < gridY + 40; y++) {
+                    blocked[x * HEIGHT + y] = !blocked[x * HEIGHT + y];
+                    changed[numChanged++] = x * HEIGHT + y;
+                }
+            }
+        }
+        return numChanged;
+    }
+
+    // Following the directions from every reachable point must reach the goal, on a path that is not much longer than the shortest one
+    private void assertPathsReachGoal(HierarchicalPathfinder pathfinder, int[] distances, int goal, int clusterSize) {
+        for (short x = 0; x < WIDTH; x++) {
+            for (short y = 0; y < HEIGHT; y++) {
+                int distance = distances[x * HEIGHT + y];
+                if (distance == GridFieldSolver.UNREACHABLE) {
+                    assertEquals(FlowField.NONE, pathfinder.getDirectionAt(x, y));
+                    assertEquals(GridFieldSolver.UNREACHABLE, pathfinder.getDistanceAt(x, y));
+                    continue;
+                }
+
+                short pathX = x, pathY = y;
+                int pathLength = 0;
+                while (pathLength <= 4 * SIZE) {
+                    byte direction = pathfinder.getDirectionAt(pathX, pathY);
+                    if (direction == FlowField.NONE) break;
+
+                    int length = pathfinder.getRunLengthAt(pathX, pathY);
+                    assertTrue(length > 0);
+                    int point = FlowField.move(pathX, pathY, direction, length);
+                    pathX = ArenaScalarField.unpackX(point);
+                    pathY = ArenaScalarField.unpackY(point);
+                    pathLength += length;
+                }
+
+                assertEquals(String.format("Path from (%d, %d) is stuck", x, y), goal, pathX * HEIGHT + pathY);
+                assertEquals(String.format("Length of the path from (%d, %d)", x, y), pathLength, pathfinder.getDistanceAt(x, y));
+                assertTrue(pathLength >= distance);
+                assertTrue(String.format("Path from (%d, %d) is %d long instead of %d", x, y, pathLength, distance),
+                        pathLength <= distance + 4 * clusterSize);
+            }
+        }
+    }
+
+    @Test
+    public void testPaths() {
+        GridFieldSolver solver = new GridFieldSolver(WIDTH, HEIGHT);
+        int goal = solver.indexOf(ArenaManager.END_X, ArenaManager.END_Y);
+        int[] distances = new int[SIZE];
+
+        for (int clusterSize : CLUSTER_SIZES) {
+            boolean[] blocked = new boolean[SIZE];
+            toggleRandomGrids(blocked, 40, new int[SIZE * 40]);
+
+            HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(WIDTH, HEIGHT, clusterSize, goal, blocked);
+            pathfinder.rebuild();
+            solver.solve(distances, new int[SIZE], blocked, new int[] { goal });
+            assertPathsReachGoal(pathfinder, distances, goal, clusterSize);
+        }
+    }
+
+    @Test
+    public void testUpdate() {
+        GridFieldSolver solver = new GridFieldSolver(WIDTH, HEIGHT);
+        int goal = solver.indexOf(ArenaManager.END_X, ArenaManager.END_Y);
+        boolean[] blocked = new boolean[SIZE];
+        int[] changed = new int[SIZE * 3];
+        int[] distances = new int[SIZE];
+
+        HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(WIDTH, HEIGHT, 120, goal, blocked);
+        pathfinder.rebuild();
+        for (int n = 0; n < 10; n++) {
+            int numChanged = toggleRandomGrids(blocked, 3, changed);
+
+            pathfinder.update(changed, numChanged);
+
+            // The updated directions are the same as those built from scratch
+            HierarchicalPathfinder expected = new HierarchicalPathfinder(WIDTH, HEIGHT, 120, goal, blocked);
+            expected.rebuild();
+
+            for (short x = 0; x < WIDTH; x++) {
+                for (short y = 0; y < HEIGHT; y++) {
+                    assertEquals(expected.getDirectionAt(x, y), pathfinder.getDirectionAt(x, y));
+                    assertEquals(expected.getRunLengthAt(x, y), pathfinder.getRunLengthAt(x, y));
+                }
+            }
+
+            solver.solve(distances, new int[SIZE], blocked, new int[] { goal });
+            assertPathsReachGoal(pathfinder, distances, goal, 120);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package project.field;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the {@link MappedArenaScalarField} class.
+ */
+public class MappedArenaScalarFieldTest {
+
+    private static final int WIDTH = 7;
+    private static final int HEIGHT = 5;
+
+    private Random rng = new Random(3111);
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("mapped-field");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testPublish() throws IOException {
+        Path path = directory.resolve("int.field");
+        int[] values = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < values.length; i++) values[i] = rng.nextInt();
+
+        try (MappedArenaScalarField.OfInt writer = MappedArenaScalarField.createInt(path, WIDTH, HEIGHT);
+                MappedArenaScalarField<?> reader = MappedArenaScalarField.open(path)) {
+            assertEquals(0, writer.getVersion());
+            writer.publish(values);
+            writer.setValueAt((short) 6, (short) 4, 42);
+            values[6 * HEIGHT + 4] = 42;
+
+            assertTrue(reader instanceof MappedArenaScalarField.OfInt);
+            assertEquals(WIDTH, reader.getWidth());
+            assertEquals(HEIGHT, reader.getHeight());
+            assertEquals(values[3 * HEIGHT + 2], ((MappedArenaScalarField.OfInt) reader).getIntValueAt((short) 3, (short) 2));
+
+            int[] copy = new int[values.length];
+            assertEquals(2, ((MappedArenaScalarField.OfInt) reader).read(copy));
+            assertArrayEquals(values, copy);
+        }
+
+        // A new writer continues the sequence of the previous one
+        try (MappedArenaScalarField.OfInt writer = MappedArenaScalarField.createInt(path, WIDTH, HEIGHT)) {
+            assertEquals(2, writer.getVersion());
+            writer.setAll(7);
+            assertEquals(3, writer.getVersion());
+            assertEquals(7, writer.getIntValueAt((short) 0, (short) 0));
+        }
+    }
+
+    @Test
+    public void testConsistentRead() throws Exception {
+        Path path = directory.resolve("float.field");
+        try (MappedArenaScalarField.OfFloat writer = MappedArenaScalarField.createFloat(path, WIDTH, HEIGHT);
+                MappedArenaScalarField.OfFloat reader = (MappedArenaScalarField.OfFloat) MappedArenaScalarField.open(path)) {
+            // Every version contains a single value, so a torn read would contain two
+            Thread thread = new Thread(() -> {
+                float[] values = new float[WIDTH * HEIGHT];
+                for (int version = 1; version <= 20000; version++) {
+                    Arrays.fill(values, version);
+                    writer.publish(values);
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+
+            float[] copy = new float[WIDTH * HEIGHT];
+            long lastVersion = 0;
+            while (lastVersion < 20000) {
+                long version = reader.read(copy);
+                assertTrue(version >= lastVersion);
+                for (float value : copy) assertEquals(version, value, 0);
+                lastVersion = version;
+            }
+            thread.join();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidHeader() throws IOException {
+        Path path = directory.resolve("invalid.field");
+        Files.write(path, new byte[MappedArenaScalarField.HEADER_SIZE]);
+        MappedArenaScalarField.open(path);
+    }
+}
@@ -0,0 +1,120 @@
+package project.field;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import project.Player;
+import project.arena.ArenaEventRegister;
+import project.arena.HeadlessArenaRenderer;
+import project.control.ArenaManager;
+import project.entity.ArenaObjectFactory;
+import project.entity.ArenaObjectFactory.TowerType;
+import project.entity.Tower;
+
+/**
+ * Tests the {@link MonsterAttacksToEndField} class.
+ */
+public class MonsterAttacksToEndFieldTest {
+
+    private static final int WIDTH = ArenaManager.ARENA_WIDTH + 1;
+    private static final int HEIGHT = ArenaManager.ARENA_HEIGHT + 1;
+
+    private Random rng = new Random(3111);
+
+    private MonsterAttacksToEndField field;
+
+    private List<Tower> towers = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        ArenaManager.loadHeadless(new HeadlessArenaRenderer(), new Player("headless", 0));
+        field = ArenaManager.getActiveScalarFieldRegister().MONSTER_ATTACKS_TO_END;
+        field.acquire();
+    }
+
+    @After
+    public void tearDown() {
+        field.release();
+        ArenaManager.getActiveArenaInstance().dispose();
+    }
+
+    // Adds the attacks of each tower to each point that it can shoot, as decided by the tower itself
+    private float[] countAttacks() throws ReflectiveOperationException {
+        Method isInRange = Tower.class.getDeclaredMethod("isInRange", short.class, short.class);
+        isInRange.setAccessible(true);
+
+        float[] expected = new float[WIDTH * HEIGHT];
+        for (Tower t : towers) {
+            int startX = Math.max(0, t.getX() - t.getMaxRange()), endX = Math.min(WIDTH - 1, t.getX() + t.getMaxRange());
+            int startY = Math.max(0, t.getY() - t.getMaxRange()), endY = Math.min(HEIGHT - 1, t.getY() + t.getMaxRange());
+            for (int x = startX; x <= endX; x++) {
+                for (int y = startY; y <= endY; y++) {
+                    if ((boolean) isInRange.invoke(t, (short) x, (short) y)) expected[x * HEIGHT + y] += 1f / t.getReload();
+                }
+            }
+        }
+        return expected;
+    }
+
+    private Tower addRandomTower() {
+        TowerType type = TowerType.values()[rng.nextInt(TowerType.values().length)];
+        Tower t = ArenaObjectFactory.createTower(this, type, (short) rng.nextInt(WIDTH), (short) rng.nextInt(HEIGHT));
+        towers.add(t);
+        return t;
+    }
+
+    @Test
+    public void testRingsMatchRanges() throws ReflectiveOperationException {
+        ArenaEventRegister register = ArenaManager.getActiveEventRegister();
+
+        for (int n = 0; n < 6; n++) {
+            // Add, remove and move towers, with some of the moves in a batch
+            for (int i = 0; i < 3; i++) addRandomTower();
+            if (towers.size() > 4) ArenaObjectFactory.removeObject(this, towers.remove(rng.nextInt(towers.size())));
+            towers.get(rng.nextInt(towers.size())).moveObject(this, (short) rng.nextInt(WIDTH), (short) rng.nextInt(HEIGHT));
+
+            register.beginMoveBatch();
+            for (Tower t : towers) {
+                if (rng.nextBoolean()) t.moveObject(this, (short) rng.nextInt(WIDTH), (short) rng.nextInt(HEIGHT));
+            }
+            register.endMoveBatch(this);
+
+            float[] expected = countAttacks();
+            float[] actual = field.copyTowerAttacksPerFrame();
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(String.format("Attacks at (%d, %d)", i / HEIGHT, i % HEIGHT), expected[i], actual[i], 1e-4f);
+            }
+        }
+    }
+
+    @Test
+    public void testCancelledAddRestoresValues() {
+        for (int i = 0; i < 8; i++) addRandomTower();
+        float[] before = field.copyTowerAttacksPerFrame();
+
+        for (int n = 0; n < 10; n++) {
+            Tower t = addRandomTower();
+            ArenaObjectFactory.removeObject(this, t);
+            towers.remove(t);
+
+            // Not merely close, but identical
+            assertArrayEquals(before, field.copyTowerAttacksPerFrame(), 0);
+        }
+
+        // The same holds when a tower is moved away and back
+        Tower t = towers.get(0);
+        short x = t.getX(), y = t.getY();
+        t.moveObject(this, (short) rng.nextInt(WIDTH), (short) rng.nextInt(HEIGHT));
+        t.moveObject(this, x, y);
+        assertArrayEquals(before, field.copyTowerAttacksPerFrame(), 0);
+    }
+}
@@ -0,0 +1,100 @@
+package project.field;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import project.control.ArenaManager;
+
+/**
+ * Tests the {@link MonsterDensityField} class.
+ */
+public class MonsterDensityFieldTest {
+
+    private static final int WIDTH = ArenaManager.ARENA_WIDTH + 1;
+    private static final int HEIGHT = ArenaManager.ARENA_HEIGHT + 1;
+    private static final int[] RESOLUTIONS = { 1, 7, 10, 40 };
+
+    private Random rng = new Random(3111);
+
+    // Counts the monsters in the cells that overlap a rectangle one by one
+    private static int countInCells(short[] xs, short[] ys, int numMonsters, int resolution, int minX, int minY, int maxX, int maxY) {
+        if (Math.max(0, minX) > Math.min(WIDTH - 1, maxX) || Math.max(0, minY) > Math.min(HEIGHT - 1, maxY)) return 0;
+
+        int startCellX = Math.max(0, minX) / resolution, endCellX = Math.min(WIDTH - 1, maxX) / resolution;
+        int startCellY = Math.max(0, minY) / resolution, endCellY = Math.min(HEIGHT - 1, maxY) / resolution;
+
+        int count = 0;
+        for (int i = 0; i < numMonsters; i++) {
+            int cellX = xs[i] / resolution, cellY = ys[i] / resolution;
+            if (cellX >= startCellX && cellX <= endCellX && cellY >= startCellY && cellY <= endCellY) count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testCounts() {
+        for (int resolution : RESOLUTIONS) {
+            MonsterDensityField field = new MonsterDensityField(WIDTH, HEIGHT, resolution);
+            int numMonsters = 500;
+            short[] xs = new short[numMonsters], ys = new short[numMonsters];
+            for (int i = 0; i < numMonsters; i++) {
+                xs[i] = (short) rng.nextInt(WIDTH);
+                ys[i] = (short) rng.nextInt(HEIGHT);
+                field.increment(xs[i], ys[i], 1);
+            }
+
+            for (int n = 0; n < 20; n++) {
+                // Monsters move, and some of them leave the arena
+                for (int i = 0; i < numMonsters; i++) {
+                    short x = (short) Math.max(0, Math.min(WIDTH - 1, xs[i] + rng.nextInt(21) - 10));
+                    short y = (short) Math.max(0, Math.min(HEIGHT - 1, ys[i] + rng.nextInt(21) - 10));
+                    field.increment(xs[i], ys[i], -1);
+                    field.increment(x, y, 1);
+                    xs[i] = x;
+                    ys[i] = y;
+                }
+                field.increment(xs[numMonsters - 1], ys[numMonsters - 1], -1);
+                numMonsters--;
+
+                assertEquals(numMonsters, field.getNumMonsters());
+                for (int i = 0; i < 100; i++) {
+                    int minX = rng.nextInt(WIDTH + 40) - 20, minY = rng.nextInt(HEIGHT + 40) - 20;
+                    int maxX = minX + rng.nextInt(200), maxY = minY + rng.nextInt(200);
+                    assertEquals(countInCells(xs, ys, numMonsters, resolution, minX, minY, maxX, maxY),
+                            field.countInRectangle((short) minX, (short) minY, (short) maxX, (short) maxY));
+
+                    short x = (short) rng.nextInt(WIDTH), y = (short) rng.nextInt(HEIGHT);
+                    assertEquals(countInCells(xs, ys, numMonsters, resolution, x, y, x, y), field.getIntValueAt(x, y));
+                }
+            }
+
+            // A rectangle outside the arena has no monsters
+            assertEquals(0, field.countInRectangle((short) -50, (short) -50, (short) -1, (short) -1));
+        }
+    }
+
+    @Test
+    public void testCountInCircle() {
+        MonsterDensityField field = new MonsterDensityField(WIDTH, HEIGHT, 1);
+        short centerX = 200, centerY = 300, radius = 50;
+
+        // With one point per cell, monsters well inside the circle are counted and those well outside are not
+        for (int i = 0; i < 1000; i++) {
+            short x = (short) rng.nextInt(WIDTH), y = (short) rng.nextInt(HEIGHT);
+            field.setAll(0);
+            field.increment(x, y, 1);
+
+            double distance = Math.hypot(x - centerX, y - centerY);
+            if (distance <= radius * 0.85) assertEquals(1, field.countInCircle(centerX, centerY, radius));
+            if (distance >= radius * 1.3) assertEquals(0, field.countInCircle(centerX, centerY, radius));
+        }
+
+        field.setAll(0);
+        field.increment(centerX, centerY, 3);
+        assertEquals(3, field.countInCircle(centerX, centerY, (short) 0));
+        assertEquals(3, field.countInCircle((short) 0, (short) 0, (short) 1000));
+    }
+}
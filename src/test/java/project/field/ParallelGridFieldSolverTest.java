@@ -0,0 +1,107 @@
+package project.field;
+
+import static org.junit.Assert.assertArrayEquals;
+import static project.field.GridFieldSolverHelper.assertParentsConsistent;
+import static project.field.GridFieldSolverHelper.randomBlocked;
+import static project.field.GridFieldSolverHelper.randomSources;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link ParallelGridFieldSolver} class.
+ */
+public class ParallelGridFieldSolverTest {
+    // Number of random grids
+    private static final int NUM_RANDOM_GRIDS = 50;
+
+    private Random rng = new Random(3111);
+
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+
+    @Test
+    public void testUnitWeights() {
+        for (int n = 0; n < NUM_RANDOM_GRIDS; n++) {
+            int width = 1 + rng.nextInt(60), height = 1 + rng.nextInt(60), tileSize = 1 + rng.nextInt(16);
+            GridFieldSolver solver = new GridFieldSolver(width, height);
+            ParallelGridFieldSolver parallelSolver = new ParallelGridFieldSolver(width, height, tileSize, pool);
+            boolean[] blocked = randomBlocked(rng, solver.getSize(), 0.3);
+            int[] sources = randomSources(rng, solver.getSize());
+
+            int[] expected = new int[solver.getSize()], distances = new int[solver.getSize()];
+            int[] parents = new int[solver.getSize()];
+            solver.solve(expected, new int[solver.getSize()], blocked, sources);
+            parallelSolver.solve(distances, parents, blocked, sources);
+
+            assertArrayEquals(expected, distances);
+            assertParentsConsistent(height, distances, parents, sources);
+        }
+    }
+
+    @Test
+    public void testFloatWeights() {
+        for (int n = 0; n < NUM_RANDOM_GRIDS; n++) {
+            int width = 1 + rng.nextInt(60), height = 1 + rng.nextInt(60), tileSize = 1 + rng.nextInt(16);
+            GridFieldSolver solver = new GridFieldSolver(width, height);
+            ParallelGridFieldSolver parallelSolver = new ParallelGridFieldSolver(width, height, tileSize, pool);
+            boolean[] blocked = randomBlocked(rng, solver.getSize(), 0.2);
+            int[] sources = randomSources(rng, solver.getSize());
+            float[] weights = new float[solver.getSize()];
+            for (int i = 0; i < weights.length; i++) weights[i] = rng.nextInt(4) == 0 ? rng.nextFloat() * 5 : 0;
+
+            float[] expected = new float[solver.getSize()], distances = new float[solver.getSize()];
+            solver.solve(expected, new int[solver.getSize()], blocked, weights, 0.001f, sources);
+            parallelSolver.solve(distances, new int[solver.getSize()], blocked, weights, 0.001f, sources);
+
+            // The results must be identical, not merely close
+            assertArrayEquals(expected, distances, 0);
+        }
+    }
+
+    @Test
+    public void testRepairAfterParallelSolve() {
+        final int WIDTH = 50, HEIGHT = 40;
+        GridFieldSolver solver = new GridFieldSolver(WIDTH, HEIGHT);
+        ParallelGridFieldSolver parallelSolver = new ParallelGridFieldSolver(WIDTH, HEIGHT, 8, pool);
+        boolean[] blocked = randomBlocked(rng, solver.getSize(), 0.1);
+        int[] sources = randomSources(rng, solver.getSize());
+        int[] distances = new int[solver.getSize()], parents = new int[solver.getSize()];
+        parallelSolver.solve(distances, parents, blocked, sources);
+
+        int[] changed = new int[solver.getSize()];
+        int numChanged = 0;
+        for (int i = 0; i < blocked.length; i++) {
+            if (rng.nextInt(10) == 0) {
+                blocked[i] = !blocked[i];
+                changed[numChanged++] = i;
+            }
+        }
+        solver.repair(distances, parents, blocked, changed, numChanged);
+
+        int[] expected = new int[solver.getSize()];
+        solver.solve(expected, new int[solver.getSize()], blocked, sources);
+        assertArrayEquals(expected, distances);
+    }
+
+    @Test
+    public void testArenaSize() {
+        final int SIZE = 481;
+        GridFieldSolver solver = new GridFieldSolver(SIZE, SIZE);
+        ParallelGridFieldSolver parallelSolver = new ParallelGridFieldSolver(SIZE, SIZE);
+        boolean[] blocked = new boolean[solver.getSize()];
+        for (int x = 40; x < 440; x++) blocked[solver.indexOf(x, 200)] = true;
+        float[] weights = new float[solver.getSize()];
+        for (int i = 0; i < weights.length; i++) weights[i] = rng.nextInt(8) == 0 ? rng.nextFloat() : 0;
+        int[] sources = { solver.indexOf(460, 20) };
+
+        int[] parents = new int[solver.getSize()];
+        float[] expected = new float[solver.getSize()], distances = new float[solver.getSize()];
+        solver.solve(expected, parents, blocked, weights, 0.001f, sources);
+        parallelSolver.solve(distances, parents, blocked, weights, 0.001f, sources);
+
+        assertArrayEquals(expected, distances, 0);
+    }
+}
@@ -0,0 +1,128 @@
+package project.field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import project.control.ArenaManager;
+
+/**
+ * Tests the {@link PlacementEvaluator} class.
+ */
+public class PlacementEvaluatorTest {
+
+    private static final int WIDTH = ArenaManager.ARENA_WIDTH + 1;
+    private static final int HEIGHT = ArenaManager.ARENA_HEIGHT + 1;
+    private static final int SIZE = WIDTH * HEIGHT;
+    private static final int NUM_GRIDS = 12;
+
+    private Random rng = new Random(3111);
+
+    // Blocks every point of a grid, where the last grid in each direction also contains the far edge
+    private static void blockGrid(boolean[] blocked, int gridX, int gridY) {
+        int endX = gridX == NUM_GRIDS - 1 ? WIDTH - 1 : gridX * 40 + 39;
+        int endY = gridY == NUM_GRIDS - 1 ? HEIGHT - 1 : gridY * 40 + 39;
+        for (int x = gridX * 40; x <= endX; x++) {
+            for (int y = gridY * 40; y <= endY; y++) blocked[x * HEIGHT + y] = true;
+        }
+    }
+
+    private static boolean isStartOrEnd(int gridX, int gridY) {
+        return (gridX == ArenaManager.STARTING_X / 40 && gridY == ArenaManager.STARTING_Y / 40)
+                || (gridX == ArenaManager.END_X / 40 && gridY == ArenaManager.END_Y / 40);
+    }
+
+    @Test
+    public void testImpacts() {
+        GridFieldSolver solver = new GridFieldSolver(WIDTH, HEIGHT);
+        int[] sources = { solver.indexOf(ArenaManager.END_X, ArenaManager.END_Y) };
+        int start = solver.indexOf(ArenaManager.STARTING_X, ArenaManager.STARTING_Y);
+        PlacementEvaluator evaluator = new PlacementEvaluator();
+
+        for (int n = 0; n < 3; n++) {
+            // Some grids have towers, whose rings overlap
+            boolean[] blocked = new boolean[SIZE];
+            boolean[] isCandidateGrid = new boolean[NUM_GRIDS * NUM_GRIDS];
+            float[] weights = new float[SIZE];
+            for (int gridX = 0; gridX < NUM_GRIDS; gridX++) {
+                for (int gridY = 0; gridY < NUM_GRIDS; gridY++) {
+                    if (isStartOrEnd(gridX, gridY)) continue;
+
+                    if (rng.nextInt(5) == 0) {
+                        blockGrid(blocked, gridX, gridY);
+                        PlacementEvaluator.addRing(weights, 1f / (1 + rng.nextInt(20)), (short) (gridX * 40 + 20), (short) (gridY * 40 + 20),
+                                (short) 0, (short) (50 + rng.nextInt(100)));
+                    } else {
+                        isCandidateGrid[gridX * NUM_GRIDS + gridY] = true;
+                    }
+                }
+            }
+
+            PlacementEvaluator.Impacts impacts = evaluator.evaluate(blocked, weights, isCandidateGrid, 0.05f, (short) 20, (short) 100);
+
+            int[] distances = new int[SIZE];
+            float[] attacks = new float[SIZE];
+            solver.solve(distances, new int[SIZE], blocked, sources);
+            solver.solve(attacks, new int[SIZE], blocked, weights, MonsterAttacksToEndField.MOVEMENT_COST, sources);
+            assertEquals(distances[start], impacts.getBaseDistance());
+            assertEquals(attacks[start], impacts.getBaseAttacks(), 0);
+
+            // Each candidate gives the same costs as solving the whole field again with the new tower
+            for (int gridX = 0; gridX < NUM_GRIDS; gridX++) {
+                for (int gridY = 0; gridY < NUM_GRIDS; gridY++) {
+                    assertEquals(isCandidateGrid[gridX * NUM_GRIDS + gridY], impacts.isEvaluated(gridX, gridY));
+                    if (!impacts.isEvaluated(gridX, gridY)) continue;
+
+                    boolean[] newBlocked = blocked.clone();
+                    float[] newWeights = weights.clone();
+                    blockGrid(newBlocked, gridX, gridY);
+                    PlacementEvaluator.addRing(newWeights, 0.05f, (short) (gridX * 40 + 20), (short) (gridY * 40 + 20), (short) 20, (short) 100);
+
+                    solver.solve(distances, new int[SIZE], newBlocked, sources);
+                    solver.solve(attacks, new int[SIZE], newBlocked, newWeights, MonsterAttacksToEndField.MOVEMENT_COST, sources);
+
+                    String grid = String.format("Grid (%d, %d)", gridX, gridY);
+                    if (distances[start] == GridFieldSolver.UNREACHABLE) {
+                        assertEquals(grid, GridFieldSolver.UNREACHABLE, impacts.getDistanceDelta(gridX, gridY));
+                        assertEquals(grid, Float.POSITIVE_INFINITY, impacts.getAttacksDelta(gridX, gridY), 0);
+                        continue;
+                    }
+
+                    assertEquals(grid, distances[start] - impacts.getBaseDistance(), impacts.getDistanceDelta(gridX, gridY));
+                    // The search sums the costs along the path in the opposite order, so it differs by the rounding errors of the sums
+                    float expected = attacks[start] - impacts.getBaseAttacks();
+                    assertEquals(grid, expected, impacts.getAttacksDelta(gridX, gridY), 1e-3f + attacks[start] * 1e-4f);
+                }
+            }
+
+            assertTrue(impacts.getNumSearched() > 0);
+        }
+    }
+
+    @Test
+    public void testNotEvaluated() {
+        PlacementEvaluator evaluator = new PlacementEvaluator();
+        boolean[] isCandidateGrid = new boolean[NUM_GRIDS * NUM_GRIDS];
+        isCandidateGrid[5 * NUM_GRIDS + 5] = true;
+
+        PlacementEvaluator.Impacts impacts = evaluator.evaluate(new boolean[SIZE], new float[SIZE], isCandidateGrid, 1, (short) 0, (short) 50);
+        assertTrue(impacts.isEvaluated(5, 5));
+        assertFalse(impacts.isEvaluated(5, 6));
+        assertFalse(impacts.isEvaluated(-1, 5));
+        assertFalse(impacts.isEvaluated(5, NUM_GRIDS));
+
+        // A grid away from the straight path to the end zone changes neither cost
+        assertEquals(0, impacts.getDistanceDelta(5, 5));
+        assertEquals(0, impacts.getAttacksDelta(5, 5), 0);
+        assertEquals(0, impacts.getNumSearched());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRanges() {
+        new PlacementEvaluator().evaluate(new boolean[SIZE], new float[SIZE], new boolean[NUM_GRIDS * NUM_GRIDS], 1, (short) 50, (short) 20);
+    }
+}
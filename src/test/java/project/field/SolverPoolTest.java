@@ -0,0 +1,70 @@
+package project.field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link SolverPool} class.
+ */
+public class SolverPoolTest {
+
+    private int numCreated = 0;
+
+    @Test
+    public void testReuse() {
+        SolverPool<GridFieldSolver> pool = new SolverPool<>(() -> {
+            numCreated++;
+            return new GridFieldSolver(4, 4);
+        });
+
+        // Calculations at the same time get different solvers
+        GridFieldSolver first = pool.acquire();
+        GridFieldSolver second = pool.acquire();
+        assertNotSame(first, second);
+        assertEquals(2, numCreated);
+
+        // Later calculations reuse them
+        pool.release(first);
+        pool.release(second);
+        assertEquals(2, pool.getNumAvailable());
+        for (int i = 0; i < 10; i++) {
+            GridFieldSolver solver = pool.acquire();
+            assertSame(second, solver);
+            pool.release(solver);
+        }
+        assertEquals(2, numCreated);
+        assertEquals(2, pool.getNumAvailable());
+    }
+
+    @Test
+    public void testRepairAfterAnotherField() {
+        int size = 16;
+        GridFieldSolver shared = new GridFieldSolver(size, size);
+        int[] sources = { 0 };
+        boolean[] blocked = new boolean[size * size];
+        int[] distances = new int[size * size], parents = new int[size * size];
+        shared.solve(distances, parents, blocked, sources);
+
+        // Another field is solved and repaired with the same solver in between
+        boolean[] otherBlocked = new boolean[size * size];
+        int[] otherDistances = new int[size * size], otherParents = new int[size * size];
+        shared.solve(otherDistances, otherParents, otherBlocked, new int[] { size * size - 1 });
+        otherBlocked[shared.indexOf(3, 3)] = true;
+        shared.repair(otherDistances, otherParents, otherBlocked, new int[] { shared.indexOf(3, 3) }, 1);
+
+        // Repairing the first field gives the same values as solving it on a solver of its own
+        int[] changed = new int[size - 1];
+        for (int y = 0; y < size - 1; y++) {
+            changed[y] = shared.indexOf(size / 2, y);
+            blocked[changed[y]] = true;
+        }
+        shared.repair(distances, parents, blocked, changed, changed.length);
+
+        int[] expected = new int[size * size];
+        new GridFieldSolver(size, size).solve(expected, new int[size * size], blocked, sources);
+        for (int i = 0; i < expected.length; i++) assertEquals(expected[i], distances[i]);
+    }
+}
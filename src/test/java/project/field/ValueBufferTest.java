@@ -0,0 +1,70 @@
+package project.field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link IntValueBuffer} and {@link FloatValueBuffer} classes.
+ */
+public class ValueBufferTest {
+
+    private Random rng = new Random(3111);
+
+    @Test
+    public void testCompactInt() {
+        IntValueBuffer buffer = new IntValueBuffer.Compact(8);
+        int[] values = { 0, 1, 480, 65534, 65535, 1000000, -5, GridFieldSolver.UNREACHABLE };
+        int[] expected = { 0, 1, 480, 65534, 65534, 65534, 0, GridFieldSolver.UNREACHABLE };
+
+        buffer.copyFrom(values);
+        for (int i = 0; i < values.length; i++) assertEquals(expected[i], buffer.get(i));
+
+        buffer.set(3, 12345);
+        assertEquals(12345, buffer.get(3));
+        buffer.fill(GridFieldSolver.UNREACHABLE);
+        assertEquals(GridFieldSolver.UNREACHABLE, buffer.get(0));
+        assertEquals(16, buffer.getSizeInBytes());
+    }
+
+    @Test
+    public void testCompactFloat() {
+        FloatValueBuffer buffer = new FloatValueBuffer.Compact(1);
+
+        // Special values are preserved
+        float[] specialValues = { 0f, -0f, 1f, -2f, 0.5f, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY };
+        for (float value : specialValues) {
+            buffer.set(0, value);
+            assertEquals(Float.floatToIntBits(value), Float.floatToIntBits(buffer.get(0)));
+        }
+        buffer.set(0, Float.NaN);
+        assertTrue(Float.isNaN(buffer.get(0)));
+
+        // Other values are rounded to 8 significant bits, and the order is preserved
+        for (int i = 0; i < 100000; i++) {
+            float a = rng.nextFloat() * 1000, b = rng.nextFloat() * 1000;
+            buffer.set(0, a);
+            float decodedA = buffer.get(0);
+            buffer.set(0, b);
+            float decodedB = buffer.get(0);
+
+            assertTrue(Math.abs(decodedA - a) <= Math.ulp(a) * (1 << 15));
+            if (a <= b) assertTrue(decodedA <= decodedB);
+        }
+    }
+
+    @Test
+    public void testPlain() {
+        IntValueBuffer intBuffer = new IntValueBuffer.Plain(2);
+        intBuffer.copyFrom(new int[] { 1000000, GridFieldSolver.UNREACHABLE });
+        assertEquals(1000000, intBuffer.get(0));
+        assertEquals(GridFieldSolver.UNREACHABLE, intBuffer.get(1));
+
+        FloatValueBuffer floatBuffer = new FloatValueBuffer.Plain(1);
+        floatBuffer.set(0, 0.1f);
+        assertEquals(0.1f, floatBuffer.get(0), 0);
+    }
+}
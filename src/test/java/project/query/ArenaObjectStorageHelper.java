@@ -17,6 +17,7 @@ import project.entity.ArenaObjectFactory.TowerType;
 import project.event.EventHandler;
 import project.event.EventManager;
 import project.event.eventargs.ArenaObjectEventArgs;
+import project.event.eventargs.ArenaObjectMoveBatchEventArgs;
 import project.field.MonsterAttacksToEndField;
 import project.field.MonsterDistanceToEndField;
 import project.query.ArenaObjectStorage.StoredType;
@@ -54,6 +55,12 @@ public class ArenaObjectStorageHelper {
             Field field_onEndMoveObject_attack = MonsterAttacksToEndField.class.getDeclaredField("onEndMoveObject");
             field_onEndMoveObject_attack.setAccessible(true);
 
+            Field field_onMoveObjects_distance = MonsterDistanceToEndField.class.getDeclaredField("onMoveObjects");
+            field_onMoveObjects_distance.setAccessible(true);
+
+            Field field_onMoveObjects_attack = MonsterAttacksToEndField.class.getDeclaredField("onMoveObjects");
+            field_onMoveObjects_attack.setAccessible(true);
+
             Method method_unsubscribe = EventManager.class.getDeclaredMethod("unsubscribe", EventHandler.class);
             method_unsubscribe.setAccessible(true);
 
@@ -71,6 +78,10 @@ public class ArenaObjectStorageHelper {
             EventManager<ArenaObjectEventArgs> ARENA_OBJECT_MOVE_END = ArenaManager.getActiveEventRegister().ARENA_OBJECT_MOVE_END;
             method_unsubscribe.invoke(ARENA_OBJECT_MOVE_END, field_onEndMoveObject_distance.get(ArenaManager.getActiveScalarFieldRegister().MONSTER_DISTANCE_TO_END));
             method_unsubscribe.invoke(ARENA_OBJECT_MOVE_END, field_onEndMoveObject_attack.get(ArenaManager.getActiveScalarFieldRegister().MONSTER_ATTACKS_TO_END));
+
+            EventManager<ArenaObjectMoveBatchEventArgs> ARENA_OBJECT_MOVE_BATCH = ArenaManager.getActiveEventRegister().ARENA_OBJECT_MOVE_BATCH;
+            method_unsubscribe.invoke(ARENA_OBJECT_MOVE_BATCH, field_onMoveObjects_distance.get(ArenaManager.getActiveScalarFieldRegister().MONSTER_DISTANCE_TO_END));
+            method_unsubscribe.invoke(ARENA_OBJECT_MOVE_BATCH, field_onMoveObjects_attack.get(ArenaManager.getActiveScalarFieldRegister().MONSTER_ATTACKS_TO_END));
         } catch (Exception e) {
             fail("An unexpected error has occurred");
         }
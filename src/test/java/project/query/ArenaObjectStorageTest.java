@@ -3,18 +3,22 @@ package project.query;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.Random;
 
 import org.junit.Test;
 
 import project.JavaFXTester;
+import project.arena.ArenaEventRegister;
 import project.control.ArenaManager;
 import project.entity.ArenaObject;
 import project.entity.ArenaObjectFactory;
 import project.entity.Monster;
 import project.entity.Projectile;
 import project.entity.Tower;
+import project.event.EventHandler;
+import project.event.eventargs.ArenaObjectMoveBatchEventArgs;
 import project.query.ArenaObjectStorage;
 import project.query.ArenaObjectStorage.SortOption;
 import project.query.ArenaObjectStorage.StoredComparableType;
@@ -225,4 +229,59 @@ public class ArenaObjectStorageTest extends JavaFXTester {
             assertTrue(ArenaManager.getActiveObjectStorage().getSortedIndexFor(type, SortOption.DESCENDING).isEmpty());
         }
     }
+
+    @Test
+    public void testMoveBatch() {
+        ArenaObjectStorageHelper.disableScalarFieldUpdates();
+        ArenaEventRegister register = ArenaManager.getActiveEventRegister();
+
+        for (int n = 0; n < NUM_RANDOM_ACTIONS / 10; n++) {
+            addObjects();
+        }
+
+        register.beginMoveBatch();
+        for (int n = 0; n < NUM_RANDOM_ACTIONS / 10; n++) {
+            moveObjects();
+            moveObjects(ZERO, ZERO);
+            moveObjects();
+        }
+        register.endMoveBatch(this);
+        checkTypeIndex(ArenaManager.getActiveObjectStorage());
+        checkXYIndex(ArenaManager.getActiveObjectStorage());
+
+        // Queries during a batch do not deliver it, and see the moves made so far
+        int[] numBatches = { 0 };
+        EventHandler<ArenaObjectMoveBatchEventArgs> countBatches = (sender, args) -> numBatches[0]++;
+        register.ARENA_OBJECT_MOVE_BATCH.subscribe(countBatches);
+
+        register.beginMoveBatch();
+        moveObjects();
+        for (ArenaObject o : ArenaManager.getActiveObjectStorage().getQueryResult(
+                new ArenaObjectRectangleSelector(ZERO, ZERO, ArenaManager.ARENA_WIDTH, (short) (ArenaManager.ARENA_HEIGHT / 2)),
+                EnumSet.allOf(StoredType.class))) {
+            assertTrue(o.getY() <= ArenaManager.ARENA_HEIGHT / 2);
+        }
+        moveObjects(ArenaManager.ARENA_WIDTH, ArenaManager.ARENA_HEIGHT);
+        LinkedList<ArenaObject> objects = new LinkedList<>(towers);
+        objects.addAll(projectiles);
+        objects.addAll(monsters);
+        int expected = 0;
+        for (ArenaObject o : objects) {
+            if (o.getX() == ArenaManager.ARENA_WIDTH && o.getY() == ArenaManager.ARENA_HEIGHT) expected++;
+        }
+        assertEquals(expected,
+                ArenaManager.getActiveObjectStorage().getQueryResult(
+                        new ArenaObjectRectangleSelector(ArenaManager.ARENA_WIDTH, ArenaManager.ARENA_HEIGHT, ZERO, ZERO),
+                        EnumSet.allOf(StoredType.class)).size());
+        checkXYIndex(ArenaManager.getActiveObjectStorage());
+        assertEquals(0, numBatches[0]);
+
+        // Removals during a batch deliver the moves made so far
+        moveObjects();
+        removeObjects();
+        register.endMoveBatch(this);
+        register.ARENA_OBJECT_MOVE_BATCH.unsubscribe(countBatches);
+        checkTypeIndex(ArenaManager.getActiveObjectStorage());
+        checkXYIndex(ArenaManager.getActiveObjectStorage());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package project.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the {@link ArrayKernels} class.
+ */
+public class ArrayKernelsTest {
+
+    private Random rng = new Random(3111);
+
+    // The loop that ArrayKernels.findFiniteRange replaces
+    private static void findFiniteRangeReference(double[] values, double[] range) {
+        for (double value : values) {
+            if (value != Double.POSITIVE_INFINITY && value != Double.NEGATIVE_INFINITY) {
+                if (value < range[0]) range[0] = value;
+                if (value > range[1]) range[1] = value;
+            }
+        }
+    }
+
+    @Test
+    public void testFindFiniteRange() {
+        double[] values = { Double.NEGATIVE_INFINITY, 3, Double.NaN, -2.5, Double.POSITIVE_INFINITY, 1 };
+        double[] range = { 0, 0 };
+        ArrayKernels.findFiniteRange(values, 0, values.length, range);
+        assertEquals(-2.5, range[0], 0);
+        assertEquals(3, range[1], 0);
+
+        // Only the values in the given part are considered
+        range = new double[] { 0, 0 };
+        ArrayKernels.findFiniteRange(values, 2, 5, range);
+        assertEquals(-2.5, range[0], 0);
+        assertEquals(0, range[1], 0);
+
+        // The same range as the scalar loop on a field-sized array
+        double[] field = new double[481 * 481];
+        for (int i = 0; i < field.length; i++) {
+            field[i] = rng.nextInt(20) == 0 ? Double.POSITIVE_INFINITY : rng.nextGaussian() * 1000;
+        }
+
+        double[] expected = { 0, 0 }, actual = { 0, 0 };
+        findFiniteRangeReference(field, expected);
+        ArrayKernels.findFiniteRange(field, 0, field.length, actual);
+        assertEquals(expected[0], actual[0], 0);
+        assertEquals(expected[1], actual[1], 0);
+    }
+}